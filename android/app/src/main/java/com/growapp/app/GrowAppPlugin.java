@@ -1,107 +1,70 @@
 package com.growapp.app;
 
-import android.Manifest;
+import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageManager;
+import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.Build;
-import android.os.Environment;
 import android.provider.DocumentsContract;
-import android.provider.Settings;
+import android.util.Log;
 import androidx.activity.result.ActivityResult;
-import androidx.core.app.ActivityCompat;
-import androidx.core.content.ContextCompat;
 import androidx.documentfile.provider.DocumentFile;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.ActivityCallback;
+import com.growapp.app.backup.AutoBackup;
+import com.growapp.app.backup.AutoBackupWorker;
+import com.growapp.app.backup.BackupArchive;
+import com.growapp.app.data.RecordDatabase;
+import com.growapp.app.data.WarmStartSnapshot;
+import com.growapp.app.diag.MeteredInputStream;
+import com.growapp.app.diag.MeteredOutputStream;
+import com.growapp.app.diag.Metrics;
+import com.growapp.app.io.DirectoryListing;
+import com.growapp.app.io.IoExecutor;
+import com.growapp.app.io.UriMetadataCache;
+import com.growapp.app.permission.PermissionBroker;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @CapacitorPlugin(name = "GrowApp")
 public class GrowAppPlugin extends Plugin {
-    private static final int PERMISSION_REQUEST_CODE = 12345;
-    private PluginCall savedCall;
+    private static final String TAG = "GrowAppBackup";
+    private static final int BACKUP_BUFFER_SIZE = 64 * 1024;
+    private static final String BACKUP_MIME_TYPE = "application/zip";
 
+    // 存储权限由 PermissionBroker 统一检查和请求，并发的请求共用一次对话框
     @PluginMethod
     public void requestStoragePermission(PluginCall call) {
-        savedCall = call;
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-            if (!Environment.isExternalStorageManager()) {
-                try {
-                    Intent intent = new Intent(Settings.ACTION_MANAGE_APP_ALL_FILES_ACCESS_PERMISSION);
-                    Uri uri = Uri.fromParts("package", getContext().getPackageName(), null);
-                    intent.setData(uri);
-                    startActivityForResult(call, intent, "handleManageStorageResult");
-                    return;
-                } catch (Exception e) {
-                    try {
-                        Intent intent = new Intent(Settings.ACTION_MANAGE_ALL_FILES_ACCESS_PERMISSION);
-                        startActivityForResult(call, intent, "handleManageStorageResult");
-                        return;
-                    } catch (Exception e2) {
-                        JSObject ret = new JSObject();
-                        ret.put("granted", false);
-                        ret.put("error", e2.getMessage());
-                        call.resolve(ret);
-                        return;
-                    }
-                }
-            } else {
-                JSObject ret = new JSObject();
-                ret.put("granted", true);
-                call.resolve(ret);
-                return;
-            }
-        }
-
-        // 检查基本存储权限
-        String[] permissions = {
-            Manifest.permission.READ_EXTERNAL_STORAGE,
-            Manifest.permission.WRITE_EXTERNAL_STORAGE
-        };
-
-        List<String> permissionsToRequest = new ArrayList<>();
-        for (String permission : permissions) {
-            if (ContextCompat.checkSelfPermission(getContext(), permission) != PackageManager.PERMISSION_GRANTED) {
-                permissionsToRequest.add(permission);
-            }
-        }
-
-        if (permissionsToRequest.isEmpty()) {
+        PermissionBroker.getInstance().request(getActivity(), granted -> {
             JSObject ret = new JSObject();
-            ret.put("granted", true);
+            ret.put("granted", granted);
             call.resolve(ret);
-            return;
-        }
-
-        ActivityCompat.requestPermissions(
-            getActivity(),
-            permissionsToRequest.toArray(new String[0]),
-            PERMISSION_REQUEST_CODE
-        );
-    }
-
-    @ActivityCallback
-    private void handleManageStorageResult(PluginCall call, ActivityResult result) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-            JSObject ret = new JSObject();
-            ret.put("granted", Environment.isExternalStorageManager());
-            call.resolve(ret);
-        }
+        });
     }
 
     @PluginMethod
     public void pickDirectory(PluginCall call) {
-        savedCall = call;
-        
         Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT_TREE);
         intent.addFlags(
             Intent.FLAG_GRANT_READ_URI_PERMISSION |
@@ -115,6 +78,7 @@ public class GrowAppPlugin extends Plugin {
                 Uri.parse("content://com.android.externalstorage.documents/document/primary%3A"));
         }
         
+        Metrics.getInstance().pickerStarted(call.getCallbackId());
         startActivityForResult(call, intent, "handleDirectoryPickerResult");
     }
 
@@ -123,50 +87,252 @@ public class GrowAppPlugin extends Plugin {
         if (call == null) {
             return;
         }
+        Metrics.getInstance().pickerFinished(call.getCallbackId());
 
         if (result.getResultCode() == android.app.Activity.RESULT_OK && result.getData() != null) {
             Intent data = result.getData();
             Uri treeUri = data.getData();
             
-            try {
-                final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION;
-                getContext().getContentResolver().takePersistableUriPermission(treeUri, takeFlags);
-                
-                DocumentFile pickedDir = DocumentFile.fromTreeUri(getContext(), treeUri);
-                
-                if (pickedDir != null && pickedDir.canWrite()) {
-                    JSObject ret = new JSObject();
-                    ret.put("path", treeUri.toString());
-                    ret.put("name", pickedDir.getName());
-                    call.resolve(ret);
-                } else {
-                    call.reject("无法写入所选目录");
+            // canWrite 和目录名称都会查询 DocumentsProvider，放到 I/O 线程
+            IoExecutor.getInstance().execute(call, () -> {
+                try {
+                    final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION;
+                    getContext().getContentResolver().takePersistableUriPermission(treeUri, takeFlags);
+                    
+                    DocumentFile pickedDir = DocumentFile.fromTreeUri(getContext(), treeUri);
+                    
+                    if (pickedDir != null && pickedDir.canWrite()) {
+                        UriMetadataCache.Entry entry = UriMetadataCache.getInstance(getContext())
+                            .remember(treeUri, UriMetadataCache.KIND_DIRECTORY);
+                        JSObject ret = new JSObject();
+                        ret.put("path", treeUri.toString());
+                        ret.put("name", entry.getName());
+                        call.resolve(ret);
+                    } else {
+                        call.reject("无法写入所选目录");
+                    }
+                } catch (Exception e) {
+                    call.reject("获取目录权限失败: " + e.getMessage());
                 }
-            } catch (Exception e) {
-                call.reject("获取目录权限失败: " + e.getMessage());
-            }
+            });
         } else {
             call.reject("用户取消了选择");
         }
     }
 
-    @Override
-    protected void handleRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
-        super.handleRequestPermissionsResult(requestCode, permissions, grantResults);
+    // 把所有儿童、记录和图表设置流式写入所选目录下的一个 ZIP 文件
+    @PluginMethod
+    public void createBackup(PluginCall call) {
+        String directory = call.getString("directory");
+        if (directory == null) {
+            call.reject("缺少 directory 参数");
+            return;
+        }
+        String fileName = call.getString("fileName", defaultBackupName());
+        IoExecutor.getInstance().execute(call, () -> {
+            Uri treeUri = Uri.parse(directory);
+            Uri parent = DocumentsContract.buildDocumentUriUsingTree(treeUri,
+                DocumentsContract.getTreeDocumentId(treeUri));
+            Uri backupUri = DocumentsContract.createDocument(getContext().getContentResolver(), parent,
+                BACKUP_MIME_TYPE, fileName);
+            if (backupUri == null) {
+                call.reject("无法在所选目录中创建备份文件");
+                return;
+            }
+            BackupArchive.Summary summary;
+            try (OutputStream out = getContext().getContentResolver().openOutputStream(backupUri, "w")) {
+                if (out == null) {
+                    throw new IOException("无法打开备份文件");
+                }
+                summary = BackupArchive.write(getStorage(),
+                    new BufferedOutputStream(new MeteredOutputStream(out), BACKUP_BUFFER_SIZE),
+                    System.currentTimeMillis());
+            } catch (IOException e) {
+                try {
+                    DocumentsContract.deleteDocument(getContext().getContentResolver(), backupUri);
+                } catch (Exception ignored) {
+                    // 删除失败时保留不完整的文件
+                }
+                call.reject("备份失败: " + e.getMessage());
+                return;
+            }
+            JSObject ret = new JSObject();
+            ret.put("uri", backupUri.toString());
+            ret.put("name", fileName);
+            ret.put("children", summary.getChildren());
+            ret.put("records", summary.getRecords());
+            call.resolve(ret);
+        });
+    }
+
+    // 从备份 ZIP 恢复；未传 uri 时先打开文件选择器
+    @PluginMethod
+    public void restoreBackup(PluginCall call) {
+        String uri = call.getString("uri");
+        if (uri != null) {
+            restoreFrom(call, Uri.parse(uri));
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType(BACKUP_MIME_TYPE);
+        Metrics.getInstance().pickerStarted(call.getCallbackId());
+        startActivityForResult(call, intent, "handleRestorePickerResult");
+    }
+
+    @ActivityCallback
+    private void handleRestorePickerResult(PluginCall call, ActivityResult result) {
+        if (call == null) {
+            return;
+        }
+        Metrics.getInstance().pickerFinished(call.getCallbackId());
+        if (result.getResultCode() == android.app.Activity.RESULT_OK && result.getData() != null
+                && result.getData().getData() != null) {
+            restoreFrom(call, result.getData().getData());
+        } else {
+            call.reject("用户取消了选择");
+        }
+    }
 
-        if (requestCode == PERMISSION_REQUEST_CODE && savedCall != null) {
-            boolean allGranted = true;
-            for (int result : grantResults) {
-                if (result != PackageManager.PERMISSION_GRANTED) {
-                    allGranted = false;
-                    break;
+    private void restoreFrom(PluginCall call, Uri uri) {
+        IoExecutor.getInstance().execute(call, () -> {
+            BackupArchive.Summary summary;
+            try (InputStream in = getContext().getContentResolver().openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("无法打开备份文件");
                 }
+                summary = BackupArchive.restore(
+                    new BufferedInputStream(new MeteredInputStream(in), BACKUP_BUFFER_SIZE), getStorage());
+            } catch (IOException e) {
+                call.reject("恢复失败: " + e.getMessage());
+                return;
             }
+            rebuildRecordMirror();
+            WarmStartSnapshot.getInstance(getContext()).rebuild();
+            JSObject ret = new JSObject();
+            ret.put("children", summary.getChildren());
+            ret.put("records", summary.getRecords());
+            call.resolve(ret);
+        });
+    }
+
+    // 开启或关闭每天一次的增量自动备份（充电且空闲时运行），写入 backupDirectory 对应的目录
+    @PluginMethod
+    public void setAutoBackup(PluginCall call) {
+        Boolean enabled = call.getBoolean("enabled");
+        if (enabled == null) {
+            call.reject("缺少 enabled 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            AutoBackupWorker.schedule(getContext(), enabled);
+            call.resolve();
+        });
+    }
 
+    // 立即执行一次增量备份，只写入上次之后变化的分段
+    @PluginMethod
+    public void runAutoBackup(PluginCall call) {
+        IoExecutor.getInstance().execute(call, () -> {
+            AutoBackup.Result result;
+            try {
+                result = AutoBackup.run(getContext());
+            } catch (IOException e) {
+                call.reject("自动备份失败: " + e.getMessage());
+                return;
+            }
+            if (result == null) {
+                call.reject("尚未选择备份目录");
+                return;
+            }
+            JSObject ret = new JSObject();
+            ret.put("generation", result.getGeneration());
+            ret.put("changed", result.isChanged());
+            ret.put("written", result.getWritten());
+            ret.put("removed", result.getRemoved());
+            ret.put("bytes", result.getBytes());
+            call.resolve(ret);
+        });
+    }
+
+    // 列出 pickDirectory 返回的目录（或其中 parentId 指定的子目录）：
+    // { directory, parentId, kind, nameContains, extensions, sort, descending, offset, limit }，一次查询返回一页
+    @PluginMethod
+    public void listDirectory(PluginCall call) {
+        String directory = call.getString("directory");
+        if (directory == null) {
+            call.reject("缺少 directory 参数");
+            return;
+        }
+        String parentId = call.getString("parentId");
+        String kind = call.getString("kind", DirectoryListing.KIND_ALL);
+        String sort = call.getString("sort", DirectoryListing.SORT_NAME);
+        boolean descending = Boolean.TRUE.equals(call.getBoolean("descending", false));
+        int offset = call.getInt("offset", 0);
+        int limit = call.getInt("limit", 0);
+        List<String> extensions = new ArrayList<>();
+        JSArray extensionArray = call.getArray("extensions");
+        if (extensionArray != null) {
+            for (int i = 0; i < extensionArray.length(); i++) {
+                String extension = extensionArray.optString(i);
+                if (!extension.isEmpty()) {
+                    extensions.add(extension);
+                }
+            }
+        }
+        DirectoryListing.Filter filter = new DirectoryListing.Filter(kind, call.getString("nameContains"), extensions);
+        IoExecutor.getInstance().execute(call, () -> {
+            Uri treeUri = Uri.parse(directory);
+            DirectoryListing.Page page;
+            try {
+                page = DirectoryListing.list(getContext().getContentResolver(), treeUri, parentId, filter,
+                    sort, descending, offset, limit);
+            } catch (SecurityException e) {
+                call.reject("没有访问该目录的权限，请重新选择目录");
+                return;
+            }
+            JSArray entries = new JSArray();
+            for (DirectoryListing.Item item : page.getItems()) {
+                entries.put(item.toJson(treeUri));
+            }
             JSObject ret = new JSObject();
-            ret.put("granted", allGranted);
-            savedCall.resolve(ret);
-            savedCall = null;
+            ret.put("entries", entries);
+            ret.put("total", page.getTotal());
+            ret.put("hasMore", Math.max(offset, 0) + page.getItems().size() < page.getTotal());
+            call.resolve(ret);
+        });
+    }
+
+    // 恢复后按新数据重建原生记录镜像，修订号使用恢复时写入的新值；
+    // 重建失败时镜像中的修订号与 Preferences 不同，JS 端重新加载时会逐个重写
+    private void rebuildRecordMirror() {
+        SharedPreferences storage = getStorage();
+        try {
+            String blob = storage.getString(BackupArchive.RECORDS_KEY, null);
+            String saved = storage.getString(BackupArchive.REVISIONS_KEY, null);
+            JSONObject records = blob != null ? new JSONObject(blob) : new JSONObject();
+            JSONObject revisions = saved != null ? new JSONObject(saved) : new JSONObject();
+            Map<String, Long> byChild = new HashMap<>();
+            Iterator<String> keys = revisions.keys();
+            while (keys.hasNext()) {
+                String childId = keys.next();
+                byChild.put(childId, revisions.getLong(childId));
+            }
+            RecordDatabase.getInstance(getContext()).replaceAll(records, byChild);
+        } catch (JSONException | RuntimeException e) {
+            Log.w(TAG, "Failed to rebuild record mirror after restore", e);
         }
     }
-} 
\ No newline at end of file
+
+    // @capacitor/preferences 默认分组使用的 SharedPreferences
+    private SharedPreferences getStorage() {
+        return getContext().getSharedPreferences(BackupArchive.PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static String defaultBackupName() {
+        Calendar c = Calendar.getInstance();
+        return String.format(Locale.ROOT, "GrowApp_备份_%04d%02d%02d_%02d%02d%02d.zip",
+            c.get(Calendar.YEAR), c.get(Calendar.MONTH) + 1, c.get(Calendar.DAY_OF_MONTH),
+            c.get(Calendar.HOUR_OF_DAY), c.get(Calendar.MINUTE), c.get(Calendar.SECOND));
+    }
+}
@@ -0,0 +1,38 @@
+package com.growapp.app;
+
+import android.net.Uri;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.BridgeWebViewClient;
+import com.growapp.app.io.FileHandleRegistry;
+import com.growapp.app.io.FileResponder;
+import com.growapp.app.photo.ThumbnailResponder;
+
+// 在 Capacitor 本地服务器之前拦截 /_growapp/ 下的请求，其余请求交给默认处理
+public class GrowAppWebViewClient extends BridgeWebViewClient {
+    private final Bridge bridge;
+
+    public GrowAppWebViewClient(Bridge bridge) {
+        super(bridge);
+        this.bridge = bridge;
+    }
+
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        Uri url = request.getUrl();
+        // 只处理应用自身来源的请求
+        if (bridge.getHost() != null && bridge.getHost().equals(url.getHost())) {
+            FileHandleRegistry.Handle handle = FileHandleRegistry.getInstance().resolve(url.getPath());
+            if (handle != null) {
+                return FileResponder.respond(bridge.getContext().getContentResolver(), handle, request);
+            }
+            if (ThumbnailResponder.handles(url.getPath())) {
+                return ThumbnailResponder.respond(bridge.getContext(), request);
+            }
+        }
+        return super.shouldInterceptRequest(view, request);
+    }
+}
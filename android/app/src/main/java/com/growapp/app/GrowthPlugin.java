@@ -0,0 +1,348 @@
+package com.growapp.app;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import com.growapp.app.data.GrowthDates;
+import com.growapp.app.data.RecordDatabase;
+import com.growapp.app.data.RecordSeries;
+import com.growapp.app.diag.Tracer;
+import com.growapp.app.growth.AnalyticsEngine;
+import com.growapp.app.growth.Downsampler;
+import com.growapp.app.growth.GrowthStandards;
+import com.growapp.app.growth.LmsTable;
+import com.growapp.app.io.IoExecutor;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 生长标准计算：加载一次 WHO 标准表后，按 LMS 方法计算 z 值和百分位，支持一次计算孩子的全部记录
+@CapacitorPlugin(name = "GrowAppGrowth")
+public class GrowthPlugin extends Plugin {
+    private static final String TAG = "GrowAppGrowth";
+    private static final Tracer TRACE = Tracer.forTag(TAG);
+    private static final double DAYS_PER_YEAR = 365.25;
+    private static final int MAX_POINTS = 1000;
+    private static final int MAX_BAND_POINTS = 200;
+    private static final int PIXELS_PER_BAND_POINT = 4;
+    private static final double[] DEFAULT_BANDS = {3, 15, 50, 85, 97};
+    private static final int DEFAULT_PROJECTION_DAYS = 90;
+    private static final int MAX_PROJECTION_DAYS = 365;
+    private static final String[] RESULT_KEYS = {"childId", "height", "weight", "alerts", "error"};
+    // 每个线程复用一个序列缓冲区，查询时不再为每次请求分配数组
+    private static final ThreadLocal<RecordSeries> SERIES = new ThreadLocal<RecordSeries>() {
+        @Override
+        protected RecordSeries initialValue() {
+            return new RecordSeries();
+        }
+    };
+
+    // standards 与 who-standards-template.json 格式相同
+    @PluginMethod
+    public void loadStandards(PluginCall call) {
+        JSObject standards = call.getObject("standards");
+        if (standards == null) {
+            call.reject("缺少 standards 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                List<String> tables = GrowthStandards.getInstance().load(standards);
+                JSObject ret = new JSObject();
+                ret.put("tables", new JSArray(tables));
+                call.resolve(ret);
+            } catch (IllegalArgumentException e) {
+                call.reject("标准数据无效: " + e.getMessage());
+            }
+        });
+    }
+
+    // 单个测量值：{ metric, sex, ageDays 或 ageInMonths, value }
+    @PluginMethod
+    public void getPercentile(PluginCall call) {
+        Double value = call.getDouble("value");
+        Double ageDays = call.getDouble("ageDays");
+        Double ageInMonths = call.getDouble("ageInMonths");
+        if (value == null || (ageDays == null && ageInMonths == null)) {
+            call.reject("缺少 value 或年龄参数");
+            return;
+        }
+        double age = ageDays != null ? ageDays : ageInMonths * LmsTable.DAYS_PER_MONTH;
+        // 查表之前先拒绝无效年龄，NaN 会让插值静默返回 NaN
+        if (Double.isNaN(age) || Double.isInfinite(age) || age < 0) {
+            call.reject("年龄无效: " + (ageDays != null ? ageDays : ageInMonths));
+            return;
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value) || value <= 0) {
+            call.reject("测量值无效: " + value);
+            return;
+        }
+        LmsTable table = requireTable(call, call.getString("metric"), call.getString("sex"));
+        if (table == null) {
+            return;
+        }
+        call.resolve(score(table, age, value));
+    }
+
+    // 批量计算：{ sex, birthDate, childId 或 records }；未传 records 时从原生记录存储读取
+    @PluginMethod
+    public void scoreRecords(PluginCall call) {
+        String sex = call.getString("sex");
+        String birthDate = call.getString("birthDate");
+        String childId = call.getString("childId");
+        JSArray records = call.getArray("records");
+        if (sex == null || birthDate == null || (childId == null && records == null)) {
+            call.reject("缺少 sex、birthDate 或 childId / records 参数");
+            return;
+        }
+        if (!GrowthStandards.getInstance().isLoaded()) {
+            call.reject("生长标准数据尚未加载");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            long birthDay;
+            try {
+                birthDay = GrowthDates.dayIndex(GrowthDates.parse(birthDate));
+            } catch (IllegalArgumentException e) {
+                call.reject("出生日期格式无效: " + birthDate);
+                return;
+            }
+            LmsTable heightTable = GrowthStandards.getInstance().get("height", sex);
+            LmsTable weightTable = GrowthStandards.getInstance().get("weight", sex);
+
+            JSONArray source = records;
+            if (source == null) {
+                source = new JSONArray();
+                List<JSONObject> stored = RecordDatabase.getInstance(getContext())
+                    .query(childId, null, null, false, 0, 0);
+                for (JSONObject record : stored) {
+                    source.put(record);
+                }
+            }
+
+            JSArray scores = new JSArray();
+            for (int i = 0; i < source.length(); i++) {
+                JSONObject record = source.optJSONObject(i);
+                if (record == null || !GrowthDates.isValid(record.optString("date", null))) {
+                    continue;
+                }
+                String date = record.getString("date");
+                long ageDays = GrowthDates.dayIndex(GrowthDates.parse(date)) - birthDay;
+                JSObject item = new JSObject();
+                item.put("id", record.opt("id"));
+                item.put("date", date);
+                item.put("ageDays", ageDays);
+                item.put("height", scoreOrNull(heightTable, ageDays, record, "height"));
+                item.put("weight", scoreOrNull(weightTable, ageDays, record, "weight"));
+                scores.put(item);
+            }
+            JSObject ret = new JSObject();
+            ret.put("scores", scores);
+            call.resolve(ret);
+        });
+    }
+
+    // 图表数据：{ childId, metric, sex, birthDate, fromAgeDays, toAgeDays, width, bands }
+    // 可见年龄范围（天）内的记录用 LTTB 降到不超过 width 个点，并按同一年龄范围生成百分位曲线；
+    // 年龄与 scoreRecords 相同，按本地日历日计算；x 为年龄（岁）
+    @PluginMethod
+    public void getChartSeries(PluginCall call) {
+        String childId = call.getString("childId");
+        String metric = call.getString("metric");
+        String sex = call.getString("sex");
+        String birthDate = call.getString("birthDate");
+        if (childId == null || metric == null || birthDate == null) {
+            call.reject("缺少 childId、metric 或 birthDate 参数");
+            return;
+        }
+        Double fromAgeDays = call.getDouble("fromAgeDays");
+        Double toAgeDays = call.getDouble("toAgeDays");
+        if (!isValidAge(fromAgeDays) || !isValidAge(toAgeDays)) {
+            call.reject("年龄范围无效");
+            return;
+        }
+        int width = Math.max(3, Math.min(call.getInt("width", 400), MAX_POINTS));
+        JSArray bandOption = call.getArray("bands");
+        IoExecutor.getInstance().execute(call, () -> {
+            long birthMs;
+            try {
+                birthMs = GrowthDates.parse(birthDate);
+            } catch (IllegalArgumentException e) {
+                call.reject("日期格式无效");
+                return;
+            }
+            long birthDay = GrowthDates.dayIndex(birthMs);
+            Long fromMs = fromAgeDays != null ? GrowthDates.ageStart(birthMs, fromAgeDays) : null;
+            Long toMs = toAgeDays != null ? GrowthDates.ageEnd(birthMs, toAgeDays) : null;
+
+            RecordSeries series = RecordDatabase.getInstance(getContext()).querySeries(childId, metric, fromMs, toMs, SERIES.get());
+            int count = series.size();
+            double[] ages = new double[count];
+            double[] values = new double[count];
+            for (int i = 0; i < count; i++) {
+                ages[i] = (GrowthDates.dayIndex(series.getTimestamp(i)) - birthDay) / DAYS_PER_YEAR;
+                values[i] = series.getValue(i);
+            }
+            int[] selected = Downsampler.lttb(ages, values, count, width);
+            JSArray points = new JSArray();
+            for (int index : selected) {
+                JSONArray point = new JSONArray();
+                point.put(ages[index]);
+                // 列快照按 float 存放，输出时还原为记录的精度（最多两位小数）
+                point.put(Math.round(values[index] * 100) / 100.0);
+                point.put(GrowthDates.formatIso(series.getTimestamp(index)));
+                points.put(point);
+            }
+
+            JSObject bands = new JSObject();
+            LmsTable table = sex != null ? GrowthStandards.getInstance().get(metric, sex) : null;
+            if (table != null) {
+                double startAge = fromAgeDays != null ? fromAgeDays / DAYS_PER_YEAR : 0;
+                double endAge = toAgeDays != null ? toAgeDays / DAYS_PER_YEAR : table.getMaxAgeDays() / DAYS_PER_YEAR;
+                startAge = Math.max(0, startAge);
+                endAge = Math.min(table.getMaxAgeDays() / DAYS_PER_YEAR, endAge);
+                int bandPoints = Math.max(2, Math.min(width / PIXELS_PER_BAND_POINT, MAX_BAND_POINTS));
+                for (double percentile : bandPercentiles(bandOption)) {
+                    JSArray band = new JSArray();
+                    for (int i = 0; i < bandPoints && endAge > startAge; i++) {
+                        double age = startAge + (endAge - startAge) * i / (bandPoints - 1);
+                        double value = table.valueAtPercentile(age * DAYS_PER_YEAR, percentile);
+                        if (!Double.isNaN(value)) {
+                            JSONArray point = new JSONArray();
+                            point.put(age);
+                            point.put(value);
+                            band.put(point);
+                        }
+                    }
+                    bands.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+                        : String.valueOf(percentile)), band);
+                }
+            }
+
+            JSObject ret = new JSObject();
+            ret.put("points", points);
+            ret.put("total", count);
+            ret.put("bands", bands);
+            call.resolve(ret);
+        });
+    }
+
+    // 首页洞察：{ children: [{ id, sex, birthDate }], projectionDays }
+    // 每个孩子的身高、体重增速、趋势预测和百分位提醒，并行计算，记录未变化时直接返回缓存结果
+    @PluginMethod
+    public void analyzeChildren(PluginCall call) {
+        JSArray children = call.getArray("children");
+        if (children == null) {
+            call.reject("缺少 children 参数");
+            return;
+        }
+        int projectionDays = Math.max(1, Math.min(call.getInt("projectionDays", DEFAULT_PROJECTION_DAYS),
+            MAX_PROJECTION_DAYS));
+        IoExecutor.getInstance().execute(call, () -> {
+            List<AnalyticsEngine.Child> items = new ArrayList<>();
+            for (int i = 0; i < children.length(); i++) {
+                JSONObject child = children.optJSONObject(i);
+                String id = child != null ? child.optString("id", null) : null;
+                if (id == null) {
+                    continue;
+                }
+                String birthDate = child.optString("birthDate", null);
+                Long birthMs = null;
+                if (GrowthDates.isValid(birthDate)) {
+                    birthMs = GrowthDates.parse(birthDate);
+                }
+                items.add(new AnalyticsEngine.Child(id, child.optString("sex", null), birthMs));
+            }
+            long start = System.nanoTime();
+            List<AnalyticsEngine.Result> results = AnalyticsEngine.getInstance()
+                .analyze(RecordDatabase.getInstance(getContext()), items, projectionDays);
+            JSArray array = new JSArray();
+            int cached = 0;
+            for (AnalyticsEngine.Result result : results) {
+                JSObject item = new JSObject();
+                JSONObject data = result.getData();
+                for (String key : RESULT_KEYS) {
+                    if (data.has(key)) {
+                        item.put(key, data.get(key));
+                    }
+                }
+                item.put("cached", result.isCached());
+                array.put(item);
+                if (result.isCached()) {
+                    cached++;
+                }
+            }
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Analyzed " + results.size() + " children (" + cached + " cached) in "
+                    + (System.nanoTime() - start) / 1000000 + "ms");
+            }
+            JSObject ret = new JSObject();
+            ret.put("children", array);
+            call.resolve(ret);
+        });
+    }
+
+    // 未提供或为有限数值
+    private static boolean isValidAge(Double ageDays) {
+        return ageDays == null || !(Double.isNaN(ageDays) || Double.isInfinite(ageDays));
+    }
+
+    private static double[] bandPercentiles(JSArray option) {
+        if (option == null || option.length() == 0) {
+            return DEFAULT_BANDS;
+        }
+        double[] percentiles = new double[option.length()];
+        int n = 0;
+        for (int i = 0; i < option.length(); i++) {
+            double value = option.optDouble(i, Double.NaN);
+            if (value > 0 && value < 100) {
+                percentiles[n++] = value;
+            }
+        }
+        return Arrays.copyOf(percentiles, n);
+    }
+
+    private static LmsTable requireTable(PluginCall call, String metric, String sex) {
+        if (metric == null || sex == null) {
+            call.reject("缺少 metric 或 sex 参数");
+            return null;
+        }
+        LmsTable table = GrowthStandards.getInstance().get(metric, sex);
+        if (table == null) {
+            call.reject(GrowthStandards.getInstance().isLoaded() ? "没有对应的生长标准: " + metric + "/" + sex
+                : "生长标准数据尚未加载");
+        }
+        return table;
+    }
+
+    private static Object scoreOrNull(LmsTable table, long ageDays, JSONObject record, String key) {
+        double value = record.isNull(key) ? Double.NaN : record.optDouble(key, Double.NaN);
+        if (table == null || Double.isNaN(value) || !table.covers(ageDays)) {
+            return JSONObject.NULL;
+        }
+        return score(table, ageDays, value);
+    }
+
+    // 超出表格年龄范围时 z 和 percentile 为 null
+    private static JSObject score(LmsTable table, double ageDays, double value) {
+        double z = table.zScore(ageDays, value);
+        JSObject result = new JSObject();
+        if (Double.isNaN(z)) {
+            result.put("z", JSONObject.NULL);
+            result.put("percentile", JSONObject.NULL);
+        } else {
+            result.put("z", z);
+            result.put("percentile", table.percentile(ageDays, value));
+        }
+        return result;
+    }
+}
@@ -2,67 +2,46 @@ package com.growapp.app;
 
 import android.os.Bundle;
 import com.getcapacitor.BridgeActivity;
-import android.Manifest;
-import android.content.pm.PackageManager;
-import androidx.core.app.ActivityCompat;
-import androidx.core.content.ContextCompat;
-import java.util.ArrayList;
-import java.util.List;
+import com.growapp.app.data.WarmStartSnapshot;
+import com.growapp.app.io.IoExecutor;
+import com.growapp.app.permission.PermissionBroker;
 import com.growapp.app.plugins.FilePlugin;
 
 public class MainActivity extends BridgeActivity {
-    private static final int PERMISSION_REQUEST_CODE = 123;
-    
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        // 在 WebView 初始化的同时读取冷启动快照
+        WarmStartSnapshot.getInstance(this).preload();
         registerPlugin(FilePlugin.class);
+        registerPlugin(GrowAppPlugin.class);
+        registerPlugin(RecordStorePlugin.class);
+        registerPlugin(GrowthPlugin.class);
+        registerPlugin(SyncCodecPlugin.class);
+        registerPlugin(PhotoPlugin.class);
+        registerPlugin(PermissionsPlugin.class);
         super.onCreate(savedInstanceState);
-        checkAndRequestPermissions();
+        // /_growapp/file/<句柄> 只读提供 openFileHandle 登记过的文件（支持 Range），/_growapp/thumb/ 提供照片缩略图
+        bridge.setWebViewClient(new GrowAppWebViewClient(bridge));
     }
 
-    private void checkAndRequestPermissions() {
-        List<String> permissionsNeeded = new ArrayList<>();
-        
-        if (android.os.Build.VERSION.SDK_INT <= android.os.Build.VERSION_CODES.S_V2) {
-            if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_EXTERNAL_STORAGE)
-                    != PackageManager.PERMISSION_GRANTED) {
-                permissionsNeeded.add(Manifest.permission.READ_EXTERNAL_STORAGE);
-            }
-            if (ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE)
-                    != PackageManager.PERMISSION_GRANTED) {
-                permissionsNeeded.add(Manifest.permission.WRITE_EXTERNAL_STORAGE);
-            }
-        } else {
-            if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_MEDIA_IMAGES)
-                    != PackageManager.PERMISSION_GRANTED) {
-                permissionsNeeded.add(Manifest.permission.READ_MEDIA_IMAGES);
-            }
-            if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_MEDIA_VIDEO)
-                    != PackageManager.PERMISSION_GRANTED) {
-                permissionsNeeded.add(Manifest.permission.READ_MEDIA_VIDEO);
-            }
-            if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_MEDIA_AUDIO)
-                    != PackageManager.PERMISSION_GRANTED) {
-                permissionsNeeded.add(Manifest.permission.READ_MEDIA_AUDIO);
-            }
-        }
+    @Override
+    public void onStop() {
+        super.onStop();
+        // 退到后台时数据已经保存，按最新数据生成下次启动用的快照
+        WarmStartSnapshot snapshot = WarmStartSnapshot.getInstance(this);
+        IoExecutor.getInstance().execute(snapshot::rebuild);
+    }
 
-        if (!permissionsNeeded.isEmpty()) {
-            ActivityCompat.requestPermissions(this,
-                    permissionsNeeded.toArray(new String[0]),
-                    PERMISSION_REQUEST_CODE);
-        }
+    @Override
+    public void onResume() {
+        super.onResume();
+        // 用户可能在系统设置中修改了存储权限
+        PermissionBroker.getInstance().onResume(this);
     }
 
     @Override
     public void onRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
-        if (requestCode == PERMISSION_REQUEST_CODE) {
-            for (int i = 0; i < permissions.length; i++) {
-                if (grantResults[i] != PackageManager.PERMISSION_GRANTED) {
-                    // 处理权限被拒绝的情况
-                }
-            }
-        }
+        PermissionBroker.getInstance().onRequestPermissionsResult(this, requestCode);
     }
 }
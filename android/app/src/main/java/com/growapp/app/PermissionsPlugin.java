@@ -1,65 +1,48 @@
 package com.growapp.app;
 
-import android.Manifest;
-import android.content.pm.PackageManager;
-import androidx.core.app.ActivityCompat;
-import androidx.core.content.ContextCompat;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.JSObject;
+import com.growapp.app.permission.PermissionBroker;
 
+// 存储权限状态：检查只读缓存，不会弹出对话框；状态变化时推送 storagePermissionChange 事件
 @CapacitorPlugin(name = "Permissions")
 public class PermissionsPlugin extends Plugin {
-    private static final int PERMISSION_REQUEST_CODE = 123;
+    private final PermissionBroker.Listener listener = this::notifyPermissionResult;
 
-    @PluginMethod
-    public void checkPermissions(PluginCall call) {
-        getActivity().runOnUiThread(() -> {
-            if (ContextCompat.checkSelfPermission(getActivity(), Manifest.permission.WRITE_EXTERNAL_STORAGE)
-                    != PackageManager.PERMISSION_GRANTED ||
-                ContextCompat.checkSelfPermission(getActivity(), Manifest.permission.READ_EXTERNAL_STORAGE)
-                    != PackageManager.PERMISSION_GRANTED) {
-
-                ActivityCompat.requestPermissions(getActivity(),
-                    new String[]{
-                        Manifest.permission.WRITE_EXTERNAL_STORAGE,
-                        Manifest.permission.READ_EXTERNAL_STORAGE
-                    },
-                    PERMISSION_REQUEST_CODE);
-            } else {
-                JSObject ret = new JSObject();
-                ret.put("granted", true);
-                call.resolve(ret);
-                notifyPermissionResult(true);
-            }
-            saveCall(call);
-        });
+    @Override
+    public void load() {
+        super.load();
+        PermissionBroker.getInstance().addListener(listener);
     }
 
     @Override
-    protected void handleRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
-        super.handleRequestPermissionsResult(requestCode, permissions, grantResults);
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        PermissionBroker.getInstance().removeListener(listener);
+    }
 
-        if (requestCode == PERMISSION_REQUEST_CODE) {
-            boolean granted = grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED;
-            
-            PluginCall savedCall = getSavedCall();
-            if (savedCall != null) {
-                JSObject ret = new JSObject();
-                ret.put("granted", granted);
-                savedCall.resolve(ret);
-            }
-            
-            notifyPermissionResult(granted);
-        }
+    @PluginMethod
+    public void checkPermissions(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("granted", PermissionBroker.getInstance().isGranted(getContext()));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void requestPermissions(PluginCall call) {
+        PermissionBroker.getInstance().request(getActivity(), granted -> {
+            JSObject ret = new JSObject();
+            ret.put("granted", granted);
+            call.resolve(ret);
+        });
     }
 
     private void notifyPermissionResult(boolean granted) {
         JSObject data = new JSObject();
         data.put("granted", granted);
-        notifyListeners("permissionResult", data);
-        getBridge().triggerWindowJSEvent("permissionResult", "{ \"granted\": " + granted + " }");
+        notifyListeners("storagePermissionChange", data);
     }
 }
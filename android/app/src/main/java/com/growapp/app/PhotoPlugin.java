@@ -0,0 +1,121 @@
+package com.growapp.app;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.net.Uri;
+import androidx.activity.result.ActivityResult;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.ActivityCallback;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import com.growapp.app.diag.Metrics;
+import com.growapp.app.io.IoExecutor;
+import com.growapp.app.photo.ThumbnailCache;
+import com.growapp.app.photo.ThumbnailResponder;
+
+// 记录照片：通过系统文档选择器选择照片并保留读取权限，缩略图由 /_growapp/thumb/ 路径提供
+@CapacitorPlugin(name = "GrowAppPhoto")
+public class PhotoPlugin extends Plugin {
+    private static final int DEFAULT_THUMBNAIL_SIZE = 160;
+
+    @PluginMethod
+    public void pickPhoto(PluginCall call) {
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("image/*");
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION);
+        Metrics.getInstance().pickerStarted(call.getCallbackId());
+        startActivityForResult(call, intent, "handlePhotoResult");
+    }
+
+    @ActivityCallback
+    private void handlePhotoResult(PluginCall call, ActivityResult result) {
+        if (call == null) {
+            return;
+        }
+        Metrics.getInstance().pickerFinished(call.getCallbackId());
+        Uri uri = result.getResultCode() == Activity.RESULT_OK && result.getData() != null
+            ? result.getData().getData() : null;
+        if (uri == null) {
+            call.reject("用户取消了选择");
+            return;
+        }
+        int size = call.getInt("size", DEFAULT_THUMBNAIL_SIZE);
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                getContext().getContentResolver().takePersistableUriPermission(uri,
+                    Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            } catch (SecurityException e) {
+                call.reject("无法保留照片的读取权限");
+                return;
+            }
+            ThumbnailCache cache = ThumbnailCache.getInstance(getContext());
+            cache.refreshPermissions();
+            // 选择后立即生成缩略图，列表首次显示时直接命中缓存
+            cache.get(uri, size);
+            JSObject ret = new JSObject();
+            ret.put("uri", uri.toString());
+            ret.put("thumbnail", thumbnailPath(uri, size));
+            call.resolve(ret);
+        });
+    }
+
+    // 记录删除或更换照片后，照片不再被任何记录引用时释放读取权限（系统对持久权限数量有上限）
+    @PluginMethod
+    public void releasePhoto(PluginCall call) {
+        String uri = call.getString("uri");
+        if (uri == null) {
+            call.reject("缺少 uri 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            Uri photo = Uri.parse(uri);
+            try {
+                getContext().getContentResolver().releasePersistableUriPermission(photo,
+                    Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            } catch (SecurityException e) {
+                // 权限已不存在
+            }
+            ThumbnailCache cache = ThumbnailCache.getInstance(getContext());
+            cache.forget(photo);
+            cache.refreshPermissions();
+            call.resolve();
+        });
+    }
+
+    // 预先生成一批缩略图（例如导入后），已缓存的直接跳过
+    @PluginMethod
+    public void prefetchThumbnails(PluginCall call) {
+        JSArray uris = call.getArray("uris");
+        if (uris == null) {
+            call.reject("缺少 uris 参数");
+            return;
+        }
+        int size = call.getInt("size", DEFAULT_THUMBNAIL_SIZE);
+        IoExecutor.getInstance().execute(call, () -> {
+            ThumbnailCache cache = ThumbnailCache.getInstance(getContext());
+            int ready = 0;
+            for (int i = 0; i < uris.length(); i++) {
+                String value = uris.optString(i);
+                if (value.isEmpty()) {
+                    continue;
+                }
+                Uri uri = Uri.parse(value);
+                if (cache.isAllowed(uri) && cache.get(uri, size) != null) {
+                    ready++;
+                }
+            }
+            JSObject ret = new JSObject();
+            ret.put("ready", ready);
+            call.resolve(ret);
+        });
+    }
+
+    static String thumbnailPath(Uri uri, int size) {
+        return ThumbnailResponder.PATH_PREFIX + ThumbnailCache.bucket(size) + "?uri=" + Uri.encode(uri.toString());
+    }
+}
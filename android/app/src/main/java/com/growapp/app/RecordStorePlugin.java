@@ -0,0 +1,395 @@
+package com.growapp.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import com.growapp.app.data.GrowthDates;
+import com.growapp.app.data.GrowthRecord;
+import com.growapp.app.data.RecordDatabase;
+import com.growapp.app.data.RecordJson;
+import com.growapp.app.data.RecordMerger;
+import com.growapp.app.data.SeriesSummary;
+import com.growapp.app.data.WarmStartSnapshot;
+import com.growapp.app.growth.AnalyticsEngine;
+import com.growapp.app.io.IoExecutor;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// 原生生长记录存储：JS 端 records store 的 SQLite 镜像，按 (childId, date) 索引，供记录列表分页、图表、分析和导入合并使用；
+// 每次写入都带上 JS 端的修订号，启动时按修订号找出过期的孩子整体重写
+@CapacitorPlugin(name = "GrowAppRecordStore")
+public class RecordStorePlugin extends Plugin {
+    // 每个线程复用一个概要缓冲区，查询列式缓存时不分配对象
+    private static final ThreadLocal<SeriesSummary> SUMMARY = new ThreadLocal<SeriesSummary>() {
+        @Override
+        protected SeriesSummary initialValue() {
+            return new SeriesSummary();
+        }
+    };
+
+    private RecordDatabase database;
+
+    @Override
+    public void load() {
+        database = RecordDatabase.getInstance(getContext());
+    }
+
+    @PluginMethod
+    public void upsertRecord(PluginCall call) {
+        String childId = call.getString("childId");
+        JSObject record = call.getObject("record");
+        if (childId == null || record == null) {
+            call.reject("缺少 childId 或 record 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("record", database.upsert(childId, record, revision(call)));
+                call.resolve(ret);
+            } catch (IllegalArgumentException e) {
+                call.reject(e.getMessage());
+            }
+        });
+    }
+
+    // 批量新增：{ childId, records, revision }，单个事务写入，只传新增的记录
+    @PluginMethod
+    public void upsertRecords(PluginCall call) {
+        String childId = call.getString("childId");
+        JSArray records = call.getArray("records");
+        if (childId == null || records == null) {
+            call.reject("缺少 childId 或 records 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("count", database.upsertAll(childId, records, revision(call)));
+                call.resolve(ret);
+            } catch (IllegalArgumentException e) {
+                call.reject(e.getMessage());
+            }
+        });
+    }
+
+    // 按 id 部分更新：{ childId, recordId, data, revision }，只写这一行；记录不存在时 reject，由 JS 端整体重写
+    @PluginMethod
+    public void updateRecord(PluginCall call) {
+        String childId = call.getString("childId");
+        String recordId = call.getString("recordId");
+        JSObject data = call.getObject("data");
+        if (childId == null || recordId == null || data == null) {
+            call.reject("缺少 childId、recordId 或 data 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                JSONObject updated = database.update(childId, recordId, data, revision(call));
+                if (updated == null) {
+                    call.reject("记录不存在: " + recordId);
+                    return;
+                }
+                JSObject ret = new JSObject();
+                ret.put("record", updated);
+                call.resolve(ret);
+            } catch (IllegalArgumentException e) {
+                call.reject(e.getMessage());
+            }
+        });
+    }
+
+    @PluginMethod
+    public void deleteRecord(PluginCall call) {
+        String childId = call.getString("childId");
+        String recordId = call.getString("recordId");
+        if (childId == null || recordId == null) {
+            call.reject("缺少 childId 或 recordId 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            JSObject ret = new JSObject();
+            ret.put("deleted", database.delete(childId, recordId, revision(call)));
+            call.resolve(ret);
+        });
+    }
+
+    @PluginMethod
+    public void deleteChildRecords(PluginCall call) {
+        String childId = call.getString("childId");
+        if (childId == null) {
+            call.reject("缺少 childId 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            JSObject ret = new JSObject();
+            ret.put("deleted", database.deleteChild(childId));
+            AnalyticsEngine.getInstance().invalidate(childId);
+            call.resolve(ret);
+        });
+    }
+
+    // 用 JS 端的完整记录列表替换某个孩子的数据（首次同步、导入后使用）
+    @PluginMethod
+    public void replaceChildRecords(PluginCall call) {
+        String childId = call.getString("childId");
+        JSArray records = call.getArray("records");
+        if (childId == null || records == null) {
+            call.reject("缺少 childId 或 records 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("count", database.replaceChild(childId, records, revision(call)));
+                call.resolve(ret);
+            } catch (IllegalArgumentException e) {
+                call.reject(e.getMessage());
+            }
+        });
+    }
+
+    // 查找同一时间（精确到分钟）的记录，走 (childId, minuteKey) 唯一索引；
+    // 传入 metric 时另外从列式缓存中找出该指标最接近这个时间的记录 nearest: { id, date, value }
+    @PluginMethod
+    public void findRecordAtTime(PluginCall call) {
+        String childId = call.getString("childId");
+        String date = call.getString("date");
+        if (childId == null || date == null) {
+            call.reject("缺少 childId 或 date 参数");
+            return;
+        }
+        String metric = call.getString("metric");
+        IoExecutor.getInstance().execute(call, () -> {
+            long dateMs;
+            try {
+                dateMs = GrowthDates.parse(date);
+            } catch (IllegalArgumentException e) {
+                call.reject("日期格式无效: " + date);
+                return;
+            }
+            JSObject ret = new JSObject();
+            if (metric != null) {
+                try {
+                    SeriesSummary summary = database.findNearest(childId, metric, dateMs, SUMMARY.get());
+                    ret.put("nearest", point(summary, SeriesSummary.NEAREST));
+                } catch (IllegalArgumentException e) {
+                    call.reject(e.getMessage());
+                    return;
+                }
+            }
+            JSONObject found = database.findAtMinute(childId, dateMs);
+            ret.put("record", found != null ? found : JSONObject.NULL);
+            call.resolve(ret);
+        });
+    }
+
+    // 一项指标在日期范围内的概要 { count, first, last, min, max, nearest }，每个点为 { id, date, value } 或 null；
+    // 范围为 from / to 日期，或 birthDate 加 fromAgeDays / toAgeDays（与图表相同的按日历日计算的年龄）；
+    // 直接读取列式缓存，不查询数据库
+    @PluginMethod
+    public void getSeriesSummary(PluginCall call) {
+        String childId = call.getString("childId");
+        String metric = call.getString("metric");
+        if (childId == null || metric == null) {
+            call.reject("缺少 childId 或 metric 参数");
+            return;
+        }
+        String from = call.getString("from");
+        String to = call.getString("to");
+        String birthDate = call.getString("birthDate");
+        Double fromAgeDays = call.getDouble("fromAgeDays");
+        Double toAgeDays = call.getDouble("toAgeDays");
+        String near = call.getString("near");
+        IoExecutor.getInstance().execute(call, () -> {
+            SeriesSummary summary;
+            try {
+                Long fromMs = from != null ? Long.valueOf(GrowthDates.parse(from)) : null;
+                Long toMs = to != null ? Long.valueOf(GrowthDates.parse(to)) : null;
+                if (birthDate != null) {
+                    long birthMs = GrowthDates.parse(birthDate);
+                    if (fromAgeDays != null) {
+                        fromMs = GrowthDates.ageStart(birthMs, requireFinite(fromAgeDays));
+                    }
+                    if (toAgeDays != null) {
+                        toMs = GrowthDates.ageEnd(birthMs, requireFinite(toAgeDays));
+                    }
+                }
+                summary = database.summarizeSeries(childId, metric, fromMs, toMs,
+                    near != null ? GrowthDates.parse(near) : null, SUMMARY.get());
+            } catch (IllegalArgumentException e) {
+                call.reject("参数格式无效: " + e.getMessage());
+                return;
+            }
+            JSObject ret = new JSObject();
+            ret.put("count", summary.getCount());
+            ret.put("first", point(summary, SeriesSummary.FIRST));
+            ret.put("last", point(summary, SeriesSummary.LAST));
+            ret.put("min", point(summary, SeriesSummary.MIN));
+            ret.put("max", point(summary, SeriesSummary.MAX));
+            ret.put("nearest", point(summary, SeriesSummary.NEAREST));
+            call.resolve(ret);
+        });
+    }
+
+    // 按日期范围分页查询，默认按日期倒序（与 getSortedRecords 一致），同时返回范围内总数
+    @PluginMethod
+    public void queryRecords(PluginCall call) {
+        String childId = call.getString("childId");
+        if (childId == null) {
+            call.reject("缺少 childId 参数");
+            return;
+        }
+        String from = call.getString("from");
+        String to = call.getString("to");
+        boolean descending = !"asc".equalsIgnoreCase(call.getString("order", "desc"));
+        int limit = call.getInt("limit", 0);
+        int offset = call.getInt("offset", 0);
+        IoExecutor.getInstance().execute(call, () -> {
+            Long fromMs;
+            Long toMs;
+            try {
+                fromMs = from != null ? GrowthDates.parse(from) : null;
+                toMs = to != null ? GrowthDates.parse(to) : null;
+            } catch (IllegalArgumentException e) {
+                call.reject("日期范围格式无效");
+                return;
+            }
+            List<JSONObject> records = database.query(childId, fromMs, toMs, descending, limit, offset);
+            JSArray array = new JSArray();
+            for (JSONObject record : records) {
+                array.put(record);
+            }
+            JSObject ret = new JSObject();
+            ret.put("records", array);
+            ret.put("total", database.count(childId, fromMs, toMs));
+            call.resolve(ret);
+        });
+    }
+
+    @PluginMethod
+    public void countRecords(PluginCall call) {
+        String childId = call.getString("childId");
+        if (childId == null) {
+            call.reject("缺少 childId 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            JSObject ret = new JSObject();
+            ret.put("count", database.count(childId, null, null));
+            call.resolve(ret);
+        });
+    }
+
+    // 每个孩子最近一次写入的修订号 { revisions: { childId: n } }，JS 端启动时与自己的修订号比较
+    @PluginMethod
+    public void getRevisions(PluginCall call) {
+        IoExecutor.getInstance().execute(call, () -> {
+            JSObject revisions = new JSObject();
+            for (Map.Entry<String, Long> item : database.getRevisions().entrySet()) {
+                revisions.put(item.getKey(), item.getValue() != null ? item.getValue() : JSONObject.NULL);
+            }
+            JSObject ret = new JSObject();
+            ret.put("revisions", revisions);
+            call.resolve(ret);
+        });
+    }
+
+    // 导入合并：{ childId, records }，与已有记录按同一时间比较，只返回需要新增的记录和冲突列表
+    @PluginMethod
+    public void mergeRecords(PluginCall call) {
+        String childId = call.getString("childId");
+        JSArray records = call.getArray("records");
+        if (childId == null || records == null) {
+            call.reject("缺少 childId 或 records 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            // 结果中的下标要与 records 对应，不能跳过任何一项
+            List<GrowthRecord> incoming = new ArrayList<>(records.length());
+            for (int i = 0; i < records.length(); i++) {
+                JSONObject item = records.optJSONObject(i);
+                try {
+                    if (item == null) {
+                        throw new IllegalArgumentException("not an object");
+                    }
+                    incoming.add(RecordJson.fromJson(item, childId));
+                } catch (IllegalArgumentException e) {
+                    call.reject("第" + (i + 1) + "条导入记录无效: " + e.getMessage());
+                    return;
+                }
+            }
+            RecordMerger.Result result = new RecordMerger(database.loadRecords(childId)).merge(incoming);
+
+            JSArray added = new JSArray();
+            for (int index : result.getAdded()) {
+                added.put(records.get(index));
+            }
+            JSArray conflicts = new JSArray();
+            for (int i = 0; i < result.getConflicts().size(); i++) {
+                GrowthRecord existing = result.getConflictingExisting().get(i);
+                JSObject conflict = new JSObject();
+                conflict.put("incoming", records.get(result.getConflicts().get(i)));
+                conflict.put("existing", toJson(existing));
+                conflicts.put(conflict);
+            }
+            JSObject ret = new JSObject();
+            ret.put("added", added);
+            ret.put("identical", result.getIdentical().size());
+            ret.put("conflicts", conflicts);
+            call.resolve(ret);
+        });
+    }
+
+    // 冷启动快照：{ snapshot: { children, records, totals, createdAt } | null }，MainActivity 创建时已开始读取
+    @PluginMethod
+    public void getWarmStartSnapshot(PluginCall call) {
+        WarmStartSnapshot.getInstance(getContext()).whenLoaded(snapshot -> {
+            JSObject ret = new JSObject();
+            ret.put("snapshot", snapshot != null ? snapshot : JSONObject.NULL);
+            call.resolve(ret);
+        });
+    }
+
+    private static JSONObject toJson(GrowthRecord record) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("id", record.getId());
+        json.put("date", record.getDate());
+        json.put("height", record.hasHeight() ? record.getHeight() : JSONObject.NULL);
+        json.put("weight", record.hasWeight() ? record.getWeight() : JSONObject.NULL);
+        return json;
+    }
+
+    private static Object point(SeriesSummary summary, int point) {
+        if (!summary.has(point)) {
+            return JSONObject.NULL;
+        }
+        JSObject result = new JSObject();
+        result.put("id", summary.getId(point));
+        result.put("date", GrowthDates.formatIso(summary.getTimestamp(point)));
+        // 列式缓存按 float 存放，输出时还原为记录的精度（最多两位小数）
+        result.put("value", Math.round(summary.getValue(point) * 100) / 100.0);
+        return result;
+    }
+
+    private static double requireFinite(double ageDays) {
+        if (Double.isNaN(ageDays) || Double.isInfinite(ageDays)) {
+            throw new IllegalArgumentException("Invalid age: " + ageDays);
+        }
+        return ageDays;
+    }
+
+    // 写入时附带的 JS 端修订号，没有时为 null（不修改）
+    private static Long revision(PluginCall call) {
+        JSObject data = call.getData();
+        return data.has("revision") && !data.isNull("revision") ? data.optLong("revision") : null;
+    }
+}
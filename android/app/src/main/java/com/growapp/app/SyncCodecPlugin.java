@@ -0,0 +1,63 @@
+package com.growapp.app;
+
+import android.util.Base64;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import com.growapp.app.io.IoExecutor;
+import com.growapp.app.sync.SyncCodec;
+
+// 同步码编解码：二进制格式 + DEFLATE 压缩，输出 Base64 文本
+@CapacitorPlugin(name = "GrowAppSyncCodec")
+public class SyncCodecPlugin extends Plugin {
+    public static final String ERROR_NOT_BINARY = "NOT_BINARY";
+
+    @PluginMethod
+    public void encode(PluginCall call) {
+        JSObject data = call.getObject("data");
+        if (data == null) {
+            call.reject("缺少 data 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                byte[] encoded = SyncCodec.encode(data);
+                JSObject ret = new JSObject();
+                ret.put("code", Base64.encodeToString(encoded, Base64.NO_WRAP));
+                ret.put("size", encoded.length);
+                call.resolve(ret);
+            } catch (IllegalArgumentException e) {
+                call.reject("同步数据中有无效日期: " + e.getMessage());
+            }
+        });
+    }
+
+    // 旧版（JSON）同步码以 NOT_BINARY 拒绝，由 JS 端按旧格式解析
+    @PluginMethod
+    public void decode(PluginCall call) {
+        String code = call.getString("code");
+        if (code == null || code.trim().isEmpty()) {
+            call.reject("缺少 code 参数");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            byte[] bytes;
+            try {
+                bytes = Base64.decode(code.trim(), Base64.DEFAULT);
+            } catch (IllegalArgumentException e) {
+                call.reject("同步码格式无效");
+                return;
+            }
+            if (!SyncCodec.isBinary(bytes)) {
+                call.reject("Not a binary sync code", ERROR_NOT_BINARY);
+                return;
+            }
+            JSObject ret = new JSObject();
+            ret.put("data", SyncCodec.decode(bytes));
+            call.resolve(ret);
+        });
+    }
+}
@@ -0,0 +1,468 @@
+package com.growapp.app.backup;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+import android.util.Log;
+
+import com.growapp.app.diag.MeteredOutputStream;
+import com.growapp.app.diag.Tracer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 增量自动备份：把数据切成分段（每项设置一段，每个孩子每年的记录一段），
+// 只有内容哈希变化的分段才写入备份目录；每次运行生成一份 manifest 和一行 journal，
+// 被替换的分段文件保留 KEEP_GENERATIONS 代后删除，可以按任意保留的 manifest 还原当时的数据
+public final class AutoBackup {
+    private static final String TAG = "GrowAppAutoBackup";
+    private static final Tracer TRACE = Tracer.forTag(TAG);
+    // 与 JS 端 backup.js 中的 BACKUP_DIRECTORY_KEY 相同，目录由 pickDirectory 授权
+    public static final String DIRECTORY_KEY = "backupDirectory";
+    static final String FORMAT = "growapp-auto-backup";
+    static final int VERSION = 1;
+
+    private static final String FOLDER_NAME = "GrowAppAutoBackup";
+    private static final String STATE_FILE = "auto_backup_state.json";
+    private static final String JOURNAL_NAME = "journal.jsonl";
+    private static final String SEGMENT_MIME_TYPE = "application/octet-stream";
+    private static final int KEEP_GENERATIONS = 7;
+    private static final String DATE_FIELD = "\"date\":\"";
+
+    private AutoBackup() {
+    }
+
+    public static final class Result {
+        private final int generation;
+        private final int written;
+        private final int removed;
+        private final long bytes;
+
+        Result(int generation, int written, int removed, long bytes) {
+            this.generation = generation;
+            this.written = written;
+            this.removed = removed;
+            this.bytes = bytes;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+
+        public int getWritten() {
+            return written;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public boolean isChanged() {
+            return written > 0 || removed > 0;
+        }
+    }
+
+    // 执行一次增量备份；没有配置备份目录时返回 null。后台任务和手动触发可能同时调用，整体串行执行
+    public static synchronized Result run(Context context) throws IOException {
+        SharedPreferences preferences = context.getSharedPreferences(BackupArchive.PREFERENCES_NAME,
+            Context.MODE_PRIVATE);
+        String directory = preferences.getString(DIRECTORY_KEY, null);
+        if (directory == null) {
+            return null;
+        }
+        File stateFile = new File(context.getNoBackupFilesDir(), STATE_FILE);
+        JSONObject state = readState(stateFile, directory);
+        try {
+            JSONObject segments = state.getJSONObject("segments");
+            String blob = preferences.getString(BackupArchive.RECORDS_KEY, null);
+
+            // 第一遍只计算每个分段的哈希，不保留内容
+            Map<String, MessageDigest> digests = new LinkedHashMap<>();
+            Map<String, String> settings = new HashMap<>();
+            for (String key : BackupArchive.SETTING_KEYS) {
+                String value = preferences.getString(key, null);
+                if (value != null) {
+                    String path = "preferences/" + key + ".json";
+                    settings.put(path, value);
+                    digest(digests, path).update(value.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            if (blob != null) {
+                forEachRecord(blob, (path, line) ->
+                    digest(digests, path).update((line + '\n').getBytes(StandardCharsets.UTF_8)));
+            }
+            Map<String, String> hashes = new LinkedHashMap<>();
+            for (Map.Entry<String, MessageDigest> item : digests.entrySet()) {
+                hashes.put(item.getKey(), hex(item.getValue().digest()));
+            }
+
+            List<String> changed = new ArrayList<>();
+            for (Map.Entry<String, String> item : hashes.entrySet()) {
+                JSONObject previous = segments.optJSONObject(item.getKey());
+                if (previous == null || !item.getValue().equals(previous.optString("hash"))) {
+                    changed.add(item.getKey());
+                }
+            }
+            List<String> removed = new ArrayList<>();
+            Iterator<String> keys = segments.keys();
+            while (keys.hasNext()) {
+                String path = keys.next();
+                if (!hashes.containsKey(path)) {
+                    removed.add(path);
+                }
+            }
+            int generation = state.getInt("generation");
+            if (changed.isEmpty() && removed.isEmpty()) {
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "No changes since generation " + generation);
+                }
+                return new Result(generation, 0, 0, 0);
+            }
+
+            // 第二遍只收集变化的记录分段
+            Map<String, StringBuilder> contents = new HashMap<>();
+            for (String path : changed) {
+                if (settings.containsKey(path)) {
+                    contents.put(path, new StringBuilder(settings.get(path)));
+                } else {
+                    contents.put(path, new StringBuilder());
+                }
+            }
+            if (blob != null) {
+                forEachRecord(blob, (path, line) -> {
+                    StringBuilder content = contents.get(path);
+                    if (content != null && !settings.containsKey(path)) {
+                        content.append(line).append('\n');
+                    }
+                });
+            }
+
+            generation++;
+            long bytes = 0;
+            try {
+                long createdAt = System.currentTimeMillis();
+                ContentResolver resolver = context.getContentResolver();
+                Uri treeUri = Uri.parse(directory);
+                Uri folder = folder(resolver, treeUri, state);
+                JSONArray retired = state.getJSONArray("retired");
+                for (String path : changed) {
+                    String name = path.replace('/', '_') + ".g" + generation;
+                    byte[] data = contents.get(path).toString().getBytes(StandardCharsets.UTF_8);
+                    Uri uri = writeDocument(resolver, folder, name, data, false);
+                    bytes += data.length;
+                    JSONObject previous = segments.optJSONObject(path);
+                    if (previous != null) {
+                        retired.put(retirement(previous.getString("uri"), generation));
+                    }
+                    JSONObject segment = new JSONObject();
+                    segment.put("hash", hashes.get(path));
+                    segment.put("uri", uri.toString());
+                    segment.put("file", name);
+                    segment.put("generation", generation);
+                    segments.put(path, segment);
+                }
+                for (String path : removed) {
+                    retired.put(retirement(segments.getJSONObject(path).getString("uri"), generation));
+                    segments.remove(path);
+                }
+
+                JSONObject manifest = new JSONObject();
+                manifest.put("format", FORMAT);
+                manifest.put("version", VERSION);
+                manifest.put("generation", generation);
+                manifest.put("createdAt", createdAt);
+                JSONObject files = new JSONObject();
+                Iterator<String> paths = segments.keys();
+                while (paths.hasNext()) {
+                    String path = paths.next();
+                    files.put(path, segments.getJSONObject(path).getString("file"));
+                }
+                manifest.put("segments", files);
+                byte[] manifestData = manifest.toString().getBytes(StandardCharsets.UTF_8);
+                Uri manifestUri = writeDocument(resolver, folder, "manifest.g" + generation + ".json",
+                    manifestData, false);
+                bytes += manifestData.length;
+                state.getJSONArray("manifests").put(retirement(manifestUri.toString(), generation));
+
+                JSONObject entry = new JSONObject();
+                entry.put("generation", generation);
+                entry.put("createdAt", createdAt);
+                entry.put("written", new JSONArray(changed));
+                entry.put("removed", new JSONArray(removed));
+                byte[] entryData = (entry.toString() + '\n').getBytes(StandardCharsets.UTF_8);
+                appendJournal(resolver, folder, state, entryData);
+                bytes += entryData.length;
+
+                state.put("generation", generation);
+                state.put("retired", rotate(resolver, retired, generation));
+                state.put("manifests", rotate(resolver, state.getJSONArray("manifests"), generation));
+                writeState(stateFile, state);
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "Generation " + generation + ": " + changed.size() + " segments written, "
+                        + removed.size() + " removed, " + bytes + " bytes");
+                }
+            } catch (IOException | SecurityException e) {
+                // 写了一半或目录已被删除、授权被撤销：已写入的分段和 retired、manifests 列表照常保存，
+                // 失败的分段仍是旧的哈希，下次运行重新写入；这一代的编号不再复用，目录在下次运行时重新查找
+                state.put("generation", generation);
+                state.remove("folder");
+                try {
+                    writeState(stateFile, state);
+                } catch (IOException stateError) {
+                    Log.w(TAG, "Failed to save partial backup state", stateError);
+                }
+                if (e instanceof IOException) {
+                    throw (IOException) e;
+                }
+                throw new IOException("Backup directory is not accessible", e);
+            }
+            return new Result(generation, changed.size(), removed.size(), bytes);
+        } catch (JSONException e) {
+            throw new IOException("Invalid backup state", e);
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(String path, String line) throws IOException;
+    }
+
+    // 逐条读取记录 JSON，每条记录序列化为一行，按孩子和记录年份归入分段
+    private static void forEachRecord(String blob, RecordVisitor visitor) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(blob));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String childId = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+            String prefix = "records/" + URLEncoder.encode(childId, "UTF-8") + "/";
+            reader.beginArray();
+            while (reader.hasNext()) {
+                StringWriter line = new StringWriter();
+                JsonWriter writer = new JsonWriter(line);
+                BackupArchive.copyValue(reader, writer);
+                writer.flush();
+                String text = line.toString();
+                visitor.visit(prefix + year(text) + ".jsonl", text);
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+    }
+
+    // 记录行由 JsonWriter 生成，没有多余空白，直接取 "date":"YYYY 的年份
+    private static String year(String line) {
+        int index = line.indexOf(DATE_FIELD);
+        if (index >= 0 && index + DATE_FIELD.length() + 4 <= line.length()) {
+            String year = line.substring(index + DATE_FIELD.length(), index + DATE_FIELD.length() + 4);
+            boolean digits = true;
+            for (int i = 0; i < year.length(); i++) {
+                digits &= Character.isDigit(year.charAt(i));
+            }
+            if (digits) {
+                return year;
+            }
+        }
+        return "undated";
+    }
+
+    private static MessageDigest digest(Map<String, MessageDigest> digests, String path) {
+        MessageDigest digest = digests.get(path);
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            digests.put(path, digest);
+        }
+        return digest;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    // 备份目录下的 GrowAppAutoBackup 子目录，找不到时创建；结果记在状态中，之后不再查询
+    private static Uri folder(ContentResolver resolver, Uri treeUri, JSONObject state)
+            throws IOException, JSONException {
+        String saved = state.optString("folder", null);
+        if (saved != null) {
+            return Uri.parse(saved);
+        }
+        String rootId = DocumentsContract.getTreeDocumentId(treeUri);
+        Uri children = DocumentsContract.buildChildDocumentsUriUsingTree(treeUri, rootId);
+        Uri folder = null;
+        try (Cursor cursor = resolver.query(children, new String[]{
+                DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+                DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+                DocumentsContract.Document.COLUMN_MIME_TYPE}, null, null, null)) {
+            while (cursor != null && cursor.moveToNext()) {
+                if (FOLDER_NAME.equals(cursor.getString(1))
+                        && DocumentsContract.Document.MIME_TYPE_DIR.equals(cursor.getString(2))) {
+                    folder = DocumentsContract.buildDocumentUriUsingTree(treeUri, cursor.getString(0));
+                    break;
+                }
+            }
+        }
+        if (folder == null) {
+            folder = DocumentsContract.createDocument(resolver,
+                DocumentsContract.buildDocumentUriUsingTree(treeUri, rootId),
+                DocumentsContract.Document.MIME_TYPE_DIR, FOLDER_NAME);
+            if (folder == null) {
+                throw new IOException("Failed to create backup folder");
+            }
+        }
+        state.put("folder", folder.toString());
+        return folder;
+    }
+
+    private static Uri writeDocument(ContentResolver resolver, Uri folder, String name, byte[] data, boolean append)
+            throws IOException {
+        Uri uri = DocumentsContract.createDocument(resolver, folder, SEGMENT_MIME_TYPE, name);
+        if (uri == null) {
+            throw new IOException("Failed to create " + name);
+        }
+        try {
+            write(resolver, uri, data, append);
+        } catch (IOException | RuntimeException e) {
+            // 写了一半的文件不会被任何 manifest 引用，直接删除
+            try {
+                DocumentsContract.deleteDocument(resolver, uri);
+            } catch (Exception deleteError) {
+                Log.w(TAG, "Failed to delete incomplete backup file", deleteError);
+            }
+            throw e;
+        }
+        return uri;
+    }
+
+    private static void write(ContentResolver resolver, Uri uri, byte[] data, boolean append) throws IOException {
+        OutputStream stream = resolver.openOutputStream(uri, append ? "wa" : "w");
+        if (stream == null) {
+            throw new IOException("Failed to open " + uri);
+        }
+        try (OutputStream out = new MeteredOutputStream(stream)) {
+            out.write(data);
+            out.flush();
+        }
+    }
+
+    // journal 只追加一行；目录提供方不支持追加模式时重新创建
+    private static void appendJournal(ContentResolver resolver, Uri folder, JSONObject state, byte[] entry)
+            throws IOException, JSONException {
+        String journal = state.optString("journal", null);
+        if (journal != null) {
+            try {
+                write(resolver, Uri.parse(journal), entry, true);
+                return;
+            } catch (IOException | IllegalArgumentException | SecurityException e) {
+                Log.w(TAG, "Failed to append journal, creating a new one", e);
+            }
+        }
+        state.put("journal", writeDocument(resolver, folder, JOURNAL_NAME, entry, false).toString());
+    }
+
+    private static JSONObject retirement(String uri, int generation) throws JSONException {
+        JSONObject item = new JSONObject();
+        item.put("uri", uri);
+        item.put("generation", generation);
+        return item;
+    }
+
+    // 删除超过保留代数的文件，返回仍需保留的列表
+    private static JSONArray rotate(ContentResolver resolver, JSONArray items, int generation) throws JSONException {
+        JSONArray kept = new JSONArray();
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.getJSONObject(i);
+            if (generation - item.getInt("generation") < KEEP_GENERATIONS) {
+                kept.put(item);
+                continue;
+            }
+            try {
+                DocumentsContract.deleteDocument(resolver, Uri.parse(item.getString("uri")));
+            } catch (Exception e) {
+                // 文件可能已被用户删除，不再重试
+                Log.w(TAG, "Failed to delete rotated backup file", e);
+            }
+        }
+        return kept;
+    }
+
+    // 备份目录变化或状态损坏时从第 0 代重新开始，下次运行写入全部分段
+    private static JSONObject readState(File file, String directory) {
+        if (file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                byte[] bytes = new byte[(int) file.length()];
+                int offset = 0;
+                int n;
+                while (offset < bytes.length && (n = in.read(bytes, offset, bytes.length - offset)) != -1) {
+                    offset += n;
+                }
+                JSONObject state = new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+                if (directory.equals(state.optString("directory"))) {
+                    return state;
+                }
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "Discarding unreadable backup state", e);
+            }
+        }
+        try {
+            JSONObject state = new JSONObject();
+            state.put("directory", directory);
+            state.put("generation", 0);
+            state.put("segments", new JSONObject());
+            state.put("retired", new JSONArray());
+            state.put("manifests", new JSONArray());
+            return state;
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeState(File file, JSONObject state) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(state.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Failed to save backup state");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.growapp.app.backup;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.growapp.app.diag.Tracer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// 每天一次的增量自动备份，只在充电且设备空闲时运行
+public class AutoBackupWorker extends Worker {
+    private static final String TAG = "GrowAppAutoBackup";
+    private static final Tracer TRACE = Tracer.forTag(TAG);
+    private static final String WORK_NAME = "growapp-auto-backup";
+    private static final long INTERVAL_HOURS = 24;
+    private static final int MAX_ATTEMPTS = 3;
+
+    public AutoBackupWorker(Context context, WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static void schedule(Context context, boolean enabled) {
+        WorkManager workManager = WorkManager.getInstance(context.getApplicationContext());
+        if (!enabled) {
+            workManager.cancelUniqueWork(WORK_NAME);
+            return;
+        }
+        Constraints constraints = new Constraints.Builder()
+            .setRequiresCharging(true)
+            .setRequiresDeviceIdle(true)
+            .setRequiresStorageNotLow(true)
+            .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(AutoBackupWorker.class,
+                INTERVAL_HOURS, TimeUnit.HOURS)
+            .setConstraints(constraints)
+            .build();
+        // 已经排期时保留原来的计划，避免每次打开设置页都推迟下一次运行
+        workManager.enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @Override
+    public Result doWork() {
+        try {
+            AutoBackup.Result result = AutoBackup.run(getApplicationContext());
+            if (result == null) {
+                TRACE.d("Auto backup skipped: no backup directory");
+            }
+            return Result.success();
+        } catch (IOException e) {
+            Log.w(TAG, "Auto backup failed", e);
+            return getRunAttemptCount() < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+        }
+    }
+}
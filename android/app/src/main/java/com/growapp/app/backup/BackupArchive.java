@@ -0,0 +1,325 @@
+package com.growapp.app.backup;
+
+import android.content.SharedPreferences;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+// 全量备份的 ZIP 格式：
+// manifest.json            格式标识和版本
+// preferences/<key>.json   children、chartConfig 等设置的原始 JSON
+// records/<childId>.jsonl  每个孩子的记录，一行一条
+// 写入和恢复都逐条流式处理，不在内存中构造完整的 JSON 树
+public final class BackupArchive {
+    public static final String PREFERENCES_NAME = "CapacitorStorage";
+    public static final String FORMAT = "growapp-backup";
+    public static final int VERSION = 1;
+
+    public static final String RECORDS_KEY = "records";
+    // 与 JS 端 records store 保存每个孩子修订号的键相同；不放进备份，恢复时为每个孩子前进一步
+    public static final String REVISIONS_KEY = "recordRevisions";
+    static final String[] SETTING_KEYS = {"children", "chartConfig"};
+
+    private static final String MANIFEST_ENTRY = "manifest.json";
+    private static final String PREFERENCES_DIR = "preferences/";
+    private static final String RECORDS_DIR = "records/";
+    private static final String RECORDS_SUFFIX = ".jsonl";
+
+    private BackupArchive() {
+    }
+
+    public static final class Summary {
+        private final int children;
+        private final int records;
+
+        Summary(int children, int records) {
+            this.children = children;
+            this.records = records;
+        }
+
+        public int getChildren() {
+            return children;
+        }
+
+        public int getRecords() {
+            return records;
+        }
+    }
+
+    public static Summary write(SharedPreferences preferences, OutputStream output, long createdAt)
+            throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(output);
+        Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        try {
+            zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+            JSONObject manifest = new JSONObject();
+            manifest.put("format", FORMAT);
+            manifest.put("version", VERSION);
+            manifest.put("createdAt", createdAt);
+            writer.write(manifest.toString());
+            writer.flush();
+            zip.closeEntry();
+
+            for (String key : SETTING_KEYS) {
+                String value = preferences.getString(key, null);
+                if (value == null) {
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(PREFERENCES_DIR + key + ".json"));
+                writer.write(value);
+                writer.flush();
+                zip.closeEntry();
+            }
+
+            int children = 0;
+            int records = 0;
+            String blob = preferences.getString(RECORDS_KEY, null);
+            if (blob != null) {
+                JsonReader reader = new JsonReader(new StringReader(blob));
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String childId = reader.nextName();
+                    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    zip.putNextEntry(new ZipEntry(RECORDS_DIR
+                        + URLEncoder.encode(childId, "UTF-8") + RECORDS_SUFFIX));
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        // 每条记录单独一个 JsonWriter，写完后换行
+                        JsonWriter line = new JsonWriter(writer);
+                        copyValue(reader, line);
+                        line.flush();
+                        writer.write('\n');
+                        records++;
+                    }
+                    reader.endArray();
+                    writer.flush();
+                    zip.closeEntry();
+                    children++;
+                }
+                reader.endObject();
+            }
+            writer.flush();
+            zip.finish();
+            return new Summary(children, records);
+        } catch (JSONException e) {
+            throw new IOException("Failed to write manifest", e);
+        } finally {
+            zip.close();
+        }
+    }
+
+    // 读取整个备份并在最后一次性提交到 SharedPreferences；中途出错时原有数据保持不变
+    public static Summary restore(InputStream input, SharedPreferences preferences) throws IOException {
+        ZipInputStream zip = new ZipInputStream(input);
+        SharedPreferences.Editor editor = preferences.edit();
+        StringBuilder recordsBlob = new StringBuilder("{");
+        List<String> restoredChildren = new ArrayList<>();
+        boolean manifestFound = false;
+        int children = 0;
+        int records = 0;
+        try {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                Reader reader = new InputStreamReader(zip, StandardCharsets.UTF_8);
+                if (MANIFEST_ENTRY.equals(name)) {
+                    JSONObject manifest = new JSONObject(readAll(reader));
+                    if (!FORMAT.equals(manifest.optString("format")) || manifest.optInt("version") > VERSION) {
+                        throw new IOException("Unsupported backup format");
+                    }
+                    manifestFound = true;
+                } else if (name.startsWith(PREFERENCES_DIR) && name.endsWith(".json")) {
+                    String key = name.substring(PREFERENCES_DIR.length(), name.length() - ".json".length());
+                    if (isSettingKey(key)) {
+                        String value = readAll(reader);
+                        new JSONObject(value);
+                        editor.putString(key, value);
+                    }
+                } else if (name.startsWith(RECORDS_DIR) && name.endsWith(RECORDS_SUFFIX)) {
+                    String childId = URLDecoder.decode(
+                        name.substring(RECORDS_DIR.length(), name.length() - RECORDS_SUFFIX.length()), "UTF-8");
+                    if (children > 0) {
+                        recordsBlob.append(',');
+                    }
+                    recordsBlob.append(JSONObject.quote(childId)).append(":[");
+                    BufferedReader lines = new BufferedReader(reader);
+                    boolean first = true;
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        if (line.trim().isEmpty()) {
+                            continue;
+                        }
+                        // 逐行校验，保留原始文本
+                        new JSONObject(line);
+                        if (!first) {
+                            recordsBlob.append(',');
+                        }
+                        recordsBlob.append(line);
+                        first = false;
+                        records++;
+                    }
+                    recordsBlob.append(']');
+                    restoredChildren.add(childId);
+                    children++;
+                }
+                zip.closeEntry();
+            }
+        } catch (JSONException e) {
+            throw new IOException("Corrupted backup entry", e);
+        } finally {
+            zip.close();
+        }
+        if (!manifestFound) {
+            throw new IOException("Not a GrowApp backup");
+        }
+        editor.putString(RECORDS_KEY, recordsBlob.append('}').toString());
+        // 修订号与记录在同一次提交中改变，原生记录镜像中的旧数据一定会被判定为过期
+        editor.putString(REVISIONS_KEY, nextRevisions(preferences, restoredChildren));
+        if (!editor.commit()) {
+            throw new IOException("Failed to save restored data");
+        }
+        return new Summary(children, records);
+    }
+
+    private static String nextRevisions(SharedPreferences preferences, List<String> childIds) {
+        JSONObject previous = null;
+        String saved = preferences.getString(REVISIONS_KEY, null);
+        if (saved != null) {
+            try {
+                previous = new JSONObject(saved);
+            } catch (JSONException e) {
+                // 无法解析时从 1 开始，原生镜像同样会被判定为过期
+            }
+        }
+        JSONObject revisions = new JSONObject();
+        try {
+            for (String childId : childIds) {
+                revisions.put(childId, (previous != null ? previous.optLong(childId, 0) : 0) + 1);
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return revisions.toString();
+    }
+
+    private static boolean isSettingKey(String key) {
+        for (String settingKey : SETTING_KEYS) {
+            if (settingKey.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[8 * 1024];
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                // 以字符串读取数字可以保留原始精度，再按数值写回
+                writer.value(new JsonNumber(reader.nextString()));
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                reader.skipValue();
+                break;
+        }
+    }
+
+    // 按原始文本输出的数字
+    private static final class JsonNumber extends Number {
+        private final String text;
+
+        JsonNumber(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) doubleValue();
+        }
+
+        @Override
+        public long longValue() {
+            return (long) doubleValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return (float) doubleValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return Double.parseDouble(text);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.growapp.app.csv;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// 根据 BOM 和文件开头的样本判断文本编码：优先 BOM，其次严格 UTF-8 校验，失败时按 GB18030 处理
+public final class CharsetDetector {
+    public static final Charset GB18030 = Charset.forName("GB18030");
+    public static final int SAMPLE_SIZE = 64 * 1024;
+
+    private CharsetDetector() {
+    }
+
+    public static final class Result {
+        private final Charset charset;
+        private final int bomLength;
+
+        Result(Charset charset, int bomLength) {
+            this.charset = charset;
+            this.bomLength = bomLength;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+
+        // 需要跳过的 BOM 字节数
+        public int getBomLength() {
+            return bomLength;
+        }
+    }
+
+    public static Result detect(byte[] sample, int length) {
+        if (length >= 3 && (sample[0] & 0xFF) == 0xEF && (sample[1] & 0xFF) == 0xBB && (sample[2] & 0xFF) == 0xBF) {
+            return new Result(StandardCharsets.UTF_8, 3);
+        }
+        if (length >= 2 && (sample[0] & 0xFF) == 0xFF && (sample[1] & 0xFF) == 0xFE) {
+            return new Result(StandardCharsets.UTF_16LE, 2);
+        }
+        if (length >= 2 && (sample[0] & 0xFF) == 0xFE && (sample[1] & 0xFF) == 0xFF) {
+            return new Result(StandardCharsets.UTF_16BE, 2);
+        }
+        if (isValidUtf8(sample, length)) {
+            return new Result(StandardCharsets.UTF_8, 0);
+        }
+        return new Result(GB18030, 0);
+    }
+
+    // 从流的开头取样判断编码，然后把流定位到 BOM 之后；in 的缓冲区至少为 SAMPLE_SIZE
+    public static Result detect(BufferedInputStream in) throws IOException {
+        in.mark(SAMPLE_SIZE);
+        byte[] sample = new byte[SAMPLE_SIZE];
+        int sampled = 0;
+        int n;
+        while (sampled < sample.length && (n = in.read(sample, sampled, sample.length - sampled)) != -1) {
+            sampled += n;
+        }
+        Result detected = detect(sample, sampled);
+        in.reset();
+        long skip = detected.getBomLength();
+        while (skip > 0) {
+            skip -= in.skip(skip);
+        }
+        return detected;
+    }
+
+    // 严格校验样本是否为合法 UTF-8；样本末尾被截断的多字节序列不算错误
+    static boolean isValidUtf8(byte[] sample, int length) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer in = ByteBuffer.wrap(sample, 0, length);
+        CharBuffer out = CharBuffer.allocate(4096);
+        while (true) {
+            CoderResult result = decoder.decode(in, out, false);
+            if (result.isError()) {
+                return false;
+            }
+            if (result.isOverflow()) {
+                out.clear();
+                continue;
+            }
+            // underflow：剩余字节不足以构成完整字符，只可能是被截断的尾部
+            return true;
+        }
+    }
+}
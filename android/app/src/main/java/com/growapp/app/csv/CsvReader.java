@@ -0,0 +1,97 @@
+package com.growapp.app.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// 逐行读取 CSV：引号内的换行属于同一行，字段拆分时处理引号和转义的双引号
+public class CsvReader {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder line = new StringBuilder(128);
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // 读取下一条逻辑行（不含换行符），读完时返回 null
+    public String readLine() throws IOException {
+        line.setLength(0);
+        boolean inQuotes = false;
+        boolean sawAny = false;
+        while (true) {
+            if (position >= limit) {
+                if (eof || !fill()) {
+                    return sawAny ? line.toString() : null;
+                }
+            }
+            char c = buffer[position++];
+            sawAny = true;
+            if (c == '"') {
+                inQuotes = !inQuotes;
+                line.append(c);
+            } else if ((c == '\n' || c == '\r') && !inQuotes) {
+                if (c == '\r') {
+                    if (position >= limit) {
+                        fill();
+                    }
+                    if (position < limit && buffer[position] == '\n') {
+                        position++;
+                    }
+                }
+                return line.toString();
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            eof = true;
+            limit = position = 0;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    // 按分隔符拆分字段，引号包围的字段中可以包含分隔符，"" 表示一个双引号
+    public static List<String> split(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
@@ -0,0 +1,233 @@
+package com.growapp.app.csv;
+
+import com.growapp.app.data.GrowthDates;
+import com.growapp.app.data.GrowthRecord;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 生长记录 CSV 解析，规则与 JS 端 processFileContent 一致：
+// 可选的“儿童姓名”行、必需的表头行，数据行为 日期,身高,体重（逗号、制表符或空格分隔）
+public final class GrowthCsvParser {
+    private static final Pattern SPACE_SEPARATED = Pattern.compile(
+        "^(\\d{4}[/-]\\d{1,2}[/-]\\d{1,2}\\s+\\d{1,2}:\\d{1,2}(?::\\d{1,2})?)\\s+(\\d+\\.?\\d*)(?:\\s+(\\d+\\.?\\d*))?$");
+    private static final Pattern LEADING_NUMBER = Pattern.compile("^[+-]?(\\d+\\.?\\d*|\\.\\d+)");
+    private static final Pattern TRAILING_FRACTION = Pattern.compile("\\.\\d+$");
+    private static final long MIN_DATE = GrowthDates.parse("2000-01-01");
+
+    private GrowthCsvParser() {
+    }
+
+    public static final class Result {
+        private final String childName;
+        private final Charset charset;
+        private final List<GrowthRecord> records;
+        private final List<String> formatErrors;
+        private final List<String> dateErrors;
+        private final List<String> heightErrors;
+        private final List<String> weightErrors;
+
+        Result(String childName, Charset charset, List<GrowthRecord> records, List<String> formatErrors,
+               List<String> dateErrors, List<String> heightErrors, List<String> weightErrors) {
+            this.childName = childName;
+            this.charset = charset;
+            this.records = records;
+            this.formatErrors = formatErrors;
+            this.dateErrors = dateErrors;
+            this.heightErrors = heightErrors;
+            this.weightErrors = weightErrors;
+        }
+
+        public String getChildName() {
+            return childName;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+
+        public List<GrowthRecord> getRecords() {
+            return records;
+        }
+
+        public List<String> getFormatErrors() {
+            return formatErrors;
+        }
+
+        public List<String> getDateErrors() {
+            return dateErrors;
+        }
+
+        public List<String> getHeightErrors() {
+            return heightErrors;
+        }
+
+        public List<String> getWeightErrors() {
+            return weightErrors;
+        }
+
+        public boolean hasErrors() {
+            return !formatErrors.isEmpty() || !dateErrors.isEmpty()
+                || !heightErrors.isEmpty() || !weightErrors.isEmpty();
+        }
+    }
+
+    // 解析整个输入流；文件结构错误（空文件、缺少表头、没有数据行）抛出 IllegalArgumentException
+    public static Result parse(InputStream input) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input, CharsetDetector.SAMPLE_SIZE);
+        CharsetDetector.Result detected = CharsetDetector.detect(in);
+        return parse(new CsvReader(new InputStreamReader(in, detected.getCharset())), detected.getCharset());
+    }
+
+    static Result parse(CsvReader reader, Charset charset) throws IOException {
+        String childName = "";
+        List<GrowthRecord> records = new ArrayList<>();
+        List<String> formatErrors = new ArrayList<>();
+        List<String> dateErrors = new ArrayList<>();
+        List<String> heightErrors = new ArrayList<>();
+        List<String> weightErrors = new ArrayList<>();
+
+        long maxDate = System.currentTimeMillis() + GrowthDates.DAY_MILLIS;
+        int lineNumber = 0;
+        boolean headerFound = false;
+        int dataRows = 0;
+        String raw;
+        while ((raw = reader.readLine()) != null) {
+            String row = stripBom(raw).trim();
+            if (row.isEmpty()) {
+                continue;
+            }
+            lineNumber++;
+
+            if (!headerFound) {
+                if (lineNumber == 1 && row.contains("儿童姓名")) {
+                    String[] nameParts = row.split("[:：]");
+                    childName = nameParts[nameParts.length - 1].replace("\"", "").trim();
+                    continue;
+                }
+                if (row.contains("日期") || row.toLowerCase(Locale.ROOT).contains("date")) {
+                    headerFound = true;
+                    continue;
+                }
+                throw new IllegalArgumentException("文件格式错误：未找到表头行。表头行应包含\"日期\"字段。\n"
+                    + "期望的表头格式：日期,身高(cm),体重(kg) 或 日期 身高(cm) 体重(kg)");
+            }
+
+            dataRows++;
+            List<String> parts = splitRow(row);
+            if (parts == null) {
+                formatErrors.add("第" + lineNumber + "行：数据格式不正确 => " + row.replaceAll("['\"]", "")
+                    + "\n期望格式：YYYY/MM/DD HH:mm 身高 体重");
+                continue;
+            }
+            if (parts.size() < 2) {
+                formatErrors.add("第" + lineNumber + "行：数据不完整，至少需要日期和身高 => " + row);
+                continue;
+            }
+
+            String dateStr = parts.get(0);
+            String height = parts.get(1);
+            String weight = parts.size() > 2 ? parts.get(2) : "";
+
+            long timestamp;
+            try {
+                timestamp = parseDate(dateStr);
+            } catch (IllegalArgumentException e) {
+                dateErrors.add("第" + lineNumber + "行：日期格式无效 => " + dateStr
+                    + "\n支持的格式：YYYY-MM-DD HH:mm:ss、YYYY/M/D HH:mm、YYYY-MM-DD");
+                continue;
+            }
+            if (timestamp < MIN_DATE || timestamp > maxDate) {
+                dateErrors.add("第" + lineNumber + "行：日期超出允许范围（2000年至今） => " + dateStr);
+                continue;
+            }
+
+            double heightNum = parseNumber(height);
+            if (Double.isNaN(heightNum) || heightNum <= 0 || heightNum > 250) {
+                heightErrors.add("第" + lineNumber + "行：身高数值无效（应在0-250cm之间） => " + height);
+                continue;
+            }
+
+            double weightNum = Double.NaN;
+            if (!weight.isEmpty()) {
+                weightNum = parseNumber(weight);
+                if (Double.isNaN(weightNum) || weightNum < 2 || weightNum > 150) {
+                    weightErrors.add("第" + lineNumber + "行：体重数值无效（应在2-150kg之间或留空） => " + weight);
+                    continue;
+                }
+            }
+
+            records.add(new GrowthRecord(null, null, timestamp, heightNum, weightNum));
+        }
+
+        if (lineNumber == 0) {
+            throw new IllegalArgumentException("文件内容为空。请确保文件包含有效数据。");
+        }
+        if (!headerFound) {
+            throw new IllegalArgumentException("文件格式错误：未找到表头行。表头行应包含\"日期\"字段。\n"
+                + "期望的表头格式：日期,身高(cm),体重(kg) 或 日期 身高(cm) 体重(kg)");
+        }
+        if (dataRows == 0) {
+            throw new IllegalArgumentException("文件中没有找到有效的数据行。\n请确保文件中包含实际的记录数据。");
+        }
+
+        return new Result(childName, charset, records, formatErrors, dateErrors, heightErrors, weightErrors);
+    }
+
+    // 依次尝试制表符、逗号和空格分隔；无法识别时返回 null
+    private static List<String> splitRow(String row) {
+        List<String> parts;
+        if (row.indexOf('\t') >= 0) {
+            parts = CsvReader.split(row, '\t');
+        } else if (row.indexOf(',') >= 0) {
+            parts = CsvReader.split(row, ',');
+        } else {
+            Matcher m = SPACE_SEPARATED.matcher(row.replaceAll("['\"]", ""));
+            if (!m.matches()) {
+                return null;
+            }
+            parts = new ArrayList<>(3);
+            parts.add(m.group(1));
+            parts.add(m.group(2));
+            if (m.group(3) != null) {
+                parts.add(m.group(3));
+            }
+            return parts;
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            parts.set(i, parts.get(i).replace("'", "").trim());
+        }
+        return parts;
+    }
+
+    // 去掉毫秒部分，并把点号分隔的日期统一成横杠
+    private static long parseDate(String dateStr) {
+        String normalized = TRAILING_FRACTION.matcher(dateStr.trim()).replaceFirst("");
+        return GrowthDates.parse(normalized.replace('.', '-'));
+    }
+
+    // 与 JS parseFloat 一致：只解析开头的数字部分，无法解析时返回 NaN
+    private static double parseNumber(String value) {
+        Matcher m = LEADING_NUMBER.matcher(value.trim());
+        if (!m.find()) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(m.group());
+    }
+
+    private static String stripBom(String line) {
+        int i = 0;
+        while (i < line.length() && (line.charAt(i) == '\uFEFF' || line.charAt(i) == '\uFFFE')) {
+            i++;
+        }
+        return i == 0 ? line : line.substring(i);
+    }
+}
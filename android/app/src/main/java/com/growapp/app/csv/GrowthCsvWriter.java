@@ -0,0 +1,172 @@
+package com.growapp.app.csv;
+
+import com.growapp.app.data.GrowthDates;
+import com.growapp.app.data.GrowthRecord;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 生长记录 CSV 导出，输出格式与 JS 端 exportToCsv 一致：
+// BOM、“儿童姓名”行、表头，数据按时间倒序且同一分钟只保留最新一条
+public final class GrowthCsvWriter {
+    public static final char BOM = '\uFEFF';
+
+    private GrowthCsvWriter() {
+    }
+
+    public static final class Column {
+        public static final String DATE = "date";
+        public static final String HEIGHT = "height";
+        public static final String WEIGHT = "weight";
+
+        private final String key;
+        private final String title;
+        private final int decimals;
+
+        public Column(String key, String title, int decimals) {
+            if (!DATE.equals(key) && !HEIGHT.equals(key) && !WEIGHT.equals(key)) {
+                throw new IllegalArgumentException("Unsupported column: " + key);
+            }
+            this.key = key;
+            this.title = title;
+            this.decimals = decimals;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public int getDecimals() {
+            return decimals;
+        }
+    }
+
+    public static List<Column> defaultColumns() {
+        List<Column> columns = new ArrayList<>(3);
+        columns.add(new Column(Column.DATE, "日期", 0));
+        columns.add(new Column(Column.HEIGHT, "身高(cm)", 1));
+        columns.add(new Column(Column.WEIGHT, "体重(kg)", 2));
+        return columns;
+    }
+
+    // 同一分钟内只保留时间最晚的记录，并按时间倒序排列
+    public static List<GrowthRecord> dedupeAndSort(List<GrowthRecord> records) {
+        Map<Long, GrowthRecord> byMinute = new HashMap<>(records.size() * 2);
+        for (GrowthRecord record : records) {
+            long key = GrowthDates.minuteKey(record.getTimestamp());
+            GrowthRecord existing = byMinute.get(key);
+            if (existing == null || record.getTimestamp() > existing.getTimestamp()) {
+                byMinute.put(key, record);
+            }
+        }
+        List<GrowthRecord> result = new ArrayList<>(byMinute.values());
+        Collections.sort(result, (a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
+        return result;
+    }
+
+    // 写出 BOM、可选的儿童姓名行、表头和数据行；records 应已去重排序
+    public static int write(Writer out, String childName, List<Column> columns, List<GrowthRecord> records)
+            throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        out.write(BOM);
+        boolean first = true;
+        if (childName != null) {
+            appendField(line, "儿童姓名：" + childName);
+            out.append(line);
+            first = false;
+        }
+
+        line.setLength(0);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendField(line, columns.get(i).getTitle());
+        }
+        if (!first) {
+            out.write('\n');
+        }
+        out.append(line);
+
+        for (GrowthRecord record : records) {
+            line.setLength(0);
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendValue(line, columns.get(i), record);
+            }
+            out.write('\n');
+            out.append(line);
+        }
+        out.flush();
+        return records.size();
+    }
+
+    private static void appendValue(StringBuilder sb, Column column, GrowthRecord record) {
+        switch (column.getKey()) {
+            case Column.DATE:
+                GrowthDates.appendCsv(sb, record.getTimestamp());
+                break;
+            case Column.HEIGHT:
+                if (record.hasHeight()) {
+                    appendFixed(sb, record.getHeight(), column.getDecimals());
+                }
+                break;
+            default:
+                // 体重为 0 或缺失时留空
+                if (record.hasWeight() && record.getWeight() != 0) {
+                    appendFixed(sb, record.getWeight(), column.getDecimals());
+                }
+                break;
+        }
+    }
+
+    // 固定小数位格式化，四舍五入，不受系统区域设置影响
+    static void appendFixed(StringBuilder sb, double value, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            sb.append('-');
+        }
+        sb.append(scaled / scale);
+        if (decimals > 0) {
+            sb.append('.');
+            long fraction = scaled % scale;
+            for (long limit = scale / 10; limit > 1 && fraction < limit; limit /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+    }
+
+    private static void appendField(StringBuilder sb, String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,187 @@
+package com.growapp.app.csv;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// 文本文件解码：按 CharsetDetector 的结果逐块解码，只读一遍文件，除结果字符串外不保留整份字节内容；
+// 没有 BOM 时按 UTF-8 严格解码，样本之后才出现非法字节时抛出 CharacterCodingException，由调用方改用 GB18030 重读
+public final class TextTranscoder {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private TextTranscoder() {
+    }
+
+    public static final class Result {
+        private final String text;
+        private final Charset charset;
+
+        Result(String text, Charset charset) {
+            this.text = text;
+            this.charset = charset;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+    }
+
+    public static Result decode(InputStream input) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input, CharsetDetector.SAMPLE_SIZE);
+        CharsetDetector.Result detected = CharsetDetector.detect(in);
+        // 只有未带 BOM 的 UTF-8 是推测出来的，需要严格校验
+        boolean guessed = detected.getBomLength() == 0 && StandardCharsets.UTF_8.equals(detected.getCharset());
+        return new Result(read(in, decoder(detected.getCharset(), guessed)), detected.getCharset());
+    }
+
+    // 已知编码（例如严格 UTF-8 失败后改用 GB18030），跳过 BOM 检测，非法字节替换为 U+FFFD
+    public static Result decode(InputStream input, Charset charset) throws IOException {
+        return new Result(read(input, decoder(charset, false)), charset);
+    }
+
+    // 流式转码：检测编码后按需逐块解码，只保留固定大小的缓冲区；
+    // 已经交出的文本无法重读，样本之后才出现的非法字节替换为 U+FFFD
+    public static Stream open(InputStream input) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input, CharsetDetector.SAMPLE_SIZE);
+        CharsetDetector.Result detected = CharsetDetector.detect(in);
+        return new Stream(new InputStreamReader(in, decoder(detected.getCharset(), false)), detected.getCharset());
+    }
+
+    public static final class Stream implements Closeable {
+        private final Reader reader;
+        private final Charset charset;
+        private char[] buffer;
+        private boolean eof;
+
+        Stream(Reader reader, Charset charset) {
+            this.reader = reader;
+            this.charset = charset;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+
+        public boolean isEof() {
+            return eof;
+        }
+
+        // 读取最多 maxChars 个字符，不足时说明已到末尾；到末尾后返回空字符串
+        public String readChunk(int maxChars) throws IOException {
+            if (buffer == null || buffer.length != maxChars) {
+                buffer = new char[maxChars];
+            }
+            int filled = 0;
+            while (filled < buffer.length && !eof) {
+                int n = reader.read(buffer, filled, buffer.length - filled);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    filled += n;
+                }
+            }
+            return new String(buffer, 0, filled);
+        }
+
+        // 转码后的 UTF-8 字节流，可直接作为响应体
+        public InputStream toUtf8() {
+            return new Utf8InputStream(reader);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class Utf8InputStream extends InputStream {
+        private final Reader reader;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        // 每个 char 最多编码为 3 个字节，代理对为 4 个字节
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 3);
+        private boolean eof;
+
+        Utf8InputStream(Reader reader) {
+            this.reader = reader;
+            chars.flip();
+            bytes.flip();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (!bytes.hasRemaining()) {
+                if (eof) {
+                    return -1;
+                }
+                fill();
+            }
+            int n = Math.min(len, bytes.remaining());
+            bytes.get(b, off, n);
+            return n;
+        }
+
+        // 拆开的代理对留在 chars 中，与下一次读取的字符一起编码
+        private void fill() throws IOException {
+            chars.compact();
+            int n = reader.read(chars);
+            chars.flip();
+            bytes.clear();
+            if (n < 0) {
+                eof = true;
+                encoder.encode(chars, bytes, true);
+                encoder.flush(bytes);
+            } else {
+                encoder.encode(chars, bytes, false);
+            }
+            bytes.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static CharsetDecoder decoder(Charset charset, boolean strict) {
+        CodingErrorAction action = strict ? CodingErrorAction.REPORT : CodingErrorAction.REPLACE;
+        return charset.newDecoder().onMalformedInput(action).onUnmappableCharacter(action);
+    }
+
+    private static String read(InputStream in, CharsetDecoder decoder) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[BUFFER_SIZE];
+        try (Reader reader = new InputStreamReader(in, decoder)) {
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, n);
+            }
+        }
+        return sb.toString();
+    }
+}
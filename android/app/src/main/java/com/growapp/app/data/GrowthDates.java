@@ -0,0 +1,220 @@
+package com.growapp.app.data;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 记录日期的解析与格式化，与 JS 端 dateUtils 的约定保持一致：
+// 不带时区的日期按本地时间解释，带 Z 或偏移量的按对应时区解释
+public final class GrowthDates {
+    public static final long MINUTE_MILLIS = 60L * 1000;
+    public static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    public static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private static final Pattern SEPARATED = Pattern.compile(
+        "^(\\d{4})[-/.](\\d{1,2})[-/.](\\d{1,2})"
+            + "(?:[ T]+(\\d{1,2}):(\\d{1,2})(?::(\\d{1,2})(?:\\.(\\d{1,9}))?)?)?"
+            + "\\s*(Z|[+-]\\d{2}:?\\d{2})?$");
+    private static final Pattern COMPACT = Pattern.compile("^(\\d{4})(\\d{2})(\\d{2})$");
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final ThreadLocal<Calendar> CALENDAR = new ThreadLocal<Calendar>() {
+        @Override
+        protected Calendar initialValue() {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setLenient(false);
+            return calendar;
+        }
+    };
+
+    private GrowthDates() {
+    }
+
+    // 解析日期字符串为毫秒时间戳，无法解析时抛出 IllegalArgumentException
+    public static long parse(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Date is null");
+        }
+        String text = value.trim();
+        Matcher m = SEPARATED.matcher(text);
+        if (m.matches()) {
+            int millis = 0;
+            String fraction = m.group(7);
+            if (fraction != null) {
+                String padded = (fraction + "00").substring(0, 3);
+                millis = Integer.parseInt(padded);
+            }
+            return toMillis(
+                Integer.parseInt(m.group(1)),
+                Integer.parseInt(m.group(2)),
+                Integer.parseInt(m.group(3)),
+                m.group(4) != null ? Integer.parseInt(m.group(4)) : 0,
+                m.group(5) != null ? Integer.parseInt(m.group(5)) : 0,
+                m.group(6) != null ? Integer.parseInt(m.group(6)) : 0,
+                millis,
+                m.group(8));
+        }
+        m = COMPACT.matcher(text);
+        if (m.matches()) {
+            return toMillis(
+                Integer.parseInt(m.group(1)),
+                Integer.parseInt(m.group(2)),
+                Integer.parseInt(m.group(3)),
+                0, 0, 0, 0, null);
+        }
+        throw new IllegalArgumentException("Invalid date: " + value);
+    }
+
+    // 能否解析为日期，不抛异常
+    public static boolean isValid(String value) {
+        try {
+            parse(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // 格式化为 YYYY-MM-DDTHH:mm:ss.SSS（本地时间，与导入解析后的格式相同）
+    public static String formatIso(long millis) {
+        return formatIso(millis, TimeZone.getDefault());
+    }
+
+    public static String formatIso(long millis, TimeZone zone) {
+        Calendar c = CALENDAR.get();
+        c.clear();
+        c.setTimeZone(zone);
+        c.setTimeInMillis(millis);
+        StringBuilder sb = new StringBuilder(23);
+        appendDate(sb, c, '-');
+        sb.append('T');
+        appendTime(sb, c);
+        sb.append('.');
+        pad(sb, c.get(Calendar.MILLISECOND), 3);
+        return sb.toString();
+    }
+
+    // 格式化为 YYYY-MM-DD HH:mm:ss（本地时间，CSV 导出格式）
+    public static String formatCsv(long millis) {
+        StringBuilder sb = new StringBuilder(19);
+        appendCsv(sb, millis);
+        return sb.toString();
+    }
+
+    public static void appendCsv(StringBuilder sb, long millis) {
+        Calendar c = local(millis);
+        appendDate(sb, c, '-');
+        sb.append(' ');
+        appendTime(sb, c);
+    }
+
+    // 与 JS 端 getDateTimeHourKey 等价的去重键：本地时间精确到分钟（YYYY-MM-DD HH:mm）
+    public static long minuteKey(long millis) {
+        return Math.floorDiv(localMillis(millis), MINUTE_MILLIS);
+    }
+
+    // 本地“墙上时间”对应的毫秒数（把本地时间当作 UTC），用于跨时区保持记录的日期和时刻不变
+    public static long wallClock(long millis) {
+        return localMillis(millis);
+    }
+
+    // 本地日期的天序号，用于按天计算年龄
+    public static long dayIndex(long millis) {
+        return Math.floorDiv(localMillis(millis), DAY_MILLIS);
+    }
+
+    // 本地日期天序号那一天开始的时间戳，是 dayIndex 的逆运算；0 点因夏令时不存在时取当天第一个有效时刻
+    public static long startOfDay(long dayIndex) {
+        Calendar c = CALENDAR.get();
+        c.clear();
+        c.setTimeZone(UTC);
+        c.setTimeInMillis(dayIndex * DAY_MILLIS);
+        int year = c.get(Calendar.YEAR);
+        int month = c.get(Calendar.MONTH);
+        int day = c.get(Calendar.DAY_OF_MONTH);
+        c.clear();
+        c.setTimeZone(TimeZone.getDefault());
+        c.setLenient(true);
+        try {
+            c.set(year, month, day, 0, 0, 0);
+            return c.getTimeInMillis();
+        } finally {
+            c.setLenient(false);
+        }
+    }
+
+    // 按日历日计算的年龄（天）范围对应的时间戳范围：从年龄达到 fromDays 的那天 0 点
+    // 到年龄为 toDays 的那天结束，与 dayIndex(记录) - dayIndex(出生) 的年龄算法一致
+    public static long ageStart(long birthMillis, double fromDays) {
+        return startOfDay(dayIndex(birthMillis) + (long) Math.ceil(fromDays));
+    }
+
+    public static long ageEnd(long birthMillis, double toDays) {
+        return startOfDay(dayIndex(birthMillis) + (long) Math.floor(toDays) + 1) - 1;
+    }
+
+    // 加上本地时区在该时刻的偏移量
+    private static long localMillis(long millis) {
+        return millis + TimeZone.getDefault().getOffset(millis);
+    }
+
+    private static long toMillis(int year, int month, int day, int hour, int minute, int second,
+                                 int millis, String zone) {
+        Calendar c = CALENDAR.get();
+        c.clear();
+        c.setTimeZone(zone == null ? TimeZone.getDefault() : UTC);
+        c.set(year, month - 1, day, hour, minute, second);
+        c.set(Calendar.MILLISECOND, millis);
+        long result;
+        try {
+            result = c.getTimeInMillis();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid date fields", e);
+        }
+        if (zone != null && !"Z".equals(zone)) {
+            int sign = zone.charAt(0) == '-' ? -1 : 1;
+            String digits = zone.substring(1).replace(":", "");
+            int offsetMinutes = Integer.parseInt(digits.substring(0, 2)) * 60 + Integer.parseInt(digits.substring(2));
+            result -= sign * offsetMinutes * 60_000L;
+        }
+        return result;
+    }
+
+    private static Calendar local(long millis) {
+        Calendar c = CALENDAR.get();
+        c.clear();
+        c.setTimeZone(TimeZone.getDefault());
+        c.setTimeInMillis(millis);
+        return c;
+    }
+
+    private static void appendDate(StringBuilder sb, Calendar c, char separator) {
+        pad(sb, c.get(Calendar.YEAR), 4);
+        sb.append(separator);
+        pad(sb, c.get(Calendar.MONTH) + 1, 2);
+        sb.append(separator);
+        pad(sb, c.get(Calendar.DAY_OF_MONTH), 2);
+    }
+
+    private static void appendTime(StringBuilder sb, Calendar c) {
+        pad(sb, c.get(Calendar.HOUR_OF_DAY), 2);
+        sb.append(':');
+        pad(sb, c.get(Calendar.MINUTE), 2);
+        sb.append(':');
+        pad(sb, c.get(Calendar.SECOND), 2);
+    }
+
+    private static void pad(StringBuilder sb, int value, int width) {
+        int limit = 1;
+        for (int i = 1; i < width; i++) {
+            limit *= 10;
+        }
+        while (limit > 1 && value < limit) {
+            sb.append('0');
+            limit /= 10;
+        }
+        sb.append(value);
+    }
+}
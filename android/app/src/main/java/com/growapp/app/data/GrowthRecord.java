@@ -0,0 +1,50 @@
+package com.growapp.app.data;
+
+// 一条生长记录；身高、体重缺失时为 NaN
+public class GrowthRecord {
+    private final String id;
+    private final String childId;
+    private final long timestamp;
+    private final double height;
+    private final double weight;
+
+    public GrowthRecord(String id, String childId, long timestamp, double height, double weight) {
+        this.id = id;
+        this.childId = childId;
+        this.timestamp = timestamp;
+        this.height = height;
+        this.weight = weight;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getChildId() {
+        return childId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public boolean hasHeight() {
+        return !Double.isNaN(height);
+    }
+
+    public boolean hasWeight() {
+        return !Double.isNaN(weight);
+    }
+
+    public String getDate() {
+        return GrowthDates.formatIso(timestamp);
+    }
+}
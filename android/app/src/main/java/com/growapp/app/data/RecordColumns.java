@@ -0,0 +1,255 @@
+package com.growapp.app.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+// 某个孩子全部记录的列式缓存：按日期升序的时间戳、身高、体重（float，缺失为 NaN）和 id；
+// 增删改直接在数组上移动元素，不复制整列；读写都在实例上加锁，查询结果写入调用方提供的缓冲区，不分配对象
+public final class RecordColumns {
+    public static final int HEIGHT = 0;
+    public static final int WEIGHT = 1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] ids;
+    private long[] timestamps;
+    private float[] heights;
+    private float[] weights;
+    private int size;
+
+    RecordColumns() {
+        this(new String[0], new long[0], new float[0], new float[0], 0);
+    }
+
+    RecordColumns(String[] ids, long[] timestamps, float[] heights, float[] weights, int size) {
+        this.ids = ids;
+        this.timestamps = timestamps;
+        this.heights = heights;
+        this.weights = weights;
+        this.size = size;
+    }
+
+    public static int metric(String name) {
+        if ("height".equals(name)) {
+            return HEIGHT;
+        }
+        if ("weight".equals(name)) {
+            return WEIGHT;
+        }
+        throw new IllegalArgumentException("Unknown metric: " + name);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // 日期范围内（from / to 为 null 表示不限）的记录数
+    public synchronized int count(Long from, Long to) {
+        return Math.max(0, end(to) - start(from));
+    }
+
+    // 日期范围内按日期排序的一页记录 id，追加到 out；limit <= 0 表示不分页
+    public synchronized void page(Long from, Long to, boolean descending, int limit, int offset, List<String> out) {
+        int start = start(from);
+        int end = end(to);
+        int skip = Math.max(0, offset);
+        int available = Math.max(0, end - start - skip);
+        int count = limit > 0 ? Math.min(limit, available) : available;
+        for (int i = 0; i < count; i++) {
+            out.add(ids[descending ? end - 1 - skip - i : start + skip + i]);
+        }
+    }
+
+    // 日期范围内某项指标的非空值，写入 out 并返回 out
+    public synchronized RecordSeries series(int metric, Long from, Long to, RecordSeries out) {
+        float[] values = column(metric);
+        int start = start(from);
+        int end = end(to);
+        out.reset(end - start);
+        for (int i = start; i < end; i++) {
+            if (!Float.isNaN(values[i])) {
+                out.add(timestamps[i], values[i]);
+            }
+        }
+        return out;
+    }
+
+    // 日期范围内某项指标的点数、首末点和最小最大值；near 不为 null 时另外找出整个序列中最接近该时间的点
+    public synchronized SeriesSummary summarize(int metric, Long from, Long to, Long near, SeriesSummary out) {
+        float[] values = column(metric);
+        int start = start(from);
+        int end = end(to);
+        int count = 0;
+        int first = -1;
+        int last = -1;
+        int min = -1;
+        int max = -1;
+        for (int i = start; i < end; i++) {
+            float value = values[i];
+            if (Float.isNaN(value)) {
+                continue;
+            }
+            if (first < 0) {
+                first = i;
+            }
+            last = i;
+            if (min < 0 || value < values[min]) {
+                min = i;
+            }
+            if (max < 0 || value > values[max]) {
+                max = i;
+            }
+            count++;
+        }
+        out.reset(count);
+        set(out, SeriesSummary.FIRST, values, first);
+        set(out, SeriesSummary.LAST, values, last);
+        set(out, SeriesSummary.MIN, values, min);
+        set(out, SeriesSummary.MAX, values, max);
+        if (near != null) {
+            set(out, SeriesSummary.NEAREST, values, nearest(values, near));
+        }
+        return out;
+    }
+
+    // 某项指标最接近 timestamp 的点，写入 out 的 NEAREST；距离相同时取较早的一条
+    public synchronized SeriesSummary nearest(int metric, long timestamp, SeriesSummary out) {
+        float[] values = column(metric);
+        out.reset(0);
+        set(out, SeriesSummary.NEAREST, values, nearest(values, timestamp));
+        return out;
+    }
+
+    // 新增或替换一条记录（按 id），原地移动插入位置之后的元素
+    synchronized void put(String id, long timestamp, float height, float weight) {
+        int existing = indexOf(id);
+        if (existing >= 0) {
+            removeAt(existing);
+        }
+        ensureCapacity(size + 1);
+        int index = upperBound(timestamp);
+        int tail = size - index;
+        System.arraycopy(ids, index, ids, index + 1, tail);
+        System.arraycopy(timestamps, index, timestamps, index + 1, tail);
+        System.arraycopy(heights, index, heights, index + 1, tail);
+        System.arraycopy(weights, index, weights, index + 1, tail);
+        ids[index] = id;
+        timestamps[index] = timestamp;
+        heights[index] = height;
+        weights[index] = weight;
+        size++;
+    }
+
+    // 删除一条记录，记录不存在时返回 false
+    synchronized boolean remove(String id) {
+        int existing = indexOf(id);
+        if (existing < 0) {
+            return false;
+        }
+        removeAt(existing);
+        return true;
+    }
+
+    private void removeAt(int index) {
+        int tail = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, tail);
+        System.arraycopy(timestamps, index + 1, timestamps, index, tail);
+        System.arraycopy(heights, index + 1, heights, index, tail);
+        System.arraycopy(weights, index + 1, weights, index, tail);
+        size--;
+        ids[size] = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (timestamps.length >= capacity) {
+            return;
+        }
+        int grown = Math.max(capacity, Math.max(MIN_CAPACITY, timestamps.length * 2));
+        ids = Arrays.copyOf(ids, grown);
+        timestamps = Arrays.copyOf(timestamps, grown);
+        heights = Arrays.copyOf(heights, grown);
+        weights = Arrays.copyOf(weights, grown);
+    }
+
+    private int nearest(float[] values, long timestamp) {
+        int after = lowerBound(timestamp);
+        int before = after - 1;
+        while (before >= 0 && Float.isNaN(values[before])) {
+            before--;
+        }
+        while (after < size && Float.isNaN(values[after])) {
+            after++;
+        }
+        if (before < 0) {
+            return after < size ? after : -1;
+        }
+        if (after >= size) {
+            return before;
+        }
+        return timestamp - timestamps[before] <= timestamps[after] - timestamp ? before : after;
+    }
+
+    private void set(SeriesSummary out, int point, float[] values, int index) {
+        if (index >= 0) {
+            out.set(point, ids[index], timestamps[index], values[index]);
+        }
+    }
+
+    private int start(Long from) {
+        return from != null ? lowerBound(from) : 0;
+    }
+
+    private int end(Long to) {
+        return to != null ? upperBound(to) : size;
+    }
+
+    // 第一个日期 >= from 的下标，没有时为 size
+    private int lowerBound(long from) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 第一个日期 > to 的下标，没有时为 size
+    private int upperBound(long to) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= to) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(String id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i].equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private float[] column(int metric) {
+        switch (metric) {
+            case HEIGHT:
+                return heights;
+            case WEIGHT:
+                return weights;
+            default:
+                throw new IllegalArgumentException("Unknown metric: " + metric);
+        }
+    }
+}
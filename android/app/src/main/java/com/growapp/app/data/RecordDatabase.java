@@ -0,0 +1,650 @@
+package com.growapp.app.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 生长记录的 SQLite 存储，按 (child_id, date_ms) 建索引，(child_id, minute_key) 上的唯一索引保证同一时间（精确到分钟）只有一条记录；
+// 校验规则和同一时间合并的约定与 JS 端 records store 一致。
+// child_state 表保存每个孩子最近一次写入时 JS 端的数据修订号，与记录在同一事务中写入，启动时据此判断镜像是否过期
+public final class RecordDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "growapp_records.db";
+    private static final int DATABASE_VERSION = 1;
+
+    static final String TABLE = "records";
+    static final String COL_ID = "id";
+    static final String COL_CHILD_ID = "child_id";
+    static final String COL_DATE = "date";
+    static final String COL_DATE_MS = "date_ms";
+    static final String COL_MINUTE_KEY = "minute_key";
+    static final String COL_HEIGHT = "height";
+    static final String COL_WEIGHT = "weight";
+    static final String COL_CREATED_AT = "created_at";
+    static final String COL_UPDATED_AT = "updated_at";
+    static final String COL_PHOTO_URI = "photo_uri";
+
+    static final String STATE_TABLE = "child_state";
+    static final String COL_REVISION = "revision";
+
+    private static final String[] COLUMNS = {
+        COL_ID, COL_CHILD_ID, COL_DATE, COL_DATE_MS, COL_HEIGHT, COL_WEIGHT, COL_CREATED_AT, COL_UPDATED_AT,
+        COL_PHOTO_URI
+    };
+    // 按 id 批量读取时每条语句的参数上限，低于 SQLite 默认的 999
+    private static final int MAX_QUERY_ARGS = 500;
+
+    private static volatile RecordDatabase instance;
+
+    // 每个孩子的数据版本，任何写入后递增；只在本进程内有效，供计算结果缓存判断是否过期
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    // 每个孩子的列式缓存，首次查询时从数据库读取，之后随增删改原地更新
+    private final Map<String, RecordColumns> columns = new ConcurrentHashMap<>();
+    // 版本递增和缓存更新在同一把锁内完成，避免加载中的旧数据覆盖新数据
+    private final Object columnsLock = new Object();
+
+    // 测试中直接创建，不经过单例
+    RecordDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    public static RecordDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (RecordDatabase.class) {
+                if (instance == null) {
+                    instance = new RecordDatabase(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+            + COL_ID + " TEXT PRIMARY KEY, "
+            + COL_CHILD_ID + " TEXT NOT NULL, "
+            + COL_DATE + " TEXT NOT NULL, "
+            + COL_DATE_MS + " INTEGER NOT NULL, "
+            + COL_MINUTE_KEY + " INTEGER NOT NULL, "
+            + COL_HEIGHT + " REAL, "
+            + COL_WEIGHT + " REAL, "
+            + COL_CREATED_AT + " TEXT, "
+            + COL_UPDATED_AT + " TEXT, "
+            + COL_PHOTO_URI + " TEXT)");
+        db.execSQL("CREATE INDEX idx_records_child_date ON " + TABLE + " (" + COL_CHILD_ID + ", " + COL_DATE_MS + ")");
+        db.execSQL("CREATE UNIQUE INDEX idx_records_child_minute ON " + TABLE + " (" + COL_CHILD_ID + ", " + COL_MINUTE_KEY + ")");
+        db.execSQL("CREATE TABLE " + STATE_TABLE + " ("
+            + COL_CHILD_ID + " TEXT PRIMARY KEY, "
+            + COL_REVISION + " INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 目前只有版本 1
+    }
+
+    // 与 JS 端 validateRecord 相同的校验，失败时抛出 IllegalArgumentException
+    public static void validate(JSONObject record) {
+        if (record == null) {
+            throw new IllegalArgumentException("记录数据无效");
+        }
+        String date = record.optString("date", "");
+        if (record.isNull("date") || date.isEmpty()) {
+            throw new IllegalArgumentException("日期是必填项");
+        }
+        if (!GrowthDates.isValid(date)) {
+            throw new IllegalArgumentException("日期格式无效: " + date);
+        }
+        if (record.has("height") && !record.isNull("height")) {
+            double height = record.optDouble("height", Double.NaN);
+            if (!(height >= 30 && height <= 200)) {
+                throw new IllegalArgumentException("身高必须在 30-200 厘米之间");
+            }
+        }
+        if (record.has("weight") && !record.isNull("weight")) {
+            double weight = record.optDouble("weight", Double.NaN);
+            if (!(weight >= 2 && weight <= 100)) {
+                throw new IllegalArgumentException("体重必须在 2-100 千克之间");
+            }
+        }
+    }
+
+    // 新增或更新一条记录：带 id 且已存在时按 id 更新；
+    // 否则同一时间已有记录则合并到那条记录（与 addRecord 一致），再否则插入新行。
+    // revision 为 null 时不修改修订号，下同
+    public JSONObject upsert(String childId, JSONObject record, Long revision) throws JSONException {
+        validate(record);
+        SQLiteDatabase db = getWritableDatabase();
+        JSONObject result;
+        db.beginTransaction();
+        try {
+            result = upsert(db, childId, record);
+            setRevision(db, childId, revision);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        // 事务提交后再更新版本，读到新版本号时一定能读到新数据
+        recordChanged(childId, result);
+        return result;
+    }
+
+    // 批量新增（导入使用），单个事务；任何一条校验失败时都不写入
+    public int upsertAll(String childId, JSONArray records, Long revision) throws JSONException {
+        for (int i = 0; i < records.length(); i++) {
+            validate(records.optJSONObject(i));
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < records.length(); i++) {
+                upsert(db, childId, records.getJSONObject(i));
+            }
+            setRevision(db, childId, revision);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        childReplaced(childId);
+        return records.length();
+    }
+
+    private static JSONObject upsert(SQLiteDatabase db, String childId, JSONObject record) throws JSONException {
+        JSONObject result;
+        String id = record.isNull("id") ? null : record.optString("id", null);
+        JSONObject existing = id != null ? findById(db, childId, id) : null;
+        if (existing == null) {
+            existing = findAtMinute(db, childId, GrowthDates.parse(record.getString("date")));
+        }
+        if (existing != null) {
+            result = merge(existing, record);
+            result.put("id", existing.getString("id"));
+            if (record.isNull("updatedAt")) {
+                result.put("updatedAt", GrowthDates.formatIso(System.currentTimeMillis()));
+            }
+            checkMinuteFree(db, childId, result);
+            db.update(TABLE, toValues(childId, result), COL_ID + " = ?", new String[]{existing.getString("id")});
+        } else {
+            result = merge(new JSONObject(), record);
+            result.put("id", id != null ? id : newId(db));
+            result.put("childId", childId);
+            if (record.isNull("createdAt")) {
+                result.put("createdAt", GrowthDates.formatIso(System.currentTimeMillis()));
+            }
+            db.insertWithOnConflict(TABLE, null, toValues(childId, result), SQLiteDatabase.CONFLICT_REPLACE);
+        }
+        return result;
+    }
+
+    // 按 id 部分更新，记录不存在时返回 null
+    public JSONObject update(String childId, String recordId, JSONObject data, Long revision) throws JSONException {
+        SQLiteDatabase db = getWritableDatabase();
+        JSONObject result;
+        db.beginTransaction();
+        try {
+            JSONObject existing = findById(db, childId, recordId);
+            if (existing == null) {
+                return null;
+            }
+            result = merge(existing, data);
+            result.put("id", recordId);
+            result.put("childId", childId);
+            if (data.isNull("updatedAt")) {
+                result.put("updatedAt", GrowthDates.formatIso(System.currentTimeMillis()));
+            }
+            validate(result);
+            checkMinuteFree(db, childId, result);
+            db.update(TABLE, toValues(childId, result), COL_ID + " = ?", new String[]{recordId});
+            setRevision(db, childId, revision);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        recordChanged(childId, result);
+        return result;
+    }
+
+    // 改到另一条记录所在的分钟时拒绝，唯一索引不允许同一分钟有两条记录
+    private static void checkMinuteFree(SQLiteDatabase db, String childId, JSONObject record) throws JSONException {
+        JSONObject other = findAtMinute(db, childId, GrowthDates.parse(record.getString("date")));
+        if (other != null && !other.getString("id").equals(record.getString("id"))) {
+            throw new IllegalArgumentException("该时间已存在其他记录");
+        }
+    }
+
+    public boolean delete(String childId, String recordId, Long revision) {
+        SQLiteDatabase db = getWritableDatabase();
+        boolean deleted;
+        db.beginTransaction();
+        try {
+            deleted = db.delete(TABLE, COL_CHILD_ID + " = ? AND " + COL_ID + " = ?",
+                new String[]{childId, recordId}) > 0;
+            setRevision(db, childId, revision);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (deleted) {
+            synchronized (columnsLock) {
+                touch(childId);
+                RecordColumns current = columns.get(childId);
+                if (current != null) {
+                    current.remove(recordId);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    public int deleteChild(String childId) {
+        SQLiteDatabase db = getWritableDatabase();
+        int deleted;
+        db.beginTransaction();
+        try {
+            deleted = db.delete(TABLE, COL_CHILD_ID + " = ?", new String[]{childId});
+            db.delete(STATE_TABLE, COL_CHILD_ID + " = ?", new String[]{childId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        childReplaced(childId);
+        return deleted;
+    }
+
+    // 每个孩子最近一次写入的修订号；有记录但没有修订号（升级前写入）的孩子值为 null
+    public Map<String, Long> getRevisions() {
+        Map<String, Long> revisions = new LinkedHashMap<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT c." + COL_CHILD_ID + ", s." + COL_REVISION
+                + " FROM (SELECT DISTINCT " + COL_CHILD_ID + " FROM " + TABLE
+                + " UNION SELECT " + COL_CHILD_ID + " FROM " + STATE_TABLE + ") c"
+                + " LEFT JOIN " + STATE_TABLE + " s ON s." + COL_CHILD_ID + " = c." + COL_CHILD_ID, null)) {
+            while (cursor.moveToNext()) {
+                revisions.put(cursor.getString(0), cursor.isNull(1) ? null : cursor.getLong(1));
+            }
+        }
+        return revisions;
+    }
+
+    private static void setRevision(SQLiteDatabase db, String childId, Long revision) {
+        if (revision == null) {
+            return;
+        }
+        ContentValues values = new ContentValues(2);
+        values.put(COL_CHILD_ID, childId);
+        values.put(COL_REVISION, revision);
+        db.insertWithOnConflict(STATE_TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    public long getVersion(String childId) {
+        AtomicLong version = versions.get(childId);
+        return version != null ? version.get() : 0;
+    }
+
+    // 某个孩子的列式缓存；之后的写入会原地更新同一个实例
+    private RecordColumns columns(String childId) {
+        RecordColumns cached = columns.get(childId);
+        if (cached != null) {
+            return cached;
+        }
+        long version = getVersion(childId);
+        RecordColumns loaded = loadColumns(childId);
+        synchronized (columnsLock) {
+            // 读取期间有写入时不缓存，下次查询重新读取
+            if (getVersion(childId) == version && !columns.containsKey(childId)) {
+                columns.put(childId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private void recordChanged(String childId, JSONObject record) throws JSONException {
+        long timestamp = GrowthDates.parse(record.getString("date"));
+        synchronized (columnsLock) {
+            touch(childId);
+            RecordColumns current = columns.get(childId);
+            if (current != null) {
+                current.put(record.getString("id"), timestamp,
+                    (float) number(record, "height"), (float) number(record, "weight"));
+            }
+        }
+    }
+
+    // 整体替换或删除后丢弃缓存，下次查询时重新读取
+    private void childReplaced(String childId) {
+        synchronized (columnsLock) {
+            touch(childId);
+            columns.remove(childId);
+        }
+    }
+
+    private void touch(String childId) {
+        AtomicLong version = versions.get(childId);
+        if (version == null) {
+            AtomicLong created = new AtomicLong();
+            version = versions.putIfAbsent(childId, created);
+            if (version == null) {
+                version = created;
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    // 用给定记录整体替换某个孩子的数据；单个事务 + 预编译语句，适合首次同步或批量导入
+    public int replaceChild(String childId, JSONArray records, Long revision) throws JSONException {
+        SQLiteDatabase db = getWritableDatabase();
+        int count;
+        db.beginTransaction();
+        try {
+            db.delete(TABLE, COL_CHILD_ID + " = ?", new String[]{childId});
+            count = insertAll(db, childId, records);
+            setRevision(db, childId, revision);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        childReplaced(childId);
+        return count;
+    }
+
+    // 用完整数据替换全部孩子（备份恢复后使用），单个事务；recordsByChild 中没有的孩子一并删除
+    public int replaceAll(JSONObject recordsByChild, Map<String, Long> revisions) throws JSONException {
+        SQLiteDatabase db = getWritableDatabase();
+        List<String> childIds = new ArrayList<>();
+        int count = 0;
+        db.beginTransaction();
+        try {
+            db.delete(TABLE, null, null);
+            db.delete(STATE_TABLE, null, null);
+            Iterator<String> keys = recordsByChild.keys();
+            while (keys.hasNext()) {
+                String childId = keys.next();
+                JSONArray records = recordsByChild.optJSONArray(childId);
+                if (records != null) {
+                    count += insertAll(db, childId, records);
+                }
+                setRevision(db, childId, revisions.get(childId));
+                childIds.add(childId);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        synchronized (columnsLock) {
+            childIds.addAll(versions.keySet());
+            for (String childId : childIds) {
+                touch(childId);
+            }
+            columns.clear();
+        }
+        return count;
+    }
+
+    // 同一分钟的多条记录只保留最后一条
+    private static int insertAll(SQLiteDatabase db, String childId, JSONArray records) throws JSONException {
+        SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE + " ("
+            + COL_ID + ", " + COL_CHILD_ID + ", " + COL_DATE + ", " + COL_DATE_MS + ", " + COL_MINUTE_KEY + ", "
+            + COL_HEIGHT + ", " + COL_WEIGHT + ", " + COL_CREATED_AT + ", " + COL_UPDATED_AT + ", " + COL_PHOTO_URI
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        int count = 0;
+        try {
+            for (int i = 0; i < records.length(); i++) {
+                JSONObject record = records.optJSONObject(i);
+                if (record == null) {
+                    continue;
+                }
+                String date = record.getString("date");
+                long dateMs = GrowthDates.parse(date);
+                String id = record.isNull("id") ? null : record.optString("id", null);
+                insert.clearBindings();
+                insert.bindString(1, id != null ? id : newId(db));
+                insert.bindString(2, childId);
+                insert.bindString(3, date);
+                insert.bindLong(4, dateMs);
+                insert.bindLong(5, GrowthDates.minuteKey(dateMs));
+                bindNumber(insert, 6, record, "height");
+                bindNumber(insert, 7, record, "weight");
+                bindText(insert, 8, record, "createdAt");
+                bindText(insert, 9, record, "updatedAt");
+                bindText(insert, 10, record, "photoUri");
+                insert.executeInsert();
+                count++;
+            }
+        } finally {
+            insert.close();
+        }
+        return count;
+    }
+
+    // 同一时间（精确到分钟）的记录，没有时返回 null
+    public JSONObject findAtMinute(String childId, long dateMs) throws JSONException {
+        return findAtMinute(getReadableDatabase(), childId, dateMs);
+    }
+
+    // 按日期范围查询并分页；from / to 为 null 表示不限，limit <= 0 表示不分页。
+    // 排序和分页在列式缓存上完成，数据库只按 id 读取这一页的完整记录
+    public List<JSONObject> query(String childId, Long from, Long to, boolean descending, int limit, int offset)
+            throws JSONException {
+        List<String> ids = new ArrayList<>(limit > 0 ? limit : 16);
+        columns(childId).page(from, to, descending, limit, offset, ids);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, JSONObject> byId = new HashMap<>(ids.size() * 2);
+        SQLiteDatabase db = getReadableDatabase();
+        // 分批读取，避免超过 SQLite 的参数个数上限
+        for (int start = 0; start < ids.size(); start += MAX_QUERY_ARGS) {
+            List<String> batch = ids.subList(start, Math.min(ids.size(), start + MAX_QUERY_ARGS));
+            String[] args = new String[batch.size() + 1];
+            args[0] = childId;
+            StringBuilder selection = new StringBuilder(COL_CHILD_ID).append(" = ? AND ").append(COL_ID).append(" IN (");
+            for (int i = 0; i < batch.size(); i++) {
+                selection.append(i == 0 ? "?" : ", ?");
+                args[i + 1] = batch.get(i);
+            }
+            selection.append(')');
+            try (Cursor cursor = db.query(TABLE, COLUMNS, selection.toString(), args, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    byId.put(cursor.getString(0), fromCursor(cursor));
+                }
+            }
+        }
+        List<JSONObject> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            JSONObject record = byId.get(id);
+            // 读取期间被删除的记录直接跳过
+            if (record != null) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    // 某个孩子的全部记录，只读取合并和比较需要的列
+    public List<GrowthRecord> loadRecords(String childId) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE,
+                new String[]{COL_ID, COL_DATE_MS, COL_HEIGHT, COL_WEIGHT},
+                COL_CHILD_ID + " = ?", new String[]{childId}, null, null, null)) {
+            List<GrowthRecord> records = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                records.add(new GrowthRecord(cursor.getString(0), childId, cursor.getLong(1),
+                    cursor.isNull(2) ? Double.NaN : cursor.getDouble(2),
+                    cursor.isNull(3) ? Double.NaN : cursor.getDouble(3)));
+            }
+            return records;
+        }
+    }
+
+    // 日期范围内的记录数，由列式缓存二分查找得出
+    public long count(String childId, Long from, Long to) {
+        return columns(childId).count(from, to);
+    }
+
+    // 按日期升序读取一项指标（height / weight）的非空值，从列式缓存中按二分查找截取日期范围，写入 out
+    public RecordSeries querySeries(String childId, String metric, Long from, Long to, RecordSeries out) {
+        return columns(childId).series(RecordColumns.metric(metric), from, to, out);
+    }
+
+    // 一项指标在日期范围内的点数、首末点和最值，near 不为 null 时包括最接近该时间的点，写入 out
+    public SeriesSummary summarizeSeries(String childId, String metric, Long from, Long to, Long near,
+            SeriesSummary out) {
+        return columns(childId).summarize(RecordColumns.metric(metric), from, to, near, out);
+    }
+
+    // 一项指标最接近 timestamp 的有值记录，写入 out 的 NEAREST
+    public SeriesSummary findNearest(String childId, String metric, long timestamp, SeriesSummary out) {
+        return columns(childId).nearest(RecordColumns.metric(metric), timestamp, out);
+    }
+
+    private RecordColumns loadColumns(String childId) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE,
+                new String[]{COL_ID, COL_DATE_MS, COL_HEIGHT, COL_WEIGHT},
+                COL_CHILD_ID + " = ?", new String[]{childId}, null, null, COL_DATE_MS + " ASC")) {
+            int size = cursor.getCount();
+            String[] ids = new String[size];
+            long[] timestamps = new long[size];
+            float[] heights = new float[size];
+            float[] weights = new float[size];
+            int i = 0;
+            while (cursor.moveToNext() && i < size) {
+                ids[i] = cursor.getString(0);
+                timestamps[i] = cursor.getLong(1);
+                heights[i] = cursor.isNull(2) ? Float.NaN : cursor.getFloat(2);
+                weights[i] = cursor.isNull(3) ? Float.NaN : cursor.getFloat(3);
+                i++;
+            }
+            return new RecordColumns(ids, timestamps, heights, weights, i);
+        }
+    }
+
+    private static JSONObject findById(SQLiteDatabase db, String childId, String id) throws JSONException {
+        try (Cursor cursor = db.query(TABLE, COLUMNS, COL_CHILD_ID + " = ? AND " + COL_ID + " = ?",
+                new String[]{childId, id}, null, null, null)) {
+            return cursor.moveToFirst() ? fromCursor(cursor) : null;
+        }
+    }
+
+    private static JSONObject findAtMinute(SQLiteDatabase db, String childId, long dateMs) throws JSONException {
+        try (Cursor cursor = db.query(TABLE, COLUMNS, COL_CHILD_ID + " = ? AND " + COL_MINUTE_KEY + " = ?",
+                new String[]{childId, String.valueOf(GrowthDates.minuteKey(dateMs))}, null, null, null, "1")) {
+            return cursor.moveToFirst() ? fromCursor(cursor) : null;
+        }
+    }
+
+    // 与 JS 端 Date.now().toString() 相同的 id 形式，冲突时递增
+    private static String newId(SQLiteDatabase db) {
+        long candidate = System.currentTimeMillis();
+        while (DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM " + TABLE + " WHERE " + COL_ID + " = ?",
+                new String[]{String.valueOf(candidate)}) > 0) {
+            candidate++;
+        }
+        return String.valueOf(candidate);
+    }
+
+    // 浅合并，相当于 JS 的 { ...base, ...patch }
+    private static JSONObject merge(JSONObject base, JSONObject patch) throws JSONException {
+        JSONObject result = new JSONObject();
+        Iterator<String> keys = base.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            result.put(key, base.get(key));
+        }
+        keys = patch.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            result.put(key, patch.get(key));
+        }
+        return result;
+    }
+
+    private static ContentValues toValues(String childId, JSONObject record) throws JSONException {
+        String date = record.getString("date");
+        long dateMs = GrowthDates.parse(date);
+        ContentValues values = new ContentValues(10);
+        values.put(COL_ID, record.getString("id"));
+        values.put(COL_CHILD_ID, childId);
+        values.put(COL_DATE, date);
+        values.put(COL_DATE_MS, dateMs);
+        values.put(COL_MINUTE_KEY, GrowthDates.minuteKey(dateMs));
+        putNumber(values, COL_HEIGHT, record, "height");
+        putNumber(values, COL_WEIGHT, record, "weight");
+        putText(values, COL_CREATED_AT, record, "createdAt");
+        putText(values, COL_UPDATED_AT, record, "updatedAt");
+        putText(values, COL_PHOTO_URI, record, "photoUri");
+        return values;
+    }
+
+    private static JSONObject fromCursor(Cursor cursor) throws JSONException {
+        JSONObject record = new JSONObject();
+        record.put("id", cursor.getString(0));
+        record.put("childId", cursor.getString(1));
+        record.put("date", cursor.getString(2));
+        record.put("height", cursor.isNull(4) ? JSONObject.NULL : cursor.getDouble(4));
+        record.put("weight", cursor.isNull(5) ? JSONObject.NULL : cursor.getDouble(5));
+        if (!cursor.isNull(6)) {
+            record.put("createdAt", cursor.getString(6));
+        }
+        if (!cursor.isNull(7)) {
+            record.put("updatedAt", cursor.getString(7));
+        }
+        if (!cursor.isNull(8)) {
+            record.put("photoUri", cursor.getString(8));
+        }
+        return record;
+    }
+
+    private static double number(JSONObject record, String key) {
+        return record.isNull(key) ? Double.NaN : record.optDouble(key, Double.NaN);
+    }
+
+    private static void putNumber(ContentValues values, String column, JSONObject record, String key) {
+        double value = number(record, key);
+        if (Double.isNaN(value)) {
+            values.putNull(column);
+        } else {
+            values.put(column, value);
+        }
+    }
+
+    private static void putText(ContentValues values, String column, JSONObject record, String key) {
+        if (record.isNull(key)) {
+            values.putNull(column);
+        } else {
+            values.put(column, record.optString(key));
+        }
+    }
+
+    private static void bindNumber(SQLiteStatement statement, int index, JSONObject record, String key) {
+        double value = record.isNull(key) ? Double.NaN : record.optDouble(key, Double.NaN);
+        if (Double.isNaN(value)) {
+            statement.bindNull(index);
+        } else {
+            statement.bindDouble(index, value);
+        }
+    }
+
+    private static void bindText(SQLiteStatement statement, int index, JSONObject record, String key) {
+        if (record.isNull(key)) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, record.optString(key));
+        }
+    }
+}
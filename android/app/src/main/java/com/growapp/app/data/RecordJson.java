@@ -0,0 +1,43 @@
+package com.growapp.app.data;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// JS 端记录对象（date / height / weight / id）与 GrowthRecord 之间的转换
+public final class RecordJson {
+    private RecordJson() {
+    }
+
+    // 日期无法解析时抛出 IllegalArgumentException
+    public static GrowthRecord fromJson(JSONObject json, String childId) {
+        String date = json.optString("date", null);
+        if (date == null || date.isEmpty()) {
+            throw new IllegalArgumentException("Record date is required");
+        }
+        String id = json.isNull("id") ? null : json.optString("id", null);
+        String owner = childId != null ? childId : (json.isNull("childId") ? null : json.optString("childId", null));
+        return new GrowthRecord(id, owner, GrowthDates.parse(date), optNumber(json, "height"), optNumber(json, "weight"));
+    }
+
+    public static List<GrowthRecord> fromJsonArray(JSONArray array, String childId) {
+        List<GrowthRecord> records = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject item = array.optJSONObject(i);
+            if (item != null) {
+                records.add(fromJson(item, childId));
+            }
+        }
+        return records;
+    }
+
+    // 缺失、null 或非数字时返回 NaN
+    private static double optNumber(JSONObject json, String key) {
+        if (json.isNull(key)) {
+            return Double.NaN;
+        }
+        return json.optDouble(key, Double.NaN);
+    }
+}
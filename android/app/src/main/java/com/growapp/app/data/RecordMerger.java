@@ -0,0 +1,73 @@
+package com.growapp.app.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 导入合并：以同一时间键（精确到分钟）建哈希索引，一次遍历把导入的记录分为新增、相同和冲突三类
+public final class RecordMerger {
+    private static final double EPSILON = 1e-6;
+
+    private final Map<Long, GrowthRecord> index;
+
+    public RecordMerger(List<GrowthRecord> existing) {
+        index = new HashMap<>(Math.max(16, existing.size() * 2));
+        for (GrowthRecord record : existing) {
+            index.put(GrowthDates.minuteKey(record.getTimestamp()), record);
+        }
+    }
+
+    public static final class Result {
+        private final List<Integer> added = new ArrayList<>();
+        private final List<Integer> identical = new ArrayList<>();
+        private final List<Integer> conflicts = new ArrayList<>();
+        private final List<GrowthRecord> conflictingExisting = new ArrayList<>();
+
+        // 下标均指向传入的 incoming 列表
+        public List<Integer> getAdded() {
+            return added;
+        }
+
+        public List<Integer> getIdentical() {
+            return identical;
+        }
+
+        public List<Integer> getConflicts() {
+            return conflicts;
+        }
+
+        // 与 getConflicts 一一对应的已有记录
+        public List<GrowthRecord> getConflictingExisting() {
+            return conflictingExisting;
+        }
+    }
+
+    // 导入文件内部的重复时间也按已有记录处理：先出现的一条被新增，后面的视为相同或冲突
+    public Result merge(List<GrowthRecord> incoming) {
+        Result result = new Result();
+        for (int i = 0; i < incoming.size(); i++) {
+            GrowthRecord record = incoming.get(i);
+            long key = GrowthDates.minuteKey(record.getTimestamp());
+            GrowthRecord existing = index.get(key);
+            if (existing == null) {
+                index.put(key, record);
+                result.added.add(i);
+            } else if (sameValue(existing.getHeight(), record.getHeight())
+                    && sameValue(existing.getWeight(), record.getWeight())) {
+                result.identical.add(i);
+            } else {
+                result.conflicts.add(i);
+                result.conflictingExisting.add(existing);
+            }
+        }
+        return result;
+    }
+
+    private static boolean sameValue(double a, double b) {
+        if (Double.isNaN(a) || Double.isNaN(b)) {
+            return Double.isNaN(a) && Double.isNaN(b);
+        }
+        return Math.abs(a - b) < EPSILON;
+    }
+}
@@ -0,0 +1,48 @@
+package com.growapp.app.data;
+
+// 某个孩子一项指标的时间序列，按日期升序存放在基本类型数组中，避免逐条创建 JSON 对象；
+// 作为查询的输出缓冲区重复使用，容量不足时才重新分配
+public final class RecordSeries {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] timestamps;
+    private float[] values;
+    private int size;
+
+    public RecordSeries() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public RecordSeries(int capacity) {
+        timestamps = new long[capacity];
+        values = new float[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    // 清空序列，并保证至少能放下 capacity 个点
+    void reset(int capacity) {
+        if (timestamps.length < capacity) {
+            int grown = Math.max(capacity, timestamps.length * 2);
+            timestamps = new long[grown];
+            values = new float[grown];
+        }
+        size = 0;
+    }
+
+    void add(long timestamp, float value) {
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+}
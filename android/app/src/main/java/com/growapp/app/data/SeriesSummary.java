@@ -0,0 +1,50 @@
+package com.growapp.app.data;
+
+import java.util.Arrays;
+
+// 一项指标在日期范围内的概要：点数，以及首、末、最小、最大和最接近某个时间的点（id、时间戳、数值）；
+// 作为查询的输出缓冲区重复使用，填充时不分配对象
+public final class SeriesSummary {
+    public static final int FIRST = 0;
+    public static final int LAST = 1;
+    public static final int MIN = 2;
+    public static final int MAX = 3;
+    public static final int NEAREST = 4;
+
+    private final String[] ids = new String[5];
+    private final long[] timestamps = new long[5];
+    private final float[] values = new float[5];
+    private int count;
+
+    public int getCount() {
+        return count;
+    }
+
+    // 该点是否存在；范围内没有数值时首末、最值都不存在
+    public boolean has(int point) {
+        return ids[point] != null;
+    }
+
+    public String getId(int point) {
+        return ids[point];
+    }
+
+    public long getTimestamp(int point) {
+        return timestamps[point];
+    }
+
+    public double getValue(int point) {
+        return values[point];
+    }
+
+    void reset(int count) {
+        this.count = count;
+        Arrays.fill(ids, null);
+    }
+
+    void set(int point, String id, long timestamp, float value) {
+        ids[point] = id;
+        timestamps[point] = timestamp;
+        values[point] = value;
+    }
+}
@@ -0,0 +1,350 @@
+package com.growapp.app.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import com.growapp.app.backup.BackupArchive;
+import com.growapp.app.diag.Tracer;
+import com.growapp.app.io.IoExecutor;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 冷启动快照：孩子列表和每个孩子最近的若干条记录，以紧凑的二进制格式保存在 noBackupFilesDir；
+// MainActivity 创建时就在后台线程读取，JS 挂载时直接拿来绘制第一屏，完整数据随后由 store 加载
+public final class WarmStartSnapshot {
+    private static final String TAG = "GrowAppWarmStart";
+    private static final Tracer TRACE = Tracer.forTag(TAG);
+    private static final String FILE_NAME = "warm_start.bin";
+    private static final int MAGIC = 0x47575331;
+    private static final int VERSION = 1;
+    private static final int MAX_RECENT_RECORDS = 120;
+
+    private static final String CHILDREN_KEY = "children";
+    private static final String RECORDS_KEY = "records";
+
+    private static volatile WarmStartSnapshot instance;
+
+    private final Context context;
+    private final List<Listener> listeners = new ArrayList<>();
+    private boolean loadStarted;
+    private volatile boolean loaded;
+    private JSONObject snapshot;
+
+    public interface Listener {
+        // snapshot 为 null 表示没有可用的快照
+        void onLoaded(JSONObject snapshot);
+    }
+
+    private static final class Entry {
+        final String id;
+        final String date;
+        final long timestamp;
+        final double height;
+        final double weight;
+
+        Entry(String id, String date, long timestamp, double height, double weight) {
+            this.id = id;
+            this.date = date;
+            this.timestamp = timestamp;
+            this.height = height;
+            this.weight = weight;
+        }
+    }
+
+    private WarmStartSnapshot(Context context) {
+        this.context = context;
+    }
+
+    public static WarmStartSnapshot getInstance(Context context) {
+        if (instance == null) {
+            synchronized (WarmStartSnapshot.class) {
+                if (instance == null) {
+                    instance = new WarmStartSnapshot(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 在后台线程读取快照文件，重复调用只读取一次
+    public void preload() {
+        synchronized (listeners) {
+            if (loadStarted) {
+                return;
+            }
+            loadStarted = true;
+        }
+        if (!IoExecutor.getInstance().execute(this::load)) {
+            load();
+        }
+    }
+
+    // 快照读取完成后回调（已完成时立即回调），回调所在线程不固定
+    public void whenLoaded(Listener listener) {
+        JSONObject result = null;
+        boolean ready;
+        synchronized (listeners) {
+            // 在锁内决定回调方式：未完成时登记，由 load 统一回调，保证每个监听者只回调一次
+            ready = loaded;
+            if (ready) {
+                result = snapshot;
+            } else {
+                listeners.add(listener);
+            }
+        }
+        if (!ready) {
+            preload();
+            return;
+        }
+        listener.onLoaded(result);
+    }
+
+    // 从 CapacitorStorage 中的完整数据重新生成快照，应用退到后台时调用
+    public void rebuild() {
+        SharedPreferences preferences = context.getSharedPreferences(BackupArchive.PREFERENCES_NAME, Context.MODE_PRIVATE);
+        String children = preferences.getString(CHILDREN_KEY, null);
+        String records = preferences.getString(RECORDS_KEY, null);
+        File file = new File(context.getNoBackupFilesDir(), FILE_NAME);
+        if (children == null) {
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Failed to delete stale snapshot");
+            }
+            return;
+        }
+        try {
+            Map<String, List<Entry>> recent = records != null ? recentRecords(records) : new LinkedHashMap<>();
+            Map<String, Integer> totals = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Entry>> item : recent.entrySet()) {
+                totals.put(item.getKey(), item.getValue().size());
+                trim(item.getValue());
+            }
+            long createdAt = System.currentTimeMillis();
+            write(file, createdAt, children, recent, totals);
+            JSONObject json = toJson(createdAt, children, recent, totals);
+            synchronized (listeners) {
+                snapshot = json;
+            }
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Snapshot rebuilt for " + recent.size() + " children");
+            }
+        } catch (IOException | JSONException | RuntimeException e) {
+            Log.w(TAG, "Failed to rebuild snapshot", e);
+        }
+    }
+
+    private void load() {
+        JSONObject result = null;
+        File file = new File(context.getNoBackupFilesDir(), FILE_NAME);
+        long start = System.nanoTime();
+        try {
+            result = read(file);
+            if (result != null && TRACE.isEnabled()) {
+                Log.d(TAG, "Snapshot loaded in " + (System.nanoTime() - start) / 1000 + "us");
+            }
+        } catch (IOException | JSONException | RuntimeException e) {
+            // 快照只是加速手段，损坏时直接丢弃，等下次退到后台重新生成
+            Log.w(TAG, "Discarding unreadable snapshot", e);
+            if (!file.delete()) {
+                Log.w(TAG, "Failed to delete unreadable snapshot");
+            }
+        }
+        List<Listener> pending;
+        synchronized (listeners) {
+            if (loaded) {
+                return;
+            }
+            snapshot = result;
+            loaded = true;
+            pending = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        for (Listener listener : pending) {
+            listener.onLoaded(result);
+        }
+    }
+
+    // 逐条流式读取记录，每个孩子只保留日期、身高、体重和 id，按日期倒序
+    private static Map<String, List<Entry>> recentRecords(String blob) throws IOException {
+        Map<String, List<Entry>> result = new LinkedHashMap<>();
+        JsonReader reader = new JsonReader(new StringReader(blob));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String childId = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+            List<Entry> entries = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                Entry entry = readEntry(reader);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+            reader.endArray();
+            Collections.sort(entries, (a, b) -> Long.compare(b.timestamp, a.timestamp));
+            result.put(childId, entries);
+        }
+        reader.endObject();
+        return result;
+    }
+
+    // 日期无法解析的记录不放进快照
+    private static Entry readEntry(JsonReader reader) throws IOException {
+        String id = null;
+        String date = null;
+        double height = Double.NaN;
+        double weight = Double.NaN;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            if ("id".equals(name) && (token == JsonToken.STRING || token == JsonToken.NUMBER)) {
+                id = reader.nextString();
+            } else if ("date".equals(name) && token == JsonToken.STRING) {
+                date = reader.nextString();
+            } else if ("height".equals(name) && token == JsonToken.NUMBER) {
+                height = reader.nextDouble();
+            } else if ("weight".equals(name) && token == JsonToken.NUMBER) {
+                weight = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (date == null) {
+            return null;
+        }
+        try {
+            return new Entry(id, date, GrowthDates.parse(date), height, weight);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void trim(List<Entry> entries) {
+        if (entries.size() > MAX_RECENT_RECORDS) {
+            entries.subList(MAX_RECENT_RECORDS, entries.size()).clear();
+        }
+    }
+
+    // 先写临时文件再改名，读取时不会看到写了一半的快照
+    private static void write(File file, long createdAt, String children, Map<String, List<Entry>> recent,
+            Map<String, Integer> totals) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(createdAt);
+            byte[] childrenBytes = children.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(childrenBytes.length);
+            out.write(childrenBytes);
+            out.writeInt(recent.size());
+            for (Map.Entry<String, List<Entry>> item : recent.entrySet()) {
+                out.writeUTF(item.getKey());
+                out.writeInt(totals.get(item.getKey()));
+                out.writeInt(item.getValue().size());
+                for (Entry entry : item.getValue()) {
+                    out.writeBoolean(entry.id != null);
+                    if (entry.id != null) {
+                        out.writeUTF(entry.id);
+                    }
+                    out.writeUTF(entry.date);
+                    out.writeLong(entry.timestamp);
+                    out.writeDouble(entry.height);
+                    out.writeDouble(entry.weight);
+                }
+            }
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Failed to replace snapshot file");
+        }
+    }
+
+    private static JSONObject read(File file) throws IOException, JSONException {
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported snapshot format");
+            }
+            long createdAt = in.readLong();
+            byte[] childrenBytes = new byte[in.readInt()];
+            in.readFully(childrenBytes);
+            Map<String, List<Entry>> recent = new LinkedHashMap<>();
+            Map<String, Integer> totals = new LinkedHashMap<>();
+            int childCount = in.readInt();
+            for (int i = 0; i < childCount; i++) {
+                String childId = in.readUTF();
+                totals.put(childId, in.readInt());
+                int count = in.readInt();
+                List<Entry> entries = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    String id = in.readBoolean() ? in.readUTF() : null;
+                    entries.add(new Entry(id, in.readUTF(), in.readLong(), in.readDouble(), in.readDouble()));
+                }
+                recent.put(childId, entries);
+            }
+            return toJson(createdAt, new String(childrenBytes, StandardCharsets.UTF_8), recent, totals);
+        } finally {
+            in.close();
+        }
+    }
+
+    // { createdAt, children: { children, currentChildId }, records: { childId: [...] }, totals: { childId: n } }
+    private static JSONObject toJson(long createdAt, String children, Map<String, List<Entry>> recent,
+            Map<String, Integer> totals) throws JSONException {
+        JSONObject records = new JSONObject();
+        for (Map.Entry<String, List<Entry>> item : recent.entrySet()) {
+            JSONArray array = new JSONArray();
+            for (Entry entry : item.getValue()) {
+                JSONObject record = new JSONObject();
+                record.put("id", entry.id != null ? entry.id : JSONObject.NULL);
+                record.put("childId", item.getKey());
+                record.put("date", entry.date);
+                record.put("height", Double.isNaN(entry.height) ? JSONObject.NULL : entry.height);
+                record.put("weight", Double.isNaN(entry.weight) ? JSONObject.NULL : entry.weight);
+                array.put(record);
+            }
+            records.put(item.getKey(), array);
+        }
+        JSONObject json = new JSONObject();
+        json.put("createdAt", createdAt);
+        json.put("children", new JSONObject(children));
+        json.put("records", records);
+        json.put("totals", new JSONObject(totals));
+        return json;
+    }
+}
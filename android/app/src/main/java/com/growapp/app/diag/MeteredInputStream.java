@@ -0,0 +1,45 @@
+package com.growapp.app.diag;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// 统计读取的字节数，关闭时一次性计入 Metrics.BYTES_READ
+public final class MeteredInputStream extends FilterInputStream {
+    private long count;
+    private boolean reported;
+
+    public MeteredInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (!reported) {
+                reported = true;
+                Metrics.getInstance().add(Metrics.BYTES_READ, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.growapp.app.diag;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// 统计写入的字节数，关闭时一次性计入 Metrics.BYTES_WRITTEN
+public final class MeteredOutputStream extends FilterOutputStream {
+    private long count;
+    private boolean reported;
+
+    public MeteredOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (!reported) {
+                reported = true;
+                Metrics.getInstance().add(Metrics.BYTES_WRITTEN, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.growapp.app.diag;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 进程内的 I/O 指标：计数器和耗时直方图（按 2 的幂分桶，单位微秒），通过 getMetrics 暴露给 JS 端；
+// 记录一次只有几次原子操作，不受日志开关影响
+public final class Metrics {
+    public static final String BYTES_READ = "io.bytesRead";
+    public static final String BYTES_WRITTEN = "io.bytesWritten";
+    public static final String TASKS = "io.tasks";
+    public static final String TASK_FAILURES = "io.taskFailures";
+    public static final String TASKS_REJECTED = "io.tasksRejected";
+    public static final String QUEUE_WAIT = "io.queueWait";
+    public static final String PICKER_ROUND_TRIP = "picker.roundTrip";
+    // 每个插件方法在 I/O 线程上的执行时间：call.<methodName>
+    public static final String CALL_PREFIX = "call.";
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, Long> pickerStarts = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    public void add(String counter, long delta) {
+        AtomicLong value = counters.get(counter);
+        if (value == null) {
+            AtomicLong created = new AtomicLong();
+            value = counters.putIfAbsent(counter, created);
+            if (value == null) {
+                value = created;
+            }
+        }
+        value.addAndGet(delta);
+    }
+
+    public void record(String histogram, long micros) {
+        Histogram value = histograms.get(histogram);
+        if (value == null) {
+            Histogram created = new Histogram();
+            value = histograms.putIfAbsent(histogram, created);
+            if (value == null) {
+                value = created;
+            }
+        }
+        value.record(micros);
+    }
+
+    // startNanos 取自 System.nanoTime()
+    public void recordSince(String histogram, long startNanos) {
+        record(histogram, (System.nanoTime() - startNanos) / 1000);
+    }
+
+    // 选择器往返时间：从启动系统选择器到收到结果，按 callbackId 配对
+    public void pickerStarted(String callbackId) {
+        if (callbackId != null) {
+            pickerStarts.put(callbackId, System.nanoTime());
+        }
+    }
+
+    public void pickerFinished(String callbackId) {
+        Long start = callbackId != null ? pickerStarts.remove(callbackId) : null;
+        if (start != null) {
+            recordSince(PICKER_ROUND_TRIP, start);
+        }
+    }
+
+    // { counters: { name: value }, histograms: { name: { count, totalMs, meanMs, maxMs, p50Ms, p90Ms, p99Ms } } }
+    public JSONObject snapshot(boolean reset) throws JSONException {
+        JSONObject counterJson = new JSONObject();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            counterJson.put(entry.getKey(), reset ? entry.getValue().getAndSet(0) : entry.getValue().get());
+        }
+        JSONObject histogramJson = new JSONObject();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            histogramJson.put(entry.getKey(), entry.getValue().toJson(reset));
+        }
+        JSONObject json = new JSONObject();
+        json.put("counters", counterJson);
+        json.put("histograms", histogramJson);
+        return json;
+    }
+
+    // 第 i 个桶记录 [2^(i-1), 2^i) 微秒，第 0 个桶记录 0
+    static final class Histogram {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long micros) {
+            long value = Math.max(0, micros);
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)));
+            count.incrementAndGet();
+            total.addAndGet(value);
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // 并发更新最大值，重试
+            }
+        }
+
+        JSONObject toJson(boolean reset) throws JSONException {
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = reset ? buckets.getAndSet(i, 0) : buckets.get(i);
+            }
+            long n = reset ? count.getAndSet(0) : count.get();
+            long sum = reset ? total.getAndSet(0) : total.get();
+            long peak = reset ? max.getAndSet(0) : max.get();
+
+            JSONObject json = new JSONObject();
+            json.put("count", n);
+            json.put("totalMs", sum / 1000.0);
+            json.put("meanMs", n > 0 ? sum / 1000.0 / n : 0);
+            json.put("maxMs", peak / 1000.0);
+            json.put("p50Ms", quantile(snapshot, n, 0.5, peak));
+            json.put("p90Ms", quantile(snapshot, n, 0.9, peak));
+            json.put("p99Ms", quantile(snapshot, n, 0.99, peak));
+            return json;
+        }
+
+        // 取所在桶的上界作为估计值，不超过实际最大值
+        private static double quantile(long[] snapshot, long n, double q, long peak) {
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(q * n);
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    long upper = i == 0 ? 0 : (1L << i) - 1;
+                    return Math.min(upper, peak) / 1000.0;
+                }
+            }
+            return peak / 1000.0;
+        }
+    }
+}
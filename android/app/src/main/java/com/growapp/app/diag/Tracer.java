@@ -0,0 +1,44 @@
+package com.growapp.app.diag;
+
+import android.util.Log;
+
+import com.growapp.app.BuildConfig;
+
+// 调试日志开关：
+// DEBUG 是编译期常量，release 构建中 if (Tracer.DEBUG) 包裹的代码（内容转储等）会被编译器整体去掉；
+// 其他调试日志用 isEnabled() 判断，release 构建中默认关闭，可用 adb shell setprop log.tag.<TAG> DEBUG 开启（重启应用后生效）
+public final class Tracer {
+    public static final boolean DEBUG = BuildConfig.DEBUG;
+
+    private final String tag;
+    private final boolean enabled;
+
+    private Tracer(String tag, boolean enabled) {
+        this.tag = tag;
+        this.enabled = enabled;
+    }
+
+    public static Tracer forTag(String tag) {
+        return new Tracer(tag, DEBUG || isLoggable(tag));
+    }
+
+    private static boolean isLoggable(String tag) {
+        try {
+            return Log.isLoggable(tag, Log.DEBUG);
+        } catch (IllegalArgumentException e) {
+            // Android 7 及以下标签超过 23 个字符时会抛出异常
+            return false;
+        }
+    }
+
+    // 需要拼接字符串的日志先判断，关闭时不产生任何开销
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void d(String message) {
+        if (enabled) {
+            Log.d(tag, message);
+        }
+    }
+}
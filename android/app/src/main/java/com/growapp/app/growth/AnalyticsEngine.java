@@ -0,0 +1,217 @@
+package com.growapp.app.growth;
+
+import com.growapp.app.data.RecordDatabase;
+import com.growapp.app.data.RecordSeries;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 多个孩子的趋势分析：每个孩子一个任务在小线程池中并行计算，
+// 结果按孩子缓存，记录版本、出生日期、性别或标准表变化后才重新计算
+public final class AnalyticsEngine {
+    private static final int THREADS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final String[] METRICS = {"height", "weight"};
+    // 每个线程复用一个序列缓冲区，两项指标依次写入同一个缓冲区
+    private static final ThreadLocal<RecordSeries> SERIES = new ThreadLocal<RecordSeries>() {
+        @Override
+        protected RecordSeries initialValue() {
+            return new RecordSeries();
+        }
+    };
+
+    private static volatile AnalyticsEngine instance;
+
+    private final ExecutorService executor;
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+    public static final class Child {
+        final String id;
+        final String sex;
+        final Long birthMs;
+
+        public Child(String id, String sex, Long birthMs) {
+            this.id = id;
+            this.sex = sex;
+            this.birthMs = birthMs;
+        }
+    }
+
+    public static final class Result {
+        private final JSONObject data;
+        private final boolean cached;
+
+        Result(JSONObject data, boolean cached) {
+            this.data = data;
+            this.cached = cached;
+        }
+
+        // { childId, height, weight, alerts } 或计算失败时的 { childId, error }，调用方不要修改
+        public JSONObject getData() {
+            return data;
+        }
+
+        public boolean isCached() {
+            return cached;
+        }
+    }
+
+    private static final class Cached {
+        final long version;
+        final String sex;
+        final Long birthMs;
+        final int projectionDays;
+        final LmsTable[] tables;
+        final JSONObject result;
+
+        Cached(long version, String sex, Long birthMs, int projectionDays, LmsTable[] tables, JSONObject result) {
+            this.version = version;
+            this.sex = sex;
+            this.birthMs = birthMs;
+            this.projectionDays = projectionDays;
+            this.tables = tables;
+            this.result = result;
+        }
+
+        boolean matches(long version, Child child, int projectionDays, LmsTable[] tables) {
+            if (this.version != version || this.projectionDays != projectionDays
+                    || !equal(sex, child.sex) || !equal(birthMs, child.birthMs)) {
+                return false;
+            }
+            // 标准表重新加载后是新对象，按引用比较即可
+            for (int i = 0; i < tables.length; i++) {
+                if (this.tables[i] != tables[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    private AnalyticsEngine() {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "growapp-analytics-" + count.incrementAndGet());
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    public static AnalyticsEngine getInstance() {
+        if (instance == null) {
+            synchronized (AnalyticsEngine.class) {
+                if (instance == null) {
+                    instance = new AnalyticsEngine();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 返回与 children 顺序一致的结果；命中缓存的孩子不提交任务
+    public List<Result> analyze(RecordDatabase database, List<Child> children, int projectionDays)
+            throws InterruptedException, JSONException {
+        List<Result> results = new ArrayList<>(children.size());
+        List<Future<JSONObject>> futures = new ArrayList<>(children.size());
+        for (Child child : children) {
+            LmsTable[] tables = tables(child.sex);
+            long version = database.getVersion(child.id);
+            Cached cached = cache.get(child.id);
+            if (cached != null && cached.matches(version, child, projectionDays, tables)) {
+                futures.add(null);
+                results.add(new Result(cached.result, true));
+                continue;
+            }
+            results.add(null);
+            futures.add(executor.submit(new Task(database, child, projectionDays, tables, version)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Future<JSONObject> future = futures.get(i);
+            if (future == null) {
+                continue;
+            }
+            try {
+                results.set(i, new Result(future.get(), false));
+            } catch (ExecutionException e) {
+                JSONObject failed = new JSONObject();
+                failed.put("childId", children.get(i).id);
+                failed.put("error", String.valueOf(e.getCause()));
+                results.set(i, new Result(failed, false));
+            }
+        }
+        return results;
+    }
+
+    // 孩子被删除时丢弃缓存
+    public void invalidate(String childId) {
+        cache.remove(childId);
+    }
+
+    private static LmsTable[] tables(String sex) {
+        LmsTable[] tables = new LmsTable[METRICS.length];
+        for (int i = 0; i < METRICS.length; i++) {
+            tables[i] = sex != null ? GrowthStandards.getInstance().get(METRICS[i], sex) : null;
+        }
+        return tables;
+    }
+
+    private final class Task implements Callable<JSONObject> {
+        private final RecordDatabase database;
+        private final Child child;
+        private final int projectionDays;
+        private final LmsTable[] tables;
+        private final long version;
+
+        Task(RecordDatabase database, Child child, int projectionDays, LmsTable[] tables, long version) {
+            this.database = database;
+            this.child = child;
+            this.projectionDays = projectionDays;
+            this.tables = tables;
+            this.version = version;
+        }
+
+        @Override
+        public JSONObject call() throws JSONException {
+            JSONObject result = new JSONObject();
+            JSONArray alerts = new JSONArray();
+            result.put("childId", child.id);
+            for (int i = 0; i < METRICS.length; i++) {
+                JSONObject metric = GrowthAnalytics.analyze(METRICS[i],
+                    database.querySeries(child.id, METRICS[i], null, null, SERIES.get()),
+                    child.birthMs, tables[i], projectionDays, alerts);
+                result.put(METRICS[i], metric != null ? metric : JSONObject.NULL);
+            }
+            result.put("alerts", alerts);
+            // 版本号在读取数据之前取得，计算期间有写入时下次请求会重新计算
+            cache.put(child.id, new Cached(version, child.sex, child.birthMs, projectionDays, tables, result));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.growapp.app.growth;
+
+// 折线降采样：Largest-Triangle-Three-Buckets，保留首尾点，每个桶选与前后形成最大三角形的点
+public final class Downsampler {
+    private Downsampler() {
+    }
+
+    // 返回被选中点的下标（递增）；x 必须已按升序排列，点数不超过 threshold（或 threshold 小于 3）时全部返回
+    public static int[] lttb(double[] x, double[] y, int count, int threshold) {
+        if (threshold >= count || threshold < 3) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int out = 0;
+        selected[out++] = 0;
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // 下一个桶的平均点作为三角形的第三个顶点
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, count);
+            double avgX = 0;
+            double avgY = 0;
+            int nextLength = nextEnd - nextStart;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            if (nextLength > 0) {
+                avgX /= nextLength;
+                avgY /= nextLength;
+            } else {
+                avgX = x[count - 1];
+                avgY = y[count - 1];
+            }
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[out++] = chosen;
+            a = chosen;
+        }
+        selected[out] = count - 1;
+        return selected;
+    }
+}
@@ -0,0 +1,166 @@
+package com.growapp.app.growth;
+
+import com.growapp.app.data.GrowthDates;
+import com.growapp.app.data.RecordSeries;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// 单项指标的趋势分析：在按日期升序的序列上一次遍历算出增速、滑动平均、线性回归预测和百分位跨线提醒
+public final class GrowthAnalytics {
+    private static final double DAYS_PER_MONTH = LmsTable.DAYS_PER_MONTH;
+    private static final long VELOCITY_WINDOW_DAYS = 183;
+    private static final long ROLLING_WINDOW_DAYS = 90;
+    private static final long REGRESSION_WINDOW_DAYS = 365;
+    private static final long PERCENTILE_WINDOW_DAYS = 365;
+    // 参考点与最新记录至少相隔的天数，太近的两点算出的增速没有意义
+    private static final long MIN_SPAN_DAYS = 28;
+    private static final long MIN_PERCENTILE_SPAN_DAYS = 90;
+    private static final int MIN_REGRESSION_POINTS = 3;
+    // 主要百分位线（P3、P15、P50、P85、P97），跨越两条及以上视为需要关注
+    private static final double[] MAJOR_PERCENTILES = {3, 15, 50, 85, 97};
+    private static final int ALERT_CROSSINGS = 2;
+
+    private GrowthAnalytics() {
+    }
+
+    // table 或 birthMs 为空时不计算百分位；series 为空时返回 null
+    public static JSONObject analyze(String metric, RecordSeries series, Long birthMs, LmsTable table,
+            int projectionDays, JSONArray alerts) throws JSONException {
+        int n = series.size();
+        if (n == 0) {
+            return null;
+        }
+        long lastMs = series.getTimestamp(n - 1);
+        double lastValue = series.getValue(n - 1);
+        long velocityCutoff = lastMs - VELOCITY_WINDOW_DAYS * GrowthDates.DAY_MILLIS;
+        long rollingCutoff = lastMs - ROLLING_WINDOW_DAYS * GrowthDates.DAY_MILLIS;
+        long regressionCutoff = lastMs - REGRESSION_WINDOW_DAYS * GrowthDates.DAY_MILLIS;
+        long percentileCutoff = lastMs - PERCENTILE_WINDOW_DAYS * GrowthDates.DAY_MILLIS;
+        long minSpan = MIN_SPAN_DAYS * GrowthDates.DAY_MILLIS;
+        long minPercentileSpan = MIN_PERCENTILE_SPAN_DAYS * GrowthDates.DAY_MILLIS;
+
+        int velocityRef = -1;
+        int percentileRef = -1;
+        double rollingSum = 0;
+        int rollingCount = 0;
+        // 回归的 x 为距最新记录的月数（≤ 0），以最新记录为原点减小数值误差
+        double sx = 0;
+        double sy = 0;
+        double sxx = 0;
+        double sxy = 0;
+        double syy = 0;
+        int regressionCount = 0;
+        long regressionFirst = lastMs;
+        for (int i = 0; i < n; i++) {
+            long t = series.getTimestamp(i);
+            double v = series.getValue(i);
+            if (velocityRef < 0 && t >= velocityCutoff && lastMs - t >= minSpan) {
+                velocityRef = i;
+            }
+            if (percentileRef < 0 && t >= percentileCutoff && lastMs - t >= minPercentileSpan) {
+                percentileRef = i;
+            }
+            if (t >= rollingCutoff) {
+                rollingSum += v;
+                rollingCount++;
+            }
+            if (t >= regressionCutoff) {
+                double x = (t - lastMs) / (GrowthDates.DAY_MILLIS * DAYS_PER_MONTH);
+                sx += x;
+                sy += v;
+                sxx += x * x;
+                sxy += x * v;
+                syy += v * v;
+                if (regressionCount == 0) {
+                    regressionFirst = t;
+                }
+                regressionCount++;
+            }
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("count", n);
+        JSONObject latest = new JSONObject();
+        latest.put("date", GrowthDates.formatIso(lastMs));
+        latest.put("value", lastValue);
+        result.put("latest", latest);
+
+        if (velocityRef >= 0) {
+            double months = (lastMs - series.getTimestamp(velocityRef)) / (GrowthDates.DAY_MILLIS * DAYS_PER_MONTH);
+            result.put("velocityPerMonth", (lastValue - series.getValue(velocityRef)) / months);
+            result.put("velocitySince", GrowthDates.formatIso(series.getTimestamp(velocityRef)));
+        } else {
+            result.put("velocityPerMonth", JSONObject.NULL);
+        }
+        result.put("rollingAverage", rollingSum / rollingCount);
+
+        double denominator = regressionCount * sxx - sx * sx;
+        if (regressionCount >= MIN_REGRESSION_POINTS && lastMs - regressionFirst >= minSpan && denominator > 0) {
+            double slope = (regressionCount * sxy - sx * sy) / denominator;
+            double intercept = (sy - slope * sx) / regressionCount;
+            double ssTotal = syy - sy * sy / regressionCount;
+            double ssResidual = syy - intercept * sy - slope * sxy;
+            double projectionMonths = projectionDays / DAYS_PER_MONTH;
+            JSONObject trend = new JSONObject();
+            trend.put("slopePerMonth", slope);
+            trend.put("r2", ssTotal > 0 ? Math.max(0, 1 - ssResidual / ssTotal) : 1);
+            trend.put("points", regressionCount);
+            trend.put("projectedDate", GrowthDates.formatIso(lastMs + projectionDays * GrowthDates.DAY_MILLIS));
+            trend.put("projectedValue", intercept + slope * projectionMonths);
+            result.put("trend", trend);
+        } else {
+            result.put("trend", JSONObject.NULL);
+        }
+
+        if (table != null && birthMs != null) {
+            double ageDays = (lastMs - birthMs) / (double) GrowthDates.DAY_MILLIS;
+            double z = table.zScore(ageDays, lastValue);
+            if (!Double.isNaN(z)) {
+                double percentile = NormalDistribution.cdf(z) * 100;
+                latest.put("z", z);
+                latest.put("percentile", percentile);
+                if (percentile < MAJOR_PERCENTILES[0] || percentile > MAJOR_PERCENTILES[MAJOR_PERCENTILES.length - 1]) {
+                    JSONObject alert = new JSONObject();
+                    alert.put("metric", metric);
+                    alert.put("type", "outOfRange");
+                    alert.put("percentile", percentile);
+                    alerts.put(alert);
+                }
+                if (percentileRef >= 0) {
+                    long refMs = series.getTimestamp(percentileRef);
+                    double refZ = table.zScore((refMs - birthMs) / (double) GrowthDates.DAY_MILLIS,
+                        series.getValue(percentileRef));
+                    int crossed = Double.isNaN(refZ) ? 0 : linesBetween(refZ, z);
+                    if (crossed >= ALERT_CROSSINGS) {
+                        JSONObject alert = new JSONObject();
+                        alert.put("metric", metric);
+                        alert.put("type", "crossing");
+                        alert.put("direction", z > refZ ? "up" : "down");
+                        alert.put("lines", crossed);
+                        alert.put("since", GrowthDates.formatIso(refMs));
+                        alert.put("fromPercentile", NormalDistribution.cdf(refZ) * 100);
+                        alert.put("toPercentile", percentile);
+                        alerts.put(alert);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // 两个 z 值之间跨过的主要百分位线条数
+    private static int linesBetween(double fromZ, double toZ) {
+        double low = Math.min(fromZ, toZ);
+        double high = Math.max(fromZ, toZ);
+        int count = 0;
+        for (double percentile : MAJOR_PERCENTILES) {
+            double line = NormalDistribution.quantile(percentile / 100);
+            if (line > low && line < high) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,89 @@
+package com.growapp.app.growth;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 已加载的生长标准表，按 “指标/性别”（如 height/male）索引；
+// 数据格式与 src/assets/who-standards-template.json 相同，只需加载一次
+public final class GrowthStandards {
+    private static final GrowthStandards INSTANCE = new GrowthStandards();
+
+    private final Map<String, LmsTable> tables = new ConcurrentHashMap<>();
+
+    private GrowthStandards() {
+    }
+
+    public static GrowthStandards getInstance() {
+        return INSTANCE;
+    }
+
+    // 解析 { metric: { sex: [{ ageInMonths, p3, p50, p97 }] } }，返回已加载的表名
+    public List<String> load(JSONObject standards) {
+        Map<String, LmsTable> loaded = new ConcurrentHashMap<>();
+        Iterator<String> metrics = standards.keys();
+        while (metrics.hasNext()) {
+            String metric = metrics.next();
+            JSONObject bySex = standards.optJSONObject(metric);
+            if (bySex == null) {
+                continue;
+            }
+            Iterator<String> sexes = bySex.keys();
+            while (sexes.hasNext()) {
+                String sex = sexes.next();
+                JSONArray points = bySex.optJSONArray(sex);
+                if (points == null || points.length() == 0) {
+                    continue;
+                }
+                loaded.put(key(metric, sex), parseTable(metric, points));
+            }
+        }
+        if (loaded.isEmpty()) {
+            throw new IllegalArgumentException("No standard tables found");
+        }
+        tables.clear();
+        tables.putAll(loaded);
+        List<String> names = new ArrayList<>(loaded.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    public boolean isLoaded() {
+        return !tables.isEmpty();
+    }
+
+    // 没有对应表时返回 null
+    public LmsTable get(String metric, String sex) {
+        return tables.get(key(metric, sex));
+    }
+
+    private static LmsTable parseTable(String metric, JSONArray points) {
+        int n = points.length();
+        double[] ages = new double[n];
+        double[] p3 = new double[n];
+        double[] p50 = new double[n];
+        double[] p97 = new double[n];
+        for (int i = 0; i < n; i++) {
+            JSONObject point = points.optJSONObject(i);
+            if (point == null) {
+                throw new IllegalArgumentException("Invalid standard point at index " + i);
+            }
+            ages[i] = point.optDouble("ageInMonths", Double.NaN);
+            p3[i] = point.optDouble("p3", Double.NaN);
+            p50[i] = point.optDouble("p50", Double.NaN);
+            p97[i] = point.optDouble("p97", Double.NaN);
+        }
+        // WHO 只对体重类指标使用受限尾部的 z 值算法
+        return LmsTable.fromPercentiles(ages, p3, p50, p97, "weight".equals(metric));
+    }
+
+    private static String key(String metric, String sex) {
+        return metric + "/" + sex;
+    }
+}
@@ -0,0 +1,191 @@
+package com.growapp.app.growth;
+
+// 某个性别、某项指标的 LMS 参数表，按年龄（天）展开成基本类型数组，查表时不再插值源数据点
+public final class LmsTable {
+    public static final double DAYS_PER_MONTH = 30.4375;
+
+    // P3 / P97 对应的 z 值
+    private static final double Z97 = NormalDistribution.quantile(0.97);
+    private static final double L_MIN = -5;
+    private static final double L_MAX = 5;
+
+    private final double[] l;
+    private final double[] m;
+    private final double[] s;
+    private final boolean restrictedTails;
+
+    private LmsTable(double[] l, double[] m, double[] s, boolean restrictedTails) {
+        this.l = l;
+        this.m = m;
+        this.s = s;
+        this.restrictedTails = restrictedTails;
+    }
+
+    // 由按月龄给出的 P3 / P50 / P97 数据点反推每个点的 L、M、S，再按天线性插值展开。
+    // restrictedTails 为 true 时按 WHO 对体重类指标的做法，|z| > 3 的部分用 SD2-SD3 间距线性外推
+    public static LmsTable fromPercentiles(double[] ageMonths, double[] p3, double[] p50, double[] p97,
+                                           boolean restrictedTails) {
+        int n = ageMonths.length;
+        if (n == 0 || p3.length != n || p50.length != n || p97.length != n) {
+            throw new IllegalArgumentException("Percentile arrays must be non-empty and of equal length");
+        }
+        double[] pointL = new double[n];
+        double[] pointS = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && ageMonths[i] <= ageMonths[i - 1]) {
+                throw new IllegalArgumentException("Ages must be strictly increasing");
+            }
+            if (!(p3[i] > 0 && p3[i] < p50[i] && p50[i] < p97[i])) {
+                throw new IllegalArgumentException("Invalid percentiles at " + ageMonths[i] + " months");
+            }
+            pointL[i] = solveL(p3[i], p50[i], p97[i]);
+            pointS[i] = sFor(pointL[i], p50[i], p97[i]);
+        }
+
+        int firstDay = (int) Math.round(ageMonths[0] * DAYS_PER_MONTH);
+        int lastDay = (int) Math.ceil(ageMonths[n - 1] * DAYS_PER_MONTH);
+        if (firstDay != 0) {
+            throw new IllegalArgumentException("Table must start at birth");
+        }
+        double[] l = new double[lastDay + 1];
+        double[] m = new double[lastDay + 1];
+        double[] s = new double[lastDay + 1];
+        int segment = 0;
+        for (int day = 0; day <= lastDay; day++) {
+            double months = day / DAYS_PER_MONTH;
+            while (segment < n - 2 && months > ageMonths[segment + 1]) {
+                segment++;
+            }
+            if (n == 1) {
+                l[day] = pointL[0];
+                m[day] = p50[0];
+                s[day] = pointS[0];
+                continue;
+            }
+            double t = (months - ageMonths[segment]) / (ageMonths[segment + 1] - ageMonths[segment]);
+            t = Math.max(0, Math.min(1, t));
+            l[day] = lerp(pointL[segment], pointL[segment + 1], t);
+            m[day] = lerp(p50[segment], p50[segment + 1], t);
+            s[day] = lerp(pointS[segment], pointS[segment + 1], t);
+        }
+        return new LmsTable(l, m, s, restrictedTails);
+    }
+
+    public int getMaxAgeDays() {
+        return m.length - 1;
+    }
+
+    public boolean covers(double ageDays) {
+        return ageDays >= 0 && ageDays <= getMaxAgeDays();
+    }
+
+    // 年龄超出表格范围或数值无效时返回 NaN
+    public double zScore(double ageDays, double value) {
+        if (!covers(ageDays) || !(value > 0)) {
+            return Double.NaN;
+        }
+        int day = (int) ageDays;
+        double t = ageDays - day;
+        int next = Math.min(day + 1, getMaxAgeDays());
+        double lv = lerp(l[day], l[next], t);
+        double mv = lerp(m[day], m[next], t);
+        double sv = lerp(s[day], s[next], t);
+        double z = z(lv, mv, sv, value);
+        if (restrictedTails && Math.abs(z) > 3) {
+            double sign = Math.signum(z);
+            double sd3 = value(lv, mv, sv, 3 * sign);
+            double sd2 = value(lv, mv, sv, 2 * sign);
+            z = sign * 3 + (value - sd3) / Math.abs(sd3 - sd2);
+        }
+        return z;
+    }
+
+    public double percentile(double ageDays, double value) {
+        return NormalDistribution.cdf(zScore(ageDays, value)) * 100;
+    }
+
+    // 指定年龄、z 值对应的测量值
+    public double valueAt(double ageDays, double z) {
+        if (!covers(ageDays)) {
+            return Double.NaN;
+        }
+        int day = (int) ageDays;
+        double t = ageDays - day;
+        int next = Math.min(day + 1, getMaxAgeDays());
+        return value(lerp(l[day], l[next], t), lerp(m[day], m[next], t), lerp(s[day], s[next], t), z);
+    }
+
+    public double valueAtPercentile(double ageDays, double percentile) {
+        return valueAt(ageDays, NormalDistribution.quantile(percentile / 100));
+    }
+
+    private static double z(double l, double m, double s, double x) {
+        if (Math.abs(l) < 1e-9) {
+            return Math.log(x / m) / s;
+        }
+        return (Math.pow(x / m, l) - 1) / (l * s);
+    }
+
+    private static double value(double l, double m, double s, double z) {
+        if (Math.abs(l) < 1e-9) {
+            return m * Math.exp(s * z);
+        }
+        double base = 1 + l * s * z;
+        return base > 0 ? m * Math.pow(base, 1 / l) : Double.NaN;
+    }
+
+    // 固定 L 时由 P50 和 P97 确定 S
+    private static double sFor(double l, double p50, double p97) {
+        if (Math.abs(l) < 1e-9) {
+            return Math.log(p97 / p50) / Z97;
+        }
+        return (Math.pow(p97 / p50, l) - 1) / (l * Z97);
+    }
+
+    // P3 处的拟合误差，L 使其为零时三个百分位同时满足 LMS 模型
+    private static double p3Error(double l, double p3, double p50, double p97) {
+        double predicted = value(l, p50, sFor(l, p50, p97), -Z97);
+        return Double.isNaN(predicted) ? Double.NaN : predicted - p3;
+    }
+
+    // 二分法求 L；区间内没有根时取误差最小的采样点
+    private static double solveL(double p3, double p50, double p97) {
+        double lo = L_MIN;
+        double hi = L_MAX;
+        double fLo = p3Error(lo, p3, p50, p97);
+        double fHi = p3Error(hi, p3, p50, p97);
+        if (Double.isNaN(fLo) || Double.isNaN(fHi) || fLo * fHi > 0) {
+            double best = 1;
+            double bestError = Double.MAX_VALUE;
+            for (double candidate = L_MIN; candidate <= L_MAX; candidate += 0.05) {
+                double error = Math.abs(p3Error(candidate, p3, p50, p97));
+                if (error < bestError) {
+                    bestError = error;
+                    best = candidate;
+                }
+            }
+            return best;
+        }
+        for (int i = 0; i < 60 && hi - lo > 1e-10; i++) {
+            double mid = (lo + hi) / 2;
+            double fMid = p3Error(mid, p3, p50, p97);
+            if (Double.isNaN(fMid)) {
+                break;
+            }
+            if (fMid == 0) {
+                return mid;
+            }
+            if (fLo * fMid < 0) {
+                hi = mid;
+            } else {
+                lo = mid;
+                fLo = fMid;
+            }
+        }
+        return (lo + hi) / 2;
+    }
+
+    private static double lerp(double a, double b, double t) {
+        return a + (b - a) * t;
+    }
+}
@@ -0,0 +1,172 @@
+package com.growapp.app.io;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// 列出已授权目录中的文件：对子文档 URI 只发一次查询，投影只包含需要的五列，
+// 过滤、排序和分页都在遍历游标时完成（DocumentsProvider 通常忽略 selection 和 sortOrder）
+public final class DirectoryListing {
+    public static final String KIND_ALL = "all";
+    public static final String KIND_FILE = "file";
+    public static final String KIND_DIRECTORY = "directory";
+
+    public static final String SORT_NAME = "name";
+    public static final String SORT_MODIFIED = "modified";
+    public static final String SORT_SIZE = "size";
+
+    private static final String[] PROJECTION = {
+        DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+        DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+        DocumentsContract.Document.COLUMN_SIZE,
+        DocumentsContract.Document.COLUMN_LAST_MODIFIED,
+        DocumentsContract.Document.COLUMN_MIME_TYPE
+    };
+
+    private DirectoryListing() {
+    }
+
+    public static final class Filter {
+        private final String kind;
+        private final String nameContains;
+        private final List<String> extensions;
+
+        // extensions 不区分大小写，可以带或不带前导点；为空时不按扩展名过滤
+        public Filter(String kind, String nameContains, List<String> extensions) {
+            this.kind = kind != null ? kind : KIND_ALL;
+            this.nameContains = nameContains != null && !nameContains.isEmpty()
+                ? nameContains.toLowerCase(Locale.ROOT) : null;
+            List<String> normalized = new ArrayList<>();
+            if (extensions != null) {
+                for (String extension : extensions) {
+                    String value = extension.startsWith(".") ? extension.substring(1) : extension;
+                    if (!value.isEmpty()) {
+                        normalized.add("." + value.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            this.extensions = normalized;
+        }
+
+        boolean matches(String name, boolean directory) {
+            if (KIND_FILE.equals(kind) && directory || KIND_DIRECTORY.equals(kind) && !directory) {
+                return false;
+            }
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (nameContains != null && !lower.contains(nameContains)) {
+                return false;
+            }
+            if (extensions.isEmpty()) {
+                return true;
+            }
+            // 指定扩展名时只匹配文件
+            if (directory) {
+                return false;
+            }
+            for (String extension : extensions) {
+                if (lower.endsWith(extension)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static final class Item {
+        private final String documentId;
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final String mimeType;
+
+        Item(String documentId, String name, long size, long lastModified, String mimeType) {
+            this.documentId = documentId;
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.mimeType = mimeType;
+        }
+
+        public boolean isDirectory() {
+            return DocumentsContract.Document.MIME_TYPE_DIR.equals(mimeType);
+        }
+
+        public JSONObject toJson(Uri treeUri) throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("uri", DocumentsContract.buildDocumentUriUsingTree(treeUri, documentId).toString());
+            json.put("documentId", documentId);
+            json.put("name", name);
+            json.put("size", size >= 0 ? size : JSONObject.NULL);
+            json.put("lastModified", lastModified > 0 ? lastModified : JSONObject.NULL);
+            json.put("mimeType", mimeType != null ? mimeType : JSONObject.NULL);
+            json.put("isDirectory", isDirectory());
+            return json;
+        }
+    }
+
+    public static final class Page {
+        private final List<Item> items;
+        private final int total;
+
+        Page(List<Item> items, int total) {
+            this.items = items;
+            this.total = total;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        // 过滤后的总条数，用于判断是否还有下一页
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    // parentId 为 null 时列出目录树的根；limit 为 0 时返回 offset 之后的全部条目
+    public static Page list(ContentResolver resolver, Uri treeUri, String parentId, Filter filter,
+            String sort, boolean descending, int offset, int limit) {
+        String parent = parentId != null ? parentId : DocumentsContract.getTreeDocumentId(treeUri);
+        Uri children = DocumentsContract.buildChildDocumentsUriUsingTree(treeUri, parent);
+        List<Item> matched = new ArrayList<>();
+        try (Cursor cursor = resolver.query(children, PROJECTION, null, null, null)) {
+            while (cursor != null && cursor.moveToNext()) {
+                String name = cursor.isNull(1) ? null : cursor.getString(1);
+                String mimeType = cursor.isNull(4) ? null : cursor.getString(4);
+                if (name == null
+                        || !filter.matches(name, DocumentsContract.Document.MIME_TYPE_DIR.equals(mimeType))) {
+                    continue;
+                }
+                matched.add(new Item(cursor.getString(0), name,
+                    cursor.isNull(2) ? -1 : cursor.getLong(2),
+                    cursor.isNull(3) ? 0 : cursor.getLong(3),
+                    mimeType));
+            }
+        }
+        Comparator<Item> comparator = comparator(sort);
+        Collections.sort(matched, descending ? Collections.reverseOrder(comparator) : comparator);
+        int from = Math.min(Math.max(offset, 0), matched.size());
+        int to = limit > 0 ? Math.min(from + limit, matched.size()) : matched.size();
+        return new Page(new ArrayList<>(matched.subList(from, to)), matched.size());
+    }
+
+    private static Comparator<Item> comparator(String sort) {
+        if (SORT_MODIFIED.equals(sort)) {
+            return (a, b) -> Long.compare(a.lastModified, b.lastModified);
+        }
+        if (SORT_SIZE.equals(sort)) {
+            return (a, b) -> Long.compare(a.size, b.size);
+        }
+        return (a, b) -> a.name.compareToIgnoreCase(b.name);
+    }
+}
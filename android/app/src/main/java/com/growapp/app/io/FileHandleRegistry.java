@@ -0,0 +1,85 @@
+package com.growapp.app.io;
+
+import android.net.Uri;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// 通过 WebView 路径处理器提供给 JS 的文件句柄：只有在这里登记过的 URI 才能被 fetch，
+// URL 中只出现随机句柄，不暴露原始 URI
+public final class FileHandleRegistry {
+    public static final String PATH_PREFIX = "/_growapp/file/";
+    private static final int MAX_HANDLES = 64;
+
+    private static final FileHandleRegistry INSTANCE = new FileHandleRegistry();
+
+    // 超过上限时淘汰最早登记的句柄
+    private final Map<String, Handle> handles = new LinkedHashMap<String, Handle>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Handle> eldest) {
+            return size() > MAX_HANDLES;
+        }
+    };
+
+    public static final class Handle {
+        private final String token;
+        private final Uri uri;
+        private final String mimeType;
+        private final boolean transcode;
+
+        Handle(String token, Uri uri, String mimeType, boolean transcode) {
+            this.token = token;
+            this.uri = uri;
+            this.mimeType = mimeType;
+            this.transcode = transcode;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public Uri getUri() {
+            return uri;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        // 为 true 时响应体是检测编码后转码的 UTF-8 文本，不支持 Range
+        public boolean isTranscoded() {
+            return transcode;
+        }
+
+        public String getPath() {
+            return PATH_PREFIX + token;
+        }
+    }
+
+    private FileHandleRegistry() {
+    }
+
+    public static FileHandleRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized Handle register(Uri uri, String mimeType, boolean transcode) {
+        String token = UUID.randomUUID().toString();
+        Handle handle = new Handle(token, uri, mimeType != null ? mimeType : "application/octet-stream", transcode);
+        handles.put(token, handle);
+        return handle;
+    }
+
+    // path 为请求路径，不是本处理器的路径时返回 null
+    public synchronized Handle resolve(String path) {
+        if (path == null || !path.startsWith(PATH_PREFIX)) {
+            return null;
+        }
+        return handles.get(path.substring(PATH_PREFIX.length()));
+    }
+
+    public synchronized boolean release(String token) {
+        return token != null && handles.remove(token) != null;
+    }
+}
@@ -0,0 +1,246 @@
+package com.growapp.app.io;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import com.growapp.app.csv.TextTranscoder;
+import com.growapp.app.diag.MeteredInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 把登记的文件句柄作为 HTTP 响应返回：支持 GET / HEAD 和单个 Range（206 / 416），
+// 响应体直接从 ContentResolver 的流读取，不经过 base64 和 JSON
+public final class FileResponder {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private FileResponder() {
+    }
+
+    public static WebResourceResponse respond(ContentResolver resolver, FileHandleRegistry.Handle handle,
+            WebResourceRequest request) {
+        String method = request.getMethod();
+        boolean head = "HEAD".equalsIgnoreCase(method);
+        if (!head && !"GET".equalsIgnoreCase(method)) {
+            return error(405, "Method Not Allowed");
+        }
+
+        if (handle.isTranscoded()) {
+            return respondTranscoded(resolver, handle, head);
+        }
+
+        AssetFileDescriptor descriptor;
+        try {
+            descriptor = resolver.openAssetFileDescriptor(handle.getUri(), "r");
+        } catch (IOException | SecurityException e) {
+            return error(404, "Not Found");
+        }
+        if (descriptor == null) {
+            return error(404, "Not Found");
+        }
+
+        long length = descriptor.getLength();
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", "no-store");
+        int status = 200;
+        String reason = "OK";
+        long start = 0;
+        long count = length;
+
+        // 多段范围等不支持的格式按规范忽略，返回完整内容
+        String range = header(request, "Range");
+        if (range != null && length >= 0 && RANGE.matcher(range.trim().toLowerCase(Locale.ROOT)).matches()) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                closeQuietly(descriptor);
+                WebResourceResponse response = error(416, "Range Not Satisfiable");
+                headers.put("Content-Range", "bytes */" + length);
+                response.setResponseHeaders(headers);
+                return response;
+            }
+            start = bounds[0];
+            count = bounds[1] - bounds[0] + 1;
+            status = 206;
+            reason = "Partial Content";
+            headers.put("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + length);
+        }
+        if (length >= 0) {
+            headers.put("Accept-Ranges", "bytes");
+            headers.put("Content-Length", String.valueOf(count));
+        }
+
+        InputStream body;
+        if (head) {
+            closeQuietly(descriptor);
+            body = new ByteArrayInputStream(new byte[0]);
+        } else {
+            try {
+                body = new MeteredInputStream(new RangeInputStream(descriptor, start, count));
+            } catch (IOException e) {
+                closeQuietly(descriptor);
+                return error(500, "Internal Server Error");
+            }
+        }
+        return new WebResourceResponse(handle.getMimeType(), null, status, reason, headers, body);
+    }
+
+    // 转码后的长度事先未知，不返回 Content-Length，Range 请求按规范忽略；检测到的原始编码放在 X-Source-Charset 中
+    private static WebResourceResponse respondTranscoded(ContentResolver resolver, FileHandleRegistry.Handle handle,
+            boolean head) {
+        InputStream stream;
+        try {
+            stream = resolver.openInputStream(handle.getUri());
+        } catch (IOException | SecurityException e) {
+            return error(404, "Not Found");
+        }
+        if (stream == null) {
+            return error(404, "Not Found");
+        }
+
+        TextTranscoder.Stream text;
+        try {
+            text = TextTranscoder.open(new MeteredInputStream(stream));
+        } catch (IOException e) {
+            closeQuietly(stream);
+            return error(500, "Internal Server Error");
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", "no-store");
+        headers.put("X-Source-Charset", text.getCharset().name());
+        InputStream body = text.toUtf8();
+        if (head) {
+            closeQuietly(body);
+            body = new ByteArrayInputStream(new byte[0]);
+        }
+        return new WebResourceResponse(handle.getMimeType(), "UTF-8", 200, "OK", headers, body);
+    }
+
+    // 返回 [first, last]（含），不可满足时返回 null；不支持多段范围
+    static long[] parseRange(String value, long length) {
+        Matcher matcher = RANGE.matcher(value.trim().toLowerCase(Locale.ROOT));
+        if (!matcher.matches() || length == 0) {
+            return null;
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                // bytes=-N：最后 N 个字节
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix == 0) {
+                    return null;
+                }
+                return new long[] {Math.max(0, length - suffix), length - 1};
+            }
+            long from = Long.parseLong(first);
+            long to = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (from >= length || to < from) {
+                return null;
+            }
+            return new long[] {from, to};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String header(WebResourceRequest request, String name) {
+        Map<String, String> headers = request.getRequestHeaders();
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static WebResourceResponse error(int status, String reason) {
+        return new WebResourceResponse("text/plain", "UTF-8", status, reason, new HashMap<>(),
+            new ByteArrayInputStream(new byte[0]));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // 关闭失败不影响响应
+        }
+    }
+
+    // 从 start 开始最多读取 count 个字节（count < 0 表示读到末尾），关闭时一并关闭文件描述符
+    private static final class RangeInputStream extends FilterInputStream {
+        private final AssetFileDescriptor descriptor;
+        private long remaining;
+
+        RangeInputStream(AssetFileDescriptor descriptor, long start, long count) throws IOException {
+            super(descriptor.createInputStream());
+            this.descriptor = descriptor;
+            this.remaining = count;
+            long skipped = 0;
+            while (skipped < start) {
+                long n = in.skip(start - skipped);
+                if (n <= 0) {
+                    break;
+                }
+                skipped += n;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0 && remaining > 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int n = in.read(b, off, remaining > 0 ? (int) Math.min(len, remaining) : len);
+            if (n > 0 && remaining > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(remaining >= 0 ? Math.min(n, remaining) : n);
+            if (skipped > 0 && remaining > 0) {
+                remaining -= skipped;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                descriptor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.growapp.app.io;
+
+import android.util.Log;
+
+import com.getcapacitor.PluginCall;
+import com.growapp.app.diag.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 插件共用的文件 I/O 线程池：线程数和排队数都有上限，任务可按 taskId（默认为 callbackId）取消
+public final class IoExecutor {
+    private static final String TAG = "GrowAppIoExecutor";
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 32;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public static final String ERROR_BUSY = "BUSY";
+    public static final String ERROR_CANCELLED = "CANCELLED";
+
+    private static volatile IoExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, IoTask> tasks = new ConcurrentHashMap<>();
+
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private IoExecutor() {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "growapp-io-" + count.incrementAndGet());
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        };
+        executor = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static IoExecutor getInstance() {
+        if (instance == null) {
+            synchronized (IoExecutor.class) {
+                if (instance == null) {
+                    instance = new IoExecutor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 把插件调用的 I/O 部分放到线程池执行；任务抛出的异常会被转成 reject
+    public void execute(PluginCall call, Task task) {
+        String key = call.getString("taskId", call.getCallbackId());
+        IoTask ioTask = new IoTask(key, call, task);
+        if (key != null) {
+            tasks.put(key, ioTask);
+        }
+        try {
+            ioTask.future = executor.submit(ioTask);
+        } catch (RejectedExecutionException e) {
+            if (key != null) {
+                tasks.remove(key, ioTask);
+            }
+            Metrics.getInstance().add(Metrics.TASKS_REJECTED, 1);
+            Log.w(TAG, "I/O queue is full, rejecting " + call.getMethodName());
+            call.reject("Too many pending file operations", ERROR_BUSY);
+        }
+    }
+
+    // 不属于某个插件调用的后台任务（例如清理工作）
+    public boolean execute(Runnable runnable) {
+        try {
+            executor.execute(runnable);
+            return true;
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "I/O queue is full, dropping background task");
+            return false;
+        }
+    }
+
+    // 取消尚未开始的任务并 reject 对应调用；已在执行的任务会被中断，由任务自己结束调用
+    public boolean cancel(String key) {
+        IoTask task = key != null ? tasks.remove(key) : null;
+        if (task == null) {
+            return false;
+        }
+        if (task.started.compareAndSet(false, true)) {
+            if (task.future != null) {
+                task.future.cancel(false);
+            }
+            task.call.reject("Task cancelled", ERROR_CANCELLED);
+        } else if (task.future != null) {
+            task.future.cancel(true);
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private final class IoTask implements Runnable {
+        private final String key;
+        private final PluginCall call;
+        private final Task task;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final long submittedAt = System.nanoTime();
+        private volatile Future<?> future;
+
+        IoTask(String key, PluginCall call, Task task) {
+            this.key = key;
+            this.call = call;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            Metrics metrics = Metrics.getInstance();
+            long startedAt = System.nanoTime();
+            metrics.record(Metrics.QUEUE_WAIT, (startedAt - submittedAt) / 1000);
+            metrics.add(Metrics.TASKS, 1);
+            try {
+                task.run();
+            } catch (Exception e) {
+                metrics.add(Metrics.TASK_FAILURES, 1);
+                Log.e(TAG, "I/O task failed: " + call.getMethodName(), e);
+                call.reject(e.getMessage(), e);
+            } finally {
+                metrics.recordSince(Metrics.CALL_PREFIX + call.getMethodName(), startedAt);
+                if (key != null) {
+                    tasks.remove(key, this);
+                }
+            }
+        }
+    }
+}
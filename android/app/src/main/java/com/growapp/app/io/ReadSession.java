@@ -0,0 +1,148 @@
+package com.growapp.app.io;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+
+import com.growapp.app.diag.Metrics;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// 分段读取会话：复用同一个大缓冲区，按偏移量或顺序逐块读取，内存占用与文件大小无关
+public class ReadSession implements Closeable {
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    public static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final String id;
+    private final AssetFileDescriptor descriptor;
+    private final FileInputStream inputStream;
+    private final FileChannel channel;
+    private final long startOffset;
+    private final long totalSize;
+    private final byte[] buffer;
+    private final ByteBuffer byteBuffer;
+    private long position;
+    private long bytesRead;
+    private boolean seekable = true;
+
+    private ReadSession(String id, AssetFileDescriptor descriptor, int chunkSize) throws IOException {
+        this.id = id;
+        this.descriptor = descriptor;
+        this.inputStream = descriptor.createInputStream();
+        this.channel = inputStream.getChannel();
+        this.startOffset = descriptor.getStartOffset();
+        this.totalSize = descriptor.getLength();
+        this.buffer = new byte[chunkSize];
+        this.byteBuffer = ByteBuffer.wrap(buffer);
+    }
+
+    public static ReadSession open(ContentResolver resolver, String id, Uri uri, int chunkSize) throws IOException {
+        AssetFileDescriptor descriptor = resolver.openAssetFileDescriptor(uri, "r");
+        if (descriptor == null) {
+            throw new IOException("Failed to open file");
+        }
+        int size = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        try {
+            return new ReadSession(id, descriptor, size);
+        } catch (IOException e) {
+            descriptor.close();
+            throw e;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // 文件总大小，未知时返回 -1
+    public long getTotalSize() {
+        return totalSize == AssetFileDescriptor.UNKNOWN_LENGTH ? -1 : totalSize;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getChunkSize() {
+        return buffer.length;
+    }
+
+    // 从当前位置读取下一块，返回读取的字节数，-1 表示已到文件末尾
+    public synchronized int readNext() throws IOException {
+        return readAt(position, buffer.length);
+    }
+
+    // 从指定偏移量读取最多 length 个字节到内部缓冲区
+    public synchronized int readAt(long offset, int length) throws IOException {
+        if (offset < 0) {
+            throw new IOException("Invalid offset: " + offset);
+        }
+        int wanted = Math.min(length, buffer.length);
+        int filled = 0;
+
+        if (seekable) {
+            try {
+                while (filled < wanted) {
+                    byteBuffer.limit(wanted).position(filled);
+                    int n = channel.read(byteBuffer, startOffset + offset + filled);
+                    if (n < 0) {
+                        break;
+                    }
+                    filled += n;
+                }
+                position = offset + filled;
+                bytesRead += filled;
+                return filled == 0 && wanted > 0 ? -1 : filled;
+            } catch (IOException e) {
+                // 管道等不可定位的流只能顺序读取
+                seekable = false;
+                filled = 0;
+            }
+        }
+
+        if (offset < position) {
+            throw new IOException("Backward reads are not supported for this file");
+        }
+        while (position < offset) {
+            long skipped = inputStream.skip(offset - position);
+            if (skipped <= 0) {
+                return -1;
+            }
+            position += skipped;
+        }
+        while (filled < wanted) {
+            int n = inputStream.read(buffer, filled, wanted - filled);
+            if (n < 0) {
+                break;
+            }
+            filled += n;
+        }
+        position += filled;
+        bytesRead += filled;
+        return filled == 0 && wanted > 0 ? -1 : filled;
+    }
+
+    public boolean isEof() {
+        long size = getTotalSize();
+        return size >= 0 && position >= size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Metrics.getInstance().add(Metrics.BYTES_READ, bytesRead);
+        bytesRead = 0;
+        try {
+            inputStream.close();
+        } finally {
+            descriptor.close();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.growapp.app.io;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.util.Base64;
+import android.util.Base64OutputStream;
+import android.util.Log;
+
+import com.growapp.app.diag.MeteredOutputStream;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+// 等待选择器期间的保存内容暂存在 cacheDir/pending_saves 中，只解码一次、不占用堆内存；
+// 正在显示的选择器对应的暂存记录在 active 文件中，进程被杀后选择器结果仍然可以写入
+public final class SaveStaging {
+    private static final String TAG = "GrowAppSaveStaging";
+    private static final String DIRECTORY = "pending_saves";
+    private static final String ACTIVE_FILE = "active";
+    private static final String DATA_SUFFIX = ".bin";
+    private static final String META_SUFFIX = ".json";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 超过这个时间的暂存文件视为遗留，启动时清理
+    private static final long MAX_AGE_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static volatile SaveStaging instance;
+
+    private final File directory;
+
+    public static final class Staged {
+        private final String id;
+        private final String requestId;
+        private final String fileName;
+        private final String mimeType;
+        private final long size;
+
+        Staged(String id, String requestId, String fileName, String mimeType, long size) {
+            this.id = id;
+            this.requestId = requestId;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+            this.size = size;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getRequestId() {
+            return requestId;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    SaveStaging(Context context) {
+        this.directory = new File(context.getCacheDir(), DIRECTORY);
+    }
+
+    public static SaveStaging getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SaveStaging.class) {
+                if (instance == null) {
+                    instance = new SaveStaging(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 把 base64 内容分段解码写入暂存文件，不生成完整的字节数组
+    public Staged stage(String requestId, String base64, String fileName, String mimeType) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create staging directory");
+        }
+        String id = UUID.randomUUID().toString();
+        File data = new File(directory, id + DATA_SUFFIX);
+        try {
+            try (OutputStream out = new Base64OutputStream(
+                    new BufferedOutputStream(new FileOutputStream(data), BUFFER_SIZE), Base64.DEFAULT, false)) {
+                for (int start = 0; start < base64.length(); start += BUFFER_SIZE) {
+                    int end = Math.min(base64.length(), start + BUFFER_SIZE);
+                    out.write(base64.substring(start, end).getBytes(StandardCharsets.US_ASCII));
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid base64 content", e);
+            }
+            Staged staged = new Staged(id, requestId, fileName, mimeType, data.length());
+            writeMeta(staged);
+            return staged;
+        } catch (IOException e) {
+            delete(id);
+            throw e;
+        }
+    }
+
+    // 选择器弹出前记下对应的暂存内容，进程重建后据此恢复
+    public void markActive(Staged staged) {
+        try (OutputStream out = new FileOutputStream(new File(directory, ACTIVE_FILE))) {
+            out.write(staged.id.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to mark active staged save", e);
+        }
+    }
+
+    public void clearActive() {
+        File active = new File(directory, ACTIVE_FILE);
+        if (active.exists() && !active.delete()) {
+            Log.w(TAG, "Failed to clear active staged save");
+        }
+    }
+
+    // 取出并清除进程被杀前正在等待选择器的暂存内容，没有时返回 null
+    public Staged takeActive() {
+        File active = new File(directory, ACTIVE_FILE);
+        if (!active.isFile()) {
+            return null;
+        }
+        try {
+            String id = new String(readAll(active), StandardCharsets.UTF_8).trim();
+            return readMeta(id);
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to read active staged save", e);
+            return null;
+        } finally {
+            clearActive();
+        }
+    }
+
+    // 把暂存内容流式写入目标文档，返回写入的字节数
+    public long writeTo(Staged staged, ContentResolver resolver, Uri uri) throws IOException {
+        OutputStream stream = resolver.openOutputStream(uri, "rwt");
+        if (stream == null) {
+            throw new IOException("Failed to open output stream");
+        }
+        long written = 0;
+        try (InputStream in = new FileInputStream(new File(directory, staged.id + DATA_SUFFIX));
+             OutputStream out = new MeteredOutputStream(stream)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                written += n;
+            }
+            out.flush();
+        }
+        return written;
+    }
+
+    public void discard(Staged staged) {
+        if (staged != null) {
+            delete(staged.id);
+        }
+    }
+
+    // 清理超时遗留的暂存文件（例如选择器结果一直没有返回）
+    public void purgeStale() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - MAX_AGE_MILLIS;
+        for (File file : files) {
+            if (file.lastModified() < cutoff && !file.delete()) {
+                Log.w(TAG, "Failed to delete stale staging file " + file.getName());
+            }
+        }
+    }
+
+    private void delete(String id) {
+        for (String suffix : new String[] {DATA_SUFFIX, META_SUFFIX}) {
+            File file = new File(directory, id + suffix);
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Failed to delete staging file " + file.getName());
+            }
+        }
+    }
+
+    private void writeMeta(Staged staged) throws IOException {
+        try (OutputStream out = new FileOutputStream(new File(directory, staged.id + META_SUFFIX))) {
+            JSONObject meta = new JSONObject();
+            meta.put("requestId", staged.requestId);
+            meta.put("fileName", staged.fileName);
+            meta.put("mimeType", staged.mimeType);
+            meta.put("size", staged.size);
+            out.write(meta.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("Failed to write staging metadata", e);
+        }
+    }
+
+    private Staged readMeta(String id) throws IOException, JSONException {
+        File meta = new File(directory, id + META_SUFFIX);
+        if (!meta.isFile() || !new File(directory, id + DATA_SUFFIX).isFile()) {
+            return null;
+        }
+        JSONObject json = new JSONObject(new String(readAll(meta), StandardCharsets.UTF_8));
+        return new Staged(id, json.optString("requestId"), json.optString("fileName"),
+            json.optString("mimeType"), json.optLong("size"));
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            int n;
+            while (offset < bytes.length && (n = in.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += n;
+            }
+            return bytes;
+        }
+    }
+}
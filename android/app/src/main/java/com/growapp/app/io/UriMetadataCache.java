@@ -0,0 +1,302 @@
+package com.growapp.app.io;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.UriPermission;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 选择过的文件和目录的元数据缓存（名称、大小、修改时间、MIME），持久化在 SharedPreferences；
+// 只查询需要的列，同一个 URI 不重复访问 ContentProvider，并记录最近使用的已授权 URI
+public final class UriMetadataCache {
+    private static final String TAG = "GrowAppUriMetadata";
+    private static final String PREFERENCES_NAME = "growapp_uri_metadata";
+    private static final int MAX_ENTRIES = 50;
+
+    public static final String KIND_FILE = "file";
+    public static final String KIND_DIRECTORY = "directory";
+
+    private static final String[] OPENABLE_PROJECTION = {
+        OpenableColumns.DISPLAY_NAME,
+        OpenableColumns.SIZE
+    };
+    private static final String[] DOCUMENT_PROJECTION = {
+        DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+        DocumentsContract.Document.COLUMN_SIZE,
+        DocumentsContract.Document.COLUMN_LAST_MODIFIED,
+        DocumentsContract.Document.COLUMN_MIME_TYPE
+    };
+
+    private static volatile UriMetadataCache instance;
+
+    private final Context context;
+    private final SharedPreferences preferences;
+    // 按访问顺序排列，超过上限时淘汰最久未用的
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public static final class Entry {
+        private final String uri;
+        private final String kind;
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final String mimeType;
+        private final long lastUsed;
+
+        Entry(String uri, String kind, String name, long size, long lastModified, String mimeType, long lastUsed) {
+            this.uri = uri;
+            this.kind = kind;
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.mimeType = mimeType;
+            this.lastUsed = lastUsed;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // 未知时为 -1
+        public long getSize() {
+            return size;
+        }
+
+        // 未知时为 0
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public long getLastUsed() {
+            return lastUsed;
+        }
+
+        Entry withLastUsed(long time) {
+            return new Entry(uri, kind, name, size, lastModified, mimeType, time);
+        }
+
+        public JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("uri", uri);
+            json.put("kind", kind);
+            json.put("name", name != null ? name : JSONObject.NULL);
+            json.put("size", size >= 0 ? size : JSONObject.NULL);
+            json.put("lastModified", lastModified > 0 ? lastModified : JSONObject.NULL);
+            json.put("mimeType", mimeType != null ? mimeType : JSONObject.NULL);
+            json.put("lastUsed", lastUsed);
+            return json;
+        }
+
+        static Entry fromJson(String uri, JSONObject json) {
+            return new Entry(uri, json.optString("kind", KIND_FILE),
+                json.isNull("name") ? null : json.optString("name"),
+                json.isNull("size") ? -1 : json.optLong("size", -1),
+                json.optLong("lastModified", 0),
+                json.isNull("mimeType") ? null : json.optString("mimeType"),
+                json.optLong("lastUsed", 0));
+        }
+    }
+
+    private UriMetadataCache(Context context) {
+        this.context = context;
+        this.preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        List<Entry> stored = new ArrayList<>();
+        for (Map.Entry<String, ?> item : preferences.getAll().entrySet()) {
+            try {
+                stored.add(Entry.fromJson(item.getKey(), new JSONObject(String.valueOf(item.getValue()))));
+            } catch (JSONException e) {
+                Log.w(TAG, "Dropping corrupted metadata entry for " + item.getKey());
+            }
+        }
+        Collections.sort(stored, (a, b) -> Long.compare(a.lastUsed, b.lastUsed));
+        for (Entry entry : stored) {
+            entries.put(entry.uri, entry);
+        }
+    }
+
+    public static UriMetadataCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (UriMetadataCache.class) {
+                if (instance == null) {
+                    instance = new UriMetadataCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 缓存命中时不访问 ContentProvider；refresh 为 true 时重新查询（文件可能已被修改）
+    public Entry get(Uri uri, String kind, boolean refresh) {
+        String key = uri.toString();
+        synchronized (entries) {
+            Entry cached = entries.get(key);
+            if (cached != null && !refresh) {
+                return cached;
+            }
+        }
+        Entry queried = query(uri, kind);
+        synchronized (entries) {
+            Entry cached = entries.get(key);
+            Entry entry = cached != null ? queried.withLastUsed(cached.lastUsed) : queried;
+            store(entry);
+            return entry;
+        }
+    }
+
+    // 用户刚选择的文件或目录：查询元数据并记入最近使用列表
+    public Entry remember(Uri uri, String kind) {
+        Entry queried = query(uri, kind);
+        synchronized (entries) {
+            Entry entry = queried.withLastUsed(System.currentTimeMillis());
+            store(entry);
+            return entry;
+        }
+    }
+
+    // 最近使用且仍持有持久化权限的 URI，按使用时间倒序；已失去权限的条目同时从缓存中移除，
+    // 缓存建立之前授权的 URI 以授权时间作为最近使用时间补入
+    public List<Entry> recent(String kind, int limit) {
+        boolean directory = KIND_DIRECTORY.equals(kind);
+        Map<Uri, Long> granted = new LinkedHashMap<>();
+        for (UriPermission permission : context.getContentResolver().getPersistedUriPermissions()) {
+            boolean usable = directory ? permission.isWritePermission() : permission.isReadPermission();
+            if (usable && isTree(permission.getUri()) == directory) {
+                granted.put(permission.getUri(), permission.getPersistedTime());
+            }
+        }
+        List<Uri> missing = new ArrayList<>();
+        synchronized (entries) {
+            Set<String> grantedKeys = new HashSet<>();
+            for (Uri uri : granted.keySet()) {
+                grantedKeys.add(uri.toString());
+                Entry cached = entries.get(uri.toString());
+                if (cached == null || cached.lastUsed == 0) {
+                    missing.add(uri);
+                }
+            }
+            List<String> stale = new ArrayList<>();
+            for (Entry entry : entries.values()) {
+                if (entry.lastUsed != 0 && entry.kind.equals(kind) && !grantedKeys.contains(entry.uri)) {
+                    stale.add(entry.uri);
+                }
+            }
+            if (!stale.isEmpty()) {
+                SharedPreferences.Editor editor = preferences.edit();
+                for (String uri : stale) {
+                    entries.remove(uri);
+                    editor.remove(uri);
+                }
+                editor.apply();
+            }
+        }
+        for (Uri uri : missing) {
+            Entry queried = query(uri, kind).withLastUsed(Math.max(1, granted.get(uri)));
+            synchronized (entries) {
+                Entry cached = entries.get(queried.uri);
+                if (cached == null || cached.lastUsed == 0) {
+                    store(queried);
+                }
+            }
+        }
+
+        List<Entry> result = new ArrayList<>();
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                if (entry.lastUsed != 0 && entry.kind.equals(kind)) {
+                    result.add(entry);
+                }
+            }
+        }
+        Collections.sort(result, (a, b) -> Long.compare(b.lastUsed, a.lastUsed));
+        return limit > 0 && result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    // 目录树 URI 的路径形如 /tree/<documentId>
+    private static boolean isTree(Uri uri) {
+        List<String> segments = uri.getPathSegments();
+        return segments.size() >= 2 && "tree".equals(segments.get(0));
+    }
+
+    private void store(Entry entry) {
+        entries.put(entry.uri, entry);
+        SharedPreferences.Editor editor = preferences.edit();
+        try {
+            editor.putString(entry.uri, entry.toJson().toString());
+        } catch (JSONException e) {
+            Log.w(TAG, "Failed to persist metadata for " + entry.uri, e);
+        }
+        while (entries.size() > MAX_ENTRIES) {
+            String eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+            editor.remove(eldest);
+        }
+        editor.apply();
+    }
+
+    private Entry query(Uri uri, String kind) {
+        String name = null;
+        long size = -1;
+        long lastModified = 0;
+        String mimeType = null;
+        if (ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+            ContentResolver resolver = context.getContentResolver();
+            // 目录树 URI 本身不能查询，需要先换成根文档的 URI
+            Uri target = KIND_DIRECTORY.equals(kind)
+                ? DocumentsContract.buildDocumentUriUsingTree(uri, DocumentsContract.getTreeDocumentId(uri))
+                : uri;
+            // 非 DocumentsProvider 只保证提供 OpenableColumns 中的列
+            boolean isDocument = KIND_DIRECTORY.equals(kind) || DocumentsContract.isDocumentUri(context, uri);
+            try (Cursor cursor = resolver.query(target, isDocument ? DOCUMENT_PROJECTION : OPENABLE_PROJECTION,
+                    null, null, null)) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    name = cursor.isNull(0) ? null : cursor.getString(0);
+                    size = cursor.isNull(1) ? -1 : cursor.getLong(1);
+                    if (isDocument) {
+                        lastModified = cursor.isNull(2) ? 0 : cursor.getLong(2);
+                        mimeType = cursor.isNull(3) ? null : cursor.getString(3);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to query metadata for " + uri, e);
+            }
+            if (mimeType == null && !KIND_DIRECTORY.equals(kind)) {
+                mimeType = resolver.getType(uri);
+            }
+        }
+        if (name == null) {
+            String path = uri.getPath();
+            if (path != null) {
+                int cut = path.lastIndexOf('/');
+                name = cut != -1 ? path.substring(cut + 1) : path;
+            }
+        }
+        return new Entry(uri.toString(), kind, name, size, lastModified, mimeType, 0);
+    }
+}
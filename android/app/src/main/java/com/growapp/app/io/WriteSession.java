@@ -0,0 +1,89 @@
+package com.growapp.app.io;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.util.Log;
+
+import com.growapp.app.diag.MeteredOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// 分块写入会话：每个分块直接写入 ContentResolver 的输出流，内存占用只与单个分块大小相关
+public class WriteSession {
+    private static final String TAG = "GrowAppWriteSession";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String id;
+    private final Uri uri;
+    private final OutputStream outputStream;
+    private long bytesWritten;
+    private boolean closed;
+
+    private WriteSession(String id, Uri uri, OutputStream outputStream) {
+        this.id = id;
+        this.uri = uri;
+        this.outputStream = outputStream;
+    }
+
+    public static WriteSession open(ContentResolver resolver, String id, Uri uri) throws IOException {
+        OutputStream stream = resolver.openOutputStream(uri, "rwt");
+        if (stream == null) {
+            throw new IOException("Failed to open output stream");
+        }
+        return new WriteSession(id, uri, new BufferedOutputStream(new MeteredOutputStream(stream), BUFFER_SIZE));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Uri getUri() {
+        return uri;
+    }
+
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public synchronized long append(byte[] chunk) throws IOException {
+        if (closed) {
+            throw new IOException("Write session is already closed");
+        }
+        outputStream.write(chunk);
+        bytesWritten += chunk.length;
+        return bytesWritten;
+    }
+
+    public synchronized long commit() throws IOException {
+        if (closed) {
+            throw new IOException("Write session is already closed");
+        }
+        closed = true;
+        try {
+            outputStream.flush();
+        } finally {
+            outputStream.close();
+        }
+        return bytesWritten;
+    }
+
+    // 放弃写入：关闭流并尽量删除已创建的文档，避免留下半截文件
+    public synchronized void abort(ContentResolver resolver) {
+        if (!closed) {
+            closed = true;
+            try {
+                outputStream.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing aborted session " + id, e);
+            }
+        }
+        try {
+            DocumentsContract.deleteDocument(resolver, uri);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to delete aborted document " + uri, e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.growapp.app.permission;
+
+import android.Manifest;
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.provider.Settings;
+import android.util.Log;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 存储权限的唯一入口：缓存授权状态，只在回到前台或收到权限结果时重新检查；
+// 同时发起的多个请求合并为一次系统对话框（或设置页），状态变化时通知监听者
+public final class PermissionBroker {
+    private static final String TAG = "GrowAppPermissions";
+    public static final int REQUEST_CODE = 4201;
+
+    public interface Callback {
+        void onResult(boolean granted);
+    }
+
+    public interface Listener {
+        void onStoragePermissionChanged(boolean granted);
+    }
+
+    private static final PermissionBroker INSTANCE = new PermissionBroker();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Callback> pending = new ArrayList<>();
+    private Boolean granted;
+    // 正在等待系统对话框结果，或等待用户从“所有文件访问权限”设置页返回
+    private boolean awaitingDialog;
+    private boolean awaitingSettings;
+
+    PermissionBroker() {
+    }
+
+    public static PermissionBroker getInstance() {
+        return INSTANCE;
+    }
+
+    // Android 11 及以上使用“所有文件访问权限”，更早的系统使用读写存储运行时权限
+    private static boolean check(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return Environment.isExternalStorageManager();
+        }
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.READ_EXTERNAL_STORAGE)
+                == PackageManager.PERMISSION_GRANTED
+            && ContextCompat.checkSelfPermission(context, Manifest.permission.WRITE_EXTERNAL_STORAGE)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    // 返回缓存的状态，首次调用时才检查
+    public boolean isGranted(Context context) {
+        synchronized (this) {
+            if (granted != null) {
+                return granted;
+            }
+        }
+        return refresh(context);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Activity 回到前台时调用：用户可能在系统设置中修改了权限；从设置页返回时顺带结束等待中的请求
+    public void onResume(Activity activity) {
+        boolean settled;
+        synchronized (this) {
+            settled = awaitingSettings;
+            awaitingSettings = false;
+        }
+        boolean current = refresh(activity);
+        if (settled) {
+            complete(current);
+        }
+    }
+
+    public void onRequestPermissionsResult(Activity activity, int requestCode) {
+        if (requestCode != REQUEST_CODE) {
+            return;
+        }
+        synchronized (this) {
+            awaitingDialog = false;
+        }
+        complete(refresh(activity));
+    }
+
+    // 已授权时立即回调；否则排队，同一时间只显示一个对话框或设置页
+    public void request(Activity activity, Callback callback) {
+        if (isGranted(activity)) {
+            callback.onResult(true);
+            return;
+        }
+        synchronized (this) {
+            pending.add(callback);
+            if (awaitingDialog || awaitingSettings) {
+                return;
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                awaitingSettings = true;
+            } else {
+                awaitingDialog = true;
+            }
+        }
+        activity.runOnUiThread(() -> launch(activity));
+    }
+
+    private void launch(Activity activity) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            ActivityCompat.requestPermissions(activity, new String[]{
+                Manifest.permission.READ_EXTERNAL_STORAGE,
+                Manifest.permission.WRITE_EXTERNAL_STORAGE
+            }, REQUEST_CODE);
+            return;
+        }
+        // 结果在用户返回应用时由 onResume 处理
+        try {
+            Intent intent = new Intent(Settings.ACTION_MANAGE_APP_ALL_FILES_ACCESS_PERMISSION);
+            intent.setData(Uri.fromParts("package", activity.getPackageName(), null));
+            activity.startActivity(intent);
+        } catch (Exception e) {
+            try {
+                activity.startActivity(new Intent(Settings.ACTION_MANAGE_ALL_FILES_ACCESS_PERMISSION));
+            } catch (Exception e2) {
+                Log.w(TAG, "Failed to open all files access settings", e2);
+                synchronized (this) {
+                    awaitingSettings = false;
+                }
+                complete(false);
+            }
+        }
+    }
+
+    // 重新检查并更新缓存，状态变化时通知监听者
+    private boolean refresh(Context context) {
+        boolean current = check(context);
+        boolean changed;
+        synchronized (this) {
+            changed = granted != null && granted != current;
+            granted = current;
+        }
+        if (changed) {
+            for (Listener listener : listeners) {
+                listener.onStoragePermissionChanged(current);
+            }
+        }
+        return current;
+    }
+
+    private void complete(boolean result) {
+        List<Callback> callbacks;
+        synchronized (this) {
+            callbacks = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (Callback callback : callbacks) {
+            callback.onResult(result);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.growapp.app.photo;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.UriPermission;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.DocumentsContract;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+// 照片缩略图：先只读尺寸算出 inSampleSize 再解码，短边缩放到目标尺寸后编码为小 JPEG；
+// 内存中的 LruCache 按字节计算容量，磁盘缓存在 cacheDir/thumbnails，文件名由 URI、修改时间和尺寸决定
+public final class ThumbnailCache {
+    private static final String TAG = "GrowAppThumbnails";
+    private static final String DIRECTORY = "thumbnails";
+    // 请求的尺寸向上取到这几档，同一张照片只缓存少数几种尺寸
+    private static final int[] SIZES = {96, 160, 320, 512};
+    private static final int JPEG_QUALITY = 80;
+    private static final int MAX_MEMORY_BYTES = 8 * 1024 * 1024;
+    private static final long MAX_DISK_BYTES = 32L * 1024 * 1024;
+    // 同时解码的照片数，避免快速滚动时多张全尺寸位图同时占用内存
+    private static final int MAX_CONCURRENT_DECODES = 2;
+
+    private static volatile ThumbnailCache instance;
+
+    private final ContentResolver resolver;
+    private final File directory;
+    private final LruCache<String, byte[]> memory;
+    private final Semaphore decodes = new Semaphore(MAX_CONCURRENT_DECODES);
+    private final Object diskLock = new Object();
+    private long diskBytes = -1;
+    private Set<String> allowed;
+
+    private ThumbnailCache(Context context) {
+        this.resolver = context.getContentResolver();
+        this.directory = new File(context.getCacheDir(), DIRECTORY);
+        int budget = (int) Math.min(MAX_MEMORY_BYTES, Runtime.getRuntime().maxMemory() / 16);
+        this.memory = new LruCache<String, byte[]>(budget) {
+            @Override
+            protected int sizeOf(String key, byte[] value) {
+                return value.length;
+            }
+        };
+    }
+
+    public static ThumbnailCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ThumbnailCache.class) {
+                if (instance == null) {
+                    instance = new ThumbnailCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static int bucket(int size) {
+        for (int candidate : SIZES) {
+            if (size <= candidate) {
+                return candidate;
+            }
+        }
+        return SIZES[SIZES.length - 1];
+    }
+
+    // 只为持有持久读取权限的照片生成缩略图，权限列表在首次使用和选择/释放照片时刷新
+    public synchronized boolean isAllowed(Uri uri) {
+        if (allowed == null) {
+            refreshPermissions();
+        }
+        return allowed.contains(uri.toString());
+    }
+
+    public synchronized void refreshPermissions() {
+        Set<String> uris = new HashSet<>();
+        for (UriPermission permission : resolver.getPersistedUriPermissions()) {
+            if (permission.isReadPermission()) {
+                uris.add(permission.getUri().toString());
+            }
+        }
+        allowed = uris;
+    }
+
+    // 返回 JPEG 字节，照片无法读取或解码时返回 null；会阻塞，不能在主线程调用
+    public byte[] get(Uri uri, int requestedSize) {
+        int size = bucket(requestedSize);
+        // 内存缓存只在本进程内有效，命中时不再查询修改时间
+        String memoryKey = size + "|" + uri;
+        byte[] bytes = memory.get(memoryKey);
+        if (bytes != null) {
+            return bytes;
+        }
+        File file = new File(directory, key(uri, lastModified(uri), size) + ".jpg");
+        bytes = readFile(file);
+        if (bytes == null) {
+            decodes.acquireUninterruptibly();
+            try {
+                bytes = decode(uri, size);
+            } finally {
+                decodes.release();
+            }
+            if (bytes == null) {
+                return null;
+            }
+            writeFile(file, bytes);
+        }
+        memory.put(memoryKey, bytes);
+        return bytes;
+    }
+
+    // 照片不再被任何记录引用时丢弃内存中的缩略图，磁盘缓存按容量自然淘汰
+    public void forget(Uri uri) {
+        for (int size : SIZES) {
+            memory.remove(size + "|" + uri);
+        }
+    }
+
+    private byte[] decode(Uri uri, int size) {
+        try {
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            try (InputStream in = resolver.openInputStream(uri)) {
+                if (in == null) {
+                    return null;
+                }
+                BitmapFactory.decodeStream(in, null, bounds);
+            }
+            if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+                return null;
+            }
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, size);
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+            Bitmap decoded;
+            try (InputStream in = resolver.openInputStream(uri)) {
+                decoded = in != null ? BitmapFactory.decodeStream(in, null, options) : null;
+            }
+            if (decoded == null) {
+                return null;
+            }
+            Bitmap thumbnail = transform(decoded, size, orientation(uri, bounds.outMimeType));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            thumbnail.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            if (thumbnail != decoded) {
+                thumbnail.recycle();
+            }
+            decoded.recycle();
+            return out.toByteArray();
+        } catch (IOException | SecurityException | OutOfMemoryError e) {
+            Log.w(TAG, "Failed to decode thumbnail for " + uri, e);
+            return null;
+        }
+    }
+
+    // 最大的 2 的幂，使采样后短边仍不小于目标尺寸
+    static int sampleSize(int width, int height, int size) {
+        int shortSide = Math.min(width, height);
+        int sample = 1;
+        while (shortSide / (sample * 2) >= size) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    // 短边缩放到 size，同时按 EXIF 方向旋转；不需要变换时返回原位图
+    private static Bitmap transform(Bitmap bitmap, int size, int orientation) {
+        Matrix matrix = new Matrix();
+        boolean changed = false;
+        float scale = (float) size / Math.min(bitmap.getWidth(), bitmap.getHeight());
+        if (scale < 1) {
+            matrix.postScale(scale, scale);
+            changed = true;
+        }
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                changed = true;
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                changed = true;
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(270);
+                changed = true;
+                break;
+            default:
+                break;
+        }
+        if (!changed) {
+            return bitmap;
+        }
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    // 从流读取 EXIF 需要 API 24；更早的系统不旋转
+    private int orientation(Uri uri, String mimeType) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || !"image/jpeg".equals(mimeType)) {
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) {
+                return ExifInterface.ORIENTATION_NORMAL;
+            }
+            return new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException | RuntimeException e) {
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    // 提供方不支持修改时间时返回 0，此时照片被替换后缩略图要等缓存淘汰才会更新
+    private long lastModified(Uri uri) {
+        try (Cursor cursor = resolver.query(uri, new String[]{DocumentsContract.Document.COLUMN_LAST_MODIFIED},
+                null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to query modification time for " + uri, e);
+        }
+        return 0;
+    }
+
+    private static String key(Uri uri, long modified, int size) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest((uri + "|" + modified + "|" + size).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readFile(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            int n;
+            while (offset < bytes.length && (n = in.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += n;
+            }
+            // 命中时更新修改时间，磁盘淘汰按最近使用顺序
+            file.setLastModified(System.currentTimeMillis());
+            return offset == bytes.length ? bytes : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeFile(File file, byte[] bytes) {
+        synchronized (diskLock) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.w(TAG, "Failed to create thumbnail directory");
+                return;
+            }
+            File temp = new File(file.getPath() + ".tmp");
+            try (OutputStream out = new FileOutputStream(temp)) {
+                out.write(bytes);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to write thumbnail", e);
+                temp.delete();
+                return;
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return;
+            }
+            if (diskBytes < 0) {
+                diskBytes = directorySize();
+            } else {
+                diskBytes += bytes.length;
+            }
+            if (diskBytes > MAX_DISK_BYTES) {
+                trim();
+            }
+        }
+    }
+
+    private long directorySize() {
+        long total = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    // 删除最久未使用的文件，直到占用降到上限的四分之三
+    private void trim() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long[] modified = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+        }
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+        long target = MAX_DISK_BYTES * 3 / 4;
+        for (int index : order) {
+            if (diskBytes <= target) {
+                break;
+            }
+            long length = files[index].length();
+            if (files[index].delete()) {
+                diskBytes -= length;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.growapp.app.photo;
+
+import android.content.Context;
+import android.net.Uri;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+// /_growapp/thumb/<尺寸>?uri=<照片 URI>：返回缩略图 JPEG，只接受持有持久读取权限的照片 URI
+public final class ThumbnailResponder {
+    public static final String PATH_PREFIX = "/_growapp/thumb/";
+
+    private ThumbnailResponder() {
+    }
+
+    public static boolean handles(String path) {
+        return path != null && path.startsWith(PATH_PREFIX);
+    }
+
+    public static WebResourceResponse respond(Context context, WebResourceRequest request) {
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            return error(405, "Method Not Allowed");
+        }
+        Uri url = request.getUrl();
+        String photo = url.getQueryParameter("uri");
+        int size;
+        try {
+            size = Integer.parseInt(url.getPath().substring(PATH_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return error(400, "Bad Request");
+        }
+        if (photo == null || size <= 0) {
+            return error(400, "Bad Request");
+        }
+        Uri uri = Uri.parse(photo);
+        ThumbnailCache cache = ThumbnailCache.getInstance(context);
+        if (!cache.isAllowed(uri)) {
+            return error(403, "Forbidden");
+        }
+        // shouldInterceptRequest 在 WebView 的后台线程调用，可以直接解码
+        byte[] bytes = cache.get(uri, size);
+        if (bytes == null) {
+            return error(404, "Not Found");
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Length", String.valueOf(bytes.length));
+        headers.put("Cache-Control", "private, max-age=86400");
+        return new WebResourceResponse("image/jpeg", null, 200, "OK", headers, new ByteArrayInputStream(bytes));
+    }
+
+    private static WebResourceResponse error(int status, String reason) {
+        return new WebResourceResponse("text/plain", "UTF-8", status, reason, new HashMap<>(),
+            new ByteArrayInputStream(new byte[0]));
+    }
+}
@@ -1,107 +1,132 @@
 package com.growapp.app.plugins;
 
-import android.Manifest;
 import android.content.Intent;
-import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
 import android.net.Uri;
-import android.os.Build;
 import android.os.Bundle;
-import android.os.Environment;
-import android.provider.Settings;
 import android.util.Log;
 import androidx.activity.result.ActivityResult;
-import androidx.core.app.ActivityCompat;
-import androidx.core.content.ContextCompat;
 import android.app.Activity;
+import org.json.JSONObject;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.InputStream;
-import java.io.ByteArrayOutputStream;
-import android.database.Cursor;
-import android.provider.OpenableColumns;
+import java.io.Writer;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.ActivityCallback;
 import com.getcapacitor.annotation.CapacitorPlugin;
-import com.getcapacitor.annotation.Permission;
-import com.getcapacitor.annotation.PermissionCallback;
-
-@CapacitorPlugin(
-    name = "GrowAppFilePlugin",
-    requestCodes = {
-        FilePlugin.STORAGE_PERMISSION_CODE,
-        FilePlugin.MANAGE_STORAGE_PERMISSION_CODE,
-        FilePlugin.CREATE_FILE_CODE,
-        FilePlugin.PICK_FILE_CODE
-    }
-)
+import com.growapp.app.csv.CharsetDetector;
+import com.growapp.app.csv.GrowthCsvParser;
+import com.growapp.app.csv.GrowthCsvWriter;
+import com.growapp.app.csv.TextTranscoder;
+import com.growapp.app.data.GrowthRecord;
+import com.growapp.app.data.RecordJson;
+import com.growapp.app.diag.MeteredInputStream;
+import com.growapp.app.diag.MeteredOutputStream;
+import com.growapp.app.diag.Metrics;
+import com.growapp.app.diag.Tracer;
+import com.growapp.app.io.FileHandleRegistry;
+import com.growapp.app.io.IoExecutor;
+import com.growapp.app.io.ReadSession;
+import com.growapp.app.io.SaveStaging;
+import com.growapp.app.io.UriMetadataCache;
+import com.growapp.app.io.WriteSession;
+import com.growapp.app.permission.PermissionBroker;
+
+@CapacitorPlugin(name = "GrowAppFilePlugin")
 public class FilePlugin extends Plugin {
     private static final String TAG = "GrowAppFilePlugin";
-    public static final int STORAGE_PERMISSION_CODE = 1001;
-    public static final int MANAGE_STORAGE_PERMISSION_CODE = 1002;
-    public static final int CREATE_FILE_CODE = 1003;
-    public static final int PICK_FILE_CODE = 1004;
-    private PluginCall savedPermissionCall;
-    private PluginCall savedFileCall;
-    private PluginCall savedPickFileCall;
-    private String pendingContent;
-    private String pendingFileName;
-    private String pendingMimeType;
+    private static final Tracer TRACE = Tracer.forTag(TAG);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    // 等待系统选择器的请求表，按请求 id（taskId 或 callbackId）索引、按提交顺序排队；
+    // 同一时间只显示一个选择器，只在主线程访问
+    private final Map<String, PickerRequest> pickerRequests = new LinkedHashMap<>();
+    private PickerRequest activePicker;
+    private final Map<String, WriteSession> writeSessions = new ConcurrentHashMap<>();
+    private final Map<String, ReadSession> readSessions = new ConcurrentHashMap<>();
+    private final Map<String, TextTranscoder.Stream> textSessions = new ConcurrentHashMap<>();
 
     @Override
     public void load() {
         super.load();
-        Log.d(TAG, "FilePlugin loaded with requestCodes: STORAGE=" + STORAGE_PERMISSION_CODE 
-            + ", MANAGE=" + MANAGE_STORAGE_PERMISSION_CODE 
-            + ", CREATE=" + CREATE_FILE_CODE 
-            + ", PICK=" + PICK_FILE_CODE);
+        // 清理很久以前遗留的暂存文件
+        IoExecutor.getInstance().execute(() -> staging().purgeStale());
     }
 
     @Override
     protected void handleOnResume() {
         super.handleOnResume();
-        Log.d(TAG, "App resumed");
-        // 检查是否有待处理的文件保存请求
-        if (pendingContent != null && pendingFileName != null) {
-            Log.d(TAG, "Resuming pending file save operation");
-            saveFileInternal(pendingContent, pendingFileName, pendingMimeType);
-            pendingContent = null;
-            pendingFileName = null;
-            pendingMimeType = null;
-        }
+        TRACE.d("App resumed");
     }
 
     @Override
     protected void handleOnPause() {
         super.handleOnPause();
-        Log.d(TAG, "App paused");
+        TRACE.d("App paused");
     }
 
-    private void saveFileInternal(String content, String fileName, String mimeType) {
-        Log.d(TAG, "Starting internal file save: " + fileName);
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        // 未提交的写入会话随插件一起放弃
+        for (WriteSession session : writeSessions.values()) {
+            session.abort(getContext().getContentResolver());
+        }
+        writeSessions.clear();
+        for (ReadSession session : readSessions.values()) {
+            closeQuietly(session);
+        }
+        readSessions.clear();
+        for (TextTranscoder.Stream stream : textSessions.values()) {
+            closeQuietly(stream);
+        }
+        textSessions.clear();
+        // 还在排队的选择器请求不会再有结果；正在显示的选择器保留暂存内容，Activity 重建后仍可写入
+        List<PickerRequest> abandoned = new ArrayList<>(pickerRequests.values());
+        PickerRequest active = activePicker;
+        pickerRequests.clear();
+        activePicker = null;
+        for (PickerRequest request : abandoned) {
+            if (request == active) {
+                request.rejectKeepingStaged("File picker request abandoned");
+            } else {
+                request.fail("File picker request abandoned", null);
+            }
+        }
+    }
+
+    private static Intent createDocumentIntent(String fileName, String mimeType) {
         Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
         intent.addCategory(Intent.CATEGORY_OPENABLE);
-        intent.setType(mimeType != null ? mimeType : "text/csv");
+        intent.setType(mimeType);
         intent.putExtra(Intent.EXTRA_TITLE, fileName);
-        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION | 
-                       Intent.FLAG_GRANT_WRITE_URI_PERMISSION | 
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION |
+                       Intent.FLAG_GRANT_WRITE_URI_PERMISSION |
                        Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION);
-
-        try {
-            if (savedFileCall != null) {
-                startActivityForResult(savedFileCall, intent, CREATE_FILE_CODE);
-            } else {
-                Log.e(TAG, "No saved call available for file save");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to open file picker", e);
-            if (savedFileCall != null) {
-                savedFileCall.reject("Failed to open file picker: " + e.getMessage(), e);
-                savedFileCall = null;
-            }
-        }
+        return intent;
     }
 
     @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
@@ -121,279 +146,589 @@ public class FilePlugin extends Plugin {
             fileName = fileName + ".csv";
         }
 
-        // 解码 base64 内容
-        byte[] decodedContent;
-        try {
-            decodedContent = android.util.Base64.decode(content, android.util.Base64.DEFAULT);
-        } catch (Exception e) {
-            call.reject("Failed to decode base64 content: " + e.getMessage());
-            return;
-        }
-
-        Log.d(TAG, "Saving file: " + fileName + ", content length: " + decodedContent.length);
-        
-        // 保存调用以便后续使用
-        call.setKeepAlive(true);
-        savedFileCall = call;
-        
-        // 保存参数以便恢复时使用
-        pendingContent = content;
-        pendingFileName = fileName;
-        pendingMimeType = mimeType;
-
-        saveFileInternal(content, fileName, mimeType);
+        // 先解码到暂存文件，选择器打开期间不在内存中保留内容
+        final String targetName = fileName;
+        String id = requestId(call);
+        IoExecutor.getInstance().execute(call, () -> {
+            SaveStaging.Staged staged;
+            try {
+                staged = staging().stage(id, content, targetName, mimeType);
+            } catch (IOException e) {
+                call.reject("Failed to decode base64 content: " + e.getMessage());
+                return;
+            }
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Saving file: " + targetName + ", staged " + staged.getSize() + " bytes");
+            }
+            enqueuePicker(new PickerRequest(id, call, createDocumentIntent(targetName, mimeType), result -> {
+                Uri uri = pickedUri(result);
+                if (uri == null) {
+                    TRACE.d("User cancelled file save");
+                    discardStaged(staged);
+                    call.reject("User cancelled file save");
+                    return;
+                }
+                // 写入放到 I/O 线程，主线程只负责处理选择器结果
+                IoExecutor.getInstance().execute(call, () -> {
+                    try {
+                        long written = writeStaged(staged, uri);
+                        JSObject ret = new JSObject();
+                        ret.put("uri", uri.toString());
+                        ret.put("bytesWritten", written);
+                        call.resolve(ret);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Failed to write file", e);
+                        call.reject("Failed to write file: " + e.getMessage(), e);
+                    }
+                });
+            }, staged));
+        });
     }
 
-    @Override
-    protected void handleOnActivityResult(int requestCode, int resultCode, Intent data) {
-        Log.d(TAG, "handleOnActivityResult - requestCode: " + requestCode 
-            + ", resultCode: " + resultCode 
-            + ", data: " + (data != null ? data.toString() : "null"));
-        
-        super.handleOnActivityResult(requestCode, resultCode, data);
-        
-        if (requestCode == CREATE_FILE_CODE) {
-            PluginCall savedCall = savedFileCall;
-            
-            if (savedCall == null) {
-                Log.e(TAG, "No saved call found");
+    // 批量保存：{ files: [{ content, fileName, mimeType }], continueOnCancel }
+    // 选择器依次弹出，上一个文件在后台写入的同时就可以选择下一个；每个文件完成时发出 saveFilesProgress 事件，
+    // 全部结束后返回 { results: [{ fileName, uri, bytesWritten } | { fileName, cancelled } | { fileName, error }] }
+    // 某一项被取消（continueOnCancel 为 false 时）或写入失败后，其余排队的项记为 cancelled 并删除暂存文件
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void saveFiles(PluginCall call) {
+        JSArray files = call.getArray("files");
+        if (files == null || files.length() == 0) {
+            call.reject("files are required");
+            return;
+        }
+        List<String> fileNames = new ArrayList<>(files.length());
+        List<String> mimeTypes = new ArrayList<>(files.length());
+        List<String> contents = new ArrayList<>(files.length());
+        for (int i = 0; i < files.length(); i++) {
+            JSONObject file = files.optJSONObject(i);
+            String content = file != null ? file.optString("content", null) : null;
+            String fileName = file != null ? file.optString("fileName", null) : null;
+            if (content == null || fileName == null) {
+                call.reject("Content and fileName are required for file " + i);
                 return;
             }
+            contents.add(content);
+            fileNames.add(fileName);
+            mimeTypes.add(file.optString("mimeType", "text/csv"));
+        }
 
-            if (resultCode == Activity.RESULT_OK && data != null && data.getData() != null) {
-                Uri uri = data.getData();
+        SaveBatch batch = new SaveBatch(call, requestId(call), fileNames, call.getBoolean("continueOnCancel", false));
+        IoExecutor.getInstance().execute(call, () -> {
+            // 全部解码成功后才开始弹出选择器，任何一项无效时整批失败
+            List<SaveStaging.Staged> staged = new ArrayList<>(contents.size());
+            for (int i = 0; i < contents.size(); i++) {
                 try {
-                    String content = pendingContent;
-                    if (content == null) {
-                        content = savedCall.getString("content");
+                    staged.add(staging().stage(batch.itemId(i), contents.get(i), fileNames.get(i), mimeTypes.get(i)));
+                } catch (IOException e) {
+                    for (SaveStaging.Staged item : staged) {
+                        staging().discard(item);
                     }
-                    if (content == null) {
-                        throw new Exception("Content is null");
+                    call.reject("Failed to decode base64 content of file " + i + ": " + e.getMessage());
+                    return;
+                }
+                // 暂存期间整批被取消（cancelTask 中断了这个任务）时删除已暂存的文件
+                if (Thread.currentThread().isInterrupted()) {
+                    for (SaveStaging.Staged item : staged) {
+                        staging().discard(item);
                     }
-                    
-                    // 解码 base64 内容
-                    byte[] decodedContent = android.util.Base64.decode(content, android.util.Base64.DEFAULT);
-                    Log.d(TAG, "Decoded content length: " + decodedContent.length);
-                    
-                    OutputStream outputStream = null;
-                    try {
-                        // 获取持久性权限
-                        final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION;
-                        getContext().getContentResolver().takePersistableUriPermission(uri, takeFlags);
-                        
-                        outputStream = getContext().getContentResolver().openOutputStream(uri, "rwt");
-                        if (outputStream == null) {
-                            throw new Exception("Failed to open output stream");
-                        }
-                        
-                        // 直接写入解码后的内容（已包含 BOM）
-                        outputStream.write(decodedContent);
-                        outputStream.flush();
-                        
-                        Log.d(TAG, "Successfully wrote " + decodedContent.length + " bytes");
-                        
-                        JSObject result = new JSObject();
-                        result.put("uri", uri.toString());
-                        result.put("bytesWritten", decodedContent.length);
-                        savedCall.resolve(result);
-                        
-                        Log.d(TAG, "File saved successfully to: " + uri.toString());
-                    } finally {
-                        if (outputStream != null) {
-                            try {
-                                outputStream.close();
-                                Log.d(TAG, "Output stream closed successfully");
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error closing stream", e);
-                            }
+                    call.reject("Task cancelled", IoExecutor.ERROR_CANCELLED);
+                    return;
+                }
+            }
+            for (int i = 0; i < staged.size(); i++) {
+                final int index = i;
+                final SaveStaging.Staged item = staged.get(i);
+                Intent intent = createDocumentIntent(fileNames.get(i), mimeTypes.get(i));
+                enqueuePicker(new PickerRequest(batch.itemId(i), call, intent, result -> {
+                    Uri uri = pickedUri(result);
+                    if (uri == null) {
+                        discardStaged(item);
+                        batch.cancel(index);
+                        return;
+                    }
+                    boolean queued = IoExecutor.getInstance().execute(() -> {
+                        try {
+                            batch.complete(index, uri, writeStaged(item, uri));
+                        } catch (Exception e) {
+                            Log.e(TAG, "Failed to write batch file " + index, e);
+                            batch.fail(index, "Failed to write file: " + e.getMessage());
                         }
+                    });
+                    if (!queued) {
+                        discardStaged(item);
+                        batch.fail(index, "Too many pending file operations");
                     }
-                } catch (Exception e) {
-                    Log.e(TAG, "Failed to write file", e);
-                    savedCall.reject("Failed to write file: " + e.getMessage(), e);
-                }
-            } else {
-                Log.d(TAG, "User cancelled file save");
-                savedCall.reject("User cancelled file save");
+                }, item, batch, index));
             }
-            
-            // 清理状态
-            savedFileCall = null;
-            pendingContent = null;
-            pendingFileName = null;
-            pendingMimeType = null;
-        } else if (requestCode == MANAGE_STORAGE_PERMISSION_CODE && savedPermissionCall != null) {
-            JSObject result = new JSObject();
-            boolean isGranted = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && 
-                              Environment.isExternalStorageManager();
-            result.put("granted", isGranted);
-            savedPermissionCall.resolve(result);
-            savedPermissionCall = null;
-            Log.d(TAG, "MANAGE_EXTERNAL_STORAGE result: " + isGranted);
-        } else if (requestCode == PICK_FILE_CODE) {
-            PluginCall savedCall = savedPickFileCall;
-            
-            if (savedCall == null) {
-                Log.e(TAG, "No saved call found for file picker result");
-                return;
+        });
+    }
+
+    private SaveStaging staging() {
+        return SaveStaging.getInstance(getContext());
+    }
+
+    // 把暂存内容写入用户选择的文档，写完（无论成功与否）删除暂存文件
+    private long writeStaged(SaveStaging.Staged staged, Uri uri) throws IOException {
+        try {
+            final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION;
+            getContext().getContentResolver().takePersistableUriPermission(uri, takeFlags);
+            long written = staging().writeTo(staged, getContext().getContentResolver(), uri);
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Wrote " + written + " bytes to " + uri);
             }
+            return written;
+        } finally {
+            staging().discard(staged);
+        }
+    }
 
+    // I/O 队列已满时直接在当前线程删除，暂存文件不会留到 purgeStale 才清理
+    private void discardStaged(SaveStaging.Staged staged) {
+        if (staged != null && !IoExecutor.getInstance().execute(() -> staging().discard(staged))) {
+            staging().discard(staged);
+        }
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void openWriteSession(PluginCall call) {
+        String fileName = call.getString("fileName");
+        String mimeType = call.getString("mimeType", "text/csv");
+
+        if (fileName == null) {
+            call.reject("fileName is required");
+            return;
+        }
+
+        enqueuePicker(new PickerRequest(requestId(call), call, createDocumentIntent(fileName, mimeType),
+            result -> handleWriteSessionResult(call, result)));
+    }
+
+    private void handleWriteSessionResult(PluginCall call, ActivityResult result) {
+        Uri uri = pickedUri(result);
+        if (uri == null) {
+            TRACE.d("User cancelled write session");
+            call.reject("User cancelled file save");
+            return;
+        }
+
+        IoExecutor.getInstance().execute(call, () -> {
             try {
-                if (resultCode == Activity.RESULT_OK && data != null && data.getData() != null) {
-                    Uri uri = data.getData();
-                    Log.d(TAG, "File picked with uri: " + uri.toString());
-                    
-                    // 获取持久化权限
-                    final int takeFlags = data.getFlags() & Intent.FLAG_GRANT_READ_URI_PERMISSION;
-                    getContext().getContentResolver().takePersistableUriPermission(uri, takeFlags);
-                    
-                    String path = uri.toString();
-                    String name = getFileName(uri);
-                    
-                    Log.d(TAG, "Resolved file name: " + name);
-                    Log.d(TAG, "File path: " + path);
-                    
-                    JSObject result = new JSObject();
-                    result.put("path", path);
-                    result.put("name", name);
-                    savedCall.resolve(result);
-                    Log.d(TAG, "Resolved call with result");
-                } else {
-                    Log.d(TAG, "File selection cancelled or no data returned");
-                    savedCall.reject("File selection cancelled");
+                final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION;
+                getContext().getContentResolver().takePersistableUriPermission(uri, takeFlags);
+
+                String sessionId = UUID.randomUUID().toString();
+                WriteSession session = WriteSession.open(getContext().getContentResolver(), sessionId, uri);
+                writeSessions.put(sessionId, session);
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "Opened write session " + sessionId + " for " + uri);
                 }
+
+                JSObject ret = new JSObject();
+                ret.put("sessionId", sessionId);
+                ret.put("uri", uri.toString());
+                call.resolve(ret);
             } catch (Exception e) {
-                Log.e(TAG, "Error processing file picker result", e);
-                savedCall.reject("Failed to process selected file: " + e.getMessage());
-            } finally {
-                bridge.releaseCall(savedCall.getCallbackId());
-                savedPickFileCall = null;
+                Log.e(TAG, "Failed to open write session", e);
+                call.reject("Failed to open write session: " + e.getMessage(), e);
             }
+        });
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void exportRecords(PluginCall call) {
+        String fileName = call.getString("fileName");
+        String mimeType = call.getString("mimeType", "text/csv");
+        JSArray records = call.getArray("records");
+
+        if (fileName == null || records == null) {
+            call.reject("fileName and records are required");
+            return;
+        }
+        if (records.length() == 0) {
+            call.reject("No records to export");
+            return;
         }
+
+        enqueuePicker(new PickerRequest(requestId(call), call, createDocumentIntent(fileName, mimeType),
+            result -> handleExportRecordsResult(call, result)));
     }
 
-    @Override
-    public boolean hasRequiredPermissions() {
-        boolean hasPermissions;
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-            hasPermissions = Environment.isExternalStorageManager();
-            Log.d(TAG, "Check required permissions (Android 11+): " + hasPermissions);
-        } else {
-            hasPermissions = hasPermission(Manifest.permission.READ_EXTERNAL_STORAGE) &&
-                           hasPermission(Manifest.permission.WRITE_EXTERNAL_STORAGE);
-            Log.d(TAG, "Check required permissions (Android 10-): " + hasPermissions);
+    private void handleExportRecordsResult(PluginCall call, ActivityResult result) {
+        Uri uri = pickedUri(result);
+        if (uri == null) {
+            TRACE.d("User cancelled records export");
+            call.reject("User cancelled file save");
+            return;
         }
-        return hasPermissions;
+
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                List<GrowthCsvWriter.Column> columns = parseColumns(call.getArray("columns"));
+                List<GrowthRecord> records = GrowthCsvWriter.dedupeAndSort(
+                    RecordJson.fromJsonArray(call.getArray("records"), null));
+
+                final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION;
+                getContext().getContentResolver().takePersistableUriPermission(uri, takeFlags);
+
+                OutputStream outputStream = getContext().getContentResolver().openOutputStream(uri, "rwt");
+                if (outputStream == null) {
+                    throw new Exception("Failed to open output stream");
+                }
+                int rows;
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new MeteredOutputStream(outputStream), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+                    rows = GrowthCsvWriter.write(writer, call.getString("childName"), columns, records);
+                }
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "Exported " + rows + " records to " + uri);
+                }
+
+                JSObject ret = new JSObject();
+                ret.put("uri", uri.toString());
+                ret.put("rowsWritten", rows);
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to export records", e);
+                call.reject("Failed to write file: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // 列配置：[{ key: 'date' | 'height' | 'weight', title, decimals }]，未提供时使用默认三列
+    private static List<GrowthCsvWriter.Column> parseColumns(JSArray config) {
+        if (config == null || config.length() == 0) {
+            return GrowthCsvWriter.defaultColumns();
+        }
+        List<GrowthCsvWriter.Column> defaults = GrowthCsvWriter.defaultColumns();
+        List<GrowthCsvWriter.Column> columns = new ArrayList<>(config.length());
+        for (int i = 0; i < config.length(); i++) {
+            JSONObject item = config.optJSONObject(i);
+            if (item == null) {
+                continue;
+            }
+            String key = item.optString("key");
+            GrowthCsvWriter.Column fallback = null;
+            for (GrowthCsvWriter.Column column : defaults) {
+                if (column.getKey().equals(key)) {
+                    fallback = column;
+                }
+            }
+            if (fallback == null) {
+                throw new IllegalArgumentException("Unsupported column: " + key);
+            }
+            columns.add(new GrowthCsvWriter.Column(key,
+                item.optString("title", fallback.getTitle()),
+                item.optInt("decimals", fallback.getDecimals())));
+        }
+        return columns;
     }
 
     @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
-    public void checkPermissions(PluginCall call) {
-        Log.d(TAG, "Checking permissions");
-        JSObject result = new JSObject();
-        boolean isGranted = false;
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-            isGranted = Environment.isExternalStorageManager();
-            Log.d(TAG, "Android 11+: isExternalStorageManager = " + isGranted);
-        } else {
-            boolean hasReadPermission = hasPermission(Manifest.permission.READ_EXTERNAL_STORAGE);
-            boolean hasWritePermission = hasPermission(Manifest.permission.WRITE_EXTERNAL_STORAGE);
-            isGranted = hasReadPermission && hasWritePermission;
-            Log.d(TAG, "Android 10-: hasReadPermission = " + hasReadPermission + ", hasWritePermission = " + hasWritePermission);
+    public void appendToWriteSession(PluginCall call) {
+        String sessionId = call.getString("sessionId");
+        String data = call.getString("data");
+        String encoding = call.getString("encoding", "base64");
+
+        WriteSession session = sessionId != null ? writeSessions.get(sessionId) : null;
+        if (session == null) {
+            call.reject("Unknown write session: " + sessionId);
+            return;
         }
-        
-        result.put("granted", isGranted);
-        call.resolve(result);
-        Log.d(TAG, "Permission check result: " + isGranted);
+        if (data == null) {
+            call.reject("data is required");
+            return;
+        }
+
+        IoExecutor.getInstance().execute(call, () -> {
+            byte[] chunk;
+            try {
+                chunk = "base64".equals(encoding)
+                    ? android.util.Base64.decode(data, android.util.Base64.DEFAULT)
+                    : data.getBytes(StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                call.reject("Failed to decode chunk: " + e.getMessage());
+                return;
+            }
+
+            try {
+                long total = session.append(chunk);
+                JSObject ret = new JSObject();
+                ret.put("bytesWritten", total);
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to append to write session " + sessionId, e);
+                writeSessions.remove(sessionId);
+                session.abort(getContext().getContentResolver());
+                call.reject("Failed to write file: " + e.getMessage(), e);
+            }
+        });
     }
 
     @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
-    public void requestPermissions(PluginCall call) {
-        Log.d(TAG, "Requesting permissions");
-        savedPermissionCall = call;
-        
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-            if (!Environment.isExternalStorageManager()) {
+    public void commitWriteSession(PluginCall call) {
+        String sessionId = call.getString("sessionId");
+        WriteSession session = sessionId != null ? writeSessions.remove(sessionId) : null;
+        if (session == null) {
+            call.reject("Unknown write session: " + sessionId);
+            return;
+        }
+
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                long total = session.commit();
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "Committed write session " + sessionId + ", " + total + " bytes");
+                }
+                JSObject ret = new JSObject();
+                ret.put("uri", session.getUri().toString());
+                ret.put("bytesWritten", total);
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to commit write session " + sessionId, e);
+                session.abort(getContext().getContentResolver());
+                call.reject("Failed to write file: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void abortWriteSession(PluginCall call) {
+        String sessionId = call.getString("sessionId");
+        WriteSession session = sessionId != null ? writeSessions.remove(sessionId) : null;
+        if (session == null) {
+            call.resolve();
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            session.abort(getContext().getContentResolver());
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Aborted write session " + sessionId);
+            }
+            call.resolve();
+        });
+    }
+
+    // 取消排队中的 I/O 任务，taskId 由调用方在发起请求时传入
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void cancelTask(PluginCall call) {
+        String taskId = call.getString("taskId");
+        if (taskId == null) {
+            call.reject("taskId is required");
+            return;
+        }
+        // 还在等待选择器的请求在主线程上移除，其余交给 I/O 线程池
+        bridge.executeOnMainThread(() -> {
+            boolean cancelled = cancelPicker(taskId) || IoExecutor.getInstance().cancel(taskId);
+            JSObject ret = new JSObject();
+            ret.put("cancelled", cancelled);
+            call.resolve(ret);
+        });
+    }
+
+    // 选择器请求的 id：调用方传入的 taskId，否则为 callbackId；批量保存的每一项再加上 #序号
+    private static String requestId(PluginCall call) {
+        return call.getString("taskId", call.getCallbackId());
+    }
+
+    private static Uri pickedUri(ActivityResult result) {
+        Intent data = result.getData();
+        if (result.getResultCode() != Activity.RESULT_OK || data == null) {
+            return null;
+        }
+        return data.getData();
+    }
+
+    private void enqueuePicker(PickerRequest request) {
+        bridge.executeOnMainThread(() -> {
+            // 批次已经取消或失败时，后到的项不再排队，直接删除暂存文件
+            if (request.batch != null && request.batch.isClosed()) {
+                request.fail("Task cancelled", IoExecutor.ERROR_CANCELLED);
+                return;
+            }
+            if (pickerRequests.containsKey(request.id)) {
+                request.fail("Duplicate request id: " + request.id, null);
+                return;
+            }
+            pickerRequests.put(request.id, request);
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Queued picker request " + request.id + ", pending: " + pickerRequests.size());
+            }
+            launchNextPicker();
+        });
+    }
+
+    // 主线程调用：没有正在显示的选择器时弹出队首请求
+    private void launchNextPicker() {
+        while (activePicker == null && !pickerRequests.isEmpty()) {
+            PickerRequest request = pickerRequests.values().iterator().next();
+            try {
+                activePicker = request;
+                if (request.staged != null) {
+                    // 只写入一个很小的标记文件，进程被杀后靠它找回暂存内容
+                    staging().markActive(request.staged);
+                }
+                Metrics.getInstance().pickerStarted(request.id);
+                startActivityForResult(request.call, request.intent, "handlePickerResult");
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to open file picker", e);
+                pickerRequests.remove(request.id);
+                activePicker = null;
+                Metrics.getInstance().pickerFinished(request.id);
+                request.fail("Failed to open file picker: " + e.getMessage(), null);
+            }
+        }
+    }
+
+    // 所有选择器共用一个回调，结果交给当前显示的请求，然后弹出下一个
+    @ActivityCallback
+    private void handlePickerResult(PluginCall call, ActivityResult result) {
+        PickerRequest request = activePicker;
+        activePicker = null;
+        if (request == null) {
+            // 选择器打开期间进程被杀，Activity 重建后才收到结果
+            recoverStagedSave(call, result);
+            launchNextPicker();
+            return;
+        }
+        if (request.staged != null) {
+            staging().clearActive();
+        }
+        pickerRequests.remove(request.id);
+        Metrics.getInstance().pickerFinished(request.id);
+        try {
+            request.callback.onResult(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to handle picker result for " + request.id, e);
+            request.fail("Failed to process picker result: " + e.getMessage(), null);
+        }
+        launchNextPicker();
+    }
+
+    // 把进程被杀前等待选择器的暂存内容写入选择的文档；原来的 Promise 已不存在，
+    // 结果通过保留到有监听者为止的 saveRecovered 事件通知 JS
+    private void recoverStagedSave(PluginCall call, ActivityResult result) {
+        Uri uri = pickedUri(result);
+        boolean queued = IoExecutor.getInstance().execute(() -> {
+            SaveStaging.Staged staged = staging().takeActive();
+            if (staged == null) {
+                Log.e(TAG, "No active picker request for activity result");
+                return;
+            }
+            JSObject ret = new JSObject();
+            ret.put("requestId", staged.getRequestId());
+            ret.put("fileName", staged.getFileName());
+            if (uri == null) {
+                staging().discard(staged);
+                ret.put("cancelled", true);
+            } else {
                 try {
-                    Log.d(TAG, "Requesting MANAGE_EXTERNAL_STORAGE permission");
-                    Intent intent = new Intent(Settings.ACTION_MANAGE_APP_ALL_FILES_ACCESS_PERMISSION);
-                    Uri uri = Uri.fromParts("package", getActivity().getPackageName(), null);
-                    intent.setData(uri);
-                    startActivityForResult(call, intent, MANAGE_STORAGE_PERMISSION_CODE);
+                    ret.put("uri", uri.toString());
+                    ret.put("bytesWritten", writeStaged(staged, uri));
                 } catch (Exception e) {
-                    Log.e(TAG, "Failed to request app-specific permission", e);
-                    // 如果上面的意图失败，尝试使用通用设置
-                    Intent intent = new Intent();
-                    intent.setAction(Settings.ACTION_MANAGE_ALL_FILES_ACCESS_PERMISSION);
-                    startActivityForResult(call, intent, MANAGE_STORAGE_PERMISSION_CODE);
+                    Log.e(TAG, "Failed to write recovered file", e);
+                    ret.put("error", "Failed to write file: " + e.getMessage());
                 }
-            } else {
-                Log.d(TAG, "Already have MANAGE_EXTERNAL_STORAGE permission");
-                JSObject result = new JSObject();
-                result.put("granted", true);
-                call.resolve(result);
-            }
-        } else {
-            String[] permissions = {
-                Manifest.permission.READ_EXTERNAL_STORAGE,
-                Manifest.permission.WRITE_EXTERNAL_STORAGE
-            };
-            
-            // 检查是否已经有权限
-            boolean hasReadPermission = hasPermission(Manifest.permission.READ_EXTERNAL_STORAGE);
-            boolean hasWritePermission = hasPermission(Manifest.permission.WRITE_EXTERNAL_STORAGE);
-            
-            Log.d(TAG, "Current permissions: READ=" + hasReadPermission + ", WRITE=" + hasWritePermission);
-            
-            if (hasReadPermission && hasWritePermission) {
-                Log.d(TAG, "Already have READ and WRITE permissions");
-                JSObject result = new JSObject();
-                result.put("granted", true);
-                call.resolve(result);
-                return;
             }
-            
-            Log.d(TAG, "Requesting READ and WRITE permissions");
-            pluginRequestPermissions(permissions, STORAGE_PERMISSION_CODE);
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Recovered staged save " + staged.getRequestId() + ": " + ret);
+            }
+            notifyListeners("saveRecovered", ret, true);
+            if (call != null) {
+                call.resolve(ret);
+            }
+        });
+        if (!queued) {
+            Log.w(TAG, "Dropping picker result, I/O queue is full");
         }
     }
 
-    @Override
-    protected void handleRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
-        super.handleRequestPermissionsResult(requestCode, permissions, grantResults);
-        Log.d(TAG, "Handle permission result: requestCode=" + requestCode);
+    // 主线程调用：取消还没显示的选择器；taskId 是批量保存的 id 时关闭该批次，取消其中所有未显示的项
+    private boolean cancelPicker(String taskId) {
+        List<PickerRequest> cancelled = new ArrayList<>();
+        Iterator<PickerRequest> iterator = pickerRequests.values().iterator();
+        while (iterator.hasNext()) {
+            PickerRequest request = iterator.next();
+            if (request.batch != null && request.batch.id.equals(taskId)) {
+                request.batch.closed = true;
+            }
+            if (request == activePicker) {
+                continue;
+            }
+            if (request.id.equals(taskId) || (request.batch != null && request.batch.id.equals(taskId))) {
+                iterator.remove();
+                cancelled.add(request);
+            }
+        }
+        for (PickerRequest request : cancelled) {
+            request.fail("Task cancelled", IoExecutor.ERROR_CANCELLED);
+        }
+        return !cancelled.isEmpty();
+    }
 
-        if (savedPermissionCall == null) {
-            Log.e(TAG, "No saved permission call");
-            return;
+    // 主线程调用：批次关闭后放弃同一批中还在排队的项，并删除它们的暂存文件
+    private void dropQueuedBatchItems(SaveBatch batch) {
+        List<PickerRequest> dropped = new ArrayList<>();
+        Iterator<PickerRequest> iterator = pickerRequests.values().iterator();
+        while (iterator.hasNext()) {
+            PickerRequest request = iterator.next();
+            if (request.batch == batch && request != activePicker) {
+                iterator.remove();
+                dropped.add(request);
+            }
         }
+        for (PickerRequest request : dropped) {
+            request.fail("Task cancelled", IoExecutor.ERROR_CANCELLED);
+        }
+    }
 
+    @Override
+    protected void handleOnActivityResult(int requestCode, int resultCode, Intent data) {
+        if (TRACE.isEnabled()) {
+            Log.d(TAG, "handleOnActivityResult - requestCode: " + requestCode
+                + ", resultCode: " + resultCode
+                + ", data: " + (data != null ? data.toString() : "null"));
+        }
+        
+        super.handleOnActivityResult(requestCode, resultCode, data);
+    }
+
+    // 存储权限状态由 PermissionBroker 缓存，只在回到前台或收到权限结果时重新检查
+    @Override
+    public boolean hasRequiredPermissions() {
+        return PermissionBroker.getInstance().isGranted(getContext());
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void checkPermissions(PluginCall call) {
         JSObject result = new JSObject();
+        result.put("granted", PermissionBroker.getInstance().isGranted(getContext()));
+        call.resolve(result);
+    }
 
-        if (requestCode == STORAGE_PERMISSION_CODE) {
-            boolean allGranted = true;
-            for (int i = 0; i < permissions.length; i++) {
-                Log.d(TAG, "Permission " + permissions[i] + ": " + (grantResults[i] == PackageManager.PERMISSION_GRANTED));
-                if (grantResults[i] != PackageManager.PERMISSION_GRANTED) {
-                    allGranted = false;
-                    break;
-                }
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void requestPermissions(PluginCall call) {
+        PermissionBroker.getInstance().request(getActivity(), granted -> {
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Storage permission result: " + granted);
             }
-            result.put("granted", allGranted);
-            savedPermissionCall.resolve(result);
-            savedPermissionCall = null;
-            Log.d(TAG, "Permission result: " + allGranted);
-        }
+            JSObject result = new JSObject();
+            result.put("granted", granted);
+            call.resolve(result);
+        });
     }
 
     @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
     public void pickFile(PluginCall call) {
-        Log.d(TAG, "pickFile method called with params: " + call.getData().toString());
+        if (TRACE.isEnabled()) {
+            Log.d(TAG, "pickFile method called with params: " + call.getData().toString());
+        }
         try {
             String type = call.getString("type", "*/*");
             String title = call.getString("title", "选择文件");
             
-            Log.d(TAG, "Launching file picker with type: " + type + ", title: " + title);
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Launching file picker with type: " + type + ", title: " + title);
+            }
             
             Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
             intent.setType(type);
@@ -402,106 +737,674 @@ public class FilePlugin extends Plugin {
             intent.putExtra(Intent.EXTRA_LOCAL_ONLY, true);
             intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_PERSISTABLE_URI_PERMISSION);
             
-            // 保存 call
-            call.setKeepAlive(true);
-            bridge.saveCall(call);
-            savedPickFileCall = call;
-            
-            startActivityForResult(call, intent, PICK_FILE_CODE);
-            Log.d(TAG, "Successfully started activity for result");
+            enqueuePicker(new PickerRequest(requestId(call), call, intent, result -> handlePickFileResult(call, result)));
         } catch (Exception e) {
             Log.e(TAG, "Error launching file picker", e);
             call.reject("Failed to launch file picker: " + e.getMessage());
         }
     }
 
+    private void handlePickFileResult(PluginCall call, ActivityResult result) {
+        Uri uri = pickedUri(result);
+        if (uri == null) {
+            TRACE.d("File selection cancelled or no data returned");
+            call.reject("File selection cancelled");
+            return;
+        }
+        // 查询文件名需要访问 ContentProvider，放到 I/O 线程
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "File picked with uri: " + uri.toString());
+                }
+
+                // 获取持久化权限
+                final int takeFlags = result.getData().getFlags() & Intent.FLAG_GRANT_READ_URI_PERMISSION;
+                getContext().getContentResolver().takePersistableUriPermission(uri, takeFlags);
+
+                String path = uri.toString();
+                String name = UriMetadataCache.getInstance(getContext())
+                    .remember(uri, UriMetadataCache.KIND_FILE).getName();
+
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "Resolved file name: " + name + ", path: " + path);
+                }
+
+                JSObject ret = new JSObject();
+                ret.put("path", path);
+                ret.put("name", name);
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Error processing file picker result", e);
+                call.reject("Failed to process selected file: " + e.getMessage());
+            }
+        });
+    }
+
     @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
     public void readFile(PluginCall call) {
         String path = call.getString("path");
         String encoding = call.getString("encoding", "utf8");
-        
+
         if (path == null) {
             call.reject("Path is required");
             return;
         }
-        
-        try {
+
+        // 指定了 offset 或 length 时按范围读取，只返回该范围的 base64 内容
+        if (call.hasOption("offset") || call.hasOption("length")) {
+            readFileRange(call, path, encoding);
+            return;
+        }
+        if ("auto".equals(encoding)) {
+            readTextAuto(call, path);
+            return;
+        }
+
+        IoExecutor.getInstance().execute(call, () -> {
+            try (AssetFileDescriptor descriptor = getContext().getContentResolver()
+                    .openAssetFileDescriptor(Uri.parse(path), "r")) {
+                if (descriptor == null) {
+                    call.reject("Failed to open file");
+                    return;
+                }
+                long size = descriptor.getLength();
+                String content;
+                try (InputStream inputStream = new MeteredInputStream(descriptor.createInputStream())) {
+                    if ("base64".equals(encoding)) {
+                        byte[] bytes = readFully(inputStream, size);
+                        if (Tracer.DEBUG) {
+                            Log.d(TAG, "First 20 bytes: " + bytesToHex(Arrays.copyOf(bytes, Math.min(20, bytes.length))));
+                        }
+                        content = android.util.Base64.encodeToString(bytes, android.util.Base64.NO_WRAP);
+                    } else {
+                        content = readText(inputStream, Charset.forName(encoding), size);
+                    }
+                }
+                if (Tracer.DEBUG) {
+                    Log.d(TAG, "Read " + size + " bytes as " + encoding + ", content (first 100 chars): "
+                        + (content.length() > 100 ? content.substring(0, 100) : content));
+                }
+
+                JSObject ret = new JSObject();
+                ret.put("content", content);
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to read file", e);
+                call.reject("Failed to read file: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // 大小已知时一次分配正好大小的数组，读完不需要再复制；大小未知时按倍数扩容
+    private static byte[] readFully(InputStream in, long size) throws IOException {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("File is too large: " + size + " bytes");
+        }
+        if (size == 0) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[size >= 0 ? (int) size : READ_BUFFER_SIZE];
+        int filled = 0;
+        int n;
+        while ((n = in.read(bytes, filled, bytes.length - filled)) != -1) {
+            filled += n;
+            if (filled == bytes.length) {
+                if (size >= 0) {
+                    break;
+                }
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+        }
+        return filled == bytes.length ? bytes : Arrays.copyOf(bytes, filled);
+    }
+
+    // 文本直接从流解码，不保留整份字节内容
+    private static String readText(InputStream in, Charset charset, long size) throws IOException {
+        StringBuilder sb = new StringBuilder(size > 0 && size < Integer.MAX_VALUE ? (int) size : READ_BUFFER_SIZE);
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        Reader reader = new InputStreamReader(in, charset);
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    // encoding 为 auto：原生端检测编码并解码一次，返回 { content, charset }；
+    // 无 BOM 的文件按 UTF-8 严格解码，取样之后才出现非法字节时改用 GB18030 重新读取
+    private void readTextAuto(PluginCall call, String path) {
+        IoExecutor.getInstance().execute(call, () -> {
             Uri uri = Uri.parse(path);
-            InputStream inputStream = getContext().getContentResolver().openInputStream(uri);
-            if (inputStream == null) {
-                call.reject("Failed to open file");
-                return;
+            TextTranscoder.Result decoded;
+            try {
+                decoded = TextTranscoder.decode(openMetered(uri));
+            } catch (CharacterCodingException e) {
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "Invalid UTF-8 after sample, decoding " + path + " as GB18030");
+                }
+                decoded = TextTranscoder.decode(openMetered(uri), CharsetDetector.GB18030);
             }
-            
-            ByteArrayOutputStream result = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
-            int length;
-            
-            // 读取前20个字节并打印
-            length = inputStream.read(buffer, 0, 20);
-            if (length > 0) {
-                Log.d(TAG, "First 20 bytes: " + bytesToHex(Arrays.copyOf(buffer, length)));
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Decoded " + decoded.getText().length() + " chars as " + decoded.getCharset().name());
             }
-            result.write(buffer, 0, length);
-            
-            // 继续读取剩余内容
-            while ((length = inputStream.read(buffer)) != -1) {
-                result.write(buffer, 0, length);
+
+            JSObject ret = new JSObject();
+            ret.put("content", decoded.getText());
+            ret.put("charset", decoded.getCharset().name());
+            call.resolve(ret);
+        });
+    }
+
+    private InputStream openMetered(Uri uri) throws IOException {
+        InputStream stream = getContext().getContentResolver().openInputStream(uri);
+        if (stream == null) {
+            throw new IOException("Failed to open file");
+        }
+        return new MeteredInputStream(stream);
+    }
+
+    private void readFileRange(PluginCall call, String path, String encoding) {
+        if (!"base64".equals(encoding)) {
+            call.reject("Ranged reads only support base64 encoding");
+            return;
+        }
+
+        long offset = call.getLong("offset", 0L);
+        int length = call.getInt("length", ReadSession.DEFAULT_CHUNK_SIZE);
+        if (offset < 0 || length <= 0) {
+            call.reject("Invalid range: offset=" + offset + ", length=" + length);
+            return;
+        }
+
+        IoExecutor.getInstance().execute(call, () -> {
+            try (ReadSession session = ReadSession.open(getContext().getContentResolver(), null, Uri.parse(path), length)) {
+                int read = session.readAt(offset, length);
+                JSObject ret = chunkResult(session, offset, read);
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to read file range", e);
+                call.reject("Failed to read file: " + e.getMessage(), e);
             }
-            
-            byte[] bytes = result.toByteArray();
-            String content;
-            
-            if ("base64".equals(encoding)) {
-                content = android.util.Base64.encodeToString(bytes, android.util.Base64.NO_WRAP);
-                Log.d(TAG, "Base64 encoded content (first 100 chars): " + 
-                      (content.length() > 100 ? content.substring(0, 100) : content));
-            } else {
-                content = result.toString(encoding);
-                Log.d(TAG, "Decoded content (first 100 chars): " + 
-                      (content.length() > 100 ? content.substring(0, 100) : content));
+        });
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void openReadSession(PluginCall call) {
+        String path = call.getString("path");
+        int chunkSize = call.getInt("chunkSize", ReadSession.DEFAULT_CHUNK_SIZE);
+
+        if (path == null) {
+            call.reject("Path is required");
+            return;
+        }
+        if ("auto".equals(call.getString("encoding"))) {
+            openTextSession(call, path, chunkSize);
+            return;
+        }
+
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                String sessionId = UUID.randomUUID().toString();
+                ReadSession session = ReadSession.open(getContext().getContentResolver(), sessionId, Uri.parse(path), chunkSize);
+                readSessions.put(sessionId, session);
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "Opened read session " + sessionId + ", size: " + session.getTotalSize());
+                }
+
+                JSObject ret = new JSObject();
+                ret.put("sessionId", sessionId);
+                ret.put("totalSize", session.getTotalSize());
+                ret.put("chunkSize", session.getChunkSize());
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to open read session", e);
+                call.reject("Failed to read file: " + e.getMessage(), e);
             }
-            
-            inputStream.close();
-            result.close();
-            
+        });
+    }
+
+    // encoding 为 auto 的读取会话：原生端检测编码并流式解码，每块返回 chunkSize 个字符的文本，不经过 base64
+    private void openTextSession(PluginCall call, String path, int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > ReadSession.MAX_CHUNK_SIZE) {
+            call.reject("Invalid chunkSize: " + chunkSize);
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            Uri uri = Uri.parse(path);
+            long totalSize = UriMetadataCache.getInstance(getContext())
+                .get(uri, UriMetadataCache.KIND_FILE, false).getSize();
+            String sessionId = UUID.randomUUID().toString();
+            TextTranscoder.Stream stream = TextTranscoder.open(openMetered(uri));
+            textSessions.put(sessionId, stream);
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Opened text session " + sessionId + ", charset: " + stream.getCharset().name());
+            }
+
             JSObject ret = new JSObject();
-            ret.put("content", content);
+            ret.put("sessionId", sessionId);
+            ret.put("totalSize", totalSize);
+            ret.put("chunkSize", chunkSize);
+            ret.put("charset", stream.getCharset().name());
             call.resolve(ret);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to read file", e);
-            call.reject("Failed to read file: " + e.getMessage(), e);
+        });
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void readNextChunk(PluginCall call) {
+        String sessionId = call.getString("sessionId");
+        TextTranscoder.Stream stream = sessionId != null ? textSessions.get(sessionId) : null;
+        if (stream != null) {
+            readNextText(call, sessionId, stream);
+            return;
         }
+        ReadSession session = sessionId != null ? readSessions.get(sessionId) : null;
+        if (session == null) {
+            call.reject("Unknown read session: " + sessionId);
+            return;
+        }
+
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                long offset = session.getPosition();
+                int read = session.readNext();
+                call.resolve(chunkResult(session, offset, read));
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to read chunk from session " + sessionId, e);
+                readSessions.remove(sessionId);
+                closeQuietly(session);
+                call.reject("Failed to read file: " + e.getMessage(), e);
+            }
+        });
     }
 
-    private String getFileName(Uri uri) {
-        String result = null;
-        if (uri.getScheme().equals("content")) {
-            try (Cursor cursor = getContext().getContentResolver().query(uri, null, null, null, null)) {
-                if (cursor != null && cursor.moveToFirst()) {
-                    int index = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
-                    if (index >= 0) {
-                        result = cursor.getString(index);
-                    }
+    private void readNextText(PluginCall call, String sessionId, TextTranscoder.Stream stream) {
+        int chunkSize = call.getInt("chunkSize", ReadSession.DEFAULT_CHUNK_SIZE);
+        IoExecutor.getInstance().execute(call, () -> {
+            try {
+                JSObject ret = new JSObject();
+                ret.put("content", stream.readChunk(Math.max(1, Math.min(chunkSize, ReadSession.MAX_CHUNK_SIZE))));
+                ret.put("eof", stream.isEof());
+                call.resolve(ret);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to read text from session " + sessionId, e);
+                textSessions.remove(sessionId);
+                closeQuietly(stream);
+                call.reject("Failed to read file: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void closeReadSession(PluginCall call) {
+        String sessionId = call.getString("sessionId");
+        TextTranscoder.Stream stream = sessionId != null ? textSessions.remove(sessionId) : null;
+        if (stream != null) {
+            closeQuietly(stream);
+        }
+        ReadSession session = sessionId != null ? readSessions.remove(sessionId) : null;
+        if (session != null) {
+            closeQuietly(session);
+            if (TRACE.isEnabled()) {
+                Log.d(TAG, "Closed read session " + sessionId);
+            }
+        }
+        call.resolve();
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void parseCsv(PluginCall call) {
+        String path = call.getString("path");
+        if (path == null) {
+            call.reject("Path is required");
+            return;
+        }
+
+        IoExecutor.getInstance().execute(call, () -> {
+            try (InputStream inputStream = getContext().getContentResolver().openInputStream(Uri.parse(path))) {
+                if (inputStream == null) {
+                    call.reject("Failed to open file");
+                    return;
+                }
+
+                GrowthCsvParser.Result parsed;
+                try (InputStream metered = new MeteredInputStream(inputStream)) {
+                    parsed = GrowthCsvParser.parse(metered);
+                }
+                if (TRACE.isEnabled()) {
+                    Log.d(TAG, "Parsed CSV with charset " + parsed.getCharset().name()
+                        + ", records: " + parsed.getRecords().size());
+                }
+
+                JSArray records = new JSArray();
+                for (GrowthRecord record : parsed.getRecords()) {
+                    JSObject item = new JSObject();
+                    item.put("date", record.getDate());
+                    item.put("height", record.getHeight());
+                    item.put("weight", record.hasWeight() ? record.getWeight() : JSONObject.NULL);
+                    records.put(item);
+                }
+
+                JSObject errors = new JSObject();
+                errors.put("formatErrors", toJSArray(parsed.getFormatErrors()));
+                errors.put("dateErrors", toJSArray(parsed.getDateErrors()));
+                errors.put("heightErrors", toJSArray(parsed.getHeightErrors()));
+                errors.put("weightErrors", toJSArray(parsed.getWeightErrors()));
+
+                JSObject ret = new JSObject();
+                ret.put("childName", parsed.getChildName());
+                ret.put("charset", parsed.getCharset().name());
+                ret.put("records", records);
+                ret.put("errors", errors);
+                call.resolve(ret);
+            } catch (IllegalArgumentException e) {
+                // 文件结构错误，消息可直接展示给用户
+                call.reject(e.getMessage());
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to parse CSV", e);
+                call.reject("Failed to read file: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // 为文件登记一个句柄，JS 端可直接 fetch 返回的 url 得到 ArrayBuffer（支持 Range），不经过 base64；
+    // 用完后调用 releaseFileHandle
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void openFileHandle(PluginCall call) {
+        String path = call.getString("path");
+        if (path == null) {
+            call.reject("Path is required");
+            return;
+        }
+        IoExecutor.getInstance().execute(call, () -> {
+            Uri uri = Uri.parse(path);
+            if ("file".equals(uri.getScheme()) && !isAppFile(uri)) {
+                call.reject("Only files inside the app directories can be opened");
+                return;
+            }
+            UriMetadataCache.Entry metadata = UriMetadataCache.getInstance(getContext())
+                .get(uri, UriMetadataCache.KIND_FILE, false);
+            // encoding 为 auto 时按 UTF-8 文本提供，编码检测和转码都在原生端完成
+            boolean transcode = "auto".equals(call.getString("encoding"));
+            String mimeType = transcode ? "text/plain" : call.getString("mimeType", metadata.getMimeType());
+            FileHandleRegistry.Handle handle = FileHandleRegistry.getInstance().register(uri, mimeType, transcode);
+
+            JSObject ret = new JSObject();
+            ret.put("handle", handle.getToken());
+            ret.put("url", getBridge().getLocalUrl() + handle.getPath());
+            ret.put("size", metadata.getSize());
+            ret.put("mimeType", handle.getMimeType());
+            call.resolve(ret);
+        });
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void releaseFileHandle(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("released", FileHandleRegistry.getInstance().release(call.getString("handle")));
+        call.resolve(ret);
+    }
+
+    // file:// 只允许应用自己的目录（导出时生成的临时文件等）
+    private boolean isAppFile(Uri uri) {
+        try {
+            String path = new File(uri.getPath()).getCanonicalPath();
+            for (File dir : new File[] {getContext().getFilesDir(), getContext().getCacheDir()}) {
+                if (path.startsWith(dir.getCanonicalPath() + File.separator)) {
+                    return true;
                 }
             }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to resolve file path " + uri, e);
         }
-        if (result == null) {
-            result = uri.getPath();
-            int cut = result.lastIndexOf('/');
-            if (cut != -1) {
-                result = result.substring(cut + 1);
+        return false;
+    }
+
+    // I/O 指标：字节数、任务数、排队等待、各方法耗时和选择器往返时间；reset 为 true 时读取后清零
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void getMetrics(PluginCall call) {
+        boolean reset = Boolean.TRUE.equals(call.getBoolean("reset", false));
+        try {
+            JSObject ret = JSObject.fromJSONObject(Metrics.getInstance().snapshot(reset));
+            JSObject executor = new JSObject();
+            executor.put("queueDepth", IoExecutor.getInstance().getQueueDepth());
+            executor.put("activeCount", IoExecutor.getInstance().getActiveCount());
+            ret.put("executor", executor);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Failed to collect metrics: " + e.getMessage(), e);
+        }
+    }
+
+    // 最近选择过且仍有权限的文件或目录：{ kind: 'file' | 'directory', limit }，可直接复用而不再打开选择器
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void getRecentDocuments(PluginCall call) {
+        String kind = call.getString("kind", UriMetadataCache.KIND_FILE);
+        if (!UriMetadataCache.KIND_FILE.equals(kind) && !UriMetadataCache.KIND_DIRECTORY.equals(kind)) {
+            call.reject("kind must be 'file' or 'directory'");
+            return;
+        }
+        int limit = call.getInt("limit", 10);
+        IoExecutor.getInstance().execute(call, () -> {
+            JSArray documents = new JSArray();
+            for (UriMetadataCache.Entry entry : UriMetadataCache.getInstance(getContext()).recent(kind, limit)) {
+                documents.put(entry.toJson());
             }
+            JSObject ret = new JSObject();
+            ret.put("documents", documents);
+            call.resolve(ret);
+        });
+    }
+
+    // 文件元数据，优先使用缓存；refresh 为 true 时重新查询
+    @PluginMethod(returnType = PluginMethod.RETURN_PROMISE)
+    public void getDocumentMetadata(PluginCall call) {
+        String uri = call.getString("uri");
+        if (uri == null) {
+            call.reject("uri is required");
+            return;
+        }
+        String kind = call.getString("kind", UriMetadataCache.KIND_FILE);
+        boolean refresh = Boolean.TRUE.equals(call.getBoolean("refresh", false));
+        IoExecutor.getInstance().execute(call, () -> {
+            UriMetadataCache.Entry entry = UriMetadataCache.getInstance(getContext())
+                .get(Uri.parse(uri), kind, refresh);
+            call.resolve(JSObject.fromJSONObject(entry.toJson()));
+        });
+    }
+
+    private static JSArray toJSArray(List<String> values) {
+        JSArray array = new JSArray();
+        for (String value : values) {
+            array.put(value);
+        }
+        return array;
+    }
+
+    private static JSObject chunkResult(ReadSession session, long offset, int read) {
+        int bytesRead = Math.max(read, 0);
+        JSObject ret = new JSObject();
+        ret.put("content", bytesRead > 0
+            ? android.util.Base64.encodeToString(session.getBuffer(), 0, bytesRead, android.util.Base64.NO_WRAP)
+            : "");
+        ret.put("offset", offset);
+        ret.put("bytesRead", bytesRead);
+        ret.put("totalSize", session.getTotalSize());
+        ret.put("eof", read < 0 || session.isEof());
+        return ret;
+    }
+
+    private static void closeQuietly(Closeable session) {
+        try {
+            session.close();
+        } catch (Exception e) {
+            Log.e(TAG, "Error closing read session", e);
         }
-        return result;
     }
 
-    // 添加辅助方法用于调试
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    // 调试用：字节转十六进制
     private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X ", b));
+        char[] chars = new char[bytes.length * 3];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 3] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 3 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+            chars[i * 3 + 2] = ' ';
+        }
+        return new String(chars);
+    }
+
+    private interface PickerCallback {
+        void onResult(ActivityResult result);
+    }
+
+    // 一个等待系统选择器的请求；保存请求带有暂存内容，属于批量保存时记录所在批次和序号
+    private final class PickerRequest {
+        final String id;
+        final PluginCall call;
+        final Intent intent;
+        final PickerCallback callback;
+        final SaveStaging.Staged staged;
+        final SaveBatch batch;
+        final int batchIndex;
+
+        PickerRequest(String id, PluginCall call, Intent intent, PickerCallback callback) {
+            this(id, call, intent, callback, null, null, -1);
+        }
+
+        PickerRequest(String id, PluginCall call, Intent intent, PickerCallback callback, SaveStaging.Staged staged) {
+            this(id, call, intent, callback, staged, null, -1);
+        }
+
+        PickerRequest(String id, PluginCall call, Intent intent, PickerCallback callback, SaveStaging.Staged staged,
+                SaveBatch batch, int batchIndex) {
+            this.id = id;
+            this.call = call;
+            this.intent = intent;
+            this.callback = callback;
+            this.staged = staged;
+            this.batch = batch;
+            this.batchIndex = batchIndex;
+        }
+
+        void fail(String message, String code) {
+            discardStaged(staged);
+            rejectKeepingStaged(message, code);
+        }
+
+        void rejectKeepingStaged(String message) {
+            rejectKeepingStaged(message, null);
+        }
+
+        private void rejectKeepingStaged(String message, String code) {
+            if (batch != null) {
+                if (IoExecutor.ERROR_CANCELLED.equals(code)) {
+                    batch.cancel(batchIndex);
+                } else {
+                    batch.fail(batchIndex, message);
+                }
+            } else {
+                call.reject(message, code);
+            }
+        }
+    }
+
+    // 批量保存的状态：每一项独立完成并发出进度事件，全部结束时一次性 resolve
+    private final class SaveBatch {
+        final PluginCall call;
+        final String id;
+        final List<String> fileNames;
+        final boolean continueOnCancel;
+        private final JSObject[] results;
+        private int remaining;
+        // 取消（continueOnCancel 为 false 时）或失败后关闭，之后排队的项都被放弃
+        volatile boolean closed;
+
+        SaveBatch(PluginCall call, String id, List<String> fileNames, boolean continueOnCancel) {
+            this.call = call;
+            this.id = id;
+            this.fileNames = fileNames;
+            this.continueOnCancel = continueOnCancel;
+            this.results = new JSObject[fileNames.size()];
+            this.remaining = fileNames.size();
+        }
+
+        String itemId(int index) {
+            return id + "#" + index;
+        }
+
+        void complete(int index, Uri uri, long bytesWritten) {
+            JSObject item = item(index);
+            item.put("uri", uri.toString());
+            item.put("bytesWritten", bytesWritten);
+            finish(index, item);
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        // 只在主线程调用（选择器结果、取消和销毁都在主线程处理）
+        void cancel(int index) {
+            JSObject item = item(index);
+            item.put("cancelled", true);
+            if (finish(index, item) && !continueOnCancel) {
+                close();
+            }
+        }
+
+        // 写入失败可能发生在 I/O 线程
+        void fail(int index, String message) {
+            JSObject item = item(index);
+            item.put("error", message);
+            if (finish(index, item)) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            bridge.executeOnMainThread(() -> dropQueuedBatchItems(this));
+        }
+
+        private JSObject item(int index) {
+            JSObject item = new JSObject();
+            item.put("index", index);
+            item.put("fileName", fileNames.get(index));
+            return item;
+        }
+
+        // 同一项只记录第一次结果；返回是否记录成功
+        private boolean finish(int index, JSObject item) {
+            int completed;
+            synchronized (this) {
+                if (results[index] != null) {
+                    return false;
+                }
+                results[index] = item;
+                completed = results.length - --remaining;
+            }
+            boolean done = completed == results.length;
+            JSObject progress = new JSObject();
+            progress.put("batchId", id);
+            progress.put("completed", completed);
+            progress.put("total", results.length);
+            progress.put("result", item);
+            notifyListeners("saveFilesProgress", progress);
+            if (done) {
+                JSArray array = new JSArray();
+                for (JSObject result : results) {
+                    array.put(result);
+                }
+                JSObject ret = new JSObject();
+                ret.put("results", array);
+                call.resolve(ret);
+            }
+            return true;
         }
-        return sb.toString();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,269 @@
+package com.growapp.app.sync;
+
+import com.growapp.app.data.GrowthDates;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// 同步数据的二进制编码：
+// 头部 "GA" + 版本号 + 保留字节，之后是 DEFLATE 压缩的正文：
+// 生成时间(varint) | 儿童信息 JSON(长度+UTF-8) | 记录数(varint) | 每条记录
+// 记录按时间升序，日期为本地墙上时间（秒）相对上一条的差值，身高体重为 0.01 精度定点数相对上一个值的差值，
+// 差值都用 zigzag varint 存储
+public final class SyncCodec {
+    public static final int VERSION = 2;
+    public static final String DATA_VERSION = "2.0";
+
+    private static final byte MAGIC_0 = 'G';
+    private static final byte MAGIC_1 = 'A';
+    private static final int HEADER_SIZE = 4;
+    private static final int FLAG_HEIGHT = 1;
+    private static final int FLAG_WEIGHT = 2;
+    private static final double FIXED_POINT_SCALE = 100;
+    private static final int MAX_DECODED_SIZE = 32 * 1024 * 1024;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private SyncCodec() {
+    }
+
+    // 是否为本格式（旧版同步码是 JSON 文本的 Base64）
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    // syncData 与 JS 端 generateSyncData 构造的对象相同：{ timestamp, child, records }
+    public static byte[] encode(JSONObject syncData) throws JSONException {
+        JSONObject child = syncData.getJSONObject("child");
+        JSONArray records = syncData.optJSONArray("records");
+        long generatedAt = syncData.isNull("timestamp") ? System.currentTimeMillis()
+            : GrowthDates.parse(syncData.getString("timestamp"));
+
+        List<Entry> entries = new ArrayList<>(records != null ? records.length() : 0);
+        for (int i = 0; records != null && i < records.length(); i++) {
+            JSONObject record = records.optJSONObject(i);
+            if (record == null) {
+                continue;
+            }
+            long wallSeconds = Math.floorDiv(GrowthDates.wallClock(GrowthDates.parse(record.getString("date"))), 1000L);
+            entries.add(new Entry(wallSeconds, fixedPoint(record, "height"), fixedPoint(record, "weight")));
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(a.wallSeconds, b.wallSeconds));
+
+        Output body = new Output(64 + entries.size() * 6);
+        body.writeVarLong(generatedAt);
+        body.writeString(child.toString());
+        body.writeVarLong(entries.size());
+        long previousTime = 0;
+        long previousHeight = 0;
+        long previousWeight = 0;
+        for (Entry entry : entries) {
+            body.writeSignedVarLong(entry.wallSeconds - previousTime);
+            previousTime = entry.wallSeconds;
+            int flags = (entry.height != null ? FLAG_HEIGHT : 0) | (entry.weight != null ? FLAG_WEIGHT : 0);
+            body.write(flags);
+            if (entry.height != null) {
+                body.writeSignedVarLong(entry.height - previousHeight);
+                previousHeight = entry.height;
+            }
+            if (entry.weight != null) {
+                body.writeSignedVarLong(entry.weight - previousWeight);
+                previousWeight = entry.weight;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + body.size() / 2);
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+        out.write(0);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(body.buffer(), 0, body.size());
+            deflater.finish();
+            byte[] chunk = new byte[8 * 1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    // 解码为 { version: "2.0", timestamp, child, records: [{ date, height, weight }] }；
+    // 日期按墙上时间还原为不带时区的本地时间字符串
+    public static JSONObject decode(byte[] data) throws IOException, JSONException {
+        if (!isBinary(data)) {
+            throw new IOException("Not a binary sync code");
+        }
+        if ((data[2] & 0xFF) != VERSION) {
+            throw new IOException("Unsupported sync code version: " + (data[2] & 0xFF));
+        }
+        Input body = new Input(inflate(data, HEADER_SIZE));
+
+        JSONObject result = new JSONObject();
+        result.put("version", DATA_VERSION);
+        result.put("timestamp", GrowthDates.formatIso(body.readVarLong(), UTC) + "Z");
+        result.put("child", new JSONObject(body.readString()));
+
+        long count = body.readVarLong();
+        if (count < 0 || count > body.remaining()) {
+            throw new IOException("Corrupted sync code");
+        }
+        JSONArray records = new JSONArray();
+        long time = 0;
+        long height = 0;
+        long weight = 0;
+        for (long i = 0; i < count; i++) {
+            time += body.readSignedVarLong();
+            int flags = body.read();
+            JSONObject record = new JSONObject();
+            record.put("date", GrowthDates.formatIso(time * 1000, UTC));
+            if ((flags & FLAG_HEIGHT) != 0) {
+                height += body.readSignedVarLong();
+                record.put("height", height / FIXED_POINT_SCALE);
+            } else {
+                record.put("height", JSONObject.NULL);
+            }
+            if ((flags & FLAG_WEIGHT) != 0) {
+                weight += body.readSignedVarLong();
+                record.put("weight", weight / FIXED_POINT_SCALE);
+            } else {
+                record.put("weight", JSONObject.NULL);
+            }
+            records.put(record);
+        }
+        result.put("records", records);
+        return result;
+    }
+
+    private static byte[] inflate(byte[] data, int offset) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] chunk = new byte[8 * 1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException("Truncated sync code");
+                }
+                out.write(chunk, 0, n);
+                if (out.size() > MAX_DECODED_SIZE) {
+                    throw new IOException("Sync code is too large");
+                }
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted sync code", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Long fixedPoint(JSONObject record, String key) {
+        double value = record.isNull(key) ? Double.NaN : record.optDouble(key, Double.NaN);
+        return Double.isNaN(value) ? null : Math.round(value * FIXED_POINT_SCALE);
+    }
+
+    private static final class Entry {
+        final long wallSeconds;
+        final Long height;
+        final Long weight;
+
+        Entry(long wallSeconds, Long height, Long weight) {
+            this.wallSeconds = wallSeconds;
+            this.height = height;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+        Output(int size) {
+            super(size);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        int read() throws EOFException {
+            if (position >= data.length) {
+                throw new EOFException("Truncated sync code");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        long readSignedVarLong() throws IOException {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String readString() throws IOException {
+            long length = readVarLong();
+            if (length < 0 || length > remaining()) {
+                throw new EOFException("Truncated sync code");
+            }
+            String value = new String(data, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
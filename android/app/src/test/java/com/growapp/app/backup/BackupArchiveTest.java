@@ -0,0 +1,126 @@
+package com.growapp.app.backup;
+
+import static org.junit.Assert.*;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@RunWith(RobolectricTestRunner.class)
+public class BackupArchiveTest {
+    private static final String CHILDREN = "{\"children\":[{\"id\":\"c/1\",\"name\":\"小明\"}],\"currentChildId\":\"c/1\"}";
+    private static final String RECORDS = "{\"c/1\":[{\"id\":\"a\",\"date\":\"2024-03-01T10:00:00.000Z\","
+        + "\"height\":100.25,\"weight\":null},{\"id\":\"b\",\"date\":\"2024-04-01T10:00:00.000Z\","
+        + "\"height\":104,\"weight\":16.123456789}],\"c2\":[]}";
+
+    private SharedPreferences source;
+    private SharedPreferences target;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        source = context.getSharedPreferences("source", Context.MODE_PRIVATE);
+        target = context.getSharedPreferences("target", Context.MODE_PRIVATE);
+    }
+
+    private byte[] backup() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BackupArchive.write(source, output, 1700000000000L);
+        return output.toByteArray();
+    }
+
+    @Test
+    public void roundTripRestoresSettingsAndRecords() throws Exception {
+        source.edit()
+            .putString("children", CHILDREN)
+            .putString(BackupArchive.RECORDS_KEY, RECORDS)
+            .putString("unrelated", "x")
+            .commit();
+
+        byte[] archive = backup();
+        BackupArchive.Summary summary = BackupArchive.restore(new ByteArrayInputStream(archive), target);
+
+        assertEquals(2, summary.getChildren());
+        assertEquals(2, summary.getRecords());
+        assertEquals(CHILDREN, target.getString("children", null));
+        assertNull(target.getString("chartConfig", null));
+        assertNull(target.getString("unrelated", null));
+
+        JSONObject records = new JSONObject(target.getString(BackupArchive.RECORDS_KEY, null));
+        JSONArray first = records.getJSONArray("c/1");
+        assertEquals(2, first.length());
+        assertEquals("a", first.getJSONObject(0).getString("id"));
+        assertTrue(first.getJSONObject(0).isNull("weight"));
+        // 数字按原始文本写回，不丢精度
+        assertEquals(16.123456789, first.getJSONObject(1).getDouble("weight"), 0);
+        assertEquals(0, records.getJSONArray("c2").length());
+    }
+
+    @Test
+    public void restoreAdvancesRevisionsOfRestoredChildren() throws Exception {
+        source.edit().putString(BackupArchive.RECORDS_KEY, RECORDS).commit();
+        target.edit().putString(BackupArchive.REVISIONS_KEY, "{\"c/1\":5,\"old\":3}").commit();
+
+        BackupArchive.restore(new ByteArrayInputStream(backup()), target);
+
+        JSONObject revisions = new JSONObject(target.getString(BackupArchive.REVISIONS_KEY, null));
+        assertEquals(6, revisions.getLong("c/1"));
+        assertEquals(1, revisions.getLong("c2"));
+        assertFalse(revisions.has("old"));
+    }
+
+    @Test
+    public void corruptedBackupLeavesExistingDataUnchanged() throws Exception {
+        target.edit().putString(BackupArchive.RECORDS_KEY, "{\"keep\":[]}").commit();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ZipOutputStream zip = new ZipOutputStream(output);
+        zip.putNextEntry(new ZipEntry("manifest.json"));
+        zip.write(("{\"format\":\"" + BackupArchive.FORMAT + "\",\"version\":1}").getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        zip.putNextEntry(new ZipEntry("records/c1.jsonl"));
+        zip.write("{\"id\":\"a\"}\nnot json\n".getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        zip.close();
+
+        try {
+            BackupArchive.restore(new ByteArrayInputStream(output.toByteArray()), target);
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // 预期异常
+        }
+        assertEquals("{\"keep\":[]}", target.getString(BackupArchive.RECORDS_KEY, null));
+    }
+
+    @Test
+    public void rejectsArchiveWithoutManifest() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ZipOutputStream zip = new ZipOutputStream(output);
+        zip.putNextEntry(new ZipEntry("records/c1.jsonl"));
+        zip.write("{\"id\":\"a\"}\n".getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        zip.close();
+
+        try {
+            BackupArchive.restore(new ByteArrayInputStream(output.toByteArray()), target);
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // 预期异常
+        }
+        assertNull(target.getString(BackupArchive.RECORDS_KEY, null));
+    }
+}
@@ -0,0 +1,103 @@
+package com.growapp.app.csv;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class CharsetDetectorTest {
+
+    private static CharsetDetector.Result detect(byte[] bytes) {
+        return CharsetDetector.detect(bytes, bytes.length);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    @Test
+    public void detectsUtf8Bom() {
+        CharsetDetector.Result result = detect(concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+            "日期".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(StandardCharsets.UTF_8, result.getCharset());
+        assertEquals(3, result.getBomLength());
+    }
+
+    @Test
+    public void detectsUtf16Boms() {
+        CharsetDetector.Result le = detect(concat(new byte[] {(byte) 0xFF, (byte) 0xFE},
+            "日期".getBytes(StandardCharsets.UTF_16LE)));
+        assertEquals(StandardCharsets.UTF_16LE, le.getCharset());
+        assertEquals(2, le.getBomLength());
+
+        CharsetDetector.Result be = detect(concat(new byte[] {(byte) 0xFE, (byte) 0xFF},
+            "日期".getBytes(StandardCharsets.UTF_16BE)));
+        assertEquals(StandardCharsets.UTF_16BE, be.getCharset());
+        assertEquals(2, be.getBomLength());
+    }
+
+    @Test
+    public void acceptsUtf8WithoutBom() {
+        CharsetDetector.Result result = detect("日期,身高(cm)\n2024-01-01,100".getBytes(StandardCharsets.UTF_8));
+        assertEquals(StandardCharsets.UTF_8, result.getCharset());
+        assertEquals(0, result.getBomLength());
+        // 纯 ASCII 和空样本都按 UTF-8 处理
+        assertEquals(StandardCharsets.UTF_8, detect("date,height".getBytes(StandardCharsets.US_ASCII)).getCharset());
+        assertEquals(StandardCharsets.UTF_8, detect(new byte[0]).getCharset());
+    }
+
+    @Test
+    public void fallsBackToGb18030() {
+        CharsetDetector.Result result = detect("儿童姓名：小明\n日期,身高(cm)".getBytes(CharsetDetector.GB18030));
+        assertEquals(CharsetDetector.GB18030, result.getCharset());
+        assertEquals(0, result.getBomLength());
+    }
+
+    @Test
+    public void ignoresTruncatedMultibyteTail() {
+        byte[] bytes = "身高".getBytes(StandardCharsets.UTF_8);
+        // 样本在第二个字符中间截断
+        assertTrue(CharsetDetector.isValidUtf8(bytes, bytes.length - 1));
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(bytes, bytes.length - 1).getCharset());
+    }
+
+    @Test
+    public void rejectsMalformedUtf8() {
+        assertFalse(CharsetDetector.isValidUtf8(new byte[] {'a', (byte) 0xC3, 'b'}, 3));
+        // 过长编码
+        assertFalse(CharsetDetector.isValidUtf8(new byte[] {(byte) 0xC0, (byte) 0xAF}, 2));
+    }
+
+    @Test
+    public void onlyInspectsGivenLength() {
+        byte[] bytes = concat("abc".getBytes(StandardCharsets.US_ASCII), new byte[] {(byte) 0xFF, (byte) 0xFF});
+        assertEquals(StandardCharsets.UTF_8, CharsetDetector.detect(bytes, 3).getCharset());
+    }
+
+    @Test
+    public void positionsStreamAfterBom() throws IOException {
+        byte[] bytes = concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, "abc".getBytes(StandardCharsets.US_ASCII));
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(bytes), CharsetDetector.SAMPLE_SIZE);
+
+        CharsetDetector.Result result = CharsetDetector.detect(in);
+
+        assertEquals(StandardCharsets.UTF_8, result.getCharset());
+        assertEquals('a', in.read());
+    }
+
+    @Test
+    public void rewindsStreamWithoutBom() throws IOException {
+        byte[] bytes = "日期".getBytes(CharsetDetector.GB18030);
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(bytes), CharsetDetector.SAMPLE_SIZE);
+
+        assertEquals(CharsetDetector.GB18030, CharsetDetector.detect(in).getCharset());
+        assertEquals(bytes[0] & 0xFF, in.read());
+    }
+}
@@ -0,0 +1,64 @@
+package com.growapp.app.csv;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class CsvReaderTest {
+
+    @Test
+    public void readsLinesWithAnyLineEnding() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\nc,d\r\ne,f\rg,h"));
+        assertEquals("a,b", reader.readLine());
+        assertEquals("c,d", reader.readLine());
+        assertEquals("e,f", reader.readLine());
+        assertEquals("g,h", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    public void keepsNewlinesInsideQuotes() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"line one\nline two\",1\nnext,2\n"));
+        assertEquals("\"line one\nline two\",1", reader.readLine());
+        assertEquals("next,2", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    public void returnsEmptyLinesBetweenRows() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a\n\nb"));
+        assertEquals("a", reader.readLine());
+        assertEquals("", reader.readLine());
+        assertEquals("b", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
+    // 超过内部缓冲区的行以及跨缓冲区边界的 \r\n
+    @Test
+    public void readsAcrossBufferBoundaries() throws IOException {
+        StringBuilder longLine = new StringBuilder();
+        while (longLine.length() < 16 * 1024 - 1) {
+            longLine.append('x');
+        }
+        CsvReader reader = new CsvReader(new StringReader(longLine + "\r\nlast"));
+        assertEquals(longLine.toString(), reader.readLine());
+        assertEquals("last", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    public void splitsQuotedFields() {
+        assertEquals(Arrays.asList("2024-01-01", "a, b", "say \"hi\"", ""),
+            CsvReader.split("2024-01-01,\"a, b\",\"say \"\"hi\"\"\",", ','));
+    }
+
+    @Test
+    public void trimsFieldsAndSupportsOtherDelimiters() {
+        assertEquals(Arrays.asList("2024-01-01 08:00", "100.5", "16"),
+            CsvReader.split(" 2024-01-01 08:00 \t 100.5\t16 ", '\t'));
+    }
+}
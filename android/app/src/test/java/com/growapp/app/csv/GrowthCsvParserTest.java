@@ -0,0 +1,109 @@
+package com.growapp.app.csv;
+
+import static org.junit.Assert.*;
+
+import com.growapp.app.data.GrowthDates;
+import com.growapp.app.data.GrowthRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+public class GrowthCsvParserTest {
+
+    private static GrowthCsvParser.Result parse(String text, Charset charset) throws IOException {
+        return GrowthCsvParser.parse(new ByteArrayInputStream(text.getBytes(charset)));
+    }
+
+    private static GrowthCsvParser.Result parse(String text) throws IOException {
+        return parse(text, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void parsesExportedFile() throws IOException {
+        GrowthCsvParser.Result result = parse("\uFEFF儿童姓名：小明\n日期,身高(cm),体重(kg)\n"
+            + "2024-03-15 10:30:00,120.5,25.60\n2024-02-01 08:00:00,119.0,\n");
+
+        assertEquals("小明", result.getChildName());
+        assertEquals(StandardCharsets.UTF_8, result.getCharset());
+        assertFalse(result.hasErrors());
+        List<GrowthRecord> records = result.getRecords();
+        assertEquals(2, records.size());
+        assertEquals(GrowthDates.parse("2024-03-15 10:30:00"), records.get(0).getTimestamp());
+        assertEquals(120.5, records.get(0).getHeight(), 0);
+        assertEquals(25.6, records.get(0).getWeight(), 0);
+        assertFalse(records.get(1).hasWeight());
+    }
+
+    @Test
+    public void acceptsTabAndSpaceSeparatedRows() throws IOException {
+        GrowthCsvParser.Result result = parse("日期 身高 体重\n2024/3/15 10:30\t120.5\t25.6\n2024/2/1 8:00 119 24\n");
+
+        assertFalse(result.hasErrors());
+        assertEquals(2, result.getRecords().size());
+        assertEquals(GrowthDates.parse("2024-02-01 08:00"), result.getRecords().get(1).getTimestamp());
+        assertEquals(24, result.getRecords().get(1).getWeight(), 0);
+    }
+
+    @Test
+    public void detectsGb18030() throws IOException {
+        GrowthCsvParser.Result result = parse("儿童姓名：小红\n日期,身高,体重\n2024-01-01,100,16\n",
+            CharsetDetector.GB18030);
+
+        assertEquals(CharsetDetector.GB18030, result.getCharset());
+        assertEquals("小红", result.getChildName());
+        assertEquals(1, result.getRecords().size());
+    }
+
+    @Test
+    public void reportsInvalidRowsAndKeepsValidOnes() throws IOException {
+        GrowthCsvParser.Result result = parse("日期,身高,体重\n"
+            + "2024-01-01,100,16\n"
+            + "not a date,100,16\n"
+            + "1999-12-31,100,16\n"
+            + "2024-01-02,300,16\n"
+            + "2024-01-03,100,1\n"
+            + "2024-01-04\n"
+            + "garbage\n");
+
+        assertEquals(1, result.getRecords().size());
+        assertEquals(2, result.getDateErrors().size());
+        assertEquals(1, result.getHeightErrors().size());
+        assertEquals(1, result.getWeightErrors().size());
+        assertEquals(2, result.getFormatErrors().size());
+        assertTrue(result.getHeightErrors().get(0).startsWith("第5行"));
+    }
+
+    // 数值解析与 JS parseFloat 一致：只取开头的数字
+    @Test
+    public void parsesLeadingNumbers() throws IOException {
+        GrowthCsvParser.Result result = parse("日期,身高,体重\n2024-01-01,100.5cm,16kg\n");
+
+        assertEquals(100.5, result.getRecords().get(0).getHeight(), 0);
+        assertEquals(16, result.getRecords().get(0).getWeight(), 0);
+    }
+
+    @Test
+    public void rejectsEmptyFile() throws IOException {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> parse("\n \n"));
+        assertTrue(e.getMessage().startsWith("文件内容为空"));
+    }
+
+    @Test
+    public void rejectsMissingHeader() throws IOException {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> parse("2024-01-01,100,16\n"));
+        assertTrue(e.getMessage().contains("未找到表头行"));
+    }
+
+    @Test
+    public void rejectsFileWithoutDataRows() throws IOException {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> parse("儿童姓名：小明\n日期,身高,体重\n"));
+        assertTrue(e.getMessage().contains("没有找到有效的数据行"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.growapp.app.csv;
+
+import static org.junit.Assert.*;
+
+import com.growapp.app.data.GrowthDates;
+import com.growapp.app.data.GrowthRecord;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class GrowthCsvWriterTest {
+
+    private static GrowthRecord record(String id, String date, double height, double weight) {
+        return new GrowthRecord(id, "child", GrowthDates.parse(date), height, weight);
+    }
+
+    private static String write(String childName, List<GrowthRecord> records) throws IOException {
+        StringWriter out = new StringWriter();
+        GrowthCsvWriter.write(out, childName, GrowthCsvWriter.defaultColumns(), records);
+        return out.toString();
+    }
+
+    private static String fixed(double value, int decimals) {
+        StringBuilder sb = new StringBuilder();
+        GrowthCsvWriter.appendFixed(sb, value, decimals);
+        return sb.toString();
+    }
+
+    @Test
+    public void writesHeaderAndRows() throws IOException {
+        StringWriter out = new StringWriter();
+        int count = GrowthCsvWriter.write(out, "小明", GrowthCsvWriter.defaultColumns(), Arrays.asList(
+            record("1", "2024-03-15 10:30:00", 120.5, 25.6),
+            record("2", "2024-02-01 08:00:00", 119, Double.NaN)));
+
+        assertEquals(2, count);
+        assertEquals("\uFEFF儿童姓名：小明\n日期,身高(cm),体重(kg)\n"
+            + "2024-03-15 10:30:00,120.5,25.60\n2024-02-01 08:00:00,119.0,", out.toString());
+    }
+
+    @Test
+    public void omitsNameLineWithoutChildName() throws IOException {
+        assertEquals("\uFEFF日期,身高(cm),体重(kg)", write(null, Collections.<GrowthRecord>emptyList()));
+    }
+
+    @Test
+    public void quotesFieldsWithSeparators() throws IOException {
+        String text = write("小\"明\",2", Collections.<GrowthRecord>emptyList());
+        assertTrue(text.startsWith("\uFEFF\"儿童姓名：小\"\"明\"\",2\"\n"));
+    }
+
+    @Test
+    public void leavesMissingValuesEmpty() throws IOException {
+        // 体重为 0 与缺失一样留空
+        String text = write(null, Arrays.asList(
+            record("1", "2024-03-15 10:30:00", Double.NaN, 0),
+            record("2", "2024-03-14 10:30:00", Double.NaN, Double.NaN)));
+        assertTrue(text.endsWith("\n2024-03-15 10:30:00,,\n2024-03-14 10:30:00,,"));
+    }
+
+    @Test
+    public void formatsFixedDecimals() {
+        assertEquals("120.5", fixed(120.45, 1));
+        assertEquals("3.05", fixed(3.049, 2));
+        assertEquals("0.07", fixed(0.07, 2));
+        assertEquals("10.00", fixed(9.999, 2));
+        assertEquals("7", fixed(7.4, 0));
+        assertEquals("-1.5", fixed(-1.5, 1));
+        // 舍入为 0 时不输出负号
+        assertEquals("0.0", fixed(-0.01, 1));
+    }
+
+    @Test
+    public void dedupeKeepsLatestRecordPerMinute() {
+        List<GrowthRecord> records = new ArrayList<>(Arrays.asList(
+            record("a", "2024-03-15 10:30:05", 120, 25),
+            record("b", "2024-03-15 10:30:40", 121, 26),
+            record("c", "2024-03-15 10:31:00", 122, 27)));
+
+        List<GrowthRecord> result = GrowthCsvWriter.dedupeAndSort(records);
+
+        assertEquals(2, result.size());
+        assertEquals("c", result.get(0).getId());
+        assertEquals("b", result.get(1).getId());
+    }
+
+    @Test
+    public void dedupeSortsNewestFirst() {
+        List<GrowthRecord> result = GrowthCsvWriter.dedupeAndSort(Arrays.asList(
+            record("old", "2023-01-01 00:00:00", 80, 10),
+            record("new", "2024-01-01 00:00:00", 90, 12),
+            record("mid", "2023-06-01 00:00:00", 85, 11)));
+
+        assertEquals("new", result.get(0).getId());
+        assertEquals("mid", result.get(1).getId());
+        assertEquals("old", result.get(2).getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownColumn() {
+        new GrowthCsvWriter.Column("bmi", "BMI", 1);
+    }
+}
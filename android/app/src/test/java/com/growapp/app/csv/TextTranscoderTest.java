@@ -0,0 +1,104 @@
+package com.growapp.app.csv;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TextTranscoderTest {
+
+    private static InputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void decodesUtf8AndSkipsBom() throws IOException {
+        byte[] bytes = concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+            "儿童姓名：小明\n日期".getBytes(StandardCharsets.UTF_8));
+
+        TextTranscoder.Result result = TextTranscoder.decode(stream(bytes));
+
+        assertEquals(StandardCharsets.UTF_8, result.getCharset());
+        assertEquals("儿童姓名：小明\n日期", result.getText());
+    }
+
+    @Test
+    public void decodesGb18030() throws IOException {
+        TextTranscoder.Result result = TextTranscoder.decode(stream("日期,身高(cm)".getBytes(CharsetDetector.GB18030)));
+
+        assertEquals(CharsetDetector.GB18030, result.getCharset());
+        assertEquals("日期,身高(cm)", result.getText());
+    }
+
+    @Test(expected = CharacterCodingException.class)
+    public void reportsInvalidUtf8AfterSample() throws IOException {
+        // 样本全是 ASCII，之后才出现 GB18030 字节
+        byte[] bytes = concat(repeat("a", CharsetDetector.SAMPLE_SIZE).getBytes(StandardCharsets.US_ASCII),
+            "日期".getBytes(CharsetDetector.GB18030));
+        TextTranscoder.decode(stream(bytes));
+    }
+
+    @Test
+    public void streamsFixedSizeChunks() throws IOException {
+        try (TextTranscoder.Stream text = TextTranscoder.open(stream("日期,身高\n2024".getBytes(CharsetDetector.GB18030)))) {
+            assertEquals(CharsetDetector.GB18030, text.getCharset());
+            assertEquals("日期,身", text.readChunk(4));
+            assertFalse(text.isEof());
+            assertEquals("高\n2024", text.readChunk(100));
+            assertTrue(text.isEof());
+            assertEquals("", text.readChunk(100));
+        }
+    }
+
+    @Test
+    public void transcodesToUtf8() throws IOException {
+        // 足够长，跨过内部缓冲区边界；包含代理对
+        String content = repeat("日期,身高😀\n", 5000);
+        byte[] bytes = concat(new byte[] {(byte) 0xFF, (byte) 0xFE}, content.getBytes(StandardCharsets.UTF_16LE));
+
+        TextTranscoder.Stream text = TextTranscoder.open(stream(bytes));
+
+        assertEquals(StandardCharsets.UTF_16LE, text.getCharset());
+        try (InputStream utf8 = text.toUtf8()) {
+            assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), readAll(utf8));
+        }
+    }
+
+    @Test
+    public void transcodesEmptyInput() throws IOException {
+        try (InputStream utf8 = TextTranscoder.open(stream(new byte[0])).toUtf8()) {
+            assertEquals(-1, utf8.read());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.growapp.app.data;
+
+import static org.junit.Assert.*;
+
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GrowthDatesTest {
+    private TimeZone original;
+
+    @Before
+    public void setUp() {
+        original = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(original);
+    }
+
+    @Test
+    public void startOfDayInvertsDayIndex() {
+        // 2024-03-10 当天因夏令时只有 23 小时
+        long day = GrowthDates.dayIndex(GrowthDates.parse("2024-03-10T12:00:00"));
+        for (long d = day - 2; d <= day + 2; d++) {
+            long start = GrowthDates.startOfDay(d);
+            assertEquals(d, GrowthDates.dayIndex(start));
+            assertEquals(d - 1, GrowthDates.dayIndex(start - 1));
+        }
+        assertEquals("2024-03-10T00:00:00.000", GrowthDates.formatIso(GrowthDates.startOfDay(day)));
+    }
+
+    @Test
+    public void ageRangeCoversWholeCalendarDays() {
+        long birth = GrowthDates.parse("2024-03-07T23:30:00");
+
+        assertEquals("2024-03-07T00:00:00.000", GrowthDates.formatIso(GrowthDates.ageStart(birth, 0)));
+        assertEquals("2024-03-07T23:59:59.999", GrowthDates.formatIso(GrowthDates.ageEnd(birth, 0)));
+        // 小数天向内取整：1.5 天从第 2 天开始，到第 1 天结束
+        assertEquals("2024-03-09T00:00:00.000", GrowthDates.formatIso(GrowthDates.ageStart(birth, 1.5)));
+        assertEquals("2024-03-08T23:59:59.999", GrowthDates.formatIso(GrowthDates.ageEnd(birth, 1.5)));
+        assertEquals("2025-03-07T23:59:59.999", GrowthDates.formatIso(GrowthDates.ageEnd(birth, 365.25)));
+    }
+
+    @Test
+    public void helpersShareTheLocalOffset() {
+        long millis = GrowthDates.parse("2024-07-01T00:30:00Z");
+        // 纽约为 UTC-4，本地时间是 6 月 30 日 20:30
+        assertEquals(millis - 4 * GrowthDates.HOUR_MILLIS, GrowthDates.wallClock(millis));
+        assertEquals(GrowthDates.dayIndex(GrowthDates.parse("2024-06-30T12:00:00")), GrowthDates.dayIndex(millis));
+        assertEquals(GrowthDates.minuteKey(GrowthDates.parse("2024-06-30T20:30:59")), GrowthDates.minuteKey(millis));
+    }
+}
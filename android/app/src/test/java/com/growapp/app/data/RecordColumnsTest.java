@@ -0,0 +1,152 @@
+package com.growapp.app.data;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RecordColumnsTest {
+    private static final float NaN = Float.NaN;
+
+    private static RecordColumns columns(Object... rows) {
+        RecordColumns columns = new RecordColumns();
+        for (int i = 0; i < rows.length; i += 4) {
+            columns.put((String) rows[i], (Long) rows[i + 1], (Float) rows[i + 2], (Float) rows[i + 3]);
+        }
+        return columns;
+    }
+
+    private static List<String> page(RecordColumns columns, Long from, Long to, boolean descending, int limit,
+            int offset) {
+        List<String> ids = new ArrayList<>();
+        columns.page(from, to, descending, limit, offset, ids);
+        return ids;
+    }
+
+    @Test
+    public void putKeepsDateOrderAndReplacesById() {
+        RecordColumns columns = columns("b", 20L, 80f, 10f, "a", 10L, 75f, 9f, "c", 30L, 85f, 11f);
+        assertEquals(Arrays.asList("a", "b", "c"), page(columns, null, null, false, 0, 0));
+
+        // 修改日期后移动到新位置，不会留下旧条目
+        columns.put("a", 40L, 90f, 12f);
+        assertEquals(3, columns.size());
+        assertEquals(Arrays.asList("b", "c", "a"), page(columns, null, null, false, 0, 0));
+
+        // 同一条记录重复写入结果不变
+        columns.put("a", 40L, 90f, 12f);
+        assertEquals(Arrays.asList("b", "c", "a"), page(columns, null, null, false, 0, 0));
+    }
+
+    @Test
+    public void removeShiftsRemainingRecords() {
+        RecordColumns columns = columns("a", 10L, 75f, 9f, "b", 20L, 80f, 10f, "c", 30L, 85f, 11f);
+
+        assertTrue(columns.remove("b"));
+        assertFalse(columns.remove("b"));
+        assertEquals(Arrays.asList("a", "c"), page(columns, null, null, false, 0, 0));
+
+        RecordSeries series = columns.series(RecordColumns.HEIGHT, null, null, new RecordSeries());
+        assertEquals(2, series.size());
+        assertEquals(30L, series.getTimestamp(1));
+        assertEquals(85, series.getValue(1), 0.001);
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        RecordColumns columns = new RecordColumns();
+        // 倒序写入，每次都插入到最前面
+        for (int i = 99; i >= 0; i--) {
+            columns.put("r" + i, i, i, NaN);
+        }
+        assertEquals(100, columns.size());
+        RecordSeries series = columns.series(RecordColumns.HEIGHT, null, null, new RecordSeries(4));
+        assertEquals(100, series.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, series.getTimestamp(i));
+        }
+    }
+
+    @Test
+    public void seriesSlicesRangeAndSkipsMissingValues() {
+        RecordColumns columns = columns("a", 10L, 75f, 9f, "b", 20L, NaN, 10f, "c", 30L, 85f, NaN, "d", 40L, 90f, 12f);
+
+        RecordSeries heights = columns.series(RecordColumns.HEIGHT, 20L, 40L, new RecordSeries());
+        assertEquals(2, heights.size());
+        assertEquals(30L, heights.getTimestamp(0));
+        assertEquals(40L, heights.getTimestamp(1));
+
+        RecordSeries weights = columns.series(RecordColumns.WEIGHT, null, 30L, new RecordSeries());
+        assertEquals(2, weights.size());
+        assertEquals(10, weights.getValue(1), 0.001);
+    }
+
+    @Test
+    public void summarizesRange() {
+        RecordColumns columns = columns("a", 10L, 75f, 9f, "b", 20L, 70f, 10f, "c", 30L, NaN, 11f,
+            "d", 40L, 90f, 12f, "e", 50L, 95f, 13f);
+
+        SeriesSummary summary = columns.summarize(RecordColumns.HEIGHT, 15L, 45L, null, new SeriesSummary());
+
+        assertEquals(2, summary.getCount());
+        assertEquals("b", summary.getId(SeriesSummary.FIRST));
+        assertEquals("d", summary.getId(SeriesSummary.LAST));
+        assertEquals("b", summary.getId(SeriesSummary.MIN));
+        assertEquals(70, summary.getValue(SeriesSummary.MIN), 0.001);
+        assertEquals("d", summary.getId(SeriesSummary.MAX));
+        assertEquals(40L, summary.getTimestamp(SeriesSummary.MAX));
+        assertFalse(summary.has(SeriesSummary.NEAREST));
+    }
+
+    @Test
+    public void summaryOfEmptyRangeHasNoPoints() {
+        RecordColumns columns = columns("a", 10L, 75f, 9f);
+        SeriesSummary summary = new SeriesSummary();
+        columns.summarize(RecordColumns.HEIGHT, null, null, 10L, summary);
+        assertTrue(summary.has(SeriesSummary.LAST));
+
+        // 复用同一个缓冲区时不残留上一次的结果
+        columns.summarize(RecordColumns.HEIGHT, 20L, 30L, null, summary);
+        assertEquals(0, summary.getCount());
+        assertFalse(summary.has(SeriesSummary.FIRST));
+        assertFalse(summary.has(SeriesSummary.LAST));
+        assertFalse(summary.has(SeriesSummary.MIN));
+        assertFalse(summary.has(SeriesSummary.MAX));
+        assertFalse(summary.has(SeriesSummary.NEAREST));
+    }
+
+    @Test
+    public void findsNearestPointWithValue() {
+        RecordColumns columns = columns("a", 10L, 75f, 9f, "b", 20L, NaN, 10f, "c", 30L, 85f, 11f);
+        SeriesSummary summary = new SeriesSummary();
+
+        assertEquals("a", columns.nearest(RecordColumns.HEIGHT, 19L, summary).getId(SeriesSummary.NEAREST));
+        // 距离相同时取较早的一条
+        assertEquals("a", columns.nearest(RecordColumns.HEIGHT, 20L, summary).getId(SeriesSummary.NEAREST));
+        assertEquals("c", columns.nearest(RecordColumns.HEIGHT, 21L, summary).getId(SeriesSummary.NEAREST));
+        assertEquals("b", columns.nearest(RecordColumns.WEIGHT, 21L, summary).getId(SeriesSummary.NEAREST));
+        assertEquals("a", columns.nearest(RecordColumns.HEIGHT, 0L, summary).getId(SeriesSummary.NEAREST));
+        assertEquals("c", columns.nearest(RecordColumns.HEIGHT, 100L, summary).getId(SeriesSummary.NEAREST));
+
+        assertFalse(new RecordColumns().nearest(RecordColumns.HEIGHT, 10L, summary).has(SeriesSummary.NEAREST));
+    }
+
+    @Test
+    public void pagesAndCountsRange() {
+        RecordColumns columns = columns("a", 10L, 75f, 9f, "b", 20L, 80f, 10f, "c", 30L, 85f, 11f,
+            "d", 40L, 90f, 12f);
+
+        assertEquals(Arrays.asList("d", "c"), page(columns, null, null, true, 2, 0));
+        assertEquals(Arrays.asList("b", "a"), page(columns, null, null, true, 2, 2));
+        assertEquals(Arrays.asList("c", "b"), page(columns, 20L, 30L, true, 0, 0));
+        assertEquals(Arrays.asList("c", "d"), page(columns, 20L, 40L, false, 5, 1));
+        assertTrue(page(columns, null, null, false, 2, 10).isEmpty());
+
+        assertEquals(4, columns.count(null, null));
+        assertEquals(2, columns.count(15L, 35L));
+        assertEquals(0, columns.count(50L, null));
+    }
+}
@@ -0,0 +1,215 @@
+package com.growapp.app.data;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class RecordDatabaseTest {
+    private RecordDatabase database;
+
+    @Before
+    public void setUp() {
+        database = new RecordDatabase(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    private static JSONObject record(String id, String date, double height) throws JSONException {
+        JSONObject record = new JSONObject();
+        if (id != null) {
+            record.put("id", id);
+        }
+        record.put("date", date);
+        record.put("height", height);
+        record.put("weight", JSONObject.NULL);
+        return record;
+    }
+
+    private static String ids(List<JSONObject> records) throws JSONException {
+        StringBuilder sb = new StringBuilder();
+        for (JSONObject record : records) {
+            sb.append(sb.length() > 0 ? "," : "").append(record.getString("id"));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void mergesRecordsInTheSameMinute() throws JSONException {
+        database.upsert("c1", record("r1", "2024-03-01T10:00:00", 100), null);
+
+        JSONObject merged = database.upsert("c1", record(null, "2024-03-01T10:00:30", 101), null);
+
+        assertEquals("r1", merged.getString("id"));
+        assertEquals(1, database.count("c1", null, null));
+        assertEquals(101, database.findAtMinute("c1", GrowthDates.parse("2024-03-01T10:00:59")).getDouble("height"), 0);
+        assertNull(database.findAtMinute("c1", GrowthDates.parse("2024-03-01T10:01:00")));
+    }
+
+    @Test
+    public void updatesOneRecordById() throws JSONException {
+        database.upsert("c1", record("r1", "2024-03-01T10:00:00", 100), null);
+        JSONObject data = new JSONObject();
+        data.put("weight", 16.5);
+
+        JSONObject updated = database.update("c1", "r1", data, 2L);
+
+        assertEquals(100, updated.getDouble("height"), 0);
+        assertEquals(16.5, updated.getDouble("weight"), 0);
+        assertTrue(updated.has("updatedAt"));
+        assertEquals(Long.valueOf(2), database.getRevisions().get("c1"));
+        assertNull(database.update("c1", "missing", data, 3L));
+        assertEquals(Long.valueOf(2), database.getRevisions().get("c1"));
+    }
+
+    @Test
+    public void rejectsMovingOntoAnotherRecordsMinute() throws JSONException {
+        database.upsert("c1", record("r1", "2024-03-01T10:00:00", 100), null);
+        database.upsert("c1", record("r2", "2024-03-01T11:00:00", 101), null);
+        JSONObject data = new JSONObject();
+        data.put("date", "2024-03-01 10:00:00");
+
+        try {
+            database.update("c1", "r2", data, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("该时间已存在其他记录", e.getMessage());
+        }
+        try {
+            database.upsert("c1", record("r2", "2024-03-01T10:00:00", 101), null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // 按 id 更新时同样检查
+        }
+        assertEquals("r2", database.findAtMinute("c1", GrowthDates.parse("2024-03-01T11:00:00")).getString("id"));
+    }
+
+    @Test
+    public void rejectsInvalidRecords() throws JSONException {
+        try {
+            database.upsert("c1", record(null, "2024-03-01T10:00:00", 250), null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("身高必须在 30-200 厘米之间", e.getMessage());
+        }
+        assertEquals(0, database.count("c1", null, null));
+    }
+
+    @Test
+    public void pagesByDateWithinRange() throws JSONException {
+        JSONArray records = new JSONArray();
+        for (int i = 1; i <= 5; i++) {
+            records.put(record("r" + i, "2024-0" + i + "-01T08:00:00", 100 + i));
+        }
+        database.replaceChild("c1", records, 1L);
+        database.upsert("c2", record("other", "2024-03-01T08:00:00", 90), null);
+
+        assertEquals("r4,r3", ids(database.query("c1", null, null, true, 2, 1)));
+        assertEquals("r1,r2,r3,r4,r5", ids(database.query("c1", null, null, false, 0, 0)));
+        Long from = GrowthDates.parse("2024-02-01");
+        Long to = GrowthDates.parse("2024-04-01T08:00:00");
+        assertEquals("r4,r3,r2", ids(database.query("c1", from, to, true, 0, 0)));
+        assertEquals(3, database.count("c1", from, to));
+        assertEquals(5, database.count("c1", null, null));
+        assertEquals(1, database.count("c2", null, null));
+    }
+
+    @Test
+    public void keepsLastOfSameMinuteWhenReplacing() throws JSONException {
+        JSONArray records = new JSONArray();
+        records.put(record("r1", "2024-03-01T10:00:00", 100));
+        records.put(record("r2", "2024-03-01T10:00:20", 101));
+
+        database.replaceChild("c1", records, 1L);
+
+        assertEquals("r2", ids(database.query("c1", null, null, true, 0, 0)));
+    }
+
+    @Test
+    public void tracksRevisionsPerChild() throws JSONException {
+        database.upsert("c1", record("r1", "2024-03-01T10:00:00", 100), 3L);
+        database.upsert("c2", record("r2", "2024-03-01T10:00:00", 100), null);
+
+        Map<String, Long> revisions = database.getRevisions();
+        assertEquals(Long.valueOf(3), revisions.get("c1"));
+        // 有记录但从没写入过修订号
+        assertTrue(revisions.containsKey("c2"));
+        assertNull(revisions.get("c2"));
+
+        assertTrue(database.delete("c1", "r1", null));
+        assertEquals(Long.valueOf(3), database.getRevisions().get("c1"));
+        database.replaceChild("c1", new JSONArray(), 5L);
+        assertEquals(Long.valueOf(5), database.getRevisions().get("c1"));
+
+        database.deleteChild("c1");
+        assertFalse(database.getRevisions().containsKey("c1"));
+    }
+
+    @Test
+    public void replacesAllChildren() throws JSONException {
+        database.upsert("old", record("r1", "2024-03-01T10:00:00", 100), 7L);
+        JSONObject byChild = new JSONObject();
+        JSONArray records = new JSONArray();
+        records.put(record("r2", "2024-03-02T10:00:00", 101));
+        byChild.put("c1", records);
+
+        assertEquals(1, database.replaceAll(byChild, Collections.singletonMap("c1", 4L)));
+
+        Map<String, Long> revisions = database.getRevisions();
+        assertEquals(1, revisions.size());
+        assertEquals(Long.valueOf(4), revisions.get("c1"));
+        assertEquals(0, database.count("old", null, null));
+    }
+
+    @Test
+    public void bumpsVersionOnEveryWrite() throws JSONException {
+        long version = database.getVersion("c1");
+        database.upsert("c1", record("r1", "2024-03-01T10:00:00", 100), null);
+        assertTrue(database.getVersion("c1") > version);
+        version = database.getVersion("c1");
+        assertFalse(database.delete("c1", "missing", null));
+        assertEquals(version, database.getVersion("c1"));
+        database.delete("c1", "r1", null);
+        assertTrue(database.getVersion("c1") > version);
+    }
+
+    @Test
+    public void keepsCachedColumnsInStepWithWrites() throws JSONException {
+        database.upsert("c1", record("r1", "2024-03-01T10:00:00", 100), null);
+        database.upsert("c1", record("r2", "2024-04-01T10:00:00", 104), null);
+        // 先读取一次，之后的写入都在已加载的缓存上原地更新
+        SeriesSummary summary = database.summarizeSeries("c1", "height", null, null, null, new SeriesSummary());
+        assertEquals(2, summary.getCount());
+
+        JSONObject data = new JSONObject();
+        data.put("height", 98);
+        database.update("c1", "r2", data, null);
+        database.upsert("c1", record("r3", "2024-02-01T10:00:00", 95), null);
+        database.delete("c1", "r1", null);
+
+        database.summarizeSeries("c1", "height", null, null, GrowthDates.parse("2024-03-20T00:00:00"), summary);
+        assertEquals(2, summary.getCount());
+        assertEquals("r3", summary.getId(SeriesSummary.FIRST));
+        assertEquals("r2", summary.getId(SeriesSummary.LAST));
+        assertEquals(98, summary.getValue(SeriesSummary.MAX), 0.001);
+        assertEquals("r2", summary.getId(SeriesSummary.NEAREST));
+        assertEquals("r2,r3", ids(database.query("c1", null, null, true, 0, 0)));
+        assertEquals("r3", database.findNearest("c1", "height", GrowthDates.parse("2024-01-01T00:00:00"), summary)
+            .getId(SeriesSummary.NEAREST));
+    }
+}
@@ -0,0 +1,59 @@
+package com.growapp.app.data;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RecordMergerTest {
+    private static final double NaN = Double.NaN;
+
+    private static GrowthRecord record(String id, String date, double height, double weight) {
+        return new GrowthRecord(id, "c1", GrowthDates.parse(date), height, weight);
+    }
+
+    @Test
+    public void classifiesNewIdenticalAndConflicting() {
+        RecordMerger merger = new RecordMerger(Arrays.asList(
+            record("a", "2024-03-01T10:00:00", 100, 16),
+            record("b", "2024-04-01T10:00:00", 104, NaN)));
+
+        RecordMerger.Result result = merger.merge(Arrays.asList(
+            record(null, "2024-05-01T10:00:00", 108, 17),
+            // 同一分钟内的不同秒数视为同一时间
+            record(null, "2024-03-01T10:00:45", 100, 16),
+            record(null, "2024-04-01T10:00:00", 104, 15.5)));
+
+        assertEquals(Collections.singletonList(0), result.getAdded());
+        assertEquals(Collections.singletonList(1), result.getIdentical());
+        assertEquals(Collections.singletonList(2), result.getConflicts());
+        assertEquals("b", result.getConflictingExisting().get(0).getId());
+    }
+
+    @Test
+    public void firstDuplicateInImportWins() {
+        RecordMerger.Result result = new RecordMerger(Collections.<GrowthRecord>emptyList()).merge(Arrays.asList(
+            record(null, "2024-03-01T10:00:00", 100, NaN),
+            record(null, "2024-03-01T10:00:00", 100, NaN),
+            record(null, "2024-03-01T10:00:00", 101, NaN),
+            record(null, "2024-03-01T10:01:00", 101, NaN)));
+
+        assertEquals(Arrays.asList(0, 3), result.getAdded());
+        assertEquals(Collections.singletonList(1), result.getIdentical());
+        assertEquals(Collections.singletonList(2), result.getConflicts());
+    }
+
+    @Test
+    public void missingValuesOnlyMatchMissingValues() {
+        List<GrowthRecord> existing = Collections.singletonList(record("a", "2024-03-01T10:00:00", 100, NaN));
+
+        RecordMerger.Result result = new RecordMerger(existing).merge(
+            Collections.singletonList(record(null, "2024-03-01T10:00:00", 100, 16)));
+
+        assertTrue(result.getAdded().isEmpty());
+        assertEquals(Collections.singletonList(0), result.getConflicts());
+    }
+}
@@ -0,0 +1,73 @@
+package com.growapp.app.growth;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class DownsamplerTest {
+
+    private static double[] range(int count) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    @Test
+    public void returnsAllPointsUnderThreshold() {
+        double[] x = range(5);
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Downsampler.lttb(x, x, 5, 5));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Downsampler.lttb(x, x, 5, 10));
+        // threshold 小于 3 时不降采样
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Downsampler.lttb(x, x, 5, 2));
+        assertArrayEquals(new int[0], Downsampler.lttb(new double[0], new double[0], 0, 100));
+    }
+
+    @Test
+    public void keepsEndpointsAndThreshold() {
+        int count = 1000;
+        double[] x = range(count);
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            y[i] = Math.sin(i / 30.0);
+        }
+
+        int[] selected = Downsampler.lttb(x, y, count, 50);
+
+        assertEquals(50, selected.length);
+        assertEquals(0, selected[0]);
+        assertEquals(count - 1, selected[selected.length - 1]);
+        for (int i = 1; i < selected.length; i++) {
+            assertTrue(selected[i] > selected[i - 1]);
+        }
+    }
+
+    @Test
+    public void keepsSpike() {
+        int count = 100;
+        double[] x = range(count);
+        double[] y = new double[count];
+        y[37] = 50;
+
+        int[] selected = Downsampler.lttb(x, y, count, 10);
+
+        boolean found = false;
+        for (int index : selected) {
+            found |= index == 37;
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void usesOnlyFirstCountPoints() {
+        // 数组可以比 count 长（复用的缓冲区），多出的部分不参与计算
+        double[] x = range(200);
+        double[] y = range(200);
+
+        int[] selected = Downsampler.lttb(x, y, 100, 10);
+
+        assertEquals(10, selected.length);
+        assertEquals(99, selected[9]);
+    }
+}
@@ -0,0 +1,102 @@
+package com.growapp.app.growth;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LmsTableTest {
+    private static final double Z97 = NormalDistribution.quantile(0.97);
+
+    // L = 1 的正态分布：P50 从 50 线性增长到 60，变异系数 0.1
+    private static LmsTable normalTable(boolean restrictedTails) {
+        double[] ages = {0, 1, 2};
+        double[] p50 = {50, 55, 60};
+        double[] p3 = new double[3];
+        double[] p97 = new double[3];
+        for (int i = 0; i < 3; i++) {
+            p3[i] = p50[i] * (1 - 0.1 * Z97);
+            p97[i] = p50[i] * (1 + 0.1 * Z97);
+        }
+        return LmsTable.fromPercentiles(ages, p3, p50, p97, restrictedTails);
+    }
+
+    @Test
+    public void coversAgeRangeInDays() {
+        LmsTable table = normalTable(false);
+        assertEquals((int) Math.ceil(2 * LmsTable.DAYS_PER_MONTH), table.getMaxAgeDays());
+        assertTrue(table.covers(0));
+        assertTrue(table.covers(table.getMaxAgeDays()));
+        assertFalse(table.covers(-1));
+        assertFalse(table.covers(table.getMaxAgeDays() + 1));
+    }
+
+    @Test
+    public void reproducesSourcePercentiles() {
+        LmsTable table = normalTable(false);
+        double day = LmsTable.DAYS_PER_MONTH;
+        assertEquals(0, table.zScore(day, 55), 1e-3);
+        assertEquals(50, table.percentile(day, 55), 0.1);
+        assertEquals(Z97, table.zScore(day, 55 * (1 + 0.1 * Z97)), 1e-3);
+        assertEquals(3, table.percentile(day, 55 * (1 - 0.1 * Z97)), 0.1);
+    }
+
+    @Test
+    public void interpolatesMedianBetweenPoints() {
+        LmsTable table = normalTable(false);
+        double halfMonth = LmsTable.DAYS_PER_MONTH / 2;
+        assertEquals(52.5, table.valueAtPercentile(halfMonth, 50), 0.01);
+        assertEquals(0, table.zScore(halfMonth, 52.5), 1e-3);
+    }
+
+    @Test
+    public void valueAtInvertsZScore() {
+        LmsTable table = normalTable(false);
+        for (double z = -2.5; z <= 2.5; z += 0.5) {
+            double value = table.valueAt(40, z);
+            assertEquals(z, table.zScore(40, value), 1e-6);
+        }
+    }
+
+    @Test
+    public void returnsNaNOutsideTableOrForInvalidValue() {
+        LmsTable table = normalTable(false);
+        assertTrue(Double.isNaN(table.zScore(-1, 50)));
+        assertTrue(Double.isNaN(table.zScore(table.getMaxAgeDays() + 1, 50)));
+        assertTrue(Double.isNaN(table.zScore(10, 0)));
+        assertTrue(Double.isNaN(table.zScore(10, Double.NaN)));
+        assertTrue(Double.isNaN(table.valueAt(-1, 0)));
+    }
+
+    @Test
+    public void restrictedTailsExtrapolateBeyondThreeSd() {
+        LmsTable table = normalTable(true);
+        double sd2 = table.valueAt(0, 2);
+        double sd3 = table.valueAt(0, 3);
+        // 超出 SD3 一个 SD2-SD3 间距时 z 为 4
+        assertEquals(4, table.zScore(0, sd3 + (sd3 - sd2)), 1e-6);
+        // |z| 不超过 3 时与普通计算一致
+        assertEquals(2, table.zScore(0, sd2), 1e-6);
+    }
+
+    @Test
+    public void skewedPercentilesSolveForL() {
+        // 右偏分布：P97 离中位数比 P3 远
+        double[] ages = {0, 1};
+        LmsTable table = LmsTable.fromPercentiles(ages,
+            new double[] {2.5, 3.4}, new double[] {3.3, 4.5}, new double[] {4.4, 5.8}, true);
+        assertEquals(3, table.percentile(0, 2.5), 0.1);
+        assertEquals(50, table.percentile(0, 3.3), 0.1);
+        assertEquals(97, table.percentile(0, 4.4), 0.1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnorderedPercentiles() {
+        LmsTable.fromPercentiles(new double[] {0}, new double[] {5}, new double[] {4}, new double[] {6}, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTableNotStartingAtBirth() {
+        LmsTable.fromPercentiles(new double[] {1, 2}, new double[] {3, 4}, new double[] {4, 5},
+            new double[] {5, 6}, false);
+    }
+}
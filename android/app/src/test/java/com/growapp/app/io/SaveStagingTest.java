@@ -0,0 +1,121 @@
+package com.growapp.app.io;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Base64;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+@RunWith(RobolectricTestRunner.class)
+public class SaveStagingTest {
+    private Context context;
+    private File directory;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        directory = new File(context.getCacheDir(), "pending_saves");
+    }
+
+    private static String base64(String text) {
+        return Base64.encodeToString(text.getBytes(StandardCharsets.UTF_8), Base64.NO_WRAP);
+    }
+
+    private int stagedFiles() {
+        String[] names = directory.list();
+        return names == null ? 0 : names.length;
+    }
+
+    @Test
+    public void activeSaveSurvivesProcessRestart() throws IOException {
+        SaveStaging staging = new SaveStaging(context);
+        SaveStaging.Staged staged = staging.stage("req-1", base64("日期,身高\n"), "records.csv", "text/csv");
+        staging.markActive(staged);
+
+        // 新实例相当于进程被杀后重建
+        SaveStaging restarted = new SaveStaging(context);
+        SaveStaging.Staged recovered = restarted.takeActive();
+
+        assertNotNull(recovered);
+        assertEquals(staged.getId(), recovered.getId());
+        assertEquals("req-1", recovered.getRequestId());
+        assertEquals("records.csv", recovered.getFileName());
+        assertEquals("text/csv", recovered.getMimeType());
+        assertEquals("日期,身高\n".getBytes(StandardCharsets.UTF_8).length, recovered.getSize());
+        // 只能取出一次
+        assertNull(restarted.takeActive());
+    }
+
+    @Test
+    public void writeToCopiesDecodedContent() throws IOException {
+        SaveStaging staging = new SaveStaging(context);
+        byte[] content = new byte[200 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        SaveStaging.Staged staged = staging.stage("req-2", Base64.encodeToString(content, Base64.DEFAULT),
+            "backup.zip", "application/zip");
+        Uri uri = Uri.parse("content://test/backup.zip");
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        shadowOf(context.getContentResolver()).registerOutputStream(uri, target);
+
+        long written = staging.writeTo(staged, context.getContentResolver(), uri);
+
+        assertEquals(content.length, written);
+        assertArrayEquals(content, target.toByteArray());
+        staging.discard(staged);
+        assertEquals(0, stagedFiles());
+    }
+
+    @Test
+    public void activeSaveWithMissingDataIsDropped() throws IOException {
+        SaveStaging staging = new SaveStaging(context);
+        SaveStaging.Staged staged = staging.stage("req-3", base64("x"), "a.csv", "text/csv");
+        staging.markActive(staged);
+        assertTrue(new File(directory, staged.getId() + ".bin").delete());
+
+        assertNull(new SaveStaging(context).takeActive());
+        assertFalse(new File(directory, "active").exists());
+    }
+
+    @Test
+    public void invalidBase64LeavesNoFiles() {
+        SaveStaging staging = new SaveStaging(context);
+        try {
+            staging.stage("req-4", "QUJD=A", "a.csv", "text/csv");
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // 预期异常
+        }
+        assertEquals(0, stagedFiles());
+    }
+
+    @Test
+    public void purgeStaleRemovesOnlyOldFiles() throws IOException {
+        SaveStaging staging = new SaveStaging(context);
+        SaveStaging.Staged old = staging.stage("old", base64("old"), "a.csv", "text/csv");
+        SaveStaging.Staged fresh = staging.stage("fresh", base64("fresh"), "b.csv", "text/csv");
+        long twoDaysAgo = System.currentTimeMillis() - 2L * 24 * 60 * 60 * 1000;
+        assertTrue(new File(directory, old.getId() + ".bin").setLastModified(twoDaysAgo));
+        assertTrue(new File(directory, old.getId() + ".json").setLastModified(twoDaysAgo));
+
+        staging.purgeStale();
+
+        assertFalse(new File(directory, old.getId() + ".bin").exists());
+        assertFalse(new File(directory, old.getId() + ".json").exists());
+        assertTrue(new File(directory, fresh.getId() + ".bin").exists());
+        assertTrue(new File(directory, fresh.getId() + ".json").exists());
+    }
+}
@@ -0,0 +1,125 @@
+package com.growapp.app.permission;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.app.AppOpsManager;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Process;
+import android.provider.Settings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// 测试运行在 robolectric.properties 指定的 API 34 上，覆盖“所有文件访问权限”分支
+@RunWith(RobolectricTestRunner.class)
+public class PermissionBrokerTest {
+    private Activity activity;
+    private PermissionBroker broker;
+    private final List<Boolean> results = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        broker = new PermissionBroker();
+        // Environment.isExternalStorageManager() 需要外部存储目录
+        ShadowEnvironment.addExternalDir("sdcard");
+        setGranted(false);
+    }
+
+    // Android 11 及以上由“所有文件访问权限”决定
+    private void setGranted(boolean granted) {
+        AppOpsManager appOps = (AppOpsManager) activity.getSystemService(Context.APP_OPS_SERVICE);
+        shadowOf(appOps).setMode(AppOpsManager.OPSTR_MANAGE_EXTERNAL_STORAGE, Process.myUid(),
+            activity.getPackageName(), granted ? AppOpsManager.MODE_ALLOWED : AppOpsManager.MODE_ERRORED);
+    }
+
+    @Test
+    public void grantedRequestCompletesImmediately() {
+        setGranted(true);
+
+        broker.request(activity, results::add);
+
+        assertEquals(Collections.singletonList(true), results);
+        assertNull(shadowOf(activity).getNextStartedActivity());
+    }
+
+    @Test
+    public void concurrentRequestsShareOneSettingsPage() {
+        broker.request(activity, results::add);
+        broker.request(activity, results::add);
+
+        Intent intent = shadowOf(activity).getNextStartedActivity();
+        assertEquals(Settings.ACTION_MANAGE_APP_ALL_FILES_ACCESS_PERMISSION, intent.getAction());
+        assertNull(shadowOf(activity).getNextStartedActivity());
+        assertTrue(results.isEmpty());
+
+        // 从设置页返回时一起完成
+        setGranted(true);
+        broker.onResume(activity);
+        assertEquals(Arrays.asList(true, true), results);
+
+        // 之后的回到前台不再重复回调
+        broker.onResume(activity);
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void deniedAfterSettingsCompletesWithFalse() {
+        broker.request(activity, results::add);
+        broker.onResume(activity);
+
+        assertEquals(Collections.singletonList(false), results);
+
+        // 下一次请求重新打开设置页
+        broker.request(activity, results::add);
+        assertNotNull(shadowOf(activity).getNextStartedActivity());
+    }
+
+    @Test
+    public void cachesStateUntilResume() {
+        assertFalse(broker.isGranted(activity));
+
+        setGranted(true);
+        assertFalse(broker.isGranted(activity));
+
+        broker.onResume(activity);
+        assertTrue(broker.isGranted(activity));
+    }
+
+    @Test
+    public void notifiesListenersOnlyWhenStateChanges() {
+        List<Boolean> changes = new ArrayList<>();
+        broker.addListener(changes::add);
+        broker.isGranted(activity);
+
+        broker.onResume(activity);
+        assertTrue(changes.isEmpty());
+
+        setGranted(true);
+        broker.onResume(activity);
+        setGranted(false);
+        broker.onResume(activity);
+        assertEquals(Arrays.asList(true, false), changes);
+    }
+
+    @Test
+    public void ignoresUnrelatedPermissionResults() {
+        broker.request(activity, results::add);
+
+        broker.onRequestPermissionsResult(activity, PermissionBroker.REQUEST_CODE + 1);
+
+        assertTrue(results.isEmpty());
+    }
+}
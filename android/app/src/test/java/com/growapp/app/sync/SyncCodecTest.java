@@ -0,0 +1,118 @@
+package com.growapp.app.sync;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class SyncCodecTest {
+
+    private static JSONObject record(String date, Object height, Object weight) throws JSONException {
+        JSONObject record = new JSONObject();
+        record.put("date", date);
+        record.put("height", height);
+        record.put("weight", weight);
+        return record;
+    }
+
+    private static JSONObject syncData(JSONObject... records) throws JSONException {
+        JSONObject child = new JSONObject();
+        child.put("id", "1700000000000");
+        child.put("name", "小明");
+        child.put("birthDate", "2020-01-01");
+        JSONArray array = new JSONArray();
+        for (JSONObject record : records) {
+            array.put(record);
+        }
+        JSONObject data = new JSONObject();
+        data.put("version", "1.0");
+        data.put("timestamp", "2024-03-15T02:30:00.000Z");
+        data.put("child", child);
+        data.put("records", array);
+        return data;
+    }
+
+    @Test
+    public void roundTripsRecordsInDateOrder() throws Exception {
+        byte[] code = SyncCodec.encode(syncData(
+            record("2024-03-15T10:30:00", 120.5, 25.6),
+            record("2023-12-01T08:05:09", 118.25, JSONObject.NULL),
+            record("2024-01-20T00:00:00", JSONObject.NULL, 24.0)));
+
+        JSONObject decoded = SyncCodec.decode(code);
+
+        assertEquals(SyncCodec.DATA_VERSION, decoded.getString("version"));
+        assertEquals("2024-03-15T02:30:00.000Z", decoded.getString("timestamp"));
+        assertEquals("小明", decoded.getJSONObject("child").getString("name"));
+        JSONArray records = decoded.getJSONArray("records");
+        assertEquals(3, records.length());
+        // 日期按墙上时间还原，与编码时的本地时间字符串一致
+        assertEquals("2023-12-01T08:05:09.000", records.getJSONObject(0).getString("date"));
+        assertEquals(118.25, records.getJSONObject(0).getDouble("height"), 0);
+        assertTrue(records.getJSONObject(0).isNull("weight"));
+        assertTrue(records.getJSONObject(1).isNull("height"));
+        assertEquals(24.0, records.getJSONObject(1).getDouble("weight"), 0);
+        assertEquals("2024-03-15T10:30:00.000", records.getJSONObject(2).getString("date"));
+        assertEquals(120.5, records.getJSONObject(2).getDouble("height"), 0);
+        assertEquals(25.6, records.getJSONObject(2).getDouble("weight"), 0);
+    }
+
+    @Test
+    public void roundsValuesToHundredths() throws Exception {
+        JSONObject decoded = SyncCodec.decode(SyncCodec.encode(syncData(
+            record("2024-03-15T10:30:00", 120.456, 25.004))));
+
+        JSONObject record = decoded.getJSONArray("records").getJSONObject(0);
+        assertEquals(120.46, record.getDouble("height"), 0);
+        assertEquals(25.0, record.getDouble("weight"), 0);
+    }
+
+    @Test
+    public void encodesEmptyRecordList() throws Exception {
+        JSONObject decoded = SyncCodec.decode(SyncCodec.encode(syncData()));
+        assertEquals(0, decoded.getJSONArray("records").length());
+    }
+
+    @Test
+    public void writesHeader() throws Exception {
+        byte[] code = SyncCodec.encode(syncData(record("2024-03-15T10:30:00", 120.5, 25.6)));
+        assertTrue(SyncCodec.isBinary(code));
+        assertEquals('G', code[0]);
+        assertEquals('A', code[1]);
+        assertEquals(SyncCodec.VERSION, code[2]);
+    }
+
+    @Test
+    public void recognizesLegacyJson() {
+        assertFalse(SyncCodec.isBinary("{\"version\":\"1.0\"}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(SyncCodec.isBinary(new byte[] {'G', 'A'}));
+        assertFalse(SyncCodec.isBinary(null));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnsupportedVersion() throws Exception {
+        byte[] code = SyncCodec.encode(syncData());
+        code[2] = (byte) (SyncCodec.VERSION + 1);
+        SyncCodec.decode(code);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedCode() throws Exception {
+        byte[] code = SyncCodec.encode(syncData(
+            record("2024-03-15T10:30:00", 120.5, 25.6),
+            record("2024-03-16T10:30:00", 121.0, 25.8)));
+        SyncCodec.decode(Arrays.copyOf(code, code.length / 2));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsCorruptedBody() throws Exception {
+        byte[] code = {'G', 'A', (byte) SyncCodec.VERSION, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        SyncCodec.decode(code);
+    }
+}
@@ -0,0 +1,38 @@
+package com.growapp.app.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// saveFile 解码 JS 端传来的 base64 导出内容，readFile 把文件内容编码为 base64 返回；
+// 设备上用的是 android.util.Base64，这里用 JDK 中行为对应的编解码器：
+// Base64.DEFAULT 解码会忽略换行，对应 MIME 解码器；NO_WRAP 编码对应基本编码器
+@State(Scope.Benchmark)
+public class Base64Benchmark {
+    @Param({"100", "1000", "5000"})
+    public int records;
+
+    private byte[] payload;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        payload = Fixtures.csv(records).getBytes(StandardCharsets.UTF_8);
+        encoded = Base64.getEncoder().encodeToString(payload);
+    }
+
+    @Benchmark
+    public byte[] decodeExportPayload() {
+        return Base64.getMimeDecoder().decode(encoded);
+    }
+
+    @Benchmark
+    public String encodeReadResult() {
+        return Base64.getEncoder().encodeToString(payload);
+    }
+}
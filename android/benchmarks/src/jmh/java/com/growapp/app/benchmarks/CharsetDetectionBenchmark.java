@@ -0,0 +1,49 @@
+package com.growapp.app.benchmarks;
+
+import com.growapp.app.csv.CharsetDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+
+// 导入时对文件开头 64KB 样本的编码检测：带 BOM 直接返回，无 BOM 的 UTF-8 需完整校验，
+// GB18030 在第一个非法 UTF-8 序列处即可判定
+@State(Scope.Benchmark)
+public class CharsetDetectionBenchmark {
+    private byte[] utf8WithBom;
+    private byte[] utf8;
+    private byte[] gb18030;
+
+    @Setup
+    public void setUp() {
+        // 样本大小与插件读取的一致
+        String csv = Fixtures.csv(5000);
+        utf8WithBom = sample(csv.getBytes(StandardCharsets.UTF_8));
+        utf8 = sample(csv.substring(1).getBytes(StandardCharsets.UTF_8));
+        gb18030 = sample(csv.substring(1).getBytes(CharsetDetector.GB18030));
+    }
+
+    private static byte[] sample(byte[] bytes) {
+        byte[] sample = new byte[Math.min(bytes.length, CharsetDetector.SAMPLE_SIZE)];
+        System.arraycopy(bytes, 0, sample, 0, sample.length);
+        return sample;
+    }
+
+    @Benchmark
+    public CharsetDetector.Result utf8WithBom() {
+        return CharsetDetector.detect(utf8WithBom, utf8WithBom.length);
+    }
+
+    @Benchmark
+    public CharsetDetector.Result utf8WithoutBom() {
+        return CharsetDetector.detect(utf8, utf8.length);
+    }
+
+    @Benchmark
+    public CharsetDetector.Result gb18030() {
+        return CharsetDetector.detect(gb18030, gb18030.length);
+    }
+}
@@ -0,0 +1,56 @@
+package com.growapp.app.benchmarks;
+
+import com.growapp.app.csv.CharsetDetector;
+import com.growapp.app.csv.GrowthCsvParser;
+import com.growapp.app.csv.GrowthCsvWriter;
+import com.growapp.app.data.GrowthRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// exportRecords 的去重排序和 CSV 写出，parseCsv 的编码检测和解析
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int records;
+
+    private List<GrowthRecord> input;
+    private byte[] utf8File;
+    private byte[] gb18030File;
+
+    @Setup
+    public void setUp() {
+        input = Fixtures.records(records);
+        String csv = Fixtures.csv(records);
+        utf8File = csv.getBytes(StandardCharsets.UTF_8);
+        // 旧版 Excel 另存的文件没有 BOM，按 GB18030 编码
+        gb18030File = csv.substring(1).getBytes(CharsetDetector.GB18030);
+    }
+
+    @Benchmark
+    public String serialize() throws IOException {
+        List<GrowthRecord> sorted = GrowthCsvWriter.dedupeAndSort(input);
+        StringWriter writer = new StringWriter(records * 32);
+        GrowthCsvWriter.write(writer, Fixtures.CHILD_NAME, GrowthCsvWriter.defaultColumns(), sorted);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public GrowthCsvParser.Result parseUtf8() throws IOException {
+        return GrowthCsvParser.parse(new ByteArrayInputStream(utf8File));
+    }
+
+    @Benchmark
+    public GrowthCsvParser.Result parseGb18030() throws IOException {
+        return GrowthCsvParser.parse(new ByteArrayInputStream(gb18030File));
+    }
+}
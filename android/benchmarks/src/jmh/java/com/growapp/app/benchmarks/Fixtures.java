@@ -0,0 +1,49 @@
+package com.growapp.app.benchmarks;
+
+import com.growapp.app.csv.GrowthCsvWriter;
+import com.growapp.app.data.GrowthRecord;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+// 基准测试共用的数据：按固定种子生成的生长记录和对应的 CSV 文本
+final class Fixtures {
+    static final String CHILD_NAME = "测试宝宝";
+
+    private Fixtures() {
+    }
+
+    // 从 2024-01-01 往前每 12~36 小时一条（导入只接受 2000 年至今的日期），身高体重按生长趋势加少量噪声
+    static List<GrowthRecord> records(int count) {
+        Random random = new Random(42);
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2024, Calendar.JANUARY, 1, 8, 30, 0);
+        List<GrowthRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            calendar.add(Calendar.HOUR_OF_DAY, -(12 + random.nextInt(25)));
+            double years = (count - i) / 365.0;
+            double height = 50 + 25 * Math.log1p(years * 2) + random.nextGaussian() * 0.3;
+            double weight = random.nextInt(10) == 0 ? Double.NaN
+                : 3.3 + 9 * Math.log1p(years * 1.5) + random.nextGaussian() * 0.1;
+            records.add(new GrowthRecord(String.valueOf(i), "child", calendar.getTimeInMillis(), height, weight));
+        }
+        return records;
+    }
+
+    static String csv(int count) {
+        List<GrowthRecord> records = GrowthCsvWriter.dedupeAndSort(records(count));
+        StringWriter writer = new StringWriter(count * 32);
+        try {
+            GrowthCsvWriter.write(writer, CHILD_NAME, GrowthCsvWriter.defaultColumns(), records);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+}
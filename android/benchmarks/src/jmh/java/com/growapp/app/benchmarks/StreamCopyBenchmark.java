@@ -0,0 +1,75 @@
+package com.growapp.app.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+// 插件读写文件时的缓冲区大小：readFile 读入内存，WriteSession / 备份经 BufferedOutputStream 写出
+@State(Scope.Benchmark)
+public class StreamCopyBenchmark {
+    @Param({"8192", "65536", "262144"})
+    public int bufferSize;
+
+    @Param({"1048576", "16777216"})
+    public int fileSize;
+
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        data = new byte[fileSize];
+        new Random(42).nextBytes(data);
+    }
+
+    @Benchmark
+    public byte[] readToMemory() throws IOException {
+        InputStream in = new ByteArrayInputStream(data);
+        ByteArrayOutputStream result = new ByteArrayOutputStream(bufferSize);
+        byte[] buffer = new byte[bufferSize];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            result.write(buffer, 0, n);
+        }
+        return result.toByteArray();
+    }
+
+    // 以 8KB 的小块写入，模拟 JsonWriter / CSV 写出时的调用粒度
+    @Benchmark
+    public void bufferedWrite(Blackhole blackhole) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new SinkOutputStream(blackhole), bufferSize)) {
+            for (int offset = 0; offset < data.length; offset += 8192) {
+                out.write(data, offset, Math.min(8192, data.length - offset));
+            }
+        }
+    }
+
+    private static final class SinkOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        SinkOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
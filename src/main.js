@@ -1,4 +1,5 @@
 import { createApp } from 'vue'
+import { registerPlugin } from '@capacitor/core'
 import { createPinia } from 'pinia'
 import App from './App.vue'
 import router from './router'
@@ -6,6 +7,8 @@ import ElementPlus from 'element-plus'
 import 'element-plus/dist/index.css'
 import { useChildrenStore } from './stores/children'
 import { useRecordsStore } from './stores/records'
+import { loadWarmStartSnapshot } from './utils/nativeRecordStore'
+import { listenForRecoveredSaves } from './utils/recordsExportImport'
 
 const app = createApp(App)
 const pinia = createPinia()
@@ -18,12 +21,41 @@ app.use(ElementPlus)
 const childrenStore = useChildrenStore()
 const recordsStore = useRecordsStore()
 
-Promise.all([
+let mounted = false
+const mount = () => {
+  if (!mounted) {
+    mounted = true
+    app.mount('#app')
+    listenForRecoveredSaves(registerPlugin('GrowAppFilePlugin'))
+  }
+}
+
+let recordsLoaded = false
+const hydration = Promise.all([
   childrenStore.loadFromLocal(),
-  recordsStore.loadFromLocal()
-]).then(() => {
-  app.mount('#app')
+  recordsStore.loadFromLocal().finally(() => {
+    recordsLoaded = true
+  })
+])
+
+// Android 上先用原生启动快照挂载，完整数据加载完成后 store 会自动替换；
+// 已经加载完成的 store 不再用快照覆盖
+loadWarmStartSnapshot().then(snapshot => {
+  if (!snapshot || mounted) {
+    return
+  }
+  if (!childrenStore.isLoaded) {
+    childrenStore.seedFromSnapshot(snapshot.children)
+  }
+  if (!recordsLoaded) {
+    recordsStore.seedFromSnapshot(snapshot.records)
+  }
+  mount()
+})
+
+hydration.then(() => {
+  mount()
 }).catch(error => {
   console.error('Failed to initialize data:', error)
-  app.mount('#app')
-})
\ No newline at end of file
+  mount()
+})
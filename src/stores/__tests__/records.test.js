@@ -2,6 +2,11 @@ import { setActivePinia, createPinia } from 'pinia'
 import { beforeEach, describe, expect, it, vi } from 'vitest'
 import { useRecordsStore } from '../records'
 import { useChildrenStore } from '../children'
+import { releaseRecordPhoto } from '../../utils/photos'
+
+vi.mock('../../utils/photos', () => ({
+  releaseRecordPhoto: vi.fn()
+}))
 
 // Mock localStorage
 const localStorageMock = (() => {
@@ -28,6 +33,7 @@ describe('Records Store', () => {
   beforeEach(() => {
     setActivePinia(createPinia())
     localStorageMock.clear()
+    releaseRecordPhoto.mockClear()
   })
 
   it('should add a record', () => {
@@ -154,6 +160,83 @@ describe('Records Store', () => {
     })
   })
 
+  it('should add imported records in one batch', () => {
+    const childrenStore = useChildrenStore()
+    const recordsStore = useRecordsStore()
+
+    const child = childrenStore.addChild({
+      name: 'Test Child',
+      birthDate: '2020-01-01'
+    })
+    recordsStore.addRecord(child.id, {
+      date: '2023-01-01T08:00:00.000Z',
+      height: 100.5,
+      weight: 15.6
+    })
+
+    const added = recordsStore.addRecords(child.id, [
+      { date: '2023-02-01T08:00:00.000Z', height: 101, weight: 16 },
+      { date: '2023-03-01T08:00:00.000Z', height: 102, weight: null }
+    ])
+
+    expect(added).toHaveLength(2)
+    expect(new Set(added.map(record => record.id)).size).toBe(2)
+    added.forEach(record => {
+      expect(record.childId).toBe(child.id)
+      expect(record.createdAt).toBeDefined()
+    })
+    expect(recordsStore.getChildRecords(child.id)).toHaveLength(3)
+    expect(recordsStore.revisions[child.id]).toBe(2)
+  })
+
+  it('should reject the whole batch when one record is invalid', () => {
+    const childrenStore = useChildrenStore()
+    const recordsStore = useRecordsStore()
+
+    const child = childrenStore.addChild({
+      name: 'Test Child',
+      birthDate: '2020-01-01'
+    })
+
+    expect(() => recordsStore.addRecords(child.id, [
+      { date: '2023-02-01T08:00:00.000Z', height: 101, weight: 16 },
+      { date: '2023-03-01T08:00:00.000Z', height: 500, weight: 16 }
+    ])).toThrow('身高必须在 30-200 厘米之间')
+    expect(recordsStore.getChildRecords(child.id)).toHaveLength(0)
+    expect(recordsStore.revisions[child.id]).toBeUndefined()
+  })
+
+  it('should reject moving a record onto another record at the same minute', () => {
+    const recordsStore = useRecordsStore()
+    recordsStore.addRecord('c1', { date: '2023-01-01T08:00:00.000Z', height: 90, weight: 13 }, 'r1')
+    recordsStore.addRecord('c1', { date: '2023-02-01T08:00:00.000Z', height: 91, weight: 13 }, 'r2')
+
+    expect(() => recordsStore.updateRecord('c1', 'r2', { date: '2023-01-01T08:00:30.000Z' }))
+      .toThrow('该时间已存在其他记录')
+    expect(recordsStore.getChildRecords('c1').find(r => r.id === 'r2').date).toBe('2023-02-01T08:00:00.000Z')
+
+    // 改期之后旧时间空出来，新时间可以找到这条记录
+    recordsStore.updateRecord('c1', 'r2', { date: '2023-03-01T08:00:00.000Z' })
+    expect(recordsStore.hasRecordAtTime('c1', '2023-02-01T08:00:00.000Z')).toBeUndefined()
+    expect(recordsStore.hasRecordAtTime('c1', '2023-03-01T08:00:00.000Z').id).toBe('r2')
+    recordsStore.deleteRecord('c1', 'r1')
+    expect(recordsStore.hasRecordAtTime('c1', '2023-01-01T08:00:00.000Z')).toBeUndefined()
+  })
+
+  it('should coalesce saves requested while one is in flight', async () => {
+    const recordsStore = useRecordsStore()
+    localStorageMock.setItem.mockClear()
+
+    recordsStore.addRecord('c1', { date: '2023-01-01T08:00:00.000Z', height: 90, weight: 13 }, 'r1')
+    recordsStore.addRecord('c1', { date: '2023-02-01T08:00:00.000Z', height: 91, weight: 13 }, 'r2')
+    recordsStore.addRecord('c1', { date: '2023-03-01T08:00:00.000Z', height: 92, weight: 13 }, 'r3')
+    await recordsStore.saveToLocal()
+
+    const writes = localStorageMock.setItem.mock.calls.filter(([key]) => key === 'CapacitorStorage.records')
+    expect(writes).toHaveLength(2)
+    expect(JSON.parse(writes[1][1]).c1).toHaveLength(3)
+  })
+
   it('should sort records by date', () => {
     const childrenStore = useChildrenStore()
     const recordsStore = useRecordsStore()
@@ -228,4 +311,96 @@ describe('Records Store', () => {
       recordsStore.addRecord(child.id, null)
     }).toThrow('记录数据无效')
   })
+
+  it('should replay changes made during the warm-start preview', async () => {
+    const childrenStore = useChildrenStore()
+    const recordsStore = useRecordsStore()
+    const child = childrenStore.addChild({
+      name: 'Test Child',
+      birthDate: '2020-01-01'
+    })
+
+    // 完整数据有三条记录，启动快照只包含最近两条
+    const older = recordsStore.addRecord(child.id, { date: '2023-01-01T08:00:00.000Z', height: 90, weight: 13 }, 'r1')
+    const old = recordsStore.addRecord(child.id, { date: '2023-02-01T08:00:00.000Z', height: 91, weight: 13.5 }, 'r2')
+    const latest = recordsStore.addRecord(child.id, { date: '2023-03-01T08:00:00.000Z', height: 92, weight: 14 }, 'r3')
+    await recordsStore.saveToLocal()
+
+    setActivePinia(createPinia())
+    const previewStore = useRecordsStore()
+    previewStore.seedFromSnapshot({ [child.id]: [{ ...old }, { ...latest }] })
+
+    // 快照中看不到 r1，同一时间的新增要在完整数据上合并到 r1
+    previewStore.addRecord(child.id, { date: older.date, height: 95, weight: 13 }, 'p1')
+    previewStore.addRecord(child.id, { date: '2023-04-01T08:00:00.000Z', height: 93, weight: 14.5 }, 'r4')
+    previewStore.updateRecord(child.id, latest.id, { date: latest.date, height: 92.5, weight: 14 })
+    previewStore.deleteRecord(child.id, old.id)
+    previewStore.addRecords(child.id, [
+      { date: old.date, height: 91, weight: 13.5 },
+      { date: '2023-05-01T08:00:00.000Z', height: 94, weight: 15 }
+    ])
+
+    await previewStore.loadFromLocal()
+
+    expect(previewStore.isPreview).toBe(false)
+    expect(previewStore.previewChanges).toHaveLength(0)
+    const byId = Object.fromEntries(previewStore.getChildRecords(child.id).map(r => [r.id, r]))
+    expect(Object.keys(byId)).toHaveLength(5)
+    expect(byId.r1.height).toBe(95)
+    expect(byId.r3.height).toBe(92.5)
+    expect(byId.r4.height).toBe(93)
+    // r2 先被删除，随后的导入在完整数据上不再重复，重新加入
+    expect(byId.r2).toBeUndefined()
+    expect(previewStore.getChildRecords(child.id).filter(r => r.date === old.date)).toHaveLength(1)
+
+    // 重放后的结果已经保存
+    await previewStore.saveToLocal()
+    setActivePinia(createPinia())
+    const reloaded = useRecordsStore()
+    await reloaded.loadFromLocal()
+    expect(reloaded.getChildRecords(child.id)).toHaveLength(5)
+  })
+
+  it('should not save snapshot data when loading fails', async () => {
+    const recordsStore = useRecordsStore()
+    localStorageMock.setItem.mockClear()
+    recordsStore.seedFromSnapshot({ c1: [{ id: 'r1', childId: 'c1', date: '2023-01-01T08:00:00.000Z', height: 90, weight: 13 }] })
+    localStorageMock.getItem.mockImplementationOnce(() => {
+      throw new Error('read failed')
+    })
+
+    await recordsStore.loadFromLocal()
+    recordsStore.deleteRecord('c1', 'r1')
+
+    expect(recordsStore.isPreview).toBe(true)
+    expect(recordsStore.previewChanges).toEqual([['deleteRecord', 'c1', 'r1']])
+    expect(localStorageMock.setItem).not.toHaveBeenCalledWith('CapacitorStorage.records', expect.anything())
+  })
+
+  it('should keep the photo when a same-minute record is added without one', () => {
+    const recordsStore = useRecordsStore()
+    const date = '2023-01-01T08:00:00.000Z'
+    recordsStore.addRecord('c1', { date, height: 90, weight: 13, photoUri: 'content://photo/1' })
+
+    const merged = recordsStore.addRecord('c1', { date, height: 91, weight: 13 })
+
+    expect(recordsStore.getChildRecords('c1')).toHaveLength(1)
+    expect(merged.height).toBe(91)
+    expect(merged.photoUri).toBe('content://photo/1')
+    expect(releaseRecordPhoto).not.toHaveBeenCalled()
+  })
+
+  it('should release photos that are replaced or deleted', () => {
+    const recordsStore = useRecordsStore()
+    const first = recordsStore.addRecord('c1', { date: '2023-01-01T08:00:00.000Z', height: 90, weight: 13, photoUri: 'content://photo/1' })
+    recordsStore.addRecord('c1', { date: '2023-02-01T08:00:00.000Z', height: 91, weight: 13, photoUri: 'content://photo/2' })
+
+    recordsStore.updateRecord('c1', first.id, { photoUri: 'content://photo/3' })
+    expect(releaseRecordPhoto).toHaveBeenCalledWith('content://photo/1', recordsStore.records)
+
+    releaseRecordPhoto.mockClear()
+    recordsStore.deleteChildRecords('c1')
+    expect(releaseRecordPhoto.mock.calls.map(([uri]) => uri).sort())
+      .toEqual(['content://photo/2', 'content://photo/3'])
+  })
 }) 
\ No newline at end of file
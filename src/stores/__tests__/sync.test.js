@@ -0,0 +1,107 @@
+import { setActivePinia, createPinia } from 'pinia'
+import { beforeEach, describe, expect, it, vi } from 'vitest'
+import { useSyncStore } from '../sync'
+import { useChildrenStore } from '../children'
+import { useRecordsStore } from '../records'
+import { encodeNativeSyncData, decodeNativeSyncCode } from '../../utils/nativeSyncCodec'
+
+// 默认模拟非 Android 平台：原生编解码不可用，返回 null
+vi.mock('../../utils/nativeSyncCodec', () => ({
+  encodeNativeSyncData: vi.fn(async () => null),
+  decodeNativeSyncCode: vi.fn(async () => null),
+  isBinarySyncCode: binaryString => binaryString.startsWith('GA\x02')
+}))
+
+const addChildWithRecords = () => {
+  const childrenStore = useChildrenStore()
+  const recordsStore = useRecordsStore()
+  const child = childrenStore.addChild({ name: '小明', birthDate: '2020-01-01' })
+  recordsStore.addRecords(child.id, [
+    { id: 'r1', date: '2024-01-01T10:00:00', height: 100, weight: 16 },
+    { id: 'r2', date: '2024-02-01T10:00:00', height: 101.5, weight: null }
+  ])
+  return child
+}
+
+describe('Sync Store', () => {
+  beforeEach(() => {
+    setActivePinia(createPinia())
+    localStorage.clear()
+    encodeNativeSyncData.mockClear()
+    decodeNativeSyncCode.mockClear()
+  })
+
+  it('should round-trip a JSON sync code into a fresh store', async () => {
+    const child = addChildWithRecords()
+    const code = await useSyncStore().generateSyncData(child.id)
+
+    expect(encodeNativeSyncData).toHaveBeenCalledTimes(1)
+    const decoded = JSON.parse(new TextDecoder().decode(
+      Uint8Array.from(atob(code), c => c.charCodeAt(0))))
+    expect(decoded.version).toBe('1.0')
+    expect(decoded.child.name).toBe('小明')
+    expect(decoded.records).toHaveLength(2)
+
+    setActivePinia(createPinia())
+    localStorage.clear()
+    const result = await useSyncStore().importSyncData(code)
+
+    expect(result.success).toBe(true)
+    expect(result.message).toBe('新增2条记录')
+    const childrenStore = useChildrenStore()
+    expect(childrenStore.children).toHaveLength(1)
+    expect(childrenStore.children[0].name).toBe('小明')
+    const records = useRecordsStore().getChildRecords(childrenStore.children[0].id)
+    expect(records.map(r => r.height).sort()).toEqual([100, 101.5])
+  })
+
+  it('should return the native code when the native encoder is available', async () => {
+    const child = addChildWithRecords()
+    encodeNativeSyncData.mockResolvedValueOnce('R0ECAA==')
+
+    const code = await useSyncStore().generateSyncData(child.id)
+
+    expect(code).toBe('R0ECAA==')
+    const [syncData] = encodeNativeSyncData.mock.calls[0]
+    expect(syncData.child.id).toBe(child.id)
+    expect(syncData.records).toHaveLength(2)
+  })
+
+  it('should reject an unknown child', async () => {
+    await expect(useSyncStore().generateSyncData('missing')).rejects.toThrow('未找到指定的儿童信息')
+  })
+
+  it('should import natively decoded data and skip existing records', async () => {
+    const child = addChildWithRecords()
+    decodeNativeSyncCode.mockResolvedValueOnce({
+      version: '2.0',
+      timestamp: '2024-03-01T00:00:00.000Z',
+      child: { ...child },
+      records: [
+        { date: '2024-01-01T10:00:00.000', height: 100, weight: 16 },
+        { date: '2024-03-01T10:00:00.000', height: 103, weight: 17 }
+      ]
+    })
+
+    const result = await useSyncStore().importSyncData('binary')
+
+    expect(decodeNativeSyncCode).toHaveBeenCalledWith('binary')
+    expect(result).toEqual({ success: true, message: '新增1条记录，跳过1条已存在的记录' })
+    expect(useRecordsStore().getChildRecords(child.id)).toHaveLength(3)
+  })
+
+  it('should refuse a binary code when the native decoder is unavailable', async () => {
+    const result = await useSyncStore().importSyncData(btoa('GA\x02\x00payload'))
+
+    expect(result.success).toBe(false)
+    expect(result.message).toBe('同步失败：此同步码需要在 Android 应用中导入')
+  })
+
+  it('should reject an unsupported version', async () => {
+    decodeNativeSyncCode.mockResolvedValueOnce({ version: '9.9', child: {}, records: [] })
+
+    const result = await useSyncStore().importSyncData('binary')
+
+    expect(result).toEqual({ success: false, message: '同步失败：不支持的同步数据版本' })
+  })
+})
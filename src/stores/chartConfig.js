@@ -1,5 +1,6 @@
 import { defineStore } from 'pinia'
 import { Preferences } from '@capacitor/preferences'
+import { loadNativeStandards } from '../utils/nativeGrowth'
 
 export const useChartConfigStore = defineStore('chartConfig', {
   state: () => ({
@@ -135,6 +136,7 @@ export const useChartConfigStore = defineStore('chartConfig', {
         const data = await import('../assets/who-standards-template.json')
         console.log('WHO标准数据加载成功:', data.default);
         this.whoStandardsData = data.default
+        await loadNativeStandards(data.default)
       } catch (error) {
         console.error('加载WHO标准数据失败:', error)
       }
@@ -79,6 +79,16 @@ export const useChildrenStore = defineStore('children', {
       this.saveToLocal()
     },
 
+    // 启动快照中的孩子列表与本地保存的内容相同，可以直接使用
+    seedFromSnapshot(snapshot) {
+      if (!snapshot || !Array.isArray(snapshot.children)) {
+        return
+      }
+      this.children = snapshot.children
+      this.currentChildId = snapshot.currentChildId
+      this.isLoaded = true
+    },
+
     async loadFromLocal() {
       try {
         console.log('Loading children data from local storage...');
@@ -1,10 +1,67 @@
 import { defineStore } from 'pinia'
+import { toRaw } from 'vue'
 import { Preferences } from '@capacitor/preferences'
 import { getDateTimeHourKey, getLocalISOString } from '../utils/dateUtils'
+import {
+  upsertNativeRecord,
+  upsertNativeRecords,
+  updateNativeRecord,
+  deleteNativeRecord,
+  deleteNativeChildRecords,
+  syncNativeRecords
+} from '../utils/nativeRecordStore'
+import { releaseRecordPhoto } from '../utils/photos'
+
+// 每个 store 实例正在进行的 loadFromLocal
+const pendingLoads = new WeakMap()
+// 每个 store 实例正在进行的保存和排在它之后的下一次保存
+const pendingSaves = new WeakMap()
+
+// 每个孩子记录数组的分钟索引（getDateTimeHourKey → 记录），首次查找时建立，之后随增删改更新；
+// 数组被整体替换，或长度与建立索引时不一致（在 action 之外被修改）时重新建立
+const minuteIndexes = new WeakMap()
+
+const minuteKey = date => getDateTimeHourKey(new Date(date))
+
+function minuteIndex(records) {
+  const raw = toRaw(records)
+  let index = minuteIndexes.get(raw)
+  if (!index || index.size !== raw.length) {
+    index = { map: new Map(), size: raw.length }
+    raw.forEach(record => index.map.set(minuteKey(record.date), record))
+    minuteIndexes.set(raw, index)
+  }
+  return index
+}
+
+// 记录数组变化后更新已建立的索引：removed 移出、added 加入，均可为 null；索引不存在时留到下次查找再建立
+function updateMinuteIndex(records, removed, added) {
+  const raw = toRaw(records)
+  const index = minuteIndexes.get(raw)
+  if (!index) {
+    return
+  }
+  if (removed) {
+    const key = minuteKey(removed.date)
+    if (index.map.get(key) === toRaw(removed)) {
+      index.map.delete(key)
+    }
+  }
+  if (added) {
+    index.map.set(minuteKey(added.date), toRaw(added))
+  }
+  index.size = raw.length
+}
 
 export const useRecordsStore = defineStore('records', {
   state: () => ({
-    records: {}
+    records: {},
+    // 每个孩子的数据修订号，每次修改递增，与记录一起保存；原生镜像据此判断是否过期
+    revisions: {},
+    // 只有启动快照中的最近记录，完整数据加载完成前不能写回本地
+    isPreview: false,
+    // 预览期间的修改只作用于界面，操作按顺序记在这里，完整数据加载后重放
+    previewChanges: []
   }),
 
   getters: {
@@ -17,14 +74,30 @@ export const useRecordsStore = defineStore('records', {
       return Object.values(state.records).flat()
     },
 
-    // 获取按日期排序的记录
+    // 获取按日期排序的记录，每条记录只解析一次日期
     getSortedRecords: (state) => (childId) => {
       const records = state.records[childId] || []
-      return [...records].sort((a, b) => new Date(b.date) - new Date(a.date))
+      return records
+        .map(record => ({ record, time: new Date(record.date).getTime() }))
+        .sort((a, b) => b.time - a.time)
+        .map(({ record }) => record)
     }
   },
 
   actions: {
+    bumpRevision(childId) {
+      this.revisions[childId] = (this.revisions[childId] || 0) + 1
+      return this.revisions[childId]
+    },
+
+    // 返回一个函数，调用时取这个孩子此刻的 { records, revision } 快照；镜像写入失败时用它整体重写原生端
+    nativeRecovery(childId) {
+      return () => ({
+        records: [...(this.records[childId] || [])],
+        revision: this.revisions[childId] || 0
+      })
+    },
+
     // 验证记录数据
     validateRecord(record) {
       if (!record || typeof record !== 'object') {
@@ -46,18 +119,17 @@ export const useRecordsStore = defineStore('records', {
       return true
     },
 
-    // 检查是否存在同一时间的记录
+    // 检查是否存在同一时间的记录，通过分钟索引查找
     hasRecordAtTime(childId, date) {
-      const records = this.records[childId] || []
-      const dateKey = getDateTimeHourKey(new Date(date))
-      
-      return records.find(r => {
-        const recordDateKey = getDateTimeHourKey(new Date(r.date))
-        return recordDateKey === dateKey
-      })
+      const records = this.records[childId]
+      if (!records) {
+        return undefined
+      }
+      return minuteIndex(records).map.get(minuteKey(date))
     },
 
-    addRecord(childId, record) {
+    // id 只在重放预览期间的新增时传入，保证界面上已经持有的 id 仍然有效
+    addRecord(childId, record, id = Date.now().toString()) {
       // 验证记录数据
       this.validateRecord(record)
 
@@ -73,7 +145,6 @@ export const useRecordsStore = defineStore('records', {
       }
 
       // 添加新记录
-      const id = Date.now().toString()
       const newRecord = {
         ...record,
         id,
@@ -82,11 +153,54 @@ export const useRecordsStore = defineStore('records', {
       }
 
       this.records[childId].push(newRecord)
+      updateMinuteIndex(this.records[childId], null, newRecord)
+      if (this.isPreview) {
+        this.previewChanges.push(['addRecord', childId, record, id])
+        return newRecord
+      }
+      const revision = this.bumpRevision(childId)
       this.saveToLocal()
+      upsertNativeRecord(childId, newRecord, revision, this.nativeRecovery(childId))
 
       return newRecord
     },
 
+    // 批量添加已去重的记录（导入使用），全部校验通过后只保存一次
+    addRecords(childId, records) {
+      records.forEach(record => this.validateRecord(record))
+      if (records.length === 0) {
+        return []
+      }
+
+      if (!this.records[childId]) {
+        this.records[childId] = []
+      }
+
+      const now = Date.now()
+      const createdAt = getLocalISOString(new Date(now))
+      const target = this.records[childId]
+      // 重放预览期间的导入时沿用已分配的 id
+      const added = records.map((record, index) => ({
+        ...record,
+        id: record.id ?? (now + index).toString(),
+        childId,
+        createdAt: record.createdAt ?? createdAt
+      }))
+      added.forEach(record => {
+        target.push(record)
+        updateMinuteIndex(target, null, record)
+      })
+      if (this.isPreview) {
+        this.previewChanges.push(['addRecords', childId, added])
+        return added
+      }
+
+      const revision = this.bumpRevision(childId)
+      this.saveToLocal()
+      upsertNativeRecords(childId, added, revision, this.nativeRecovery(childId))
+      return added
+    },
+
     updateRecord(childId, recordId, data) {
       const records = this.records[childId] || []
       const index = records.findIndex(r => r.id === recordId)
@@ -101,9 +215,25 @@ export const useRecordsStore = defineStore('records', {
 
         // 验证更新后的记录
         this.validateRecord(updatedRecord)
+        const sameTime = this.hasRecordAtTime(childId, updatedRecord.date)
+        if (sameTime && sameTime.id !== recordId) {
+          throw new Error('该时间已存在其他记录')
+        }
 
         records[index] = updatedRecord
+        updateMinuteIndex(records, currentRecord, updatedRecord)
+        if (this.isPreview) {
+          this.previewChanges.push(['updateRecord', childId, recordId, data])
+          return updatedRecord
+        }
+        const revision = this.bumpRevision(childId)
         this.saveToLocal()
+        updateNativeRecord(childId, recordId, { ...data, updatedAt: updatedRecord.updatedAt }, revision,
+          this.nativeRecovery(childId))
+        // 照片被更换或移除（包括同一时间新增合并到已有记录）时释放旧照片
+        if (currentRecord.photoUri && currentRecord.photoUri !== updatedRecord.photoUri) {
+          releaseRecordPhoto(currentRecord.photoUri, this.records)
+        }
         return updatedRecord
       }
 
@@ -116,7 +246,15 @@ export const useRecordsStore = defineStore('records', {
         const index = records.findIndex(r => r.id === recordId)
         if (index > -1) {
           const deletedRecord = records.splice(index, 1)[0]
+          updateMinuteIndex(records, deletedRecord, null)
+          if (this.isPreview) {
+            this.previewChanges.push(['deleteRecord', childId, recordId])
+            return deletedRecord
+          }
+          const revision = this.bumpRevision(childId)
           this.saveToLocal()
+          deleteNativeRecord(childId, recordId, revision, this.nativeRecovery(childId))
+          releaseRecordPhoto(deletedRecord.photoUri, this.records)
           return deletedRecord
         }
         return null
@@ -127,31 +265,118 @@ export const useRecordsStore = defineStore('records', {
     },
 
     deleteChildRecords(childId) {
+      if (this.isPreview) {
+        // 快照中可能没有这个孩子，完整数据中仍可能有
+        this.previewChanges.push(['deleteChildRecords', childId])
+        const existed = Boolean(this.records[childId])
+        delete this.records[childId]
+        return existed
+      }
       if (this.records[childId]) {
+        const deleted = this.records[childId]
         delete this.records[childId]
+        delete this.revisions[childId]
         this.saveToLocal()
+        deleteNativeChildRecords(childId)
+        deleted.forEach(record => releaseRecordPhoto(record.photoUri, this.records))
         return true
       }
       return false
     },
 
-    async loadFromLocal() {
+    // 用启动快照中的最近记录先行显示，随后由 loadFromLocal 替换为完整数据
+    seedFromSnapshot(records) {
+      this.records = records || {}
+      this.isPreview = true
+      this.previewChanges = []
+    },
+
+    // 同时发起的多次加载共用一次读取，较晚完成的读取不会覆盖刚重放的修改
+    loadFromLocal() {
+      if (!pendingLoads.has(this)) {
+        pendingLoads.set(this, this.readFromLocal().finally(() => pendingLoads.delete(this)))
+      }
+      return pendingLoads.get(this)
+    },
+
+    // 读取失败时保持预览状态，快照数据不会写回本地，预览期间的修改继续排队
+    async readFromLocal() {
       try {
         const { value } = await Preferences.get({ key: 'records' })
+        const { value: revisions } = await Preferences.get({ key: 'recordRevisions' })
         if (value) {
           this.records = JSON.parse(value)
+        } else if (this.isPreview) {
+          this.records = {}
         }
+        this.revisions = revisions ? JSON.parse(revisions) : {}
+        const changes = this.previewChanges
+        this.previewChanges = []
+        this.isPreview = false
+        syncNativeRecords(this.records, this.revisions)
+        this.replayPreviewChanges(changes)
       } catch (error) {
         console.error('Failed to load records data:', error)
       }
     },
 
-    async saveToLocal() {
+    // 按原顺序在完整数据上重放预览期间的修改：同一时间的去重重新检查，
+    // 新增时被合并到已有记录的，后续修改和删除改用那条记录的 id
+    replayPreviewChanges(changes) {
+      const ids = new Map()
+      const resolve = id => ids.get(id) || id
+      changes.forEach(([action, childId, ...args]) => {
+        try {
+          if (action === 'addRecord') {
+            const [record, id] = args
+            const saved = this.addRecord(childId, record, id)
+            if (saved && saved.id !== id) {
+              ids.set(id, saved.id)
+            }
+          } else if (action === 'addRecords') {
+            this.addRecords(childId, args[0].filter(r => !this.hasRecordAtTime(childId, r.date)))
+          } else if (action === 'updateRecord') {
+            this.updateRecord(childId, resolve(args[0]), args[1])
+          } else if (action === 'deleteRecord') {
+            this.deleteRecord(childId, resolve(args[0]))
+          } else if (action === 'deleteChildRecords') {
+            this.deleteChildRecords(childId)
+          }
+        } catch (error) {
+          console.error('重放预览期间的修改失败:', action, error)
+        }
+      })
+    },
+
+    // 保存进行中再次调用时只排一次后续保存，连续修改合并为一次写入；返回的 Promise 在包含本次修改的写入完成后 resolve
+    saveToLocal() {
+      if (this.isPreview) {
+        console.warn('记录尚未完整加载，跳过保存')
+        return Promise.resolve()
+      }
+      const saves = pendingSaves.get(this)
+      if (!saves) {
+        const running = this.writeToLocal().finally(() => pendingSaves.delete(this))
+        pendingSaves.set(this, { running, next: null })
+        return running
+      }
+      if (!saves.next) {
+        saves.next = saves.running.then(() => this.saveToLocal())
+      }
+      return saves.next
+    },
+
+    async writeToLocal() {
       try {
         await Preferences.set({
           key: 'records',
           value: JSON.stringify(this.records)
         })
+        // 修订号在记录之后保存：中途退出时修订号只会落后，启动同步时按过期处理
+        await Preferences.set({
+          key: 'recordRevisions',
+          value: JSON.stringify(this.revisions)
+        })
       } catch (error) {
         console.error('Failed to save records data:', error)
       }
@@ -2,11 +2,15 @@ import { defineStore } from 'pinia'
 import { useChildrenStore } from './children'
 import { useRecordsStore } from './records'
 import { getDateTimeHourKey } from '../utils/dateUtils'
+import { encodeNativeSyncData, decodeNativeSyncCode, isBinarySyncCode } from '../utils/nativeSyncCodec'
+
+// String.fromCharCode.apply 的参数个数有上限，按块转换
+const CHAR_CODE_CHUNK = 0x8000
 
 export const useSyncStore = defineStore('sync', {
   actions: {
     // 生成同步数据
-    generateSyncData(childId) {
+    async generateSyncData(childId) {
       try {
         console.log('开始生成同步数据，儿童ID:', childId);
         
@@ -31,13 +35,24 @@ export const useSyncStore = defineStore('sync', {
         
         console.log('生成的同步数据:', syncData);
 
+        // Android 上使用原生二进制格式，失败时回退到 JSON
+        const nativeCode = await encodeNativeSyncData(syncData);
+        if (nativeCode) {
+          console.log('生成的同步码长度:', nativeCode.length);
+          return nativeCode;
+        }
+
         // 使用 TextEncoder 处理 UTF-8 编码
         const jsonString = JSON.stringify(syncData);
         const encoder = new TextEncoder();
         const utf8Bytes = encoder.encode(jsonString);
         
         // 转换为Base64编码
-        const base64String = btoa(String.fromCharCode.apply(null, utf8Bytes));
+        let binaryString = '';
+        for (let i = 0; i < utf8Bytes.length; i += CHAR_CODE_CHUNK) {
+          binaryString += String.fromCharCode.apply(null, utf8Bytes.subarray(i, i + CHAR_CODE_CHUNK));
+        }
+        const base64String = btoa(binaryString);
         
         console.log('生成的同步码长度:', base64String.length);
         return base64String;
@@ -49,26 +64,34 @@ export const useSyncStore = defineStore('sync', {
     },
 
     // 导入同步数据
-    importSyncData(syncCode) {
+    async importSyncData(syncCode) {
       try {
-        // 解码Base64
-        const binaryString = atob(syncCode);
-        
-        // 转换为 UTF-8 字节数组
-        const bytes = new Uint8Array(binaryString.length);
-        for (let i = 0; i < binaryString.length; i++) {
-          bytes[i] = binaryString.charCodeAt(i);
+        // 二进制同步码由原生端解码，旧版 JSON 同步码返回 null
+        let syncData = await decodeNativeSyncCode(syncCode);
+
+        if (!syncData) {
+          // 解码Base64
+          const binaryString = atob(syncCode);
+          if (isBinarySyncCode(binaryString)) {
+            throw new Error('此同步码需要在 Android 应用中导入');
+          }
+
+          // 转换为 UTF-8 字节数组
+          const bytes = new Uint8Array(binaryString.length);
+          for (let i = 0; i < binaryString.length; i++) {
+            bytes[i] = binaryString.charCodeAt(i);
+          }
+
+          // 使用 TextDecoder 解码 UTF-8
+          const decoder = new TextDecoder();
+          const jsonString = decoder.decode(bytes);
+
+          // 解析JSON
+          syncData = JSON.parse(jsonString);
         }
         
-        // 使用 TextDecoder 解码 UTF-8
-        const decoder = new TextDecoder();
-        const jsonString = decoder.decode(bytes);
-        
-        // 解析JSON
-        const syncData = JSON.parse(jsonString);
-        
         // 验证版本
-        if (!syncData.version || syncData.version !== '1.0') {
+        if (!syncData.version || !['1.0', '2.0'].includes(syncData.version)) {
           throw new Error('不支持的同步数据版本');
         }
 
@@ -78,12 +101,15 @@ export const useSyncStore = defineStore('sync', {
         // 检查儿童是否已存在
         const existingChild = childrenStore.children.find(c => c.name === syncData.child.name)
         
+        // 新添加的儿童会分配新的 id，记录要挂到这个 id 下
+        let targetChildId
         if (!existingChild) {
           // 如果儿童不存在，添加新儿童
-          childrenStore.addChild(syncData.child)
+          targetChildId = childrenStore.addChild(syncData.child).id
         } else {
           // 如果儿童已存在，更新信息
           childrenStore.updateChild(existingChild.id, syncData.child)
+          targetChildId = existingChild.id
         }
 
         // 合并记录
@@ -91,7 +117,6 @@ export const useSyncStore = defineStore('sync', {
         let skippedCount = 0;
 
         syncData.records.forEach(record => {
-          const targetChildId = existingChild ? existingChild.id : syncData.child.id;
           const existingRecord = recordsStore.hasRecordAtTime(targetChildId, record.date);
           
           if (!existingRecord) {
@@ -21,7 +21,20 @@ vi.mock('element-plus', () => ({
   },
 }))
 
-import { exportToCsv, importCsv, processFileContent, decodeContent, removeBOM, containsGarbledText } from '../recordsExportImport'
+import {
+  exportToCsv,
+  exportAllToCsv,
+  buildCsvContent,
+  STREAM_EXPORT_THRESHOLD,
+  importCsv,
+  LARGE_IMPORT_SIZE,
+  processFileContent,
+  processParsedCsv,
+  classifyImportedRecords,
+  decodeContent,
+  removeBOM,
+  containsGarbledText
+} from '../recordsExportImport'
 import { Capacitor } from '@capacitor/core'
 import { ElMessage } from 'element-plus'
 import { describe, it, expect, afterEach, beforeEach } from 'vitest'
@@ -43,6 +56,45 @@ const mockFilePlugin = {
     }
     return { content: '' }
   }),
+  getRecentDocuments: vi.fn(async () => {
+    return { documents: [] }
+  }),
+  getDocumentMetadata: vi.fn(async () => {
+    return { size: 1024 }
+  }),
+  openReadSession: vi.fn(async () => {
+    return { sessionId: 'read-1', totalSize: 0, chunkSize: 4, charset: 'UTF-8' }
+  }),
+  readNextChunk: vi.fn(),
+  closeReadSession: vi.fn(async () => {}),
+  openFileHandle: vi.fn(async () => {
+    return { handle: 'handle-1', url: 'http://localhost/_growapp/file/handle-1', size: 0 }
+  }),
+  releaseFileHandle: vi.fn(async () => {
+    return { released: true }
+  }),
+  exportRecords: vi.fn(async ({ fileName }) => {
+    return { uri: 'test-uri', fileName }
+  }),
+  openWriteSession: vi.fn(async () => {
+    return { sessionId: 'session-1', uri: 'test-uri' }
+  }),
+  appendToWriteSession: vi.fn(async () => {
+    return { bytesWritten: 0 }
+  }),
+  commitWriteSession: vi.fn(async () => {
+    return { uri: 'test-uri' }
+  }),
+  abortWriteSession: vi.fn(async () => {}),
+  saveFiles: vi.fn(async ({ files }) => {
+    return { results: files.map(({ fileName }, index) => ({ index, fileName, uri: `uri-${index}`, bytesWritten: 1 })) }
+  }),
+  addListener: vi.fn(async () => {
+    return { remove: vi.fn() }
+  }),
+  parseCsv: vi.fn(async () => {
+    return { childName: '', charset: 'UTF-8', records: [], errors: {} }
+  }),
 }
 
 describe('记录导出导入测试', () => {
@@ -78,39 +130,88 @@ describe('记录导出导入测试', () => {
   })
 
   describe('导出CSV测试', () => {
-    it('应该正确导出CSV格式的数据', async () => {
+    it('Android 上应该把记录交给原生端导出', async () => {
       // 模拟 Android 平台
       vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android')
 
-      // 捕获导出的内容
-      let exportedContent = null
-      mockFilePlugin.saveFile.mockImplementation(({ content }) => {
-        exportedContent = content
-        return Promise.resolve({ uri: 'test-uri' })
-      })
-
       // 执行导出
       await exportToCsv(mockRecords, childName, mockFilePlugin)
 
       // 验证调用
-      expect(mockFilePlugin.saveFile).toHaveBeenCalled()
-      expect(exportedContent).toBeTruthy()
-
-      // 解码导出的内容
-      const decodedContent = atob(exportedContent)
-      const buffer = new Uint8Array(decodedContent.length)
-      for (let i = 0; i < decodedContent.length; i++) {
-        buffer[i] = decodedContent.charCodeAt(i)
-      }
+      expect(mockFilePlugin.exportRecords).toHaveBeenCalledTimes(1)
+      expect(mockFilePlugin.saveFile).not.toHaveBeenCalled()
+      const options = mockFilePlugin.exportRecords.mock.calls[0][0]
+      expect(options.fileName).toBe(`${childName}_生长记录_20230101_0800.csv`)
+      expect(options.childName).toBe(childName)
+      expect(options.records).toEqual(mockRecords.map(({ date, height, weight }) => ({ date, height, weight })))
+      expect(options.columns.map(column => column.title)).toEqual(['日期', '身高(cm)', '体重(kg)'])
+      expect(ElMessage.success).toHaveBeenCalledWith('文件保存成功')
+    })
 
-      // 检查 BOM
-      expect(buffer[0]).toBe(0xEF)
-      expect(buffer[1]).toBe(0xBB)
-      expect(buffer[2]).toBe(0xBF)
+    it('Android 上记录很多时应该分块写入会话', async () => {
+      vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android')
+      const start = new Date(2020, 0, 1).getTime()
+      const manyRecords = Array.from({ length: STREAM_EXPORT_THRESHOLD + 1 }, (_, i) => ({
+        date: dayjs(start + i * 3600 * 1000).format('YYYY-MM-DDTHH:mm:ss.SSS'),
+        height: 100 + i / 1000,
+        weight: 20
+      }))
+
+      await exportToCsv(manyRecords, childName, mockFilePlugin)
+
+      expect(mockFilePlugin.exportRecords).not.toHaveBeenCalled()
+      expect(mockFilePlugin.openWriteSession).toHaveBeenCalledTimes(1)
+      expect(mockFilePlugin.appendToWriteSession.mock.calls.length).toBeGreaterThan(1)
+      expect(mockFilePlugin.commitWriteSession).toHaveBeenCalledWith({ sessionId: 'session-1' })
+      const written = mockFilePlugin.appendToWriteSession.mock.calls.map(([options]) => options.data).join('')
+      expect(written).toBe('\uFEFF' + buildCsvContent(manyRecords, childName))
+    })
 
-      // 解码内容
-      const content = decodeContent(buffer)
-      const lines = content.split('\n')
+    it('分块写入失败时应该放弃会话', async () => {
+      vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android')
+      mockFilePlugin.appendToWriteSession.mockRejectedValueOnce(new Error('disk full'))
+      const manyRecords = Array.from({ length: STREAM_EXPORT_THRESHOLD + 1 }, (_, i) => ({
+        date: dayjs(new Date(2020, 0, 1).getTime() + i * 3600 * 1000).format('YYYY-MM-DDTHH:mm:ss.SSS'),
+        height: 100,
+        weight: null
+      }))
+
+      await expect(exportToCsv(manyRecords, childName, mockFilePlugin)).rejects.toThrow('disk full')
+
+      expect(mockFilePlugin.abortWriteSession).toHaveBeenCalledWith({ sessionId: 'session-1' })
+      expect(mockFilePlugin.commitWriteSession).not.toHaveBeenCalled()
+    })
+
+    it('Android 上导出全部记录应该整批交给 saveFiles', async () => {
+      vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android')
+      const children = [{ id: 'a', name: '老大' }, { id: 'b', name: '老二' }, { id: 'c', name: '老三' }]
+      const recordsById = { a: mockRecords, b: [], c: mockRecords.slice(0, 1) }
+      mockFilePlugin.saveFiles.mockImplementationOnce(async ({ files }) => ({
+        results: [
+          { index: 0, fileName: files[0].fileName, uri: 'uri-0', bytesWritten: 1 },
+          { index: 1, fileName: files[1].fileName, cancelled: true }
+        ]
+      }))
+
+      const result = await exportAllToCsv(children, id => recordsById[id], mockFilePlugin)
+
+      // 没有记录的孩子不导出
+      const options = mockFilePlugin.saveFiles.mock.calls[0][0]
+      expect(options.files.map(file => file.fileName)).toEqual([
+        '老大_生长记录_20230101_0800.csv',
+        '老三_生长记录_20230101_0800.csv'
+      ])
+      const bytes = Uint8Array.from(atob(options.files[0].content), c => c.charCodeAt(0))
+      expect(new TextDecoder('utf-8', { ignoreBOM: true }).decode(bytes)).toBe('\uFEFF' + buildCsvContent(mockRecords, '老大'))
+      expect(result).toEqual({ saved: 1, cancelled: 1, failed: 0 })
+      // 进度监听只在这一批期间存在
+      const listener = await mockFilePlugin.addListener.mock.results[0].value
+      expect(mockFilePlugin.addListener.mock.calls[0][0]).toBe('saveFilesProgress')
+      expect(listener.remove).toHaveBeenCalled()
+    })
+
+    it('应该正确生成CSV格式的数据', () => {
+      const lines = buildCsvContent(mockRecords, childName).split('\n')
 
       // 验证文件结构
       expect(lines[0]).toBe(`儿童姓名：${childName}`)
@@ -128,27 +229,14 @@ describe('记录导出导入测试', () => {
 
   describe('导入CSV测试', () => {
     it('应该能够正确导入导出的CSV文件', async () => {
-      // 首先导出文件
-      vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android')
-      let exportedContent = null
-      mockFilePlugin.saveFile.mockImplementation(({ content }) => {
-        exportedContent = content
-        return Promise.resolve({ uri: 'test-uri' })
-      })
-
-      await exportToCsv(mockRecords, childName, mockFilePlugin)
-
-      // 模拟文件选择和读取
-      mockFilePlugin.pickFile.mockResolvedValue({ path: 'test-path' })
-      mockFilePlugin.readFile.mockImplementation(() => {
-        return Promise.resolve({ content: exportedContent })
-      })
-
-      // 执行导入
-      let importedRecords = null
-      await importCsv(mockFilePlugin, async (lines) => {
-        importedRecords = await processFileContent(lines, mockRecordsStore, mockChildrenStore)
-      })
+      // 生成带 BOM 的导出文件，按 Web 端导入的方式解码并解析
+      const bom = new Uint8Array([0xEF, 0xBB, 0xBF])
+      const encoded = new TextEncoder().encode(buildCsvContent(mockRecords, childName))
+      const buffer = new Uint8Array(bom.length + encoded.length)
+      buffer.set(bom)
+      buffer.set(encoded, bom.length)
+      const lines = decodeContent(buffer).split('\n').filter(line => line.trim())
+      const importedRecords = await processFileContent(lines, mockRecordsStore, mockChildrenStore)
 
       // 验证导入的数据
       expect(importedRecords).toBeTruthy()
@@ -167,6 +255,86 @@ describe('记录导出导入测试', () => {
       expect(mockChildrenStore.setCurrentChild).toHaveBeenCalledWith(1)
     })
 
+    it('Android 上应该由原生端解析CSV', async () => {
+      vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android')
+      const parsed = {
+        childName: childName,
+        charset: 'UTF-8',
+        records: [{ date: '2024-03-15T10:30:00.000', height: 120.5, weight: 25.6 }],
+        errors: { formatErrors: [], dateErrors: [], heightErrors: [], weightErrors: [] }
+      }
+      mockFilePlugin.pickFile.mockResolvedValue({ path: 'test-path' })
+      mockFilePlugin.parseCsv.mockResolvedValue(parsed)
+
+      const processCallback = vi.fn()
+      let received = null
+      await importCsv(mockFilePlugin, processCallback, async (result) => {
+        received = result
+      })
+
+      expect(mockFilePlugin.parseCsv).toHaveBeenCalledWith({ path: 'test-path' })
+      expect(received).toBe(parsed)
+      expect(processCallback).not.toHaveBeenCalled()
+      expect(mockFilePlugin.readFile).not.toHaveBeenCalled()
+    })
+
+    it('Android 上大文件应该通过文件句柄读取', async () => {
+      vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android')
+      mockFilePlugin.pickFile.mockResolvedValue({ path: 'test-path' })
+      mockFilePlugin.getDocumentMetadata.mockResolvedValueOnce({ size: LARGE_IMPORT_SIZE + 1 })
+      // 原生端已转码为 UTF-8，响应头带有检测到的原始编码
+      const fetchMock = vi.fn(async () => ({
+        ok: true,
+        status: 200,
+        headers: { get: name => (name === 'X-Source-Charset' ? 'GB18030' : null) },
+        text: async () => '儿童姓名：测试儿童\n日期,身高(cm),体重(kg)\n2024-03-15 10:30:00,120.5,25.6\n'
+      }))
+      vi.stubGlobal('fetch', fetchMock)
+
+      const processCallback = vi.fn()
+      try {
+        await importCsv(mockFilePlugin, processCallback, vi.fn())
+      } finally {
+        vi.unstubAllGlobals()
+      }
+
+      expect(mockFilePlugin.openFileHandle).toHaveBeenCalledWith({ path: 'test-path', encoding: 'auto' })
+      expect(fetchMock).toHaveBeenCalledWith('http://localhost/_growapp/file/handle-1')
+      expect(mockFilePlugin.releaseFileHandle).toHaveBeenCalledWith({ handle: 'handle-1' })
+      expect(mockFilePlugin.openReadSession).not.toHaveBeenCalled()
+      expect(mockFilePlugin.parseCsv).not.toHaveBeenCalled()
+      expect(processCallback).toHaveBeenCalledWith([
+        '儿童姓名：测试儿童',
+        '日期,身高(cm),体重(kg)',
+        '2024-03-15 10:30:00,120.5,25.6'
+      ])
+    })
+
+    it('文件句柄不可用时大文件应该通过读取会话分块读取', async () => {
+      vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android')
+      mockFilePlugin.pickFile.mockResolvedValue({ path: 'test-path' })
+      mockFilePlugin.getDocumentMetadata.mockResolvedValueOnce({ size: LARGE_IMPORT_SIZE + 1 })
+      mockFilePlugin.openFileHandle.mockRejectedValueOnce(new Error('not implemented'))
+      // 原生端解码后的文本分两块返回，第一块在行中间结束
+      mockFilePlugin.readNextChunk
+        .mockResolvedValueOnce({ content: '儿童姓名：测试儿童\n日期,身高', eof: false })
+        .mockResolvedValueOnce({ content: '(cm),体重(kg)\n2024-03-15 10:30:00,120.5,25.6\n', eof: true })
+
+      const processCallback = vi.fn()
+      const processParsed = vi.fn()
+      await importCsv(mockFilePlugin, processCallback, processParsed)
+
+      expect(mockFilePlugin.openReadSession).toHaveBeenCalledWith({ path: 'test-path', encoding: 'auto' })
+      expect(mockFilePlugin.closeReadSession).toHaveBeenCalledWith({ sessionId: 'read-1' })
+      expect(mockFilePlugin.parseCsv).not.toHaveBeenCalled()
+      expect(processParsed).not.toHaveBeenCalled()
+      expect(processCallback).toHaveBeenCalledWith([
+        '儿童姓名：测试儿童',
+        '日期,身高(cm),体重(kg)',
+        '2024-03-15 10:30:00,120.5,25.6'
+      ])
+    })
+
     it('应该正确处理不同的日期格式', async () => {
       const testData = [
         '儿童姓名：测试儿童',
@@ -384,16 +552,73 @@ describe('记录导出导入测试', () => {
     });
   });
 
-  describe('导出格式测试', () => {
-    it('应该正确格式化导出的CSV内容', async () => {
-      vi.spyOn(Capacitor, 'getPlatform').mockReturnValue('android');
+  describe('原生解析结果测试', () => {
+    it('应该把 parseCsv 的结果转换为记录并切换儿童', () => {
+      const records = processParsedCsv({
+        childName: '测试儿童',
+        records: [
+          { date: '2024-03-15T10:30:00.000', height: 120.5, weight: 25.6 },
+          { date: '2024-03-16T10:30:00.000', height: 121, weight: null }
+        ],
+        errors: {}
+      }, mockChildrenStore)
+
+      expect(records).toHaveLength(2)
+      expect(records[0]).toMatchObject({ date: '2024-03-15T10:30:00.000', height: 120.5, weight: 25.6 })
+      expect(records[1].weight).toBeNull()
+      expect(records[0].createdAt).toBeDefined()
+      expect(mockChildrenStore.setCurrentChild).toHaveBeenCalledWith(1)
+    })
+
+    it('应该报告原生端返回的错误', () => {
+      expect(() => processParsedCsv({
+        records: [],
+        errors: { heightErrors: ['第3行：身高超出范围'] }
+      }, mockChildrenStore)).toThrow(/身高超出范围/)
+    })
+
+    it('没有记录时应该报错', () => {
+      expect(() => processParsedCsv({ records: [], errors: {} }, mockChildrenStore)).toThrow(/没有找到有效的记录数据/)
+    })
+  })
+
+  describe('导入合并测试', () => {
+    const existing = [
+      { id: '1', date: '2024-03-15T08:00:00.000', height: 120.5, weight: 25.6 },
+      { id: '2', date: '2024-03-15T09:00:00.000', height: 120.6, weight: null }
+    ]
+
+    it('应该把导入的记录分为新增、相同和冲突', () => {
+      const incoming = [
+        { date: '2024-03-15T08:00:00.000', height: 120.5, weight: 25.6 },
+        { date: '2024-03-15T09:00:00.000', height: 120.6, weight: 25.7 },
+        { date: '2024-03-15T10:00:00.000', height: 120.7, weight: 25.8 }
+      ]
+
+      const result = classifyImportedRecords(existing, incoming)
 
-      let exportedContent = null;
-      mockFilePlugin.saveFile.mockImplementation(({ content }) => {
-        exportedContent = content;
-        return Promise.resolve({ uri: 'test-uri' });
-      });
+      expect(result.added).toEqual([incoming[2]])
+      expect(result.identical).toBe(1)
+      expect(result.conflicts).toEqual([{ incoming: incoming[1], existing: existing[1] }])
+    })
+
+    it('文件内部重复的时间只新增第一条', () => {
+      const incoming = [
+        { date: '2024-03-16T08:00:00.000', height: 121, weight: 26 },
+        { date: '2024-03-16T08:00:00.000', height: 121, weight: 26 },
+        { date: '2024-03-16T08:00:00.000', height: 122, weight: 26 }
+      ]
+
+      const result = classifyImportedRecords(existing, incoming)
+
+      expect(result.added).toEqual([incoming[0]])
+      expect(result.identical).toBe(1)
+      expect(result.conflicts).toHaveLength(1)
+    })
+  })
 
+  describe('导出格式测试', () => {
+    it('应该正确格式化导出的CSV内容', () => {
       const testRecords = [
         {
           date: '2024-03-15T10:30:00.000Z',
@@ -403,23 +628,11 @@ describe('记录导出导入测试', () => {
         }
       ];
 
-      await exportToCsv(testRecords, '测试儿童', mockFilePlugin);
-
-      // 解码导出的内容
-      const decodedContent = atob(exportedContent);
-      const buffer = new Uint8Array(decodedContent.length);
-      for (let i = 0; i < decodedContent.length; i++) {
-        buffer[i] = decodedContent.charCodeAt(i);
-      }
-
-      // 使用 decodeContent 函数来正确解码内容
-      const content = decodeContent(buffer);
-      const lines = content.split('\n');
+      const lines = buildCsvContent(testRecords, '测试儿童').split('\n');
 
-      // 验证内容，不检查 BOM
-      expect(lines[0].replace(/^\ufeff/, '')).toBe('儿童姓名：测试儿童');
+      expect(lines[0]).toBe('儿童姓名：测试儿童');
       expect(lines[1]).toBe('日期,身高(cm),体重(kg)');
       expect(lines[2]).toMatch(/^\d{4}-\d{2}-\d{2} \d{2}:\d{2}:\d{2},120.5,25.60$/);
     });
   });
-}) 
\ No newline at end of file
+})
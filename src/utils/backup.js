@@ -0,0 +1,99 @@
+import { Capacitor, registerPlugin } from '@capacitor/core'
+import { Preferences } from '@capacitor/preferences'
+
+const GrowApp = registerPlugin('GrowApp')
+const FilePlugin = registerPlugin('GrowAppFilePlugin')
+
+// 上次选择的备份目录（持久化的目录 URI）
+const BACKUP_DIRECTORY_KEY = 'backupDirectory'
+const AUTO_BACKUP_KEY = 'autoBackupEnabled'
+
+export function isBackupAvailable() {
+  return Capacitor.getPlatform() === 'android'
+}
+
+// 目录的写入权限可能已被用户在系统设置中撤销，此时需要重新选择
+async function hasDirectoryAccess(directory) {
+  try {
+    const { documents } = await FilePlugin.getRecentDocuments({ kind: 'directory' })
+    return documents.some(document => document.uri === directory)
+  } catch (error) {
+    console.error('读取最近使用的目录失败:', error)
+    return true
+  }
+}
+
+// 已授权的备份目录；首次使用、授权失效或 reselect 为 true 时先选择目录
+async function resolveBackupDirectory(reselect) {
+  let { value: directory } = await Preferences.get({ key: BACKUP_DIRECTORY_KEY })
+  if (directory && !reselect && !(await hasDirectoryAccess(directory))) {
+    directory = null
+  }
+  if (!directory || reselect) {
+    const picked = await GrowApp.pickDirectory()
+    directory = picked.path
+    await Preferences.set({ key: BACKUP_DIRECTORY_KEY, value: directory })
+  }
+  return directory
+}
+
+// 全量备份到一个 ZIP 文件；首次使用或 reselect 为 true 时先选择目录
+export async function createFullBackup({ reselect = false } = {}) {
+  const directory = await resolveBackupDirectory(reselect)
+  return GrowApp.createBackup({ directory })
+}
+
+export async function isAutoBackupEnabled() {
+  const { value } = await Preferences.get({ key: AUTO_BACKUP_KEY })
+  return value === 'true'
+}
+
+// 开启后每天在充电且空闲时增量备份到同一目录，只写入变化的部分；开启时立即执行一次
+export async function setAutoBackupEnabled(enabled) {
+  if (enabled) {
+    await resolveBackupDirectory(false)
+  }
+  await GrowApp.setAutoBackup({ enabled })
+  await Preferences.set({ key: AUTO_BACKUP_KEY, value: String(enabled) })
+  return enabled ? GrowApp.runAutoBackup() : null
+}
+
+// 列出备份目录中的文件，一次原生查询返回一页；尚未选择目录时返回 null（不打开选择器）
+export async function listBackupFiles({
+  extensions = ['zip'],
+  nameContains,
+  sort = 'modified',
+  descending = true,
+  offset = 0,
+  limit = 20
+} = {}) {
+  const { value: directory } = await Preferences.get({ key: BACKUP_DIRECTORY_KEY })
+  if (!directory) {
+    return null
+  }
+  return GrowApp.listDirectory({
+    directory,
+    kind: 'file',
+    extensions,
+    nameContains,
+    sort,
+    descending,
+    offset,
+    limit
+  })
+}
+
+// 最近一次的全量备份文件，没有时返回 null
+export async function getLatestBackup() {
+  const result = await listBackupFiles({ limit: 1 })
+  return result?.entries[0] || null
+}
+
+// 从 ZIP 备份恢复，完成后重新加载各个 store
+export async function restoreFullBackup(stores) {
+  const result = await GrowApp.restoreBackup()
+  for (const store of stores) {
+    await store.loadFromLocal()
+  }
+  return result
+}
@@ -0,0 +1,68 @@
+import { Capacitor, registerPlugin } from '@capacitor/core'
+import { flushNativeRecords } from './nativeRecordStore'
+
+// 原生生长标准计算（Android）；其他平台上返回 null，由调用方自行回退
+const Growth = registerPlugin('GrowAppGrowth')
+
+export function isNativeGrowthAvailable() {
+  return Capacitor.getPlatform() === 'android'
+}
+
+// 标准表只需加载一次，之后原生端直接查表
+export async function loadNativeStandards(standards) {
+  if (!isNativeGrowthAvailable() || !standards) {
+    return null
+  }
+  try {
+    return await Growth.loadStandards({ standards })
+  } catch (error) {
+    console.error('加载原生生长标准失败:', error)
+    return null
+  }
+}
+
+// 一次计算孩子全部记录的 z 值和百分位；records 不传时由原生端从记录存储读取
+export async function scoreNativeRecords({ childId, records, sex, birthDate }) {
+  if (!isNativeGrowthAvailable()) {
+    return null
+  }
+  if (!records) {
+    await flushNativeRecords()
+  }
+  const { scores } = await Growth.scoreRecords({ childId, records, sex, birthDate })
+  return scores
+}
+
+// 单个测量值的 { z, percentile }，超出标准表年龄范围时为 null；年龄无效时原生端拒绝
+export async function getNativePercentile({ metric, sex, ageInMonths, value }) {
+  if (!isNativeGrowthAvailable()) {
+    return null
+  }
+  return Growth.getPercentile({ metric, sex, ageInMonths, value })
+}
+
+// 图表数据：可见年龄范围（fromAgeDays / toAgeDays，天）内降采样后的记录点 [年龄, 数值, 日期] 和百分位曲线 { p3: [[年龄, 数值]], ... }
+// 数据来自原生记录镜像，先等待已提交的镜像写入完成，刚保存的记录一定出现在图表中
+export async function getNativeChartSeries({ childId, metric, sex, birthDate, fromAgeDays, toAgeDays, width, bands }) {
+  if (!isNativeGrowthAvailable()) {
+    return null
+  }
+  await flushNativeRecords()
+  return Growth.getChartSeries({ childId, metric, sex, birthDate, fromAgeDays, toAgeDays, width, bands })
+}
+
+// 首页洞察：每个孩子的身高/体重增速、趋势预测和百分位提醒；记录未变化时原生端直接返回缓存结果
+// children: [{ id, sex, birthDate }]，返回 [{ childId, height, weight, alerts, cached }]
+export async function analyzeNativeChildren({ children, projectionDays }) {
+  if (!isNativeGrowthAvailable() || !children?.length) {
+    return null
+  }
+  try {
+    await flushNativeRecords()
+    const result = await Growth.analyzeChildren({ children, projectionDays })
+    return result.children
+  } catch (error) {
+    console.error('原生趋势分析失败:', error)
+    return null
+  }
+}
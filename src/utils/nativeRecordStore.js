@@ -0,0 +1,162 @@
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+// 原生 SQLite 记录存储（Android），是 JS 端 records store 的镜像，记录列表从这里分页读取；其他平台上所有方法都是空操作
+const RecordStore = registerPlugin('GrowAppRecordStore')
+
+export function isNativeRecordStoreAvailable() {
+  return Capacitor.getPlatform() === 'android'
+}
+
+// 镜像写入按调用顺序逐个执行，突发写入不会占满原生端的 IO 队列，也不会乱序
+let writes = Promise.resolve()
+// 正在进行的启动同步，它排入的重写完成前读取到的可能是过期数据
+let syncing = Promise.resolve()
+
+// 写入失败时用 recover() 返回的 { records, revision } 整体重写这个孩子；仍然失败时原生端保留旧的修订号，
+// 下次启动同步时会被发现并重写。返回的 Promise 不会 reject
+function write(method, options, recover) {
+  if (!isNativeRecordStoreAvailable()) {
+    return Promise.resolve(null)
+  }
+  writes = writes
+    .then(() => RecordStore[method](options))
+    .catch(error => {
+      console.error(`原生记录存储 ${method} 失败:`, error)
+      if (!recover) {
+        return null
+      }
+      const { records, revision } = recover()
+      return RecordStore.replaceChildRecords({ childId: options.childId, records, revision })
+    })
+    .catch(error => {
+      console.error('原生记录存储重新同步失败:', error)
+      return null
+    })
+  return writes
+}
+
+// 等待启动同步和已提交的镜像写入全部完成，之后读取的原生端数据一定包含这些写入
+export async function flushNativeRecords() {
+  await syncing
+  return writes
+}
+
+export function upsertNativeRecord(childId, record, revision, recover) {
+  return write('upsertRecord', { childId, record, revision }, recover)
+}
+
+// 批量新增（导入），只传新增的记录
+export function upsertNativeRecords(childId, records, revision, recover) {
+  return write('upsertRecords', { childId, records, revision }, recover)
+}
+
+// 按 id 只更新改动的字段
+export function updateNativeRecord(childId, recordId, data, revision, recover) {
+  return write('updateRecord', { childId, recordId, data, revision }, recover)
+}
+
+export function deleteNativeRecord(childId, recordId, revision, recover) {
+  return write('deleteRecord', { childId, recordId, revision }, recover)
+}
+
+export function deleteNativeChildRecords(childId) {
+  return write('deleteChildRecords', { childId })
+}
+
+export function replaceNativeChildRecords(childId, records, revision) {
+  return write('replaceChildRecords', { childId, records, revision })
+}
+
+// 启动同步：修订号与原生端不同（或原生端没有）的孩子整体重写，JS 端已不存在的孩子从原生端删除
+export function syncNativeRecords(recordsByChild, revisions) {
+  if (!isNativeRecordStoreAvailable()) {
+    return Promise.resolve()
+  }
+  syncing = syncing
+    .then(() => resync(recordsByChild, revisions))
+    .catch(error => console.error('原生记录启动同步失败:', error))
+  return syncing
+}
+
+async function resync(recordsByChild, revisions) {
+  await writes
+  let nativeRevisions
+  try {
+    ({ revisions: nativeRevisions } = await RecordStore.getRevisions())
+  } catch (error) {
+    console.error('读取原生记录修订号失败:', error)
+    nativeRevisions = {}
+  }
+  const children = recordsByChild || {}
+  for (const [childId, records] of Object.entries(children)) {
+    const revision = revisions?.[childId] || 0
+    if (nativeRevisions[childId] !== revision) {
+      replaceNativeChildRecords(childId, [...records], revision)
+    }
+  }
+  for (const childId of Object.keys(nativeRevisions)) {
+    if (!(childId in children)) {
+      deleteNativeChildRecords(childId)
+    }
+  }
+  await writes
+}
+
+// 按日期分页读取 { records, total }，默认倒序；先等待未完成的镜像写入。不可用时返回 null
+export async function queryNativeRecords(childId, { from, to, order = 'desc', limit = 0, offset = 0 } = {}) {
+  if (!isNativeRecordStoreAvailable()) {
+    return null
+  }
+  await flushNativeRecords()
+  return RecordStore.queryRecords({ childId, from, to, order, limit, offset })
+}
+
+// { record, nearest }：同一时间（精确到分钟）的记录，没有时为 null；传入 metric 时 nearest 为该指标
+// 最接近这个时间的点 { id, date, value } 或 null。不可用时返回 undefined
+export async function findNativeRecordAtTime(childId, date, metric) {
+  if (!isNativeRecordStoreAvailable()) {
+    return undefined
+  }
+  await flushNativeRecords()
+  return RecordStore.findRecordAtTime({ childId, date, metric })
+}
+
+// 一项指标在日期范围内的概要 { count, first, last, min, max }，每个点为 { id, date, value } 或 null；
+// 范围为 from / to 日期，或 birthDate 加 fromAgeDays / toAgeDays（与图表相同的年龄范围）。
+// 由原生列式缓存计算。不可用时返回 null
+export async function getNativeSeriesSummary(childId, metric, { from, to, birthDate, fromAgeDays, toAgeDays, near } = {}) {
+  if (!isNativeRecordStoreAvailable()) {
+    return null
+  }
+  await flushNativeRecords()
+  return RecordStore.getSeriesSummary({ childId, metric, from, to, birthDate, fromAgeDays, toAgeDays, near })
+}
+
+// 导入合并：由原生端按时间键哈希索引一次完成分类，返回 { added, identical, conflicts }；
+// 先等待未完成的镜像写入，镜像与 store 一致后再比较。不可用或失败时返回 null 由调用方回退
+export async function mergeNativeRecords(childId, records) {
+  if (!isNativeRecordStoreAvailable()) {
+    return null
+  }
+  try {
+    await flushNativeRecords()
+    return await RecordStore.mergeRecords({ childId, records })
+  } catch (error) {
+    console.error('原生导入合并失败:', error)
+    return null
+  }
+}
+
+// 冷启动快照：孩子列表和最近记录，用于在 store 完整加载前绘制第一屏；没有快照时返回 null
+export async function loadWarmStartSnapshot() {
+  if (!isNativeRecordStoreAvailable()) {
+    return null
+  }
+  try {
+    const { snapshot } = await RecordStore.getWarmStartSnapshot()
+    return snapshot || null
+  } catch (error) {
+    console.error('读取启动快照失败:', error)
+    return null
+  }
+}
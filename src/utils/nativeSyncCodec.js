@@ -0,0 +1,45 @@
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+// 原生同步码编解码（Android）：二进制格式 + DEFLATE，比 JSON + Base64 小得多
+const SyncCodec = registerPlugin('GrowAppSyncCodec')
+
+// 二进制同步码解码后的文件头 "GA\x02"
+const BINARY_MAGIC = 'GA\x02'
+
+export function isNativeSyncCodecAvailable() {
+  return Capacitor.getPlatform() === 'android'
+}
+
+export function isBinarySyncCode(binaryString) {
+  return binaryString.startsWith(BINARY_MAGIC)
+}
+
+// 不可用或编码失败时返回 null，由调用方回退到 JSON 格式
+export async function encodeNativeSyncData(syncData) {
+  if (!isNativeSyncCodecAvailable()) {
+    return null
+  }
+  try {
+    const { code } = await SyncCodec.encode({ data: syncData })
+    return code
+  } catch (error) {
+    console.error('原生同步码编码失败:', error)
+    return null
+  }
+}
+
+// 旧版 JSON 同步码或不可用时返回 null
+export async function decodeNativeSyncCode(code) {
+  if (!isNativeSyncCodecAvailable()) {
+    return null
+  }
+  try {
+    const { data } = await SyncCodec.decode({ code })
+    return data
+  } catch (error) {
+    if (error.code === 'NOT_BINARY') {
+      return null
+    }
+    throw error
+  }
+}
@@ -1,5 +1,25 @@
 import { ElMessageBox, ElMessage } from 'element-plus'
-import { Capacitor } from '@capacitor/core'
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+// 原生端缓存存储权限状态，变化时推送 storagePermissionChange 事件；这里保留最近一次的结果，
+// 已授权时导入导出不再经过插件桥检查，也不再弹出说明对话框
+const Permissions = registerPlugin('Permissions')
+
+let storageGranted = null
+let listening = false
+
+function listenForChanges() {
+  if (listening) {
+    return
+  }
+  listening = true
+  Permissions.addListener('storagePermissionChange', ({ granted }) => {
+    storageGranted = granted
+  }).catch(error => {
+    listening = false
+    console.error('监听存储权限变化失败:', error)
+  })
+}
 
 export const checkAndRequestPermissions = async (FilePlugin) => {
   if (Capacitor.getPlatform() !== 'android') {
@@ -7,6 +27,15 @@ export const checkAndRequestPermissions = async (FilePlugin) => {
   }
 
   try {
+    listenForChanges()
+    if (storageGranted === null) {
+      const permResult = await FilePlugin.checkPermissions()
+      storageGranted = permResult.granted
+    }
+    if (storageGranted) {
+      return true
+    }
+
     await ElMessageBox.confirm(
       '需要访问存储空间权限，以保存或读取文件。\n\n请在接下来的系统对话框中点击"允许"。',
       '需要权限',
@@ -17,12 +46,8 @@ export const checkAndRequestPermissions = async (FilePlugin) => {
       }
     )
 
-    const permResult = await FilePlugin.checkPermissions()
-    if (permResult.granted) {
-      return true
-    }
-
     const result = await FilePlugin.requestPermissions()
+    storageGranted = result.granted
     if (!result.granted) {
       ElMessage.error('需要存储权限才能继续操作。请在设置中手动开启权限。')
       return false
@@ -35,4 +60,4 @@ export const checkAndRequestPermissions = async (FilePlugin) => {
     }
     return false
   }
-} 
\ No newline at end of file
+}
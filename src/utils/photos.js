@@ -0,0 +1,49 @@
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+// 记录照片（Android）：原生端保留照片读取权限并生成缩略图；其他平台上不提供照片功能
+const Photo = registerPlugin('GrowAppPhoto')
+
+export const THUMBNAIL_SIZE = 160
+
+export function isPhotoAvailable() {
+  return Capacitor.getPlatform() === 'android'
+}
+
+// 缩略图由 WebView 拦截 /_growapp/thumb/ 请求返回，不经过插件桥传输图片数据
+export function thumbnailUrl(uri, size = THUMBNAIL_SIZE) {
+  if (!uri || !isPhotoAvailable()) {
+    return null
+  }
+  return `/_growapp/thumb/${size}?uri=${encodeURIComponent(uri)}`
+}
+
+// 用户取消选择时返回 null
+export async function pickRecordPhoto(size = THUMBNAIL_SIZE) {
+  if (!isPhotoAvailable()) {
+    return null
+  }
+  try {
+    const { uri } = await Photo.pickPhoto({ size })
+    return uri
+  } catch (error) {
+    console.log('未选择照片:', error)
+    return null
+  }
+}
+
+// 照片不再被任何记录引用时才释放读取权限
+export async function releaseRecordPhoto(uri, recordsByChild) {
+  if (!uri || !isPhotoAvailable()) {
+    return
+  }
+  const inUse = Object.values(recordsByChild || {})
+    .some(records => records.some(record => record.photoUri === uri))
+  if (inUse) {
+    return
+  }
+  try {
+    await Photo.releasePhoto({ uri })
+  } catch (error) {
+    console.error('释放照片权限失败:', error)
+  }
+}
@@ -286,48 +286,160 @@ export const processFileContent = async (rows, recordsStore, childrenStore) => {
       }
     });
 
-    // 检查是否有错误
-    const hasErrors = Object.values(errors).some(errArray => errArray.length > 0);
-    if (hasErrors) {
-      let errorMessage = '导入失败，请检查以下问题：\n\n';
-      
-      if (errors.formatErrors.length > 0) {
-        errorMessage += '【格式错误】\n' + errors.formatErrors.join('\n') + '\n\n';
-      }
-      if (errors.dateErrors.length > 0) {
-        errorMessage += '【日期错误】\n' + errors.dateErrors.join('\n') + '\n\n';
-      }
-      if (errors.heightErrors.length > 0) {
-        errorMessage += '【身高错误】\n' + errors.heightErrors.join('\n') + '\n\n';
-      }
-      if (errors.weightErrors.length > 0) {
-        errorMessage += '【体重错误】\n' + errors.weightErrors.join('\n') + '\n\n';
-      }
+    return finishImport(records, errors, childName, childrenStore);
+  } catch (error) {
+    console.error('处理文件内容错误:', error);
+    throw error;
+  }
+}
+
+// 处理原生 parseCsv 返回的结构化结果，校验规则与 processFileContent 相同
+export const processParsedCsv = (parsed, childrenStore) => {
+  const records = (parsed.records || []).map(record => ({
+    date: record.date,
+    height: record.height,
+    weight: record.weight ?? null,
+    createdAt: new Date().toISOString()
+  }));
+  return finishImport(records, parsed.errors || {}, parsed.childName, childrenStore);
+}
 
-      errorMessage += '\n正确的数据格式示例：\n';
-      errorMessage += '2024/2/4 10:44 118.7 21\n';
-      errorMessage += '2024-02-04 10:44:00,118.7,21\n';
-      errorMessage += '2024-02-04\t118.7\t21';
-      
-      throw new Error(errorMessage);
+// 汇总错误信息并在找到儿童姓名时切换当前儿童
+function finishImport(records, errors, childName, childrenStore) {
+  const formatErrors = errors.formatErrors || [];
+  const dateErrors = errors.dateErrors || [];
+  const heightErrors = errors.heightErrors || [];
+  const weightErrors = errors.weightErrors || [];
+
+  // 检查是否有错误
+  const hasErrors = [formatErrors, dateErrors, heightErrors, weightErrors].some(errArray => errArray.length > 0);
+  if (hasErrors) {
+    let errorMessage = '导入失败，请检查以下问题：\n\n';
+    
+    if (formatErrors.length > 0) {
+      errorMessage += '【格式错误】\n' + formatErrors.join('\n') + '\n\n';
+    }
+    if (dateErrors.length > 0) {
+      errorMessage += '【日期错误】\n' + dateErrors.join('\n') + '\n\n';
+    }
+    if (heightErrors.length > 0) {
+      errorMessage += '【身高错误】\n' + heightErrors.join('\n') + '\n\n';
     }
+    if (weightErrors.length > 0) {
+      errorMessage += '【体重错误】\n' + weightErrors.join('\n') + '\n\n';
+    }
+
+    errorMessage += '\n正确的数据格式示例：\n';
+    errorMessage += '2024/2/4 10:44 118.7 21\n';
+    errorMessage += '2024-02-04 10:44:00,118.7,21\n';
+    errorMessage += '2024-02-04\t118.7\t21';
+    
+    throw new Error(errorMessage);
+  }
 
-    if (records.length === 0) {
-      throw new Error('没有找到有效的记录数据。\n请检查文件格式是否正确，并确保包含有效的生长记录数据。');
+  if (records.length === 0) {
+    throw new Error('没有找到有效的记录数据。\n请检查文件格式是否正确，并确保包含有效的生长记录数据。');
+  }
+
+  // 如果发现了儿童姓名，更新当前选中的儿童
+  if (childName && childrenStore) {
+    const child = childrenStore.children.find(c => c.name === childName)
+    if (child) {
+      childrenStore.setCurrentChild(child.id)
     }
+  }
 
-    // 如果发现了儿童姓名，更新当前选中的儿童
-    if (childName && childrenStore) {
-      const child = childrenStore.children.find(c => c.name === childName)
-      if (child) {
-        childrenStore.setCurrentChild(child.id)
-      }
+  return records;
+}
+
+const sameValue = (a, b) => {
+  if (a == null || b == null) {
+    return a == null && b == null
+  }
+  return Math.abs(a - b) < 1e-6
+}
+
+// 导入合并：以同一时间键（精确到分钟）建索引，一次遍历把导入的记录分为新增、相同和冲突三类；
+// 文件内部重复的时间也按已有记录处理，先出现的一条被新增
+export const classifyImportedRecords = (existingRecords, records) => {
+  const index = new Map()
+  existingRecords.forEach(record => index.set(getDateTimeHourKey(new Date(record.date)), record))
+  const added = []
+  const conflicts = []
+  let identical = 0
+  records.forEach(record => {
+    const key = getDateTimeHourKey(new Date(record.date))
+    const existing = index.get(key)
+    if (!existing) {
+      index.set(key, record)
+      added.push(record)
+    } else if (sameValue(existing.height, record.height) && sameValue(existing.weight, record.weight)) {
+      identical++
+    } else {
+      conflicts.push({ incoming: record, existing })
+    }
+  })
+  return { added, identical, conflicts }
+}
+
+// 生成导出 CSV 的各行（不含 BOM）：按日期时间去重，按日期倒序排列
+function* csvLines(records, childName) {
+  // 按日期时间（精确到分钟）进行去重，保留时间戳避免排序时重复解析日期
+  const uniqueRecords = new Map()
+  records.forEach(record => {
+    const time = new Date(record.date).getTime()
+    const dateKey = getDateTimeHourKey(new Date(time))
+    const existing = uniqueRecords.get(dateKey)
+    if (!existing || time > existing.time) {
+      uniqueRecords.set(dateKey, { time, record })
     }
+  })
+
+  yield `儿童姓名：${childName}`
+  yield '日期,身高(cm),体重(kg)'
+  const sorted = Array.from(uniqueRecords.values()).sort((a, b) => b.time - a.time)
+  for (const { record } of sorted) {
+    // 确保日期格式统一
+    yield [
+      dayjs(record.date).format('YYYY-MM-DD HH:mm:ss'),
+      record.height.toFixed(1),
+      record.weight ? record.weight.toFixed(2) : ''
+    ].join(',')
+  }
+}
+
+// 生成导出的 CSV 文本（不含 BOM）
+export const buildCsvContent = (records, childName) => {
+  return Array.from(csvLines(records, childName)).join('\n')
+}
+
+// 每个分块的字符数
+const WRITE_CHUNK_SIZE = 64 * 1024
 
-    return records;
+// 超过这个记录数时改用写入会话分块导出，单次桥接调用的大小不再随记录数增长
+export const STREAM_EXPORT_THRESHOLD = 5000
+
+// 通过写入会话逐块保存各行文本：同一时间只有一个分块在 JS 端和桥接中，失败时放弃会话并删除半截文件
+export const writeInChunks = async (FilePlugin, lines, fileName, mimeType) => {
+  const { sessionId } = await FilePlugin.openWriteSession({ fileName, mimeType })
+  try {
+    let chunk = '\uFEFF'
+    let first = true
+    for (const line of lines) {
+      chunk += first ? line : '\n' + line
+      first = false
+      if (chunk.length >= WRITE_CHUNK_SIZE) {
+        await FilePlugin.appendToWriteSession({ sessionId, data: chunk, encoding: 'utf8' })
+        chunk = ''
+      }
+    }
+    if (chunk) {
+      await FilePlugin.appendToWriteSession({ sessionId, data: chunk, encoding: 'utf8' })
+    }
+    return await FilePlugin.commitWriteSession({ sessionId })
   } catch (error) {
-    console.error('处理文件内容错误:', error);
-    throw error;
+    await FilePlugin.abortWriteSession({ sessionId }).catch(() => {})
+    throw error
   }
 }
 
@@ -339,77 +451,31 @@ export const exportToCsv = async (records, childName, FilePlugin) => {
       return
     }
 
-    // 按日期时间（精确到小时）进行去重
-    const uniqueRecords = new Map()
-    records.forEach(record => {
-      const dateKey = getDateTimeHourKey(new Date(record.date))
-      if (!uniqueRecords.has(dateKey) || new Date(record.date) > new Date(uniqueRecords.get(dateKey).date)) {
-        uniqueRecords.set(dateKey, record)
-      }
-    })
-
-    // 准备CSV内容
-    const headerRow = `儿童姓名：${childName}`
-    const columnHeaders = '日期,身高(cm),体重(kg)'
-    const rows = Array.from(uniqueRecords.values())
-      .sort((a, b) => new Date(b.date) - new Date(a.date))
-      .map(record => {
-        // 确保日期格式统一
-        const date = dayjs(record.date)
-        return [
-          date.format('YYYY-MM-DD HH:mm:ss'),
-          record.height.toFixed(1),
-          record.weight ? record.weight.toFixed(2) : ''
-        ]
-      })
-    
-    const csvContent = [
-      headerRow,
-      columnHeaders,
-      ...rows.map(row => row.join(','))
-    ].join('\n')
-
     const fileName = `${childName}_生长记录_${formatDateForFileName(new Date())}.csv`
 
-    if (Capacitor.getPlatform() === 'android') {
-      // 添加 UTF-8 BOM
-      const bom = new Uint8Array([0xEF, 0xBB, 0xBF]);
-      const textEncoder = new TextEncoder();
-      const contentArray = textEncoder.encode(csvContent);
-      
-      // 合并BOM和内容
-      const finalContent = new Uint8Array(bom.length + contentArray.length);
-      finalContent.set(bom);
-      finalContent.set(contentArray, bom.length);
-
-      // 将 Uint8Array 转换为 base64 字符串
-      let base64Content = '';
-      for (let i = 0; i < finalContent.length; i++) {
-        base64Content += String.fromCharCode(finalContent[i]);
-      }
-      base64Content = btoa(base64Content);
-
-      const result = await FilePlugin.saveFile({
-        content: base64Content,
-        fileName: fileName,
-        childName: childName,
-        mimeType: 'text/csv; charset=utf-8'
+    if (Capacitor.getPlatform() === 'android' && records.length > STREAM_EXPORT_THRESHOLD) {
+      // 记录很多时按行生成并分块写入，原生端逐块写入文件
+      const result = await writeInChunks(FilePlugin, csvLines(records, childName), fileName, 'text/csv; charset=utf-8')
+      console.log('文件保存结果:', result)
+      ElMessage.success('文件保存成功')
+    } else if (Capacitor.getPlatform() === 'android') {
+      // 由原生端去重、排序、格式化并直接写入文件
+      const result = await FilePlugin.exportRecords({
+        fileName,
+        childName,
+        mimeType: 'text/csv; charset=utf-8',
+        records: records.map(({ date, height, weight }) => ({ date, height, weight: weight ?? null })),
+        columns: [
+          { key: 'date', title: '日期' },
+          { key: 'height', title: '身高(cm)', decimals: 1 },
+          { key: 'weight', title: '体重(kg)', decimals: 2 }
+        ]
       })
-
       console.log('文件保存结果:', result)
       ElMessage.success('文件保存成功')
     } else {
       // Web端导出
-      const bom = new Uint8Array([0xEF, 0xBB, 0xBF]);
-      const blob = new Blob([bom, csvContent], { type: 'text/csv; charset=utf-8' });
-      const url = window.URL.createObjectURL(blob);
-      const link = document.createElement('a');
-      link.href = url;
-      link.setAttribute('download', fileName);
-      document.body.appendChild(link);
-      link.click();
-      document.body.removeChild(link);
-      window.URL.revokeObjectURL(url);
+      downloadCsv(buildCsvContent(records, childName), fileName)
       ElMessage.success('文件导出成功');
     }
   } catch (error) {
@@ -418,14 +484,170 @@ export const exportToCsv = async (records, childName, FilePlugin) => {
   }
 }
 
+// Web 端通过下载链接保存 CSV（带 BOM）
+const downloadCsv = (csvContent, fileName) => {
+  const bom = new Uint8Array([0xEF, 0xBB, 0xBF]);
+  const blob = new Blob([bom, csvContent], { type: 'text/csv; charset=utf-8' });
+  const url = window.URL.createObjectURL(blob);
+  const link = document.createElement('a');
+  link.href = url;
+  link.setAttribute('download', fileName);
+  document.body.appendChild(link);
+  link.click();
+  document.body.removeChild(link);
+  window.URL.revokeObjectURL(url);
+}
+
+// 带 BOM 的 UTF-8 文本转 base64，分段转换避免 fromCharCode 参数过多
+const toBase64 = (text) => {
+  const bytes = new TextEncoder().encode('\uFEFF' + text)
+  let binary = ''
+  for (let i = 0; i < bytes.length; i += 0x8000) {
+    binary += String.fromCharCode.apply(null, bytes.subarray(i, i + 0x8000))
+  }
+  return btoa(binary)
+}
+
+// 导出所有孩子的记录，每个孩子一个 CSV 文件；Android 上整批交给原生端 saveFiles，
+// 选择器依次弹出，上一个文件在后台写入时就可以选择下一个，每完成一个文件调用 onProgress({ completed, total })。
+// 返回 { saved, cancelled, failed }，没有记录时返回 null
+export const exportAllToCsv = async (children, getRecords, FilePlugin, onProgress) => {
+  const fileDate = formatDateForFileName(new Date())
+  const files = children
+    .map(child => ({ child, records: getRecords(child.id) || [] }))
+    .filter(({ records }) => records.length)
+    .map(({ child, records }) => ({
+      fileName: `${child.name}_生长记录_${fileDate}.csv`,
+      content: buildCsvContent(records, child.name)
+    }))
+  if (!files.length) {
+    ElMessage.warning('没有可导出的记录')
+    return null
+  }
+
+  if (Capacitor.getPlatform() !== 'android') {
+    files.forEach(({ fileName, content }) => downloadCsv(content, fileName))
+    return { saved: files.length, cancelled: 0, failed: 0 }
+  }
+
+  const batchId = `export-all-${Date.now()}`
+  const listener = await FilePlugin.addListener('saveFilesProgress', (progress) => {
+    if (progress.batchId === batchId) {
+      onProgress?.(progress)
+    }
+  })
+  try {
+    const { results } = await FilePlugin.saveFiles({
+      taskId: batchId,
+      files: files.map(({ fileName, content }) => ({
+        fileName,
+        content: toBase64(content),
+        mimeType: 'text/csv; charset=utf-8'
+      }))
+    })
+    return {
+      saved: results.filter(result => result.uri).length,
+      cancelled: results.filter(result => result.cancelled).length,
+      failed: results.filter(result => result.error).length
+    }
+  } finally {
+    listener.remove()
+  }
+}
+
+// 保存文件时应用在后台被系统关闭，重新启动后原生端会把暂存的内容写入选择的文件并发出 saveRecovered 事件
+export const listenForRecoveredSaves = (FilePlugin) => {
+  if (Capacitor.getPlatform() !== 'android') {
+    return
+  }
+  FilePlugin.addListener('saveRecovered', (result) => {
+    console.log('恢复的文件保存结果:', result)
+    if (result.uri) {
+      ElMessage.success(`文件 ${result.fileName} 已保存`)
+    } else if (result.error) {
+      ElMessage.error(`文件 ${result.fileName} 保存失败: ${result.error}`)
+    }
+  })
+}
+
+// 超过这个大小的文件在 Android 上通过文件句柄或分块读取，不再经一次桥接调用返回整个文件或全部解析结果
+export const LARGE_IMPORT_SIZE = 2 * 1024 * 1024
+
+// 通过读取会话分块读取文本：原生端检测编码并流式解码，每块以 UTF-8 字符串返回，不经过 base64
+export const readTextInChunks = async (FilePlugin, path) => {
+  const { sessionId, charset } = await FilePlugin.openReadSession({ path, encoding: 'auto' })
+  try {
+    console.log('原生解码，编码:', charset)
+    const chunks = []
+    for (;;) {
+      const chunk = await FilePlugin.readNextChunk({ sessionId })
+      chunks.push(chunk.content)
+      if (chunk.eof || !chunk.content) {
+        break
+      }
+    }
+    return chunks.join('')
+  } finally {
+    await FilePlugin.closeReadSession({ sessionId }).catch(() => {})
+  }
+}
+
+// 通过原生注册的路径处理器直接 fetch 文件内容，桥接层只传递句柄；原生端检测编码并转码为 UTF-8
+export const readTextViaFileHandle = async (FilePlugin, path) => {
+  const { handle, url } = await FilePlugin.openFileHandle({ path, encoding: 'auto' })
+  try {
+    const response = await fetch(url)
+    if (!response.ok) {
+      throw new Error(`读取文件失败：HTTP ${response.status}`)
+    }
+    console.log('原生转码，编码:', response.headers.get('X-Source-Charset'))
+    return await response.text()
+  } finally {
+    await FilePlugin.releaseFileHandle({ handle }).catch(() => {})
+  }
+}
+
+// 大文件优先通过文件句柄读取；路径处理器不可用时改用读取会话分块读取
+const readLargeText = async (FilePlugin, path) => {
+  try {
+    return await readTextViaFileHandle(FilePlugin, path)
+  } catch (error) {
+    console.warn('通过文件句柄读取失败，改用分块读取:', error)
+    return readTextInChunks(FilePlugin, path)
+  }
+}
+
+// 上次导入的文件仍有读取权限时可直接再次导入，跳过文件选择器
+const pickCsvFile = async (FilePlugin) => {
+  const { documents } = await FilePlugin.getRecentDocuments({ kind: 'file', limit: 1 })
+    .catch(() => ({ documents: [] }))
+  const recent = documents[0]
+  if (recent) {
+    try {
+      await ElMessageBox.confirm(`是否重新导入上次的文件「${recent.name}」？`, '导入CSV', {
+        confirmButtonText: '重新导入',
+        cancelButtonText: '选择其他文件',
+        distinguishCancelAndClose: true
+      })
+      return { path: recent.uri, name: recent.name }
+    } catch (action) {
+      if (action !== 'cancel') {
+        return null
+      }
+    }
+  }
+  return FilePlugin.pickFile({
+    type: 'text/csv',
+    title: '选择CSV文件'
+  })
+}
+
 // 导入CSV文件
-export const importCsv = async (FilePlugin, processCallback) => {
+// Android 上一般由原生端解析，parseCsv 的结果交给 processParsed；大文件和其他平台读取内容后按行交给 processCallback
+export const importCsv = async (FilePlugin, processCallback, processParsed) => {
   try {
     if (Capacitor.getPlatform() === 'android') {
-      const result = await FilePlugin.pickFile({
-        type: 'text/csv',
-        title: '选择CSV文件'
-      });
+      const result = await pickCsvFile(FilePlugin);
 
       if (!result || !result.path) {
         return;
@@ -433,36 +655,24 @@ export const importCsv = async (FilePlugin, processCallback) => {
 
       console.log('选择的文件路径:', result.path);
 
-      // 以base64方式读取文件
-      const fileContent = await FilePlugin.readFile({
-        path: result.path,
-        encoding: 'base64'
-      });
-
-      console.log('读取到的文件内容:', fileContent);
-
-      if (!fileContent || !fileContent.content) {
-        throw new Error('无法读取文件内容');
-      }
-
-      // 将base64转换为ArrayBuffer
-      const binaryString = atob(fileContent.content);
-      const bytes = new Uint8Array(binaryString.length);
-      for (let i = 0; i < binaryString.length; i++) {
-        bytes[i] = binaryString.charCodeAt(i);
+      const { size } = await FilePlugin.getDocumentMetadata({ uri: result.path })
+        .catch(() => ({ size: null }));
+      if (size > LARGE_IMPORT_SIZE) {
+        // 编码检测和解码都在原生端完成，JS 端不再重复解码
+        const text = await readLargeText(FilePlugin, result.path);
+        const lines = text.split('\n').filter(line => line.trim());
+        if (!lines.length) {
+          throw new Error('无法读取文件内容');
+        }
+        console.log('大文件读取完成，行数:', lines.length);
+        await processCallback(lines);
+        return;
       }
 
-      console.log('转换后的字节数组:', bytes);
-
-      // 解码内容
-      let content = decodeContent(bytes);
-      console.log('解码后的内容:', content);
-      
-      // 分割行并过滤空行
-      const lines = content.split('\n').filter(line => line.trim());
-      console.log('分割后的行数:', lines.length);
-      
-      await processCallback(lines);
+      // 由原生端检测编码并解析 CSV，桥接层只传递解析结果
+      const parsed = await FilePlugin.parseCsv({ path: result.path });
+      console.log('原生解析完成，编码:', parsed.charset, '记录数:', parsed.records.length);
+      await processParsed(parsed);
     } else {
       const input = document.createElement('input');
       input.type = 'file';